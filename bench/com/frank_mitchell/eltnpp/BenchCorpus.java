@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generated ELTN documents of about a megabyte each, for benchmarks.
+ * Each is the same on every run.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public enum BenchCorpus {
+    /** Many small definitions of every simple type */
+    FLAT {
+        @Override
+        void append(StringBuilder text, Random random, int n) {
+            text.append("name").append(n).append(" = 'value number ")
+                    .append(n).append("'\n");
+            text.append("count").append(n).append(" = ")
+                    .append(random.nextInt(1000000)).append('\n');
+            text.append("ratio").append(n).append(" = ")
+                    .append(random.nextInt(1000)).append('.')
+                    .append(random.nextInt(1000)).append('\n');
+            text.append("flag").append(n).append(" = ")
+                    .append(random.nextBoolean()).append("; ");
+            text.append("none").append(n).append(" = nil\n");
+        }
+    },
+
+    /** Tables nested 32 deep, with a few keys at each level */
+    DEEP {
+        @Override
+        void append(StringBuilder text, Random random, int n) {
+            final int depth = 32;
+            text.append("deep").append(n).append(" = ");
+            for (int i = 0; i < depth; i++) {
+                text.append("{ level = ").append(i).append(", [")
+                        .append(random.nextInt(100)).append("] = 'x', child = ");
+            }
+            text.append("{}");
+            for (int i = 0; i < depth; i++) {
+                text.append(" }");
+            }
+            text.append('\n');
+        }
+    },
+
+    /** Large arrays of integers and floats in various notations */
+    NUMBERS {
+        @Override
+        void append(StringBuilder text, Random random, int n) {
+            text.append("numbers").append(n).append(" = {\n");
+            for (int i = 0; i < 1000; i++) {
+                switch (i % 6) {
+                    case 0:
+                        text.append(random.nextInt(1000));
+                        break;
+                    case 1:
+                        text.append(random.nextLong());
+                        break;
+                    case 2:
+                        text.append(random.nextInt(100000) / 100.0);
+                        break;
+                    case 3:
+                        text.append(random.nextDouble());
+                        break;
+                    case 4:
+                        text.append(random.nextInt(1000)).append("e")
+                                .append(random.nextInt(40) - 20);
+                        break;
+                    default:
+                        text.append("0x")
+                                .append(Integer.toHexString(random.nextInt()));
+                        break;
+                }
+                text.append((i % 10 == 9) ? ",\n" : ", ");
+            }
+            text.append("}\n");
+        }
+    },
+
+    /** Long strings with no escapes */
+    STRINGS {
+        @Override
+        void append(StringBuilder text, Random random, int n) {
+            text.append("text").append(n).append(" = \"");
+            int words = 200 + random.nextInt(400);
+            for (int i = 0; i < words; i++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            text.append("\"\n");
+        }
+    },
+
+    /** Strings where nearly every word has an escape sequence */
+    ESCAPES {
+        @Override
+        void append(StringBuilder text, Random random, int n) {
+            text.append("escaped").append(n).append(" = \"");
+            for (int i = 0; i < 100; i++) {
+                text.append(WORDS[random.nextInt(WORDS.length)])
+                        .append(ESCAPE_SEQUENCES[random.nextInt(
+                                ESCAPE_SEQUENCES.length)]);
+            }
+            text.append("\"\n");
+        }
+    };
+
+    private static final int SIZE = 1 << 20;
+
+    private static final String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur",
+        "adipiscing", "elit", "sed", "do", "eiusmod", "tempor",
+        "caf\u00E9", "na\u00EFve", "\u00FCber", "\u65E5\u672C"
+    };
+
+    private static final String[] ESCAPE_SEQUENCES = {
+        "\\n", "\\t", "\\\\", "\\\"", "\\'", "\\x41", "\\65", "\\u{E9}",
+        "\\u{1F600}", " "
+    };
+
+    private String _text;
+    private byte[] _utf8;
+
+    abstract void append(StringBuilder text, Random random, int n);
+
+    /**
+     * Gets the document.
+     *
+     * @return the document text
+     */
+    public synchronized String text() {
+        if (_text == null) {
+            StringBuilder text = new StringBuilder(SIZE + 4096);
+            Random random = new Random(ordinal());
+            for (int n = 0; text.length() < SIZE; n++) {
+                append(text, random, n);
+            }
+            _text = text.toString();
+        }
+        return _text;
+    }
+
+    /**
+     * Gets the document encoded in UTF-8.
+     *
+     * @return the document bytes
+     */
+    public synchronized byte[] utf8() {
+        if (_utf8 == null) {
+            _utf8 = text().getBytes(StandardCharsets.UTF_8);
+        }
+        return _utf8;
+    }
+}
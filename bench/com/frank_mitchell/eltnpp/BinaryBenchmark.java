@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reloading a whole document from UTF-8 text and from binary
+ * ELTN.  One operation reads a corpus document into an
+ * {@link EltnTable} with {@link EltnValue#readDocument(EltnPullParser)}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryBenchmark {
+
+    @Param({"FLAT", "DEEP", "NUMBERS", "STRINGS"})
+    public BenchCorpus corpus;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private byte[] _bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("binary".equals(format)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            EltnService.copy(EltnService.createPullParser(
+                    new StringReader(corpus.text())),
+                    EltnService.createBinaryWriter(out));
+            _bytes = out.toByteArray();
+        } else {
+            _bytes = corpus.utf8();
+        }
+    }
+
+    @Benchmark
+    public EltnTable readDocument() throws IOException {
+        return EltnValue.readDocument(EltnService.createPullParser(
+                ByteBuffer.wrap(_bytes), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures what {@link EltnParserMetrics} cost, event by event as in
+ * {@link ParserBenchmark}.  With {@code metrics=off} parsers come from
+ * {@link EltnService} exactly as they do there, and should score the
+ * same as {@code ParserBenchmark.events}; with {@code metrics=on} they
+ * come from a factory with metrics.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MetricsBenchmark.BATCH)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"FLAT", "STRINGS"})
+    public BenchCorpus corpus;
+
+    /** "reader" for a Reader of chars, "utf8" for a buffer of bytes */
+    @Param({"reader", "utf8"})
+    public String input;
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    private EltnPullParserFactory _factory;
+    private EltnPullParser _parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        _factory = "on".equals(metrics)
+                ? EltnService.getParserFactory(StandardCharsets.UTF_8)
+                        .withMetrics(new EltnParserMetrics())
+                : null;
+    }
+
+    private EltnPullParser createParser() throws IOException {
+        if (_factory == null) {
+            if ("utf8".equals(input)) {
+                return EltnService.createPullParser(
+                        ByteBuffer.wrap(corpus.utf8()), StandardCharsets.UTF_8);
+            }
+            return EltnService.createPullParser(new StringReader(corpus.text()));
+        }
+        if ("utf8".equals(input)) {
+            return _factory.createParser(ByteBuffer.wrap(corpus.utf8()),
+                    StandardCharsets.UTF_8);
+        }
+        return _factory.createParser(new StringReader(corpus.text()));
+    }
+
+    @Benchmark
+    public void events(Blackhole bh) throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            EltnPullParser parser = _parser;
+            if (parser == null || !parser.hasNext()) {
+                parser = createParser();
+                _parser = parser;
+            }
+            parser.next();
+            bh.consume(parser.getEvent());
+        }
+    }
+}
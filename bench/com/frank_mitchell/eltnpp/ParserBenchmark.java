@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the pull parser event by event.
+ * One operation is one event, so the score is events per second and
+ * {@code -prof gc} reports {@code gc.alloc.rate.norm} in bytes per event.
+ * The {@code megabytes} counter gives input throughput in MB/s,
+ * counting the document's size in UTF-8 whatever the input.
+ * A parser that reaches the end of its document is replaced with a new
+ * one, so each measurement also includes creating parsers.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ParserBenchmark.BATCH)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"FLAT", "DEEP", "NUMBERS", "STRINGS", "ESCAPES"})
+    public BenchCorpus corpus;
+
+    /** "reader" for a Reader of chars, "utf8" for a buffer of bytes */
+    @Param({"reader", "utf8"})
+    public String input;
+
+    /** Most distinct key names to match in {@link #matchKey} */
+    private static final int MAX_KEYS = 16;
+
+    private EltnPullParser _parser;
+    private double _megabytesPerEvent;
+    private EltnKeySet _keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        EltnPullParser parser = createParser();
+        long events = 0;
+        Set<String> names = new LinkedHashSet<>();
+        while (parser.hasNext()) {
+            parser.next();
+            events++;
+            EltnEvent event = parser.getEvent();
+            if ((event == EltnEvent.DEF_NAME
+                    || event == EltnEvent.TABLE_KEY_STRING)
+                    && names.size() < MAX_KEYS) {
+                names.add(parser.getString());
+            }
+        }
+        if (parser.getEvent() == EltnEvent.ERROR) {
+            throw new IllegalStateException(corpus + ": " + parser.getError()
+                    + " at line " + parser.getTextLineNumber());
+        }
+        _megabytesPerEvent = corpus.utf8().length / 1e6 / events;
+        _keys = EltnKeySet.of(names.toArray(new String[0]));
+    }
+
+    private EltnPullParser createParser() throws IOException {
+        if ("utf8".equals(input)) {
+            return EltnService.createPullParser(ByteBuffer.wrap(corpus.utf8()),
+                    StandardCharsets.UTF_8);
+        }
+        return EltnService.createPullParser(new StringReader(corpus.text()));
+    }
+
+    private EltnPullParser nextEvent() throws IOException {
+        EltnPullParser parser = _parser;
+        if (parser == null || !parser.hasNext()) {
+            parser = createParser();
+            _parser = parser;
+        }
+        parser.next();
+        return parser;
+    }
+
+    @Benchmark
+    public void events(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            bh.consume(nextEvent().getEvent());
+        }
+        throughput.megabytes += _megabytesPerEvent * BATCH;
+    }
+
+    @Benchmark
+    public void getString(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            EltnPullParser parser = nextEvent();
+            switch (parser.getEvent()) {
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                case VALUE_STRING:
+                    bh.consume(parser.getString());
+                    break;
+                default:
+                    bh.consume(parser.getEvent());
+                    break;
+            }
+        }
+        throughput.megabytes += _megabytesPerEvent * BATCH;
+    }
+
+    /**
+     * Dispatches on string keys the way {@link #getString} would with a
+     * {@code switch}, but without making Strings.
+     */
+    @Benchmark
+    public void matchKey(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        final EltnKeySet keys = _keys;
+        for (int i = 0; i < BATCH; i++) {
+            EltnPullParser parser = nextEvent();
+            switch (parser.getEvent()) {
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                    bh.consume(parser.matchKey(keys));
+                    break;
+                default:
+                    bh.consume(parser.getEvent());
+                    break;
+            }
+        }
+        throughput.megabytes += _megabytesPerEvent * BATCH;
+    }
+
+    @Benchmark
+    public void getNumber(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            EltnPullParser parser = nextEvent();
+            switch (parser.getEvent()) {
+                case TABLE_KEY_INTEGER:
+                case TABLE_KEY_NUMBER:
+                case VALUE_INTEGER:
+                case VALUE_NUMBER:
+                    bh.consume(parser.getNumber());
+                    break;
+                default:
+                    bh.consume(parser.getEvent());
+                    break;
+            }
+        }
+        throughput.megabytes += _megabytesPerEvent * BATCH;
+    }
+
+    @Benchmark
+    public void getDouble(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            EltnPullParser parser = nextEvent();
+            switch (parser.getEvent()) {
+                case TABLE_KEY_INTEGER:
+                case TABLE_KEY_NUMBER:
+                case VALUE_INTEGER:
+                case VALUE_NUMBER:
+                    bh.consume(parser.getDouble());
+                    break;
+                default:
+                    bh.consume(parser.getEvent());
+                    break;
+            }
+        }
+        throughput.megabytes += _megabytesPerEvent * BATCH;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares reading every event of a document with skipping each
+ * definition's value, with projecting a small part of it, and with a
+ * bare scan for braces that sets the upper bound for skipping.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkipValueBenchmark {
+
+    private static final String ENTRY
+            = "{ name = 'entry', id = 12345, ratio = 0.75, tags = { 'a', 'b' },\n"
+            + "  [\"quoted key\"] = \"with \\\"escapes\\\"\", nested = {\n"
+            + "    { x = 1, y = 2 }, { x = 3, y = 4 },\n"
+            + "    'a string with } and {', true, false, nil } },\n";
+
+    private byte[] _document;
+    private EltnPullParserFactory _projected;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("def").append(i).append(" = {\n");
+            for (int j = 0; j < 50; j++) {
+                text.append("  ").append(ENTRY);
+            }
+            text.append("}\n");
+        }
+        _document = text.toString().getBytes(StandardCharsets.UTF_8);
+        _projected = EltnService.getParserFactory(StandardCharsets.UTF_8)
+                .withProjection(EltnProjection.of("def42", "def7[*].tags"));
+    }
+
+    private EltnPullParser createParser() throws IOException {
+        return EltnService.createPullParser(ByteBuffer.wrap(_document),
+                StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void readEvents(Blackhole bh) throws IOException {
+        EltnPullParser parser = createParser();
+        while (parser.hasNext()) {
+            parser.next();
+            bh.consume(parser.getEvent());
+        }
+    }
+
+    @Benchmark
+    public void skipValues(Blackhole bh) throws IOException {
+        EltnPullParser parser = createParser();
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent() == EltnEvent.DEF_NAME) {
+                parser.skipValue();
+            }
+            bh.consume(parser.getEvent());
+        }
+    }
+
+    @Benchmark
+    public void projectOne(Blackhole bh) throws IOException {
+        EltnPullParser parser = _projected.createParser(
+                ByteBuffer.wrap(_document), StandardCharsets.UTF_8);
+        while (parser.hasNext()) {
+            parser.next();
+            bh.consume(parser.getEvent());
+        }
+    }
+
+    @Benchmark
+    public int scanBraces() {
+        int depth = 0;
+        for (byte b : _document) {
+            if (b == '{') {
+                depth++;
+            } else if (b == '}') {
+                depth--;
+            }
+        }
+        return depth;
+    }
+}
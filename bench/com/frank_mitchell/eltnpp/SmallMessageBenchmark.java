@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of setting up a parser for a message small enough
+ * that setup might outweigh parsing: a new parser from
+ * {@link EltnService} each time, against a factory that reuses each
+ * thread's parser.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmallMessageBenchmark {
+
+    private static final String MESSAGE
+            = "id = 1234; method = 'cache.get'; args = { 'user:42', ttl = 30 }";
+
+    private byte[] _message;
+    private EltnPullParserFactory _reusing;
+
+    @Setup
+    public void setUp() {
+        _message = MESSAGE.getBytes(StandardCharsets.UTF_8);
+        _reusing = EltnService.getParserFactory(StandardCharsets.UTF_8)
+                .withParserReuse();
+    }
+
+    private static void readEvents(EltnPullParser parser, Blackhole bh)
+            throws IOException {
+        while (parser.hasNext()) {
+            parser.next();
+            bh.consume(parser.getEvent());
+        }
+    }
+
+    @Benchmark
+    public void newParser(Blackhole bh) throws IOException {
+        readEvents(EltnService.createPullParser(ByteBuffer.wrap(_message),
+                StandardCharsets.UTF_8), bh);
+    }
+
+    @Benchmark
+    public void reusedParser(Blackhole bh) throws IOException {
+        readEvents(_reusing.createParser(ByteBuffer.wrap(_message),
+                StandardCharsets.UTF_8), bh);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.eltnpp.spi.EltnStructuralIndex;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the streaming parser with the two-stage parser that indexes
+ * a document first.  Each operation either reads every event of a
+ * corpus document or skips each definition's value; the index is built
+ * as part of the operation except in {@code rewalk}, which walks one
+ * built in advance, and {@code buildIndex} measures stage one alone.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuralIndexBenchmark {
+
+    @Param({"FLAT", "DEEP", "NUMBERS", "STRINGS"})
+    public BenchCorpus corpus;
+
+    @Param({"read", "skip"})
+    public String walk;
+
+    private byte[] _bytes;
+    private EltnPullParserFactory _streaming;
+    private EltnPullParserFactory _indexed;
+    private EltnStructuralIndex _index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        _bytes = corpus.utf8();
+        _streaming = EltnService.getParserFactory(StandardCharsets.UTF_8);
+        _indexed = _streaming.withStructuralIndex();
+        _index = EltnStructuralIndex.build(ByteBuffer.wrap(_bytes));
+    }
+
+    private void walk(EltnPullParser parser, Blackhole bh)
+            throws IOException {
+        boolean skip = "skip".equals(walk);
+        while (parser.hasNext()) {
+            parser.next();
+            if (skip && parser.getEvent() == EltnEvent.DEF_NAME) {
+                parser.skipValue();
+            }
+            bh.consume(parser.getEvent());
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) throws IOException {
+        walk(_streaming.createParser(ByteBuffer.wrap(_bytes),
+                StandardCharsets.UTF_8), bh);
+    }
+
+    @Benchmark
+    public void indexed(Blackhole bh) throws IOException {
+        walk(_indexed.createParser(ByteBuffer.wrap(_bytes),
+                StandardCharsets.UTF_8), bh);
+    }
+
+    @Benchmark
+    public void rewalk(Blackhole bh) throws IOException {
+        walk(_index.createParser(), bh);
+    }
+
+    @Benchmark
+    public EltnStructuralIndex buildIndex() {
+        return EltnStructuralIndex.build(ByteBuffer.wrap(_bytes));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link EltnWriter} value by value, writing to a sink that
+ * discards its input.  With {@code -prof gc}, {@code gc.alloc.rate.norm}
+ * should be close to zero for every kind of value.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(WriterBenchmark.BATCH)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"integers", "doubles", "strings", "escapes"})
+    public String values;
+
+    /** "writer" for a Writer, "utf8" for an OutputStream */
+    @Param({"writer", "utf8"})
+    public String output;
+
+    private EltnWriter _writer;
+    private long[] _longs;
+    private double[] _doubles;
+    private String[] _strings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(1);
+        _longs = new long[BATCH];
+        _doubles = new double[BATCH];
+        _strings = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            _longs[i] = random.nextInt() * (long) random.nextInt(1000);
+            _doubles[i] = Math.round(random.nextDouble() * 1e7) / 1e3;
+            _strings[i] = "escapes".equals(values)
+                    ? "line " + i + "\n\t\"quoted\"\\"
+                    : "a plain string of moderate length " + i;
+        }
+        _writer = "utf8".equals(output)
+                ? EltnService.createWriter(OutputStream.nullOutputStream(),
+                        StandardCharsets.UTF_8)
+                : EltnService.createWriter(Writer.nullWriter());
+        _writer.writeDefName("values");
+        _writer.startTable();
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        final EltnWriter writer = _writer;
+        switch (values) {
+            case "integers":
+                for (long l : _longs) {
+                    writer.writeValue(l);
+                }
+                break;
+            case "doubles":
+                for (double d : _doubles) {
+                    writer.writeValue(d);
+                }
+                break;
+            default:
+                for (String s : _strings) {
+                    writer.writeValue(s);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePoint;
+import com.frank_mitchell.eltnpp.BenchCorpus;
+import com.frank_mitchell.eltnpp.BenchThroughput;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the lexers token by token.
+ * One operation is one token; see {@link com.frank_mitchell.eltnpp.ParserBenchmark}
+ * for how to read the results.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(LexerBenchmark.BATCH)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"FLAT", "DEEP", "NUMBERS", "STRINGS", "ESCAPES"})
+    public BenchCorpus corpus;
+
+    /** "default" for DefaultEltnLexer, "utf8" for Utf8EltnLexer */
+    @Param({"default", "utf8"})
+    public String lexer;
+
+    private EltnLexer _lexer;
+    private double _megabytesPerToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        EltnLexer lexer = createLexer();
+        long tokens = 0;
+        while (lexer.nextToken().type != EltnTokenType.TOKEN_END_OF_STREAM) {
+            tokens++;
+        }
+        _megabytesPerToken = corpus.utf8().length / 1e6 / tokens;
+    }
+
+    private EltnLexer createLexer() throws IOException {
+        if ("utf8".equals(lexer)) {
+            return new Utf8EltnLexer(ByteBuffer.wrap(corpus.utf8()), false);
+        }
+        return new DefaultEltnLexer(CodePoint.getSource(
+                new StringReader(corpus.text()), StandardCharsets.UTF_16));
+    }
+
+    @Benchmark
+    public void nextToken(Blackhole bh, BenchThroughput throughput)
+            throws IOException {
+        EltnLexer lexer = _lexer;
+        if (lexer == null) {
+            lexer = createLexer();
+        }
+        for (int i = 0; i < BATCH; i++) {
+            EltnToken token = lexer.nextToken();
+            if (token.type == EltnTokenType.TOKEN_END_OF_STREAM) {
+                lexer = createLexer();
+            }
+            bh.consume(token.type);
+        }
+        _lexer = lexer;
+        throughput.megabytes += _megabytesPerToken * BATCH;
+    }
+}
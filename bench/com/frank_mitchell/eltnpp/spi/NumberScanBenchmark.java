@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link EltnNumbers} with validating numbers through
+ * {@link Double#valueOf(String)} and catching the exception, as the lexer
+ * used to.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberScanBenchmark {
+
+    private static final String[] INTEGERS = {
+        "0", "1", "42", "-17", "65535", "1234567890", "-9223372036854775808"
+    };
+
+    private static final String[] FLOATS = {
+        "0.5", "3.14159", "-2.5e-3", "1e10", "6.02214076e23", ".25",
+        "0x1p4", "0x1.8p-1"
+    };
+
+    private static final String[] MALFORMED = {
+        "1e", "0x", "1..2", "12abc", "1-2", "."
+    };
+
+    @Param({"integers", "floats", "mixed"})
+    public String corpus;
+
+    private StringBuilder[] _numbers;
+    private EltnToken _token;
+
+    @Setup
+    public void setUp() {
+        String[] texts;
+        switch (corpus) {
+            case "integers":
+                texts = INTEGERS;
+                break;
+            case "floats":
+                texts = FLOATS;
+                break;
+            default:
+                texts = new String[INTEGERS.length + FLOATS.length
+                        + MALFORMED.length];
+                System.arraycopy(INTEGERS, 0, texts, 0, INTEGERS.length);
+                System.arraycopy(FLOATS, 0, texts, INTEGERS.length,
+                        FLOATS.length);
+                System.arraycopy(MALFORMED, 0, texts,
+                        INTEGERS.length + FLOATS.length, MALFORMED.length);
+                break;
+        }
+        /* the lexers hand over mutable buffers, not Strings */
+        _numbers = new StringBuilder[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            _numbers[i] = new StringBuilder(texts[i]);
+        }
+        _token = new EltnToken("");
+    }
+
+    @Benchmark
+    public void scanner(Blackhole bh) {
+        for (StringBuilder number : _numbers) {
+            bh.consume(EltnNumbers.parse(number, _token));
+            bh.consume(_token.doubleValue);
+        }
+    }
+
+    @Benchmark
+    public void doubleValueOf(Blackhole bh) {
+        for (StringBuilder number : _numbers) {
+            EltnTokenType type;
+            try {
+                Double d = Double.valueOf(number.toString());
+                type = (d.isInfinite() || d.isNaN())
+                        ? EltnTokenType.TOKEN_INVALID
+                        : EltnTokenType.TOKEN_NUMBER;
+                bh.consume(d.doubleValue());
+            } catch (NumberFormatException e) {
+                type = EltnTokenType.TOKEN_INVALID;
+            }
+            bh.consume(type);
+        }
+    }
+}
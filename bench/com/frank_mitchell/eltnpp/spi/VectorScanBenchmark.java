@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.eltnpp.BenchCorpus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link ByteScanner} with and without the Vector API.
+ * One operation either lexes a whole corpus document with
+ * {@link Utf8EltnLexer} or builds its {@link EltnStructuralIndex}.
+ * Both benchmarks run with {@code jdk.incubator.vector}; {@code vector}
+ * turns it on with a system property.
+ * <p>
+ * This needs JDK 21 and the multi-release jar, e.g.
+ * {@code ant bench -Djdk21.home=... -Dbench.jvm=.../bin/java
+ * -Dbench.args=VectorScanBenchmark}; on anything else {@code vector}
+ * refuses to run rather than measure the scalar code twice.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorScanBenchmark {
+
+    @Param({"FLAT", "DEEP", "NUMBERS", "STRINGS", "ESCAPES"})
+    public BenchCorpus corpus;
+
+    /** "lex" to lex the document, "index" to index it */
+    @Param({"lex", "index"})
+    public String work;
+
+    private byte[] _bytes;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        boolean vector = params.getBenchmark().endsWith(".vector");
+        if (ByteScanner.isVectorized() != vector) {
+            throw new IllegalStateException("Vector API "
+                    + (vector ? "unavailable" : "in use") + " in "
+                    + params.getBenchmark());
+        }
+        _bytes = corpus.utf8();
+    }
+
+    private void scan(Blackhole bh) throws IOException {
+        if ("index".equals(work)) {
+            bh.consume(EltnStructuralIndex.build(ByteBuffer.wrap(_bytes)));
+            return;
+        }
+        Utf8EltnLexer lexer = new Utf8EltnLexer(ByteBuffer.wrap(_bytes), false);
+        EltnToken token;
+        do {
+            token = lexer.nextToken();
+            bh.consume(token.type);
+        } while (token.type != EltnTokenType.TOKEN_END_OF_STREAM);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+    public void scalar(Blackhole bh) throws IOException {
+        scan(bh);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector",
+        "-D" + ByteScanner.VECTOR_PROPERTY + "=true"})
+    public void vector(Blackhole bh) throws IOException {
+        scan(bh);
+    }
+}
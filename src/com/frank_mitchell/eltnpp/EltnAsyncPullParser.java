@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2023 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A pull parser that never blocks for input.
+ * Instead of reading a stream it parses whatever bytes it has been fed;
+ * when those run out part way through a token, {@link #next()} reports
+ * {@link EltnEvent#NEED_MORE_INPUT} and {@link #hasNext()} stays true.
+ * After another {@link #feed(ByteBuffer)} the next call to {@link #next()}
+ * carries on as if nothing had happened.
+ * A token may be split anywhere, even inside a string or a UTF-8
+ * sequence.
+ * <p>
+ * {@link #skipValue()} and {@link #skipTable()} may also stop at
+ * {@link EltnEvent#NEED_MORE_INPUT}; the skip resumes on the next call to
+ * {@link #next()}, which then reports what the skip would have.
+ *
+ * @author Frank Mitchell
+ */
+public interface EltnAsyncPullParser extends EltnPullParser {
+
+    /**
+     * Adds the bytes remaining in a buffer to the parser's input.
+     * The bytes are copied, and the buffer's position moves to its limit.
+     *
+     * @param data the next bytes of the document.
+     * @throws IllegalStateException if {@link #endOfInput()} has been called.
+     */
+    public void feed(ByteBuffer data);
+
+    /**
+     * Signals that no more input will be fed.
+     * Whatever remains is then parsed to the end of the document, and
+     * {@link #next()} no longer reports {@link EltnEvent#NEED_MORE_INPUT}.
+     */
+    public void endOfInput();
+
+    /**
+     * Discards all input and starts over on a new document, to be fed as
+     * before.  Afterwards the current event is
+     * {@link EltnEvent#STREAM_START}.
+     */
+    public void reset();
+}
@@ -108,5 +108,11 @@ public enum EltnEvent {
     /**
      * After last ELTN element
      */
-    STREAM_END
+    STREAM_END,
+
+    /**
+     * The input fed to an {@link EltnAsyncPullParser} ran out part way
+     * through a token; feed it more and call {@code next()} again
+     */
+    NEED_MORE_INPUT
 }
@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed set of key names, built once and matched against many keys.
+ * Rather than {@code switch (parser.getString())}, which makes a String
+ * for every key just to compare it, a consumer builds a key set for the
+ * names it expects and switches on
+ * {@link EltnPullParser#matchKey(EltnKeySet)} instead.
+ * A parser can then compare its own buffer against the names, using a
+ * hash it computed while reading the key.
+ * <pre>
+ * static final EltnKeySet KEYS = EltnKeySet.of("host", "port");
+ * ...
+ * switch (parser.matchKey(KEYS)) {
+ *     case 0: ... // host
+ *     case 1: ... // port
+ *     default: parser.skipValue();
+ * }
+ * </pre>
+ * Key sets are immutable and may be shared freely.
+ *
+ * @author Frank Mitchell
+ */
+public final class EltnKeySet {
+
+    private final String[] _names;
+    private final int[] _hashes;
+    private final int[] _table;   /* index + 1, or 0 if empty */
+
+    private EltnKeySet(String[] names) {
+        _names = names;
+        _hashes = new int[names.length];
+        int size = Integer.highestOneBit(Math.max(1, names.length) * 2) * 2;
+        _table = new int[size];
+        for (int i = 0; i < names.length; i++) {
+            _hashes[i] = names[i].hashCode();
+            if (indexOf(names[i]) >= 0) {
+                throw new IllegalArgumentException(
+                        "Duplicate key: " + names[i]);
+            }
+            int h = spread(_hashes[i]) & (size - 1);
+            while (_table[h] != 0) {
+                h = (h + 1) & (size - 1);
+            }
+            _table[h] = i + 1;
+        }
+    }
+
+    /**
+     * Creates a key set.
+     * Each name's index is its position in the arguments.
+     *
+     * @param names the names to match
+     * @return a key set for the names
+     * @throws IllegalArgumentException if a name appears twice
+     */
+    public static EltnKeySet of(String... names) {
+        return new EltnKeySet(names.clone());
+    }
+
+    /**
+     * Creates a key set.
+     * Each name's index is its position in the list.
+     *
+     * @param names the names to match
+     * @return a key set for the names
+     * @throws IllegalArgumentException if a name appears twice
+     */
+    public static EltnKeySet of(List<String> names) {
+        return new EltnKeySet(names.toArray(new String[0]));
+    }
+
+    /**
+     * Gets the number of names.
+     *
+     * @return the size of this set
+     */
+    public int size() {
+        return _names.length;
+    }
+
+    /**
+     * Gets a name by its index.
+     *
+     * @param index an index from 0 to {@link #size()} - 1
+     * @return the name at that index
+     */
+    public String get(int index) {
+        return _names[index];
+    }
+
+    /**
+     * Finds a name.
+     *
+     * @param chars the characters to look for
+     * @return the index of the name, or -1 if it isn't in this set
+     */
+    public int indexOf(CharSequence chars) {
+        return indexOf(chars, 0, chars.length());
+    }
+
+    /**
+     * Finds a name in a range of characters.
+     *
+     * @param chars a sequence of characters
+     * @param start the index of the first character of the key
+     * @param end the index past the last character of the key
+     * @return the index of the name, or -1 if it isn't in this set
+     */
+    public int indexOf(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return indexOf(chars, start, end, hash);
+    }
+
+    /**
+     * Finds a name in a range of characters whose hash the caller already
+     * knows, e.g. because a lexer computed it while reading them.
+     *
+     * @param chars a sequence of characters
+     * @param start the index of the first character of the key
+     * @param end the index past the last character of the key
+     * @param hash what {@link String#hashCode()} would return for the key
+     * @return the index of the name, or -1 if it isn't in this set
+     */
+    public int indexOf(CharSequence chars, int start, int end, int hash) {
+        final int[] table = _table;
+        final int mask = table.length - 1;
+        final int length = end - start;
+        int h = spread(hash) & mask;
+        int slot;
+        while ((slot = table[h]) != 0) {
+            int index = slot - 1;
+            if (_hashes[index] == hash
+                    && matches(_names[index], chars, start, length)) {
+                return index;
+            }
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean matches(String name, CharSequence chars,
+            int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "EltnKeySet" + Arrays.toString(_names);
+    }
+}
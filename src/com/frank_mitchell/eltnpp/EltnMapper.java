@@ -0,0 +1,849 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds ELTN definitions and tables directly to Java objects,
+ * without building an intermediate tree.
+ * <p>
+ * A table binds to a record, through its canonical constructor,
+ * or to any other class with a no-argument constructor, through its
+ * non-static, non-final, non-transient fields.  Each key sets the
+ * component or field of the same name; other keys are skipped.
+ * Tables also bind to {@link List}, {@link Collection}, {@link Set},
+ * arrays, {@link Map} (with {@link String}, {@link Long} or
+ * {@link Object} keys), and {@link EltnTable}.
+ * Simple values bind to primitives and their wrappers, {@link String},
+ * enums (by name), and {@link Object} as read by {@link EltnValue}.
+ * A {@code nil} leaves a primitive at its default and sets anything
+ * else to {@code null}.
+ * <p>
+ * The mapper inspects each class once, turning its constructor and
+ * fields into {@link MethodHandle}s and its names into a hash table
+ * for keys, and caches the result for all later reads.
+ *
+ * @author Frank Mitchell
+ */
+public final class EltnMapper {
+
+    private EltnMapper() {
+    }
+
+    /**
+     * Reads an object of the given type.
+     * If the parser is at {@link EltnEvent#STREAM_START}, this reads the
+     * rest of the document, binding each definition as if it were a key
+     * in a table.  Otherwise this reads the value at the current event
+     * as {@link EltnValue#read(EltnPullParser)} does.
+     *
+     * A primitive type such as {@code int.class} reads as its wrapper.
+     *
+     * @param <T> the type to read
+     * @param parser a parser
+     * @param type the class of the result
+     * @return the object read, or {@code null} for {@code nil}
+     * @throws IOException if the parser could not read its source,
+     *         or if the document is malformed or does not fit the type
+     * @throws IllegalArgumentException if the mapper can't bind the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(EltnPullParser parser, Class<T> type)
+            throws IOException {
+        /* Class.cast() rejects every object for a primitive type */
+        Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+        return (T) boxed.cast(read(parser, (Type) type));
+    }
+
+    /**
+     * Reads an object of the given generic type, e.g. a
+     * {@code List<Foo>}.
+     *
+     * @param parser a parser
+     * @param type the type of the result
+     * @return the object read, or {@code null} for {@code nil}
+     * @throws IOException if the parser could not read its source,
+     *         or if the document is malformed or does not fit the type
+     * @throws IllegalArgumentException if the mapper can't bind the type
+     * @see #read(EltnPullParser, Class)
+     */
+    public static Object read(EltnPullParser parser, Type type)
+            throws IOException {
+        Binder binder = binderFor(type);
+        switch (parser.getEvent()) {
+            case STREAM_START:
+                if (binder instanceof TableBinder) {
+                    return ((TableBinder) binder).readTable(parser, true);
+                } else if (type == EltnTable.class) {
+                    return EltnValue.readDocument(parser);
+                }
+                throw new IllegalArgumentException(
+                        "cannot bind a document to " + type.getTypeName());
+            case DEF_NAME:
+            case TABLE_KEY_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case TABLE_KEY_STRING:
+                EltnValue.nextValue(parser);
+                break;
+            default:
+                break;
+        }
+        return binder.read(parser);
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    /**
+     * Reads the value at the current event, which is a simple value or
+     * {@link EltnEvent#TABLE_START}.  A table is read through its
+     * {@link EltnEvent#TABLE_END}.
+     */
+    private interface Binder {
+        Object read(EltnPullParser parser) throws IOException;
+    }
+
+    private abstract static class TableBinder implements Binder {
+
+        @Override
+        public final Object read(EltnPullParser parser) throws IOException {
+            switch (parser.getEvent()) {
+                case TABLE_START:
+                    return readTable(parser, false);
+                case VALUE_NIL:
+                    return null;
+                default:
+                    throw mismatch(parser, "a table");
+            }
+        }
+
+        /**
+         * Reads keys and values through the end of the current table
+         * or, if document is true, through the end of the stream.
+         */
+        abstract Object readTable(EltnPullParser parser, boolean document)
+                throws IOException;
+    }
+
+    private static final ClassValue<TableBinder> CLASS_BINDERS
+            = new ClassValue<TableBinder>() {
+        @Override
+        protected TableBinder computeValue(Class<?> type) {
+            return new ObjectBinder(type);
+        }
+    };
+
+    private static Binder binderFor(Type type) {
+        if (type instanceof Class) {
+            return binderFor((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType ptype = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) ptype.getRawType();
+            Type[] args = ptype.getActualTypeArguments();
+            if (raw == Map.class || raw == LinkedHashMap.class) {
+                return new MapBinder(args[0], binderFor(args[1]));
+            } else if (raw.isAssignableFrom(ArrayList.class)) {
+                return new ListBinder(binderFor(args[0]), false);
+            } else if (raw.isAssignableFrom(LinkedHashSet.class)) {
+                return new ListBinder(binderFor(args[0]), true);
+            }
+            return binderFor(raw);
+        } else if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            return arrayBinder(rawClass(component), binderFor(component));
+        } else if (type instanceof WildcardType) {
+            return binderFor(((WildcardType) type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return binderFor(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        throw new IllegalArgumentException("cannot bind " + type);
+    }
+
+    private static Binder binderFor(Class<?> type) {
+        if (type == String.class || type == CharSequence.class) {
+            return EltnMapper::readString;
+        } else if (type == Object.class) {
+            return EltnValue::read;
+        } else if (type == EltnTable.class) {
+            return p -> (p.getEvent() == EltnEvent.VALUE_NIL) ? null
+                    : (p.getEvent() == EltnEvent.TABLE_START) ? EltnValue.read(p)
+                    : fail(p, "a table");
+        } else if (type == Long.class || type == long.class) {
+            return p -> readInteger(p, Long.MIN_VALUE, Long.MAX_VALUE);
+        } else if (type == Integer.class || type == int.class) {
+            return p -> box(int.class,
+                    readInteger(p, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        } else if (type == Short.class || type == short.class) {
+            return p -> box(short.class,
+                    readInteger(p, Short.MIN_VALUE, Short.MAX_VALUE));
+        } else if (type == Byte.class || type == byte.class) {
+            return p -> box(byte.class,
+                    readInteger(p, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        } else if (type == Double.class || type == double.class) {
+            return p -> isNil(p) ? null : readDouble(p);
+        } else if (type == Float.class || type == float.class) {
+            return p -> isNil(p) ? null : (float) readDouble(p);
+        } else if (type == Number.class) {
+            return p -> (p.getEvent() == EltnEvent.VALUE_INTEGER) ? (Object) p.getLong()
+                    : isNil(p) ? null : (Object) readDouble(p);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return p -> isNil(p) ? null : readBoolean(p);
+        } else if (type == Character.class || type == char.class) {
+            return p -> {
+                String s = readString(p);
+                return (s == null) ? null
+                        : (s.length() == 1) ? (Object) s.charAt(0)
+                        : fail(p, "a character");
+            };
+        } else if (type.isEnum()) {
+            return p -> readEnum(p, type);
+        } else if (type.isArray()) {
+            return arrayBinder(type.getComponentType(),
+                    binderFor(type.getComponentType()));
+        } else if (type == Map.class || type == LinkedHashMap.class) {
+            return new MapBinder(Object.class, EltnValue::read);
+        } else if (type.isAssignableFrom(ArrayList.class)) {
+            return new ListBinder(EltnValue::read, false);
+        } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new ListBinder(EltnValue::read, true);
+        } else if (type.isPrimitive() || type.isInterface()
+                || Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException("cannot bind " + type.getName());
+        }
+        /* look up the class binder on use, in case it refers to itself */
+        return new TableBinder() {
+            @Override
+            Object readTable(EltnPullParser parser, boolean document)
+                    throws IOException {
+                return CLASS_BINDERS.get(type).readTable(parser, document);
+            }
+        };
+    }
+
+    private static Binder arrayBinder(Class<?> component, Binder elements) {
+        if (component == long.class) {
+            return new LongArrayBinder(Long.MIN_VALUE, Long.MAX_VALUE);
+        } else if (component == int.class) {
+            return new LongArrayBinder(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        } else if (component == double.class) {
+            return new DoubleArrayBinder();
+        }
+        ListBinder list = new ListBinder(elements, false);
+        return p -> {
+            List<?> values = (List<?>) list.read(p);
+            if (values == null) {
+                return null;
+            }
+            Object array = Array.newInstance(component, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != null || !component.isPrimitive()) {
+                    Array.set(array, i, values.get(i));
+                }
+            }
+            return array;
+        };
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type)
+                    .getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private static boolean isNil(EltnPullParser p) {
+        return p.getEvent() == EltnEvent.VALUE_NIL;
+    }
+
+    private static String readString(EltnPullParser p) throws IOException {
+        switch (p.getEvent()) {
+            case VALUE_STRING:
+                return p.getString();
+            case VALUE_NIL:
+                return null;
+            default:
+                throw mismatch(p, "a string");
+        }
+    }
+
+    private static Long readInteger(EltnPullParser p, long min, long max)
+            throws IOException {
+        if (isNil(p)) {
+            return null;
+        }
+        return readLong(p, min, max);
+    }
+
+    private static long readLong(EltnPullParser p, long min, long max)
+            throws IOException {
+        switch (p.getEvent()) {
+            case VALUE_INTEGER:
+            case VALUE_NUMBER:
+                long result;
+                try {
+                    result = p.getLong();
+                } catch (NumberFormatException e) {
+                    throw mismatch(p, "an integer");
+                }
+                if (result < min || result > max) {
+                    throw mismatch(p, "an integer in [" + min + ", " + max + "]");
+                }
+                return result;
+            default:
+                throw mismatch(p, "an integer");
+        }
+    }
+
+    private static double readDouble(EltnPullParser p) throws IOException {
+        switch (p.getEvent()) {
+            case VALUE_INTEGER:
+            case VALUE_NUMBER:
+                return p.getDouble();
+            default:
+                throw mismatch(p, "a number");
+        }
+    }
+
+    private static boolean readBoolean(EltnPullParser p) throws IOException {
+        switch (p.getEvent()) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+                return false;
+            default:
+                throw mismatch(p, "a boolean");
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(EltnPullParser p, Class<?> type)
+            throws IOException {
+        String name = readString(p);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf((Class) type, name);
+        } catch (IllegalArgumentException e) {
+            throw mismatch(p, "one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    private static Object box(Class<?> type, Long value) {
+        if (value == null) {
+            return null;
+        } else if (type == int.class) {
+            return value.intValue();
+        } else if (type == short.class) {
+            return value.shortValue();
+        } else if (type == byte.class) {
+            return value.byteValue();
+        }
+        return value;
+    }
+
+    private static Object fail(EltnPullParser p, String expected)
+            throws IOException {
+        throw mismatch(p, expected);
+    }
+
+    private static IOException mismatch(EltnPullParser p, String expected) {
+        if (p.getEvent() == EltnEvent.ERROR) {
+            return EltnValue.error(p);
+        }
+        return new IOException("ELTN " + p.getEvent() + " '" + p.getText()
+                + "' at line " + p.getTextLineNumber()
+                + ", column " + p.getTextColumnNumber()
+                + " is not " + expected);
+    }
+
+    private static IOException notClosed() {
+        return new IOException("ELTN table not closed");
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private static final class ListBinder extends TableBinder {
+        private final Binder _elements;
+        private final boolean _set;
+
+        ListBinder(Binder elements, boolean set) {
+            _elements = elements;
+            _set = set;
+        }
+
+        @Override
+        Object readTable(EltnPullParser p, boolean document)
+                throws IOException {
+            Collection<Object> result
+                    = _set ? new LinkedHashSet<>() : new ArrayList<>();
+            while (p.hasNext()) {
+                p.next();
+                switch (p.getEvent()) {
+                    case TABLE_END:
+                        return result;
+                    case COMMENT:
+                        break;
+                    case ERROR:
+                        throw EltnValue.error(p);
+                    case DEF_NAME:
+                    case TABLE_KEY_INTEGER:
+                    case TABLE_KEY_NUMBER:
+                    case TABLE_KEY_STRING:
+                        throw mismatch(p, "in a sequence");
+                    case STREAM_END:
+                        throw notClosed();
+                    default:
+                        result.add(_elements.read(p));
+                        break;
+                }
+            }
+            throw notClosed();
+        }
+    }
+
+    private static final class LongArrayBinder extends TableBinder {
+        private final long _min;
+        private final long _max;
+
+        LongArrayBinder(long min, long max) {
+            _min = min;
+            _max = max;
+        }
+
+        @Override
+        Object readTable(EltnPullParser p, boolean document)
+                throws IOException {
+            long[] values = new long[16];
+            int n = 0;
+            while (p.hasNext()) {
+                p.next();
+                switch (p.getEvent()) {
+                    case TABLE_END:
+                        if (_max == Long.MAX_VALUE) {
+                            return Arrays.copyOf(values, n);
+                        }
+                        int[] ints = new int[n];
+                        for (int i = 0; i < n; i++) {
+                            ints[i] = (int) values[i];
+                        }
+                        return ints;
+                    case COMMENT:
+                        break;
+                    default:
+                        if (n == values.length) {
+                            values = Arrays.copyOf(values, n * 2);
+                        }
+                        values[n++] = readLong(p, _min, _max);
+                        break;
+                }
+            }
+            throw notClosed();
+        }
+    }
+
+    private static final class DoubleArrayBinder extends TableBinder {
+
+        @Override
+        Object readTable(EltnPullParser p, boolean document)
+                throws IOException {
+            double[] values = new double[16];
+            int n = 0;
+            while (p.hasNext()) {
+                p.next();
+                switch (p.getEvent()) {
+                    case TABLE_END:
+                        return Arrays.copyOf(values, n);
+                    case COMMENT:
+                        break;
+                    default:
+                        if (n == values.length) {
+                            values = Arrays.copyOf(values, n * 2);
+                        }
+                        values[n++] = readDouble(p);
+                        break;
+                }
+            }
+            throw notClosed();
+        }
+    }
+
+    private static final class MapBinder extends TableBinder {
+        private final Class<?> _keys;
+        private final Binder _values;
+
+        MapBinder(Type keys, Binder values) {
+            _keys = rawClass(keys);
+            _values = values;
+            if (_keys != String.class && _keys != Long.class
+                    && _keys != Object.class) {
+                throw new IllegalArgumentException(
+                        "cannot bind map keys to " + keys.getTypeName());
+            }
+        }
+
+        @Override
+        Object readTable(EltnPullParser p, boolean document)
+                throws IOException {
+            Map<Object, Object> result = new LinkedHashMap<>();
+            long position = 0;
+            while (p.hasNext()) {
+                p.next();
+                Object key;
+                switch (p.getEvent()) {
+                    case TABLE_END:
+                        if (!document) {
+                            return result;
+                        }
+                        continue;
+                    case STREAM_END:
+                        if (document) {
+                            return result;
+                        }
+                        throw notClosed();
+                    case COMMENT:
+                        continue;
+                    case ERROR:
+                        throw EltnValue.error(p);
+                    case DEF_NAME:
+                    case TABLE_KEY_STRING:
+                        key = p.getString();
+                        EltnValue.nextValue(p);
+                        break;
+                    case TABLE_KEY_INTEGER:
+                        key = p.getLong();
+                        EltnValue.nextValue(p);
+                        break;
+                    case TABLE_KEY_NUMBER:
+                        key = p.getDouble();
+                        EltnValue.nextValue(p);
+                        break;
+                    default:
+                        key = ++position;
+                        break;
+                }
+                if (!_keys.isInstance(key)) {
+                    throw mismatch(p, "keyed by " + _keys.getSimpleName());
+                }
+                result.put(key, _values.read(p));
+            }
+            if (document) {
+                return result;
+            }
+            throw notClosed();
+        }
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private enum Kind {
+        LONG, DOUBLE, BOOLEAN, OBJECT
+    }
+
+    /**
+     * A field or record component.
+     */
+    private static final class Slot {
+        final Kind kind;
+        final Class<?> type;
+        final long min;
+        final long max;
+        final Binder binder;
+        /* for fields; takes (Object, long|double|boolean|Object) */
+        final MethodHandle setter;
+
+        Slot(Class<?> type, Type genericType, MethodHandle setter) {
+            this.type = type;
+            if (type == long.class || type == int.class
+                    || type == short.class || type == byte.class) {
+                kind = Kind.LONG;
+                min = (type == long.class) ? Long.MIN_VALUE
+                        : (type == int.class) ? Integer.MIN_VALUE
+                        : (type == short.class) ? Short.MIN_VALUE
+                        : Byte.MIN_VALUE;
+                max = -(min + 1);
+                binder = null;
+            } else {
+                kind = (type == double.class || type == float.class) ? Kind.DOUBLE
+                        : (type == boolean.class) ? Kind.BOOLEAN
+                        : Kind.OBJECT;
+                min = 0;
+                max = 0;
+                binder = (kind == Kind.OBJECT) ? binderFor(genericType) : null;
+            }
+            if (setter == null) {
+                this.setter = null;
+            } else {
+                Class<?> arg = (kind == Kind.LONG) ? long.class
+                        : (kind == Kind.DOUBLE) ? double.class
+                        : (kind == Kind.BOOLEAN) ? boolean.class
+                        : Object.class;
+                this.setter = MethodHandles.explicitCastArguments(setter,
+                        MethodType.methodType(void.class, Object.class, arg));
+            }
+        }
+    }
+
+    /* Record support, looked up reflectively so this runs on Java 11 */
+    private static final Method IS_RECORD;
+    private static final Method GET_RECORD_COMPONENTS;
+    private static final Method COMPONENT_NAME;
+    private static final Method COMPONENT_TYPE;
+    private static final Method COMPONENT_GENERIC_TYPE;
+
+    static {
+        Method isRecord = null;
+        Method getComponents = null;
+        Method name = null;
+        Method type = null;
+        Method genericType = null;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+            getComponents = Class.class.getMethod("getRecordComponents");
+            Class<?> component = Class.forName("java.lang.reflect.RecordComponent");
+            name = component.getMethod("getName");
+            type = component.getMethod("getType");
+            genericType = component.getMethod("getGenericType");
+        } catch (ReflectiveOperationException e) {
+            isRecord = null;
+        }
+        IS_RECORD = isRecord;
+        GET_RECORD_COMPONENTS = getComponents;
+        COMPONENT_NAME = name;
+        COMPONENT_TYPE = type;
+        COMPONENT_GENERIC_TYPE = genericType;
+    }
+
+    private static final class ObjectBinder extends TableBinder {
+        private final Class<?> _type;
+        private final Slot[] _slots;
+        private final EltnKeySet _keys;
+        /* for records: takes Object[] of components; else takes nothing */
+        private final MethodHandle _constructor;
+        private final Object[] _defaults;
+
+        ObjectBinder(Class<?> type) {
+            _type = type;
+            List<String> names = new ArrayList<>();
+            List<Slot> slots = new ArrayList<>();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                if (isRecord(type)) {
+                    Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+                    Class<?>[] types = new Class<?>[components.length];
+                    _defaults = new Object[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        types[i] = (Class<?>) COMPONENT_TYPE.invoke(components[i]);
+                        names.add((String) COMPONENT_NAME.invoke(components[i]));
+                        slots.add(new Slot(types[i],
+                                (Type) COMPONENT_GENERIC_TYPE.invoke(components[i]),
+                                null));
+                        if (types[i].isPrimitive()) {
+                            _defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                        }
+                    }
+                    Constructor<?> ctor = type.getDeclaredConstructor(types);
+                    _constructor = lookup.unreflectConstructor(accessible(ctor))
+                            .asSpreader(Object[].class, types.length)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                } else {
+                    Constructor<?> ctor = type.getDeclaredConstructor();
+                    _constructor = lookup.unreflectConstructor(accessible(ctor))
+                            .asType(MethodType.methodType(Object.class));
+                    _defaults = null;
+                    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                        for (Field field : c.getDeclaredFields()) {
+                            int mod = field.getModifiers();
+                            if (Modifier.isStatic(mod) || Modifier.isFinal(mod)
+                                    || Modifier.isTransient(mod)
+                                    || field.isSynthetic()
+                                    || names.contains(field.getName())) {
+                                continue;
+                            }
+                            names.add(field.getName());
+                            slots.add(new Slot(field.getType(),
+                                    field.getGenericType(),
+                                    lookup.unreflectSetter(accessible(field))));
+                        }
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("cannot bind " + type.getName(), e);
+            }
+            _slots = slots.toArray(new Slot[0]);
+            _keys = EltnKeySet.of(names);
+        }
+
+        private static boolean isRecord(Class<?> type)
+                throws ReflectiveOperationException {
+            return IS_RECORD != null && (Boolean) IS_RECORD.invoke(type);
+        }
+
+        private static <T extends AccessibleObject> T accessible(T member) {
+            member.trySetAccessible();
+            return member;
+        }
+
+        @Override
+        Object readTable(EltnPullParser p, boolean document)
+                throws IOException {
+            Object target = null;
+            Object[] args = null;
+            if (_defaults != null) {
+                args = _defaults.clone();
+            } else {
+                target = invoke(_constructor, null);
+            }
+            while (p.hasNext()) {
+                p.next();
+                switch (p.getEvent()) {
+                    case TABLE_END:
+                        if (!document) {
+                            return finish(target, args);
+                        }
+                        break;
+                    case STREAM_END:
+                        if (document) {
+                            return finish(target, args);
+                        }
+                        throw notClosed();
+                    case ERROR:
+                        throw EltnValue.error(p);
+                    case DEF_NAME:
+                    case TABLE_KEY_STRING:
+                        int slot = p.matchKey(_keys);
+                        if (slot < 0) {
+                            p.skipValue();
+                        } else {
+                            EltnValue.nextValue(p);
+                            bind(_slots[slot], slot, target, args, p);
+                        }
+                        break;
+                    default:
+                        /* other keys, positional values, and comments */
+                        p.skipValue();
+                        break;
+                }
+            }
+            if (document) {
+                return finish(target, args);
+            }
+            throw notClosed();
+        }
+
+        private Object finish(Object target, Object[] args) throws IOException {
+            return (args == null) ? target : invoke(_constructor, args);
+        }
+
+        private void bind(Slot slot, int index, Object target, Object[] args,
+                EltnPullParser p) throws IOException {
+            if (p.getEvent() == EltnEvent.VALUE_NIL && slot.kind != Kind.OBJECT) {
+                return;
+            }
+            try {
+                switch (slot.kind) {
+                    case LONG:
+                        long l = readLong(p, slot.min, slot.max);
+                        if (args != null) {
+                            args[index] = box(slot.type, l);
+                        } else {
+                            slot.setter.invokeExact(target, l);
+                        }
+                        break;
+                    case DOUBLE:
+                        double d = readDouble(p);
+                        if (args != null) {
+                            args[index] = (slot.type == float.class)
+                                    ? (Object) (float) d : (Object) d;
+                        } else {
+                            slot.setter.invokeExact(target, d);
+                        }
+                        break;
+                    case BOOLEAN:
+                        boolean b = readBoolean(p);
+                        if (args != null) {
+                            args[index] = b;
+                        } else {
+                            slot.setter.invokeExact(target, b);
+                        }
+                        break;
+                    default:
+                        Object value = slot.binder.read(p);
+                        if (args != null) {
+                            args[index] = value;
+                        } else {
+                            slot.setter.invokeExact(target, value);
+                        }
+                        break;
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private Object invoke(MethodHandle constructor, Object[] args)
+                throws IOException {
+            try {
+                return (args == null) ? (Object) constructor.invokeExact()
+                        : (Object) constructor.invokeExact(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("cannot create "
+                        + _type.getName(), t);
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads the top-level definitions of a UTF-8 document in parallel.
+ * <p>
+ * An ELTN document is a sequence of independent {@code name = value}
+ * definitions.  A quick structural scan of the bytes finds where each
+ * definition begins, skipping over strings, long strings, and comments;
+ * the definitions are then divided into ranges of roughly equal size,
+ * each range is parsed by its own {@link EltnPullParser} on a
+ * {@link ForkJoinPool}, and the results are returned in document order.
+ * <p>
+ * Each range's parser reports text offsets, lines, and columns relative
+ * to the start of its range, not the document; exceptions say where
+ * the range starts.
+ *
+ * @author Frank Mitchell
+ */
+public final class EltnParallelReader {
+
+    /**
+     * Reads one definition.
+     *
+     * @param <T> the type of result
+     */
+    @FunctionalInterface
+    public interface DefinitionReader<T> {
+        /**
+         * Reads a definition.  The parser is at {@link EltnEvent#DEF_NAME};
+         * the reader may read the value, e.g. with
+         * {@link EltnValue#read(EltnPullParser)}, or leave it to be
+         * skipped.
+         *
+         * @param parser a parser at a definition name
+         * @return the result for the definition
+         * @throws IOException if the parser could not read the definition
+         */
+        T read(EltnPullParser parser) throws IOException;
+    }
+
+    /**
+     * Documents smaller than this are not worth splitting.
+     */
+    static final int MIN_RANGE_SIZE = 1 << 20;
+
+    private EltnParallelReader() {
+    }
+
+    /**
+     * Reads a UTF-8 file into a table of its definitions, as
+     * {@link EltnValue#readDocument(EltnPullParser)} would,
+     * using the common pool.
+     *
+     * @param path the file
+     * @return a table from each definition name to its value
+     * @throws IOException if the file could not be read or is malformed
+     */
+    public static EltnTable readDocument(Path path) throws IOException {
+        List<Map.Entry<String, Object>> definitions
+                = readDefinitions(path, p -> new AbstractMap.SimpleImmutableEntry<>(
+                        p.getString(), EltnValue.read(p)));
+        EltnTable result = new EltnTable();
+        for (Map.Entry<String, Object> definition : definitions) {
+            result.set(definition.getKey(), definition.getValue());
+        }
+        result.trimToSize();
+        return result;
+    }
+
+    /**
+     * Reads each definition in a UTF-8 file, using the common pool.
+     *
+     * @param <T> the type of result
+     * @param path the file, which is mapped into memory
+     * @param reader the reader for each definition
+     * @return the result for each definition, in document order
+     * @throws IOException if the file could not be read or is malformed
+     */
+    public static <T> List<T> readDefinitions(Path path,
+            DefinitionReader<T> reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return readDefinitions(buffer, reader, ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Reads each definition in the UTF-8 bytes remaining in a buffer.
+     * The buffer's position and limit do not change.
+     *
+     * @param <T> the type of result
+     * @param buffer the document
+     * @param reader the reader for each definition, which must be safe
+     *        to call from several threads at once
+     * @param pool the pool in which to parse
+     * @return the result for each definition, in document order
+     * @throws IOException if the document is malformed
+     */
+    public static <T> List<T> readDefinitions(ByteBuffer buffer,
+            DefinitionReader<T> reader, ForkJoinPool pool) throws IOException {
+        return readDefinitions(buffer, reader, pool, MIN_RANGE_SIZE);
+    }
+
+    static <T> List<T> readDefinitions(ByteBuffer buffer,
+            DefinitionReader<T> reader, ForkJoinPool pool, int minRangeSize)
+            throws IOException {
+        final int start = buffer.position();
+        final int end = buffer.limit();
+        int[] ranges = ranges(buffer, pool.getParallelism() * 4, minRangeSize);
+        if (ranges.length <= 1) {
+            return readRange(buffer, start, end, reader);
+        }
+
+        List<RangeTask<T>> tasks = new ArrayList<>(ranges.length);
+        for (int i = 0; i < ranges.length; i++) {
+            int to = (i + 1 < ranges.length) ? ranges[i + 1] : end;
+            tasks.add(new RangeTask<>(buffer, ranges[i], to, reader));
+            pool.execute(tasks.get(i));
+        }
+        List<T> result = new ArrayList<>();
+        for (RangeTask<T> task : tasks) {
+            List<T> values = task.join();
+            if (task.failure != null) {
+                throw task.failure;
+            }
+            result.addAll(values);
+        }
+        return result;
+    }
+
+    /* never serialized, though ForkJoinTask is Serializable */
+    @SuppressWarnings("serial")
+    private static final class RangeTask<T> extends RecursiveTask<List<T>> {
+        private final ByteBuffer _buffer;
+        private final int _from;
+        private final int _to;
+        private final DefinitionReader<T> _reader;
+        IOException failure = null;
+
+        RangeTask(ByteBuffer buffer, int from, int to,
+                DefinitionReader<T> reader) {
+            _buffer = buffer;
+            _from = from;
+            _to = to;
+            _reader = reader;
+        }
+
+        @Override
+        protected List<T> compute() {
+            try {
+                return readRange(_buffer, _from, _to, _reader);
+            } catch (IOException e) {
+                failure = e;
+                return null;
+            }
+        }
+    }
+
+    private static <T> List<T> readRange(ByteBuffer buffer, int from, int to,
+            DefinitionReader<T> reader) throws IOException {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to).position(from);
+        EltnPullParser parser = EltnService.createPullParser(slice.slice(),
+                StandardCharsets.UTF_8);
+        List<T> result = new ArrayList<>();
+        try {
+            while (parser.hasNext()) {
+                parser.next();
+                switch (parser.getEvent()) {
+                    case DEF_NAME:
+                        result.add(reader.read(parser));
+                        break;
+                    case ERROR:
+                        throw EltnValue.error(parser);
+                    default:
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage()
+                    + " in the range starting at byte " + from, e);
+        }
+        return result;
+    }
+
+    /**
+     * Divides the remaining bytes of a buffer into ranges of whole
+     * definitions.
+     *
+     * @return the start of each range; the first is the buffer's position
+     */
+    static int[] ranges(ByteBuffer buffer, int maxRanges, int minRangeSize) {
+        final int start = buffer.position();
+        final int size = buffer.limit() - start;
+        if (maxRanges <= 1 || size < 2 * minRangeSize) {
+            return new int[] {start};
+        }
+        int target = Math.max(minRangeSize, size / maxRanges);
+        int[] offsets = definitionOffsets(buffer);
+        int[] result = new int[maxRanges];
+        int n = 0;
+        result[n++] = start;
+        for (int offset : offsets) {
+            if (offset - result[n - 1] >= target && n < maxRanges) {
+                result[n++] = offset;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    /**
+     * Finds the offset at which each top-level definition begins,
+     * i.e. the start of each name followed by "=" outside any table.
+     *
+     * @param buffer UTF-8 bytes, from position to limit
+     * @return the absolute offset of each definition name, in order
+     */
+    static int[] definitionOffsets(ByteBuffer buffer) {
+        final int end = buffer.limit();
+        int[] result = new int[64];
+        int count = 0;
+        int depth = 0;
+        int nameStart = -1;
+        int i = buffer.position();
+        while (i < end) {
+            int b = buffer.get(i) & 0xFF;
+            switch (b) {
+                case '{':
+                    depth++;
+                    nameStart = -1;
+                    i++;
+                    break;
+                case '}':
+                    depth--;
+                    nameStart = -1;
+                    i++;
+                    break;
+                case '=':
+                    if (depth == 0 && nameStart >= 0) {
+                        if (count == result.length) {
+                            result = Arrays.copyOf(result, count * 2);
+                        }
+                        result[count++] = nameStart;
+                    }
+                    nameStart = -1;
+                    i++;
+                    break;
+                case '"':
+                case '\'':
+                    i = skipQuoted(buffer, i + 1, end, b);
+                    nameStart = -1;
+                    break;
+                case '[': {
+                    int level = longBracketLevel(buffer, i, end);
+                    i = (level < 0) ? i + 1
+                            : skipLongBracket(buffer, i + level + 2, end, level);
+                    nameStart = -1;
+                    break;
+                }
+                case '-':
+                    if (i + 1 < end && buffer.get(i + 1) == '-') {
+                        i = skipComment(buffer, i + 2, end);
+                    } else {
+                        nameStart = -1;
+                        i++;
+                    }
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case '\f':
+                case 0x0B:
+                    i++;
+                    break;
+                default:
+                    if (isNameStart(b)) {
+                        /* names and keywords */
+                        nameStart = i;
+                        do {
+                            i++;
+                        } while (i < end && isNamePart(buffer.get(i) & 0xFF));
+                    } else if (b >= '0' && b <= '9' || b == '.') {
+                        /* numbers, including hex digits and exponents */
+                        nameStart = -1;
+                        do {
+                            i++;
+                        } while (i < end && (isNamePart(buffer.get(i) & 0xFF)
+                                || buffer.get(i) == '.'));
+                    } else {
+                        nameStart = -1;
+                        i++;
+                    }
+                    break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean isNameStart(int b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b == '_'
+                || b >= 0x80;
+    }
+
+    private static boolean isNamePart(int b) {
+        return isNameStart(b) || b >= '0' && b <= '9';
+    }
+
+    private static int skipQuoted(ByteBuffer buffer, int i, int end, int quote) {
+        while (i < end) {
+            byte b = buffer.get(i++);
+            if (b == quote) {
+                break;
+            } else if (b == '\\') {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int skipComment(ByteBuffer buffer, int i, int end) {
+        if (i < end && buffer.get(i) == '[') {
+            int level = longBracketLevel(buffer, i, end);
+            if (level >= 0) {
+                return skipLongBracket(buffer, i + level + 2, end, level);
+            }
+        }
+        while (i < end && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks for a long bracket opening, e.g. "[==[", at i.
+     *
+     * @return the number of "=", or -1 if there is no opening
+     */
+    private static int longBracketLevel(ByteBuffer buffer, int i, int end) {
+        int j = i + 1;
+        while (j < end && buffer.get(j) == '=') {
+            j++;
+        }
+        return (j < end && buffer.get(j) == '[') ? j - i - 1 : -1;
+    }
+
+    /**
+     * Skips past the long bracket closing, e.g. "]==]", of a level.
+     */
+    private static int skipLongBracket(ByteBuffer buffer, int i, int end,
+            int level) {
+        while (i < end) {
+            if (buffer.get(i++) == ']') {
+                int j = i;
+                while (j < end && buffer.get(j) == '=') {
+                    j++;
+                }
+                if (j - i == level && j < end && buffer.get(j) == ']') {
+                    return j + 1;
+                }
+            }
+        }
+        return end;
+    }
+}
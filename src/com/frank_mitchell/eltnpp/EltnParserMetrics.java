@@ -0,0 +1,346 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and sampled timers for the parsers of a factory made with
+ * {@link EltnPullParserFactory#withMetrics(EltnParserMetrics)}.
+ * A factory without metrics creates parsers that don't measure
+ * anything, and don't check whether to.
+ * <p>
+ * A parser keeps its counts to itself while it works and adds them
+ * here when its document ends, fails, or is reset, so one instance may
+ * be shared by any number of parsers on any number of threads.
+ * Until then nothing of that document shows here: a parser in the
+ * middle of a large document, or one abandoned before the end and never
+ * reset, has added none of its counts or times yet.
+ * Timers are sampled: a parser times one call in every
+ * {@link #getSampleInterval()} and the getters scale the sum up.
+ * <p>
+ * {@link #register(String)} makes the totals visible to JMX clients
+ * such as JConsole as a platform MXBean.
+ *
+ * @author Frank Mitchell
+ */
+public final class EltnParserMetrics implements EltnParserMetricsMXBean {
+
+    /**
+     * The phases a parser's time is split into.
+     */
+    public enum Phase {
+        /** Reading and decoding input */
+        DECODE,
+        /** Lexing tokens, less decoding */
+        LEX,
+        /** Turning tokens into events, less lexing */
+        PARSE,
+        /** Unescaping strings in getString() */
+        UNESCAPE
+    }
+
+    /**
+     * Sample interval of metrics made with the default constructor.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    private static final EltnEvent[] EVENTS = EltnEvent.values();
+    private static final EltnError[] ERRORS = EltnError.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final int _sampleInterval;
+    private final LongAdder _documents = new LongAdder();
+    private final LongAdder _bytes = new LongAdder();
+    private final LongAdder _codePoints = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> _tokens
+            = new ConcurrentHashMap<>();
+    private final LongAdder[] _events = adders(EVENTS.length);
+    private final LongAdder[] _errors = adders(ERRORS.length);
+    private final LongAccumulator _maxDepth
+            = new LongAccumulator(Math::max, 0);
+    private final LongAdder _stringsDecoded = new LongAdder();
+    private final LongAdder _stringsSkipped = new LongAdder();
+    private final LongAdder[] _nanos = adders(PHASES.length);
+
+    private ObjectName _name;
+
+    /**
+     * Creates metrics that time one call in
+     * {@link #DEFAULT_SAMPLE_INTERVAL}.
+     */
+    public EltnParserMetrics() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates metrics that time one call in a given number.
+     *
+     * @param sampleInterval calls per timed call, a power of two.
+     * @throws IllegalArgumentException if the interval is not a positive
+     *         power of two.
+     */
+    public EltnParserMetrics(int sampleInterval) {
+        if (sampleInterval <= 0 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException(
+                    "Sample interval not a power of two: " + sampleInterval);
+        }
+        _sampleInterval = sampleInterval;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] result = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * {@code com.frank_mitchell.eltnpp:type=EltnParserMetrics,name=}
+     * <i>name</i>.
+     *
+     * @param name a name to tell these metrics from others.
+     * @return the name registered.
+     * @throws JMException if the name is malformed or already taken.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(
+                "com.frank_mitchell.eltnpp:type=EltnParserMetrics,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, objectName);
+        _name = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if
+     * {@link #register(String)} put them there.
+     *
+     * @throws JMException if the server refuses.
+     */
+    public synchronized void unregister() throws JMException {
+        if (_name != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(_name)) {
+                server.unregisterMBean(_name);
+            }
+            _name = null;
+        }
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    /**
+     * Records the end of a document.  Parsers call this and the other
+     * {@code record} methods; applications need not.
+     *
+     * @param bytes bytes consumed, or 0 if the parser counts code points.
+     * @param codePoints code points consumed, or 0 if it counts bytes.
+     * @param maxDepth the deepest nesting in the document.
+     */
+    public void recordDocument(long bytes, long codePoints, int maxDepth) {
+        _documents.increment();
+        _bytes.add(bytes);
+        _codePoints.add(codePoints);
+        _maxDepth.accumulate(maxDepth);
+    }
+
+    /**
+     * Records tokens lexed.
+     *
+     * @param type the name of a token type.
+     * @param count the number of tokens.
+     */
+    public void recordTokens(String type, long count) {
+        _tokens.computeIfAbsent(type, t -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Records events reported.
+     *
+     * @param event an event.
+     * @param count how many times the event was reported.
+     */
+    public void recordEvents(EltnEvent event, long count) {
+        _events[event.ordinal()].add(count);
+    }
+
+    /**
+     * Records a document that ended in an error.
+     *
+     * @param error the error.
+     */
+    public void recordError(EltnError error) {
+        _errors[error.ordinal()].increment();
+    }
+
+    /**
+     * Records string, key and definition name events.
+     *
+     * @param decoded the number whose strings were asked for.
+     * @param skipped the number whose strings weren't.
+     */
+    public void recordStrings(long decoded, long skipped) {
+        _stringsDecoded.add(decoded);
+        _stringsSkipped.add(skipped);
+    }
+
+    /**
+     * Records the time of sampled calls.
+     *
+     * @param phase the phase timed.
+     * @param nanos the total time of the sampled calls.
+     */
+    public void recordTime(Phase phase, long nanos) {
+        _nanos[phase.ordinal()].add(nanos);
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    @Override
+    public long getDocuments() {
+        return _documents.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return _bytes.sum();
+    }
+
+    @Override
+    public long getCodePoints() {
+        return _codePoints.sum();
+    }
+
+    @Override
+    public Map<String, Long> getTokenCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        _tokens.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        return counts(EVENTS, _events);
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        return counts(ERRORS, _errors);
+    }
+
+    private static Map<String, Long> counts(Enum<?>[] keys,
+            LongAdder[] adders) {
+        Map<String, Long> result = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            long count = adders[i].sum();
+            if (count != 0) {
+                result.put(keys[i].name(), count);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return _maxDepth.get();
+    }
+
+    @Override
+    public long getStringsDecoded() {
+        return _stringsDecoded.sum();
+    }
+
+    @Override
+    public long getStringsSkipped() {
+        return _stringsSkipped.sum();
+    }
+
+    /**
+     * Gets the estimated time spent in a phase.
+     *
+     * @param phase a phase of parsing.
+     * @return nanoseconds.
+     */
+    public long getNanos(Phase phase) {
+        return _nanos[phase.ordinal()].sum() * _sampleInterval;
+    }
+
+    @Override
+    public long getDecodeNanos() {
+        return getNanos(Phase.DECODE);
+    }
+
+    @Override
+    public long getLexNanos() {
+        return getNanos(Phase.LEX);
+    }
+
+    @Override
+    public long getParseNanos() {
+        return getNanos(Phase.PARSE);
+    }
+
+    @Override
+    public long getUnescapeNanos() {
+        return getNanos(Phase.UNESCAPE);
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return _sampleInterval;
+    }
+
+    @Override
+    public void reset() {
+        _documents.reset();
+        _bytes.reset();
+        _codePoints.reset();
+        _tokens.clear();
+        for (LongAdder adder : _events) {
+            adder.reset();
+        }
+        for (LongAdder adder : _errors) {
+            adder.reset();
+        }
+        _maxDepth.reset();
+        _stringsDecoded.reset();
+        _stringsSkipped.reset();
+        for (LongAdder adder : _nanos) {
+            adder.reset();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link EltnParserMetrics}.
+ * Times are estimates: each is the sum of sampled calls scaled up by
+ * {@link #getSampleInterval()}.
+ *
+ * @author Frank Mitchell
+ */
+public interface EltnParserMetricsMXBean {
+
+    /**
+     * Gets the number of documents parsed to their end, to an error,
+     * or until their parser was reset.
+     *
+     * @return the number of documents.
+     */
+    long getDocuments();
+
+    /**
+     * Gets the number of bytes consumed by parsers that lex bytes.
+     *
+     * @return bytes consumed.
+     */
+    long getBytes();
+
+    /**
+     * Gets the number of code points consumed by parsers that lex
+     * characters or code points.
+     *
+     * @return code points consumed.
+     */
+    long getCodePoints();
+
+    /**
+     * Gets the number of tokens lexed, by token type.
+     *
+     * @return counts keyed by the name of each token type seen.
+     */
+    Map<String, Long> getTokenCounts();
+
+    /**
+     * Gets the number of events reported, by {@link EltnEvent} name.
+     *
+     * @return counts keyed by the name of each event seen.
+     */
+    Map<String, Long> getEventCounts();
+
+    /**
+     * Gets the number of documents that ended in each kind of error,
+     * by {@link EltnError} name.
+     *
+     * @return counts keyed by the name of each error seen.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Gets the greatest {@link EltnPullParser#getDepth()} reached.
+     *
+     * @return the deepest nesting seen.
+     */
+    long getMaxDepth();
+
+    /**
+     * Gets the number of string, key and definition name events whose
+     * {@link EltnPullParser#getString()} was called.
+     *
+     * @return strings decoded.
+     */
+    long getStringsDecoded();
+
+    /**
+     * Gets the number of string, key and definition name events passed
+     * over without calling {@link EltnPullParser#getString()}.
+     *
+     * @return strings skipped.
+     */
+    long getStringsSkipped();
+
+    /**
+     * Gets the estimated time spent reading and decoding input.
+     * Bytes lexed in place decode as they are lexed, so that time
+     * counts as lexing instead.
+     *
+     * @return nanoseconds.
+     */
+    long getDecodeNanos();
+
+    /**
+     * Gets the estimated time spent lexing tokens, less decoding.
+     *
+     * @return nanoseconds.
+     */
+    long getLexNanos();
+
+    /**
+     * Gets the estimated time spent turning tokens into events, less
+     * lexing and decoding.
+     *
+     * @return nanoseconds.
+     */
+    long getParseNanos();
+
+    /**
+     * Gets the estimated time spent in {@link EltnPullParser#getString()}
+     * unescaping strings.
+     *
+     * @return nanoseconds.
+     */
+    long getUnescapeNanos();
+
+    /**
+     * Gets how many calls a parser makes for each one it times.
+     *
+     * @return the sample interval, a power of two.
+     */
+    int getSampleInterval();
+
+    /**
+     * Sets all counters and timers back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,449 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of path patterns that select parts of an ELTN document.
+ * Patterns use the syntax of {@link EltnPullParser#getCurrentPath()}:
+ * a definition name or key followed by any number of {@code .name},
+ * {@code ["string"]}, {@code [ [[long string]] ]}, {@code [integer]}, or
+ * {@code [number]} elements, whose strings decode as they do in a document.
+ * In addition, {@code *} (or {@code .*} or {@code [*]}) matches any one
+ * key, and {@code **} matches any number of keys, including none.
+ * An empty pattern matches the whole document.
+ * <p>
+ * A key matches however it was written, so {@code config.name},
+ * {@code config["name"]}, and {@code config['name']} are the same
+ * pattern, and {@code list[1]} matches both {@code [1] = x} and the
+ * first positional value in a table.
+ *
+ * @author Frank Mitchell
+ * @see EltnPullParserFactory#withProjection(EltnProjection)
+ */
+public final class EltnProjection {
+
+    private static final int[] NO_STATES = new int[0];
+
+    private enum Kind {
+        STRING, INTEGER, NUMBER, ANY, ANY_DEEP
+    }
+
+    private static final class Segment {
+        final Kind kind;
+        final String string;
+        final long integer;
+        final double number;
+
+        Segment(Kind kind, String string, long integer, double number) {
+            this.kind = kind;
+            this.string = string;
+            this.integer = integer;
+            this.number = number;
+        }
+
+        boolean matches(EltnEvent type, CharSequence string,
+                long integer, double number) {
+            switch (kind) {
+                case ANY:
+                case ANY_DEEP:
+                    return true;
+                case STRING:
+                    return (type == EltnEvent.DEF_NAME
+                            || type == EltnEvent.TABLE_KEY_STRING)
+                            && this.string.contentEquals(string);
+                case INTEGER:
+                    return (type == EltnEvent.TABLE_KEY_INTEGER
+                            && this.integer == integer)
+                            || (type == EltnEvent.TABLE_KEY_NUMBER
+                            && this.integer == number);
+                case NUMBER:
+                    return type == EltnEvent.TABLE_KEY_NUMBER
+                            && this.number == number;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private final List<String> _patterns;
+    private final Segment[][] _compiled;
+    private final int[] _initial;
+
+    private EltnProjection(List<String> patterns) {
+        if (patterns.size() > 0xFFFF) {
+            throw new IllegalArgumentException("too many patterns");
+        }
+        _patterns = Collections.unmodifiableList(patterns);
+        _compiled = new Segment[patterns.size()][];
+        _initial = new int[patterns.size()];
+        for (int p = 0; p < _compiled.length; p++) {
+            _compiled[p] = compile(patterns.get(p));
+            _initial[p] = p << 16;
+        }
+    }
+
+    /**
+     * Creates a projection from one or more patterns.
+     *
+     * @param patterns the patterns to match
+     * @return a projection that selects whatever any pattern matches
+     * @throws IllegalArgumentException if a pattern is malformed
+     */
+    public static EltnProjection of(String... patterns) {
+        return of(Arrays.asList(patterns));
+    }
+
+    /**
+     * Creates a projection from a collection of patterns.
+     *
+     * @param patterns the patterns to match
+     * @return a projection that selects whatever any pattern matches
+     * @throws IllegalArgumentException if a pattern is malformed
+     */
+    public static EltnProjection of(Collection<? extends CharSequence> patterns) {
+        List<String> list = new ArrayList<>(patterns.size());
+        for (CharSequence pattern : patterns) {
+            list.add(pattern.toString());
+        }
+        return new EltnProjection(list);
+    }
+
+    /**
+     * Gets the patterns in this projection, as given.
+     *
+     * @return an unmodifiable list of patterns
+     */
+    public List<String> getPatterns() {
+        return _patterns;
+    }
+
+    /**
+     * Wraps a parser so that it reports only the parts of the document
+     * this projection selects.
+     *
+     * @param parser a newly created parser
+     * @return a parser that filters the events of {@code parser}
+     * @see EltnPullParserFactory#withProjection(EltnProjection)
+     */
+    public EltnPullParser apply(EltnPullParser parser) {
+        return new ProjectingEltnPullParser(parser, this);
+    }
+
+    @Override
+    public String toString() {
+        return "EltnProjection" + _patterns;
+    }
+
+    /* ------------------------- Matching --------------------------------- */
+
+    /*
+     * A match in progress is an int: the pattern index in the upper 16 bits
+     * and the index of the next segment to match in the lower 16.
+     */
+
+    /**
+     * The match states before the first key.
+     */
+    int[] initialStates() {
+        return _initial;
+    }
+
+    /**
+     * Advances a set of match states past one key.
+     *
+     * @param states the states before the key
+     * @param type the kind of key
+     * @param string the decoded key if a string, else ignored
+     * @param integer the key if an integer, else ignored
+     * @param number the key if a number, else ignored
+     * @return the states after the key; empty if nothing can match
+     */
+    int[] advance(int[] states, EltnEvent type, CharSequence string,
+            long integer, double number) {
+        int[] result = NO_STATES;
+        int count = 0;
+        for (int state : states) {
+            int p = state >>> 16;
+            int i = state & 0xFFFF;
+            Segment[] pattern = _compiled[p];
+            while (i < pattern.length) {
+                Segment segment = pattern[i];
+                if (segment.kind == Kind.ANY_DEEP) {
+                    /* either "**" eats this key, or it matches nothing */
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count + 4);
+                    }
+                    count = addState(result, count, (p << 16) | i);
+                    i++;
+                    continue;
+                }
+                if (segment.matches(type, string, integer, number)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count + 4);
+                    }
+                    count = addState(result, count, (p << 16) | (i + 1));
+                }
+                break;
+            }
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int addState(int[] states, int count, int state) {
+        for (int i = 0; i < count; i++) {
+            if (states[i] == state) {
+                return count;
+            }
+        }
+        states[count] = state;
+        return count + 1;
+    }
+
+    /**
+     * Whether any pattern has matched completely, so that everything
+     * below the current key is selected.
+     *
+     * @param states the states after the key
+     * @return whether the key's value is selected in full
+     */
+    boolean isComplete(int[] states) {
+        for (int state : states) {
+            Segment[] pattern = _compiled[state >>> 16];
+            int i = state & 0xFFFF;
+            while (i < pattern.length && pattern[i].kind == Kind.ANY_DEEP) {
+                i++;
+            }
+            if (i == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* ------------------------- Compiling -------------------------------- */
+
+    private static Segment[] compile(String pattern) {
+        List<Segment> segments = new ArrayList<>();
+        int i = 0;
+        final int length = pattern.length();
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '[') {
+                i = compileBracket(pattern, i + 1, segments);
+            } else {
+                if (c == '.') {
+                    if (segments.isEmpty()) {
+                        throw malformed(pattern, i);
+                    }
+                    i++;
+                } else if (!segments.isEmpty()) {
+                    throw malformed(pattern, i);
+                }
+                i = compileName(pattern, i, segments);
+            }
+        }
+        if (segments.size() > 0xFFFF) {
+            throw new IllegalArgumentException("pattern too long: " + pattern);
+        }
+        return segments.toArray(new Segment[segments.size()]);
+    }
+
+    private static int compileName(String pattern, int start,
+            List<Segment> segments) {
+        final int length = pattern.length();
+        if (pattern.startsWith("**", start)) {
+            segments.add(new Segment(Kind.ANY_DEEP, null, 0, 0));
+            return start + 2;
+        }
+        if (pattern.startsWith("*", start)) {
+            segments.add(new Segment(Kind.ANY, null, 0, 0));
+            return start + 1;
+        }
+        int i = start;
+        if (i >= length || !Character.isJavaIdentifierStart(pattern.charAt(i))) {
+            throw malformed(pattern, i);
+        }
+        i++;
+        while (i < length && Character.isJavaIdentifierPart(pattern.charAt(i))) {
+            i++;
+        }
+        segments.add(new Segment(Kind.STRING, pattern.substring(start, i), 0, 0));
+        return i;
+    }
+
+    private static int compileBracket(String pattern, int start,
+            List<Segment> segments) {
+        int close = start;
+        int first = start;
+        while (first < pattern.length() && pattern.charAt(first) == ' ') {
+            first++;
+        }
+        char c = (first < pattern.length()) ? pattern.charAt(first) : ']';
+        if (c == '"' || c == '\'' || c == '[') {
+            close = (c == '[') ? longStringEnd(pattern, first)
+                    : quotedEnd(pattern, first);
+            segments.add(new Segment(Kind.STRING,
+                    decodeString(pattern, first, close), 0, 0));
+            while (close < pattern.length() && pattern.charAt(close) == ' ') {
+                close++;
+            }
+        } else {
+            close = pattern.indexOf(']', start);
+            if (close < 0) {
+                throw malformed(pattern, pattern.length());
+            }
+            String key = pattern.substring(start, close);
+            if (key.equals("*")) {
+                segments.add(new Segment(Kind.ANY, null, 0, 0));
+            } else if (key.equals("**")) {
+                segments.add(new Segment(Kind.ANY_DEEP, null, 0, 0));
+            } else {
+                segments.add(compileNumber(pattern, start, key));
+            }
+        }
+        if (close >= pattern.length() || pattern.charAt(close) != ']') {
+            throw malformed(pattern, close);
+        }
+        return close + 1;
+    }
+
+    private static Segment compileNumber(String pattern, int start, String key) {
+        try {
+            return new Segment(Kind.INTEGER, null, parseInteger(key), 0);
+        } catch (NumberFormatException e) {
+            /* try a float instead */
+        }
+        double value;
+        try {
+            value = Double.parseDouble(key);
+        } catch (NumberFormatException e) {
+            throw malformed(pattern, start);
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw malformed(pattern, start);
+        }
+        long integer = (long) value;
+        if (integer == value && value != 0x1p63) {
+            /* Lua converts float keys with integer values to integers */
+            return new Segment(Kind.INTEGER, null, integer, 0);
+        }
+        return new Segment(Kind.NUMBER, null, 0, value);
+    }
+
+    private static long parseInteger(String key) {
+        boolean negative = key.startsWith("-");
+        String digits = negative ? key.substring(1) : key;
+        if (digits.startsWith("-") || digits.startsWith("+")) {
+            throw new NumberFormatException(key);
+        }
+        long value;
+        if (digits.startsWith("0x") || digits.startsWith("0X")) {
+            /* like Lua, hex integers wrap around */
+            value = Long.parseUnsignedLong(digits.substring(2), 16);
+        } else {
+            value = Long.parseLong(digits);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finds the end of a quoted string.
+     *
+     * @return the index just past the closing quote
+     */
+    private static int quotedEnd(String pattern, int start) {
+        final char quote = pattern.charAt(start);
+        final int length = pattern.length();
+        int i = start + 1;
+        while (i < length) {
+            char c = pattern.charAt(i++);
+            if (c == quote) {
+                return i;
+            } else if (c == '\\') {
+                i++;
+            }
+        }
+        throw malformed(pattern, length);
+    }
+
+    /**
+     * Finds the end of a long bracket string, such as {@code [==[x]==]}.
+     *
+     * @return the index just past the closing bracket
+     */
+    private static int longStringEnd(String pattern, int start) {
+        int i = start + 1;
+        while (i < pattern.length() && pattern.charAt(i) == '=') {
+            i++;
+        }
+        if (i >= pattern.length() || pattern.charAt(i) != '[') {
+            throw malformed(pattern, i);
+        }
+        String closing = "]" + "=".repeat(i - start - 1) + "]";
+        int close = pattern.indexOf(closing, i + 1);
+        if (close < 0) {
+            throw malformed(pattern, pattern.length());
+        }
+        return close + closing.length();
+    }
+
+    /**
+     * Decodes a string as the parser does, so a pattern can use every
+     * escape and form of string that a document can.
+     *
+     * @return the value of the string in {@code pattern} from
+     *         {@code start} to {@code end}
+     */
+    private static String decodeString(String pattern, int start, int end) {
+        try {
+            EltnPullParser parser = EltnService.createPullParser(
+                    new StringReader("k = " + pattern.substring(start, end)));
+            parser.next();
+            parser.next();
+            if (parser.getEvent() == EltnEvent.VALUE_STRING) {
+                String value = parser.getString();
+                parser.next();
+                if (parser.getEvent() == EltnEvent.STREAM_END) {
+                    return value;
+                }
+            }
+        } catch (IOException e) {
+            /* can't happen reading a string */
+        }
+        throw malformed(pattern, start);
+    }
+
+    private static IllegalArgumentException malformed(String pattern, int index) {
+        return new IllegalArgumentException(
+                "malformed path pattern at " + index + ": " + pattern);
+    }
+}
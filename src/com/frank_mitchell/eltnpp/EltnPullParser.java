@@ -23,7 +23,12 @@
  */
 package com.frank_mitchell.eltnpp;
 
+import com.frank_mitchell.codepoint.CodePointSource;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  * A pull parser for an ELTN (Extended Lua Table Notation) document.
@@ -76,6 +81,15 @@ public interface EltnPullParser {
      * and {@link EltnEvent#STREAM_START} and {@link EltnEvent#STREAM_END}
      * will only return "".
      * This can be especially useful on errors.
+     * <p>
+     * The result may be a view of the parser's internal buffers rather than
+     * a copy.  It is only valid until the next call to {@link #next()},
+     * after which its contents are undefined.  Call {@code toString()} on
+     * it to keep the text; implementations make a {@link String} only then.
+     * A view's {@code hashCode()} equals that of the corresponding String,
+     * but its {@code equals()} may not; compare contents with
+     * {@link String#contentEquals(CharSequence)} or
+     * {@link CharSequence#compare(CharSequence, CharSequence)}.
      *
      * @return text associated with this event.
      */
@@ -86,6 +100,8 @@ public interface EltnPullParser {
      * This will be a number greater or equal to 0 indicating the number of
      * characters processed before the beginning of the text shown in
      * {@link #getText()}.  Thus the first character is at offset 0.
+     * A parser that reads UTF-8 or ASCII bytes directly, e.g. from a
+     * {@link java.nio.ByteBuffer} or a mapped file, counts bytes instead.
      *
      * @return an offset &ge; 0, or -1 if not available.
      * @see #getText()
@@ -127,6 +143,158 @@ public interface EltnPullParser {
      */
     public boolean isInTable();
 
+    /**
+     * Skips the value at the current point in the document.
+     *
+     * On {@link EltnEvent#DEF_NAME} or a table key event, this skips the
+     * value that follows: afterwards the current event is that value's
+     * own event if it is a simple value, or the {@link EltnEvent#TABLE_END}
+     * that closes it if it is a table.
+     * On {@link EltnEvent#TABLE_START}, this skips to the matching
+     * {@link EltnEvent#TABLE_END}, as does {@link #skipTable()}.
+     * On any other event this does nothing.
+     * <p>
+     * Implementations should skip tables at the lexical level, without
+     * creating events or decoding strings for their contents.
+     * Errors inside a skipped table may go unreported.
+     *
+     * @throws IOException if the character source could not be read.
+     * @see #skipTable()
+     */
+    default public void skipValue() throws IOException {
+        switch (getEvent()) {
+            case DEF_NAME:
+            case TABLE_KEY_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case TABLE_KEY_STRING:
+                do {
+                    next();
+                } while (getEvent() == EltnEvent.COMMENT);
+                if (getEvent() != EltnEvent.TABLE_START) {
+                    return;
+                }
+                break;
+            case TABLE_START:
+                break;
+            default:
+                return;
+        }
+        skipTable();
+    }
+
+    /**
+     * Skips the rest of the innermost enclosing table.
+     * Afterwards the current event is the {@link EltnEvent#TABLE_END}
+     * that closes the table, and {@link #getDepth()} is one less than it
+     * was.  If the parser is not in a table this does nothing.
+     *
+     * @throws IOException if the character source could not be read.
+     * @see #skipValue()
+     */
+    default public void skipTable() throws IOException {
+        final int depth = getDepth();
+        if (depth == 0) {
+            return;
+        }
+        while (hasNext()) {
+            next();
+            if (getEvent() == EltnEvent.TABLE_END && getDepth() < depth) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Matches the key at the current {@link EltnEvent#DEF_NAME} or
+     * {@link EltnEvent#TABLE_KEY_STRING} against a set of names.
+     * Implementations should compare the key where it lies in their
+     * buffers, without creating a String for it.
+     * The default implementation matches {@link #getText()}, and falls
+     * back to {@link #getString()} only for quoted keys.
+     *
+     * @param keys the names to match.
+     * @return the index of the key in {@code keys}, or -1 if it is not
+     *         there or the current event is not a string key.
+     */
+    default public int matchKey(EltnKeySet keys) {
+        EltnEvent event = getEvent();
+        if (event != EltnEvent.DEF_NAME && event != EltnEvent.TABLE_KEY_STRING) {
+            return -1;
+        }
+        CharSequence text = getText();
+        if (text.length() == 0) {
+            return -1;
+        }
+        char first = text.charAt(0);
+        if (first == '"' || first == '\'' || first == '[') {
+            text = getString();
+        }
+        return keys.indexOf(text);
+    }
+
+    /**
+     * Starts over on a new document of UTF-16 characters, reusing this
+     * parser's buffers and stacks instead of creating a new parser.
+     * Afterwards the current event is {@link EltnEvent#STREAM_START}.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param reader a stream of UTF-16 chars.
+     * @throws IOException if the reader throws an exception.
+     * @throws UnsupportedOperationException if this parser can't be reset.
+     * @see EltnPullParserFactory#withParserReuse()
+     */
+    default public void reset(Reader reader) throws IOException {
+        throw new UnsupportedOperationException("Cannot reset " + this);
+    }
+
+    /**
+     * Starts over on a new document of bytes in the specified encoding.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param stream a stream of bytes.
+     * @param cs a character encoding.
+     * @throws IOException if the stream throws an exception.
+     * @throws UnsupportedOperationException if this parser can't be reset.
+     * @see #reset(Reader)
+     */
+    default public void reset(InputStream stream, Charset cs)
+            throws IOException {
+        throw new UnsupportedOperationException("Cannot reset " + this);
+    }
+
+    /**
+     * Starts over on the bytes remaining in a buffer, in the specified
+     * encoding.  The buffer's position and limit do not change.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param buffer a buffer of bytes.
+     * @param cs a character encoding.
+     * @throws IOException if the buffer could not be read.
+     * @throws UnsupportedOperationException if this parser can't be reset.
+     * @see #reset(Reader)
+     */
+    default public void reset(ByteBuffer buffer, Charset cs)
+            throws IOException {
+        throw new UnsupportedOperationException("Cannot reset " + this);
+    }
+
+    /**
+     * Starts over on a new stream of Unicode code points.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param source a stream of code points.
+     * @throws IOException if the stream throws an exception.
+     * @throws UnsupportedOperationException if this parser can't be reset.
+     * @see #reset(Reader)
+     */
+    default public void reset(CodePointSource source) throws IOException {
+        throw new UnsupportedOperationException("Cannot reset " + this);
+    }
+
     /**
      * Gets the value associated with the current event.
      *
@@ -160,6 +328,8 @@ public interface EltnPullParser {
      * {@link EltnEvent#TABLE_KEY_INTEGER}, {@link EltnEvent#VALUE_INTEGER},
      * {@link EltnEvent#TABLE_KEY_NUMBER} or {@link EltnEvent#VALUE_NUMBER},
      * this method returns an unspecified subclass of Number.
+     * Prefer {@link #getLong()}, {@link #getInt()} or {@link #getDouble()}
+     * where a primitive will do; they need not allocate.
      * If the current text does not represent a number,
      * this method throws an exception.
      *
@@ -169,6 +339,64 @@ public interface EltnPullParser {
      */
     public Number getNumber() throws NumberFormatException;
 
+    /**
+     * Gets the value of the current number as a {@code long}, without boxing.
+     *
+     * If {@link #getEvent()} is {@link EltnEvent#TABLE_KEY_INTEGER} or
+     * {@link EltnEvent#VALUE_INTEGER}, this returns the integer exactly.
+     * If it is {@link EltnEvent#TABLE_KEY_NUMBER} or
+     * {@link EltnEvent#VALUE_NUMBER}, this returns the number only if it
+     * has an exact integer representation, as Lua would convert it.
+     *
+     * @return the value of the current ELTN Number
+     *
+     * @throws java.lang.NumberFormatException if the current text is not
+     *         a number, or has no integer representation.
+     */
+    default public long getLong() throws NumberFormatException {
+        Number n = getNumber();
+        if (n instanceof Long || n instanceof Integer
+                || n instanceof Short || n instanceof Byte) {
+            return n.longValue();
+        }
+        double d = n.doubleValue();
+        long result = (long) d;
+        if (result != d || d == 0x1p63) {
+            throw new NumberFormatException(n + " has no integer representation");
+        }
+        return result;
+    }
+
+    /**
+     * Gets the value of the current number as an {@code int}, without boxing.
+     *
+     * @return the value of the current ELTN Number
+     *
+     * @throws java.lang.NumberFormatException if {@link #getLong()} would,
+     *         or if the value does not fit in an {@code int}.
+     * @see #getLong()
+     */
+    default public int getInt() throws NumberFormatException {
+        long result = getLong();
+        if ((int) result != result) {
+            throw new NumberFormatException(result + " is out of int range");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Gets the value of the current number as a {@code double},
+     * without boxing.  Integers are converted as by a Java cast.
+     *
+     * @return the value of the current ELTN Number
+     *
+     * @throws java.lang.NumberFormatException if the current text is not
+     *         a number.
+     */
+    default public double getDouble() throws NumberFormatException {
+        return getNumber().doubleValue();
+    }
+
     /**
      * Gets a {@code boolean} value for the current event.
      *
@@ -212,6 +440,9 @@ public interface EltnPullParser {
      * the implied key if not preceded by a key or definition name. On
      * {@link EltnEvent#TABLE_END}, this is the key to which the closed
      * table belongs. On other events it is undefined.
+     * <p>
+     * Like {@link #getText()}, the result may be a view of the parser's
+     * internal buffers, valid only until the next call to {@link #next()}.
      *
      * @return the key or definition name currently being set.
      */
@@ -236,8 +467,17 @@ public interface EltnPullParser {
      * element will be enclosed in square brackets and, if a string,
      * single or double quotes, with escape characters marking unprintable
      * characters.
+     * Keys appear as written in the document, so for example
+     * {@code a.b["x"][3]} is the path to the value 30 in
+     * {@code a = { b = { ["x"] = { 10, 20, 30 } } }}.
+     * The path at {@link EltnEvent#TABLE_START} or
+     * {@link EltnEvent#TABLE_END} is the path to the table itself.
+     * <p>
+     * Like {@link #getText()}, the result may be a view of the parser's
+     * internal buffers, valid only until the next call to {@link #next()}.
      *
      * @return the path of all current keys.
+     * @see EltnProjection
      */
     public CharSequence getCurrentPath();
 }
@@ -24,11 +24,16 @@
 package com.frank_mitchell.eltnpp;
 
 import com.frank_mitchell.codepoint.CodePointSource;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Factory for a {@link EltnPullParser}.
@@ -72,6 +77,151 @@ public interface EltnPullParserFactory {
     EltnPullParser createParser(InputStream stream, Charset cs)
             throws IOException;
 
+    /**
+     * Creates a parser to process the bytes remaining in a buffer,
+     * in the specified encoding.
+     * The buffer's position and limit do not change.
+     * The default implementation copies the bytes and calls
+     * {@link #createParser(InputStream, Charset)}.
+     *
+     * @param buffer a buffer of bytes.
+     * @param cs     a character encoding.
+     * @return a parser for the buffer.
+     * @throws IOException if the buffer could not be read.
+     */
+    default EltnPullParser createParser(ByteBuffer buffer, Charset cs)
+            throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return createParser(new ByteArrayInputStream(bytes), cs);
+    }
+
+    /**
+     * Creates a parser to process a file in the specified encoding.
+     * The default implementation maps the file into memory and calls
+     * {@link #createParser(ByteBuffer, Charset)}, so offsets reported by
+     * a byte-oriented parser are offsets into the file.
+     *
+     * @param path the file to parse.
+     * @param cs   a character encoding.
+     * @return a parser for the file.
+     * @throws IOException if the file could not be opened or mapped.
+     */
+    default EltnPullParser createParser(Path path, Charset cs)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return createParser(buffer, cs);
+        }
+    }
+
+    /**
+     * Creates a parser that is fed bytes in the specified encoding
+     * instead of reading them, and never blocks.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param cs a character encoding.
+     * @return a parser with no input yet.
+     * @throws UnsupportedOperationException if this factory has no such
+     *         parser for the encoding.
+     * @see EltnAsyncPullParser
+     */
+    default EltnAsyncPullParser createAsyncParser(Charset cs) {
+        throw new UnsupportedOperationException(
+                "No non-blocking parser for " + cs);
+    }
+
+    /**
+     * Gets a factory whose parsers return canonical Strings from a symbol
+     * table for {@link EltnEvent#DEF_NAME} and
+     * {@link EltnEvent#TABLE_KEY_STRING}, instead of a new String for
+     * every key.
+     * The table may be shared by several factories, or a factory may be
+     * made for each parser with its own table.
+     * Since interning changes no results, the default implementation
+     * ignores the table and returns this factory.
+     *
+     * @param symbols canonical key strings.
+     * @return a factory whose parsers use the table.
+     */
+    default EltnPullParserFactory withSymbolTable(EltnSymbolTable symbols) {
+        return this;
+    }
+
+    /**
+     * Gets a factory that hands each thread the same parser over and over,
+     * {@linkplain EltnPullParser#reset(Reader) reset} to the new input,
+     * so that parsing many small documents costs little more than
+     * parsing one.  A parser from such a factory is valid only until the
+     * same thread asks the factory for another one, and must not be
+     * handed to another thread.  Non-blocking parsers and parsers of
+     * binary ELTN are never reused.
+     * Since a new parser is always valid, the default implementation
+     * returns this factory.
+     *
+     * @return a factory that reuses its parsers.
+     */
+    default EltnPullParserFactory withParserReuse() {
+        return this;
+    }
+
+    /**
+     * Gets a factory whose parsers add what they count and time to a
+     * set of metrics.  The metrics may be shared by several factories.
+     * A parser adds its measurements once per document, when the
+     * document ends or fails or the parser is reset, so a document
+     * still being read doesn't show yet.
+     * Parsers from a factory without metrics measure nothing at all,
+     * and neither do parsers of binary ELTN.
+     * Since a factory that can't measure its parsers still parses
+     * correctly, the default implementation ignores the metrics and
+     * returns this factory.
+     *
+     * @param metrics counters and timers to add to.
+     * @return a factory whose parsers are measured.
+     */
+    default EltnPullParserFactory withMetrics(EltnParserMetrics metrics) {
+        return this;
+    }
+
+    /**
+     * Gets a factory whose parsers read a UTF-8 or ASCII
+     * {@link ByteBuffer} in two stages: first one quick pass that indexes
+     * where every structural character, string, and comment lies, then
+     * a walk over the index that lexes only what lies between them.
+     * This pays off for large documents, especially ones whose tables are
+     * mostly skipped, since skipping a table jumps straight to its end.
+     * Such parsers do not count lines or columns.
+     * Other inputs, including binary ELTN, are parsed as usual.
+     * Since parsers that read straight through produce the same events,
+     * the default implementation returns this factory.
+     *
+     * @return a factory whose parsers index their buffers first.
+     * @see com.frank_mitchell.eltnpp.spi.EltnStructuralIndex
+     */
+    default EltnPullParserFactory withStructuralIndex() {
+        return this;
+    }
+
+    /**
+     * Gets a factory whose parsers report only the parts of a document
+     * that a projection selects, plus the keys and tables leading to them.
+     * Everything else is skipped with {@link EltnPullParser#skipValue()}
+     * or {@link EltnPullParser#skipTable()}, without decoding its strings.
+     *
+     * @param projection the paths to report.
+     * @return a factory that wraps each parser this factory creates.
+     * @see EltnProjection#apply(EltnPullParser)
+     */
+    default EltnPullParserFactory withProjection(EltnProjection projection) {
+        return new ProjectingEltnPullParserFactory(this, projection);
+    }
+
     /**
      * Creates a parser to process a stream of Unicode code points.
      *
@@ -24,17 +24,26 @@
 package com.frank_mitchell.eltnpp;
 
 import com.frank_mitchell.codepoint.CodePointSource;
+import com.frank_mitchell.codepoint.CodePointSink;
 import com.frank_mitchell.eltnpp.spi.DefaultEltnPullParserFactory;
+import com.frank_mitchell.eltnpp.spi.DefaultEltnWriterFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 
 /**
- * Entry point to create an {@link EltnPullParser}.
+ * Entry point to create an {@link EltnPullParser} or {@link EltnWriter}.
  *
  * @author Frank Mitchell
  */
@@ -45,34 +54,88 @@ public final class EltnService {
      */
     public static final Charset UTF_32 = Charset.forName("UTF-32");
 
+    /**
+     * Factories already found, so that each call doesn't search the
+     * installed services again.
+     */
+    private static final ConcurrentMap<Charset, EltnPullParserFactory>
+            PARSER_FACTORIES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Charset, EltnWriterFactory>
+            WRITER_FACTORIES = new ConcurrentHashMap<>();
+
     private EltnService() {
     }
 
-    private static EltnPullParserFactory getParserFactory(Charset cs) {
-        EltnPullParserFactory result = null;
+    /**
+     * Gets the first installed factory that handles a character set,
+     * or the default factory if none does.
+     * Use this to configure a factory, e.g. with
+     * {@link EltnPullParserFactory#withProjection(EltnProjection)}.
+     * The installed services are searched once per character set; later
+     * calls return the same factory.
+     *
+     * @param cs a character encoding.
+     *
+     * @return a factory for parsers that read the encoding.
+     */
+    public static EltnPullParserFactory getParserFactory(Charset cs) {
+        return PARSER_FACTORIES.computeIfAbsent(cs, EltnService::findParserFactory);
+    }
+
+    private static EltnPullParserFactory findParserFactory(Charset cs) {
+        EltnPullParserFactory result
+                = findFactory(EltnPullParserFactory.class,
+                        f -> f.includesCharset(cs));
+        if (result == null) {
+            System.Logger.Level level = System.Logger.Level.TRACE;
+
+            getLogger().log(level, "Using default parser factory");
+
+            result = new DefaultEltnPullParserFactory();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the first installed writer factory that handles a character
+     * set, or the default factory if none does.
+     *
+     * @param cs a character encoding.
+     *
+     * @return a factory for writers that produce the encoding.
+     */
+    public static EltnWriterFactory getWriterFactory(Charset cs) {
+        return WRITER_FACTORIES.computeIfAbsent(cs, EltnService::findWriterFactory);
+    }
+
+    private static EltnWriterFactory findWriterFactory(Charset cs) {
+        EltnWriterFactory result = findFactory(EltnWriterFactory.class,
+                f -> f.includesCharset(cs));
+        if (result == null) {
+            System.Logger.Level level = System.Logger.Level.TRACE;
+
+            getLogger().log(level, "Using default writer factory");
+
+            result = new DefaultEltnWriterFactory();
+        }
+        return result;
+    }
+
+    private static <F> F findFactory(Class<F> type, Predicate<F> test) {
         try {
-            ServiceLoader<EltnPullParserFactory> loader
-                    = ServiceLoader.load(EltnPullParserFactory.class);
-            for (EltnPullParserFactory factory : loader) {
-                if (factory != null && factory.includesCharset(cs)) {
-                    result = factory;
-                    break;
+            ServiceLoader<F> loader = ServiceLoader.load(type);
+            for (F factory : loader) {
+                if (factory != null && test.test(factory)) {
+                    return factory;
                 }
             }
         } catch (ServiceConfigurationError e) {
             System.Logger.Level level = System.Logger.Level.WARNING;
 
             getLogger().log(level, "Error with ServiceLoader; using default", e);
-        } finally {
-            if (result == null) {
-                System.Logger.Level level = System.Logger.Level.TRACE;
-
-                getLogger().log(level, "Using default parser factory");
-
-                result = new DefaultEltnPullParserFactory();
-            }
         }
-        return result;
+        return null;
     }
 
     private static System.Logger getLogger() {
@@ -116,6 +179,55 @@ public final class EltnService {
         return factory.createParser(stream, cs);
     }
 
+    /**
+     * Creates a parser to process the bytes remaining in a buffer, in the
+     * specified encoding. The buffer's position and limit do not change.
+     *
+     * @param buffer a buffer of bytes.
+     * @param cs a character encoding.
+     *
+     * @return a parser for the buffer.
+     *
+     * @throws IOException if the buffer could not be read.
+     */
+    public static EltnPullParser createPullParser(ByteBuffer buffer,
+            Charset cs) throws IOException {
+        EltnPullParserFactory factory = getParserFactory(cs);
+        return factory.createParser(buffer, cs);
+    }
+
+    /**
+     * Creates a parser to process a UTF-8 file. The file is mapped into
+     * memory rather than read through a stream, and text offsets count
+     * bytes from the start of the file.
+     *
+     * @param path the file to parse.
+     *
+     * @return a parser for the file.
+     *
+     * @throws IOException if the file could not be opened or mapped.
+     */
+    public static EltnPullParser createPullParser(Path path)
+            throws IOException {
+        return createPullParser(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a parser to process a file in the specified encoding.
+     *
+     * @param path the file to parse.
+     * @param cs a character encoding.
+     *
+     * @return a parser for the file.
+     *
+     * @throws IOException if the file could not be opened or mapped.
+     */
+    public static EltnPullParser createPullParser(Path path, Charset cs)
+            throws IOException {
+        EltnPullParserFactory factory = getParserFactory(cs);
+        return factory.createParser(path, cs);
+    }
+
     /**
      * Creates a parser to process bytes in the specified encoding. Because Java
      * translates strings internally to UTF-16, an ELTN parser in Java cannot
@@ -132,4 +244,159 @@ public final class EltnService {
         EltnPullParserFactory factory = getParserFactory(UTF_32);
         return factory.createParser(cps);
     }
+
+    /**
+     * Creates a parser that is fed UTF-8 bytes a chunk at a time, e.g.
+     * as they arrive from a non-blocking channel, and never blocks.
+     *
+     * @return a parser with no input yet.
+     *
+     * @see EltnAsyncPullParser
+     */
+    public static EltnAsyncPullParser createAsyncPullParser() {
+        return createAsyncPullParser(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a parser that is fed bytes in the specified encoding a chunk
+     * at a time, and never blocks.
+     *
+     * @param cs a character encoding.
+     *
+     * @return a parser with no input yet.
+     *
+     * @throws UnsupportedOperationException if no installed factory has a
+     * non-blocking parser for the encoding.
+     */
+    public static EltnAsyncPullParser createAsyncPullParser(Charset cs) {
+        EltnPullParserFactory factory = getParserFactory(cs);
+        return factory.createAsyncParser(cs);
+    }
+
+    /**
+     * Creates a writer of UTF-16 characters.
+     *
+     * @param writer a stream of UTF-16 chars.
+     *
+     * @return an ELTN writer to the stream.
+     *
+     * @throws IOException if the writer throws an exception.
+     */
+    public static EltnWriter createWriter(Writer writer) throws IOException {
+        EltnWriterFactory factory = getWriterFactory(StandardCharsets.UTF_16);
+        return factory.createWriter(writer);
+    }
+
+    /**
+     * Creates a writer of bytes in the specified encoding.
+     *
+     * @param stream a stream of bytes.
+     * @param cs a character encoding.
+     *
+     * @return an ELTN writer to the stream.
+     *
+     * @throws IOException if the stream throws an exception.
+     */
+    public static EltnWriter createWriter(OutputStream stream, Charset cs)
+            throws IOException {
+        EltnWriterFactory factory = getWriterFactory(cs);
+        return factory.createWriter(stream, cs);
+    }
+
+    /**
+     * Creates a writer of Unicode code points.
+     *
+     * @param sink a sink for code points.
+     *
+     * @return an ELTN writer to the sink.
+     *
+     * @throws IOException if the sink throws an exception.
+     */
+    public static EltnWriter createWriter(CodePointSink sink)
+            throws IOException {
+        EltnWriterFactory factory = getWriterFactory(UTF_32);
+        return factory.createWriter(sink);
+    }
+
+    /**
+     * Creates a writer of compact binary ELTN.  Parsers from
+     * {@link #createPullParser(InputStream, Charset)},
+     * {@link #createPullParser(ByteBuffer, Charset)}, and
+     * {@link #createPullParser(Path)} recognize binary input by its first
+     * bytes and report the same events as for the text it came from.
+     *
+     * @param stream a stream of bytes.
+     *
+     * @return a binary ELTN writer to the stream.
+     *
+     * @throws IOException if the stream throws an exception.
+     *
+     * @see #copy(EltnPullParser, EltnWriter)
+     */
+    public static EltnWriter createBinaryWriter(OutputStream stream)
+            throws IOException {
+        EltnWriterFactory factory = getWriterFactory(StandardCharsets.UTF_8);
+        return factory.createBinaryWriter(stream);
+    }
+
+    /**
+     * Writes everything a parser reads, less comments, and flushes the
+     * writer.  With a binary writer this converts text ELTN to binary;
+     * with a text writer, binary to text.
+     *
+     * @param parser a parser at the start of its document.
+     * @param writer where to write the document.
+     *
+     * @throws IOException if the parser reports an error, or either side
+     *         cannot be read or written.
+     */
+    public static void copy(EltnPullParser parser, EltnWriter writer)
+            throws IOException {
+        while (parser.hasNext()) {
+            parser.next();
+            switch (parser.getEvent()) {
+                case DEF_NAME:
+                    writer.writeDefName(parser.getString());
+                    break;
+                case TABLE_KEY_STRING:
+                    writer.writeKey(parser.getString());
+                    break;
+                case TABLE_KEY_INTEGER:
+                    writer.writeKey(parser.getLong());
+                    break;
+                case TABLE_KEY_NUMBER:
+                    writer.writeKey(parser.getDouble());
+                    break;
+                case TABLE_START:
+                    writer.startTable();
+                    break;
+                case TABLE_END:
+                    writer.endTable();
+                    break;
+                case VALUE_NIL:
+                    writer.writeNil();
+                    break;
+                case VALUE_FALSE:
+                    writer.writeValue(false);
+                    break;
+                case VALUE_TRUE:
+                    writer.writeValue(true);
+                    break;
+                case VALUE_INTEGER:
+                    writer.writeValue(parser.getLong());
+                    break;
+                case VALUE_NUMBER:
+                    writer.writeValue(parser.getDouble());
+                    break;
+                case VALUE_STRING:
+                    writer.writeValue(parser.getString());
+                    break;
+                case ERROR:
+                    throw EltnValue.error(parser);
+                default:
+                    break;
+            }
+        }
+        writer.flush();
+    }
 }
@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded table of canonical Strings for keys and definition names.
+ * Real documents repeat the same few hundred keys over and over; a parser
+ * with a symbol table hands back the same String for each repetition
+ * instead of a new one, so neither parsing nor the trees built from it
+ * pay for the copies.
+ * <p>
+ * The table is a fixed number of small buckets.  When a bucket fills up
+ * a new symbol replaces an old one, so the table never grows, and input
+ * full of distinct or colliding keys costs only misses.
+ * Keys longer than {@link #MAX_SYMBOL_LENGTH} are never stored.
+ * <p>
+ * One table may be shared by any number of parsers on any number of
+ * threads.  Slots are read and written without locks: because Strings
+ * are immutable, a racing reader sees the old symbol, the new one, or
+ * nothing, and all three give a correct answer.
+ *
+ * @author Frank Mitchell
+ * @see EltnPullParserFactory#withSymbolTable(EltnSymbolTable)
+ */
+public final class EltnSymbolTable {
+
+    /**
+     * Number of slots in a table made with the default constructor.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Longest key the table will store.
+     */
+    public static final int MAX_SYMBOL_LENGTH = 256;
+
+    private static final int BUCKET_SIZE = 4;
+
+    private static final int MAX_CAPACITY = 1 << 24;
+
+    private final String[] _slots;
+    private final int _mask;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    /**
+     * Creates a table with {@link #DEFAULT_CAPACITY} slots.
+     */
+    public EltnSymbolTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a table with at least the given number of slots.
+     *
+     * @param capacity the most symbols to keep; rounded up to a power of two
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public EltnSymbolTable(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        int size = BUCKET_SIZE;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        _slots = new String[size];
+        _mask = (size - 1) & ~(BUCKET_SIZE - 1);
+    }
+
+    /**
+     * Gets the canonical String with the same characters.
+     *
+     * @param chars the characters of a key
+     * @return a String equal to {@code chars.toString()}
+     */
+    public String intern(CharSequence chars) {
+        return intern(chars, 0, chars.length());
+    }
+
+    /**
+     * Gets the canonical String for a range of characters.
+     *
+     * @param chars a sequence of characters
+     * @param start the index of the first character of the key
+     * @param end the index past the last character of the key
+     * @return a String equal to {@code chars.subSequence(start, end)}
+     */
+    public String intern(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return intern(chars, start, end, hash);
+    }
+
+    /**
+     * Gets the canonical String for a range of characters whose hash
+     * the caller already knows, e.g. because a lexer computed it while
+     * reading them.
+     *
+     * @param chars a sequence of characters
+     * @param start the index of the first character of the key
+     * @param end the index past the last character of the key
+     * @param hash what {@link String#hashCode()} would return for the key
+     * @return a String equal to {@code chars.subSequence(start, end)}
+     */
+    public String intern(CharSequence chars, int start, int end, int hash) {
+        final int length = end - start;
+        if (length > MAX_SYMBOL_LENGTH) {
+            _misses.increment();
+            return chars.subSequence(start, end).toString();
+        }
+        final String[] slots = _slots;
+        final int bucket = (hash ^ (hash >>> 16)) * BUCKET_SIZE & _mask;
+        int empty = -1;
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            String symbol = slots[i];
+            if (symbol == null) {
+                if (empty < 0) {
+                    empty = i;
+                }
+            } else if (symbol.hashCode() == hash
+                    && matches(symbol, chars, start, length)) {
+                _hits.increment();
+                return symbol;
+            }
+        }
+        _misses.increment();
+        String symbol = (start == 0 && end == chars.length())
+                ? chars.toString()
+                : chars.subSequence(start, end).toString();
+        if (empty < 0) {
+            empty = bucket + ThreadLocalRandom.current().nextInt(BUCKET_SIZE);
+        }
+        slots[empty] = symbol;
+        return symbol;
+    }
+
+    private static boolean matches(String symbol, CharSequence chars,
+            int start, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of slots, i.e. the most symbols the table can hold.
+     *
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return _slots.length;
+    }
+
+    /**
+     * Gets how many lookups found a symbol already in the table.
+     *
+     * @return the number of hits so far
+     */
+    public long getHitCount() {
+        return _hits.sum();
+    }
+
+    /**
+     * Gets how many lookups had to create a new String.
+     *
+     * @return the number of misses so far
+     */
+    public long getMissCount() {
+        return _misses.sum();
+    }
+
+    /**
+     * Empties the table and resets its counters.
+     */
+    public void clear() {
+        Arrays.fill(_slots, null);
+        _hits.reset();
+        _misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "EltnSymbolTable{capacity=" + getCapacity()
+                + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + "}";
+    }
+}
@@ -0,0 +1,683 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.eltnpp.spi.DefaultEltnWriterFactory;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * A Lua table built from an ELTN document.
+ * Like a Lua table, it keeps positive integer keys 1 through
+ * {@link #length()} in a dense array part and all other keys in a hash
+ * part.  The array part stores integers and floats in a primitive array
+ * while every value has the same type, and only boxes them once the
+ * values are mixed.  The hash part uses open addressing over parallel
+ * arrays, so integer and float keys and values are never boxed either.
+ * <p>
+ * Keys may be strings, integers, finite floats or booleans; a float
+ * key with an integer value is the same key as that integer, as in Lua.
+ * Values may be {@link String}, {@link Long}, finite {@link Double},
+ * {@link Boolean}, or {@code EltnTable}.  Like {@link EltnWriter}, a table
+ * rejects NaN and infinity, which ELTN cannot represent.
+ * Setting a key to {@code null} (i.e. {@code nil}) removes it.
+ * <p>
+ * Tables are not thread-safe.  Like Lua tables they use identity for
+ * {@link #equals(Object)} and {@link #hashCode()}.
+ *
+ * @author Frank Mitchell
+ * @see EltnValue
+ */
+public final class EltnTable {
+
+    /* markers in _hashKeys and _hashValues for primitives in the bits */
+    static final Object INTEGER = new Object();
+    static final Object NUMBER = new Object();
+
+    private static final byte KIND_LONG = 0;
+    private static final byte KIND_DOUBLE = 1;
+    private static final byte KIND_OBJECT = 2;
+
+    private static final long[] NO_LONGS = new long[0];
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    /* array part: keys 1 through _length */
+    private byte _kind = KIND_LONG;
+    private int _length = 0;
+    private long[] _longs = NO_LONGS;   /* also doubles, as raw bits */
+    private Object[] _objects = null;
+
+    /* hash part: a power of two sized, linearly probed */
+    private int _hashCount = 0;
+    private Object[] _hashKeys = NO_OBJECTS;
+    private long[] _hashKeyBits = NO_LONGS;
+    private Object[] _hashValues = NO_OBJECTS;
+    private long[] _hashValueBits = NO_LONGS;
+
+    /**
+     * Creates an empty table.
+     */
+    public EltnTable() {
+    }
+
+    /**
+     * Gets the length of the array part, i.e. a "border" in Lua terms:
+     * every key from 1 to the result is present, and the next is not.
+     *
+     * @return the length of the table's sequence
+     */
+    public int length() {
+        return _length;
+    }
+
+    /**
+     * Gets the number of keys in the table.
+     *
+     * @return the number of keys with non-nil values
+     */
+    public int size() {
+        return _length + _hashCount;
+    }
+
+    /**
+     * Checks whether the table has no keys.
+     *
+     * @return whether {@link #size()} is 0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the value of an integer key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key is absent
+     */
+    public Object get(long key) {
+        if (key >= 1 && key <= _length) {
+            return arrayGet((int) key - 1);
+        }
+        return hashGet(INTEGER, key);
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key a string, number, or boolean
+     * @return the value, or {@code null} if the key is absent or invalid
+     */
+    public Object get(Object key) {
+        if (isInteger(key)) {
+            return get(((Number) key).longValue());
+        }
+        if (key instanceof Number) {
+            double d = ((Number) key).doubleValue();
+            long l = (long) d;
+            if (l == d && d != 0x1p63) {
+                return get(l);
+            }
+            return hashGet(NUMBER, Double.doubleToLongBits(d));
+        }
+        if (key instanceof CharSequence) {
+            return hashGet(key.toString(), 0);
+        }
+        return hashGet(key, 0);
+    }
+
+    /**
+     * Gets the integer value of an integer key without boxing.
+     *
+     * @param key the key
+     * @param defaultValue the result if the value is not an integer
+     * @return the value, or {@code defaultValue}
+     */
+    public long getLong(long key, long defaultValue) {
+        if (key >= 1 && key <= _length && _kind == KIND_LONG) {
+            return _longs[(int) key - 1];
+        }
+        Object value = get(key);
+        return isInteger(value) ? ((Number) value).longValue() : defaultValue;
+    }
+
+    /**
+     * Gets the numeric value of an integer key without boxing.
+     * Integer values are converted as by a Java cast.
+     *
+     * @param key the key
+     * @param defaultValue the result if the value is not a number
+     * @return the value, or {@code defaultValue}
+     */
+    public double getDouble(long key, double defaultValue) {
+        if (key >= 1 && key <= _length) {
+            if (_kind == KIND_DOUBLE) {
+                return Double.longBitsToDouble(_longs[(int) key - 1]);
+            } else if (_kind == KIND_LONG) {
+                return _longs[(int) key - 1];
+            }
+        }
+        Object value = get(key);
+        return (value instanceof Number)
+                ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Sets the value of an integer key.
+     *
+     * @param key the key
+     * @param value the value, or {@code null} to remove the key
+     * @throws IllegalArgumentException if the value is NaN, infinite,
+     *         or of another type
+     */
+    public void set(long key, Object value) {
+        if (isInteger(value)) {
+            put(INTEGER, key, INTEGER, ((Number) value).longValue());
+        } else if (value instanceof Number) {
+            put(INTEGER, key, NUMBER, Double.doubleToRawLongBits(
+                    ((Number) value).doubleValue()));
+        } else {
+            put(INTEGER, key, checkValue(value), 0);
+        }
+    }
+
+    /**
+     * Sets an integer key to an integer without boxing.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void set(long key, long value) {
+        put(INTEGER, key, INTEGER, value);
+    }
+
+    /**
+     * Sets an integer key to a float without boxing.
+     *
+     * @param key the key
+     * @param value the value
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    public void set(long key, double value) {
+        put(INTEGER, key, NUMBER, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key a string, number, or boolean
+     * @param value the value, or {@code null} to remove the key
+     * @throws IllegalArgumentException if the key is {@code null}, NaN,
+     *         infinite, or of another type, or the value is NaN, infinite,
+     *         or of another type
+     */
+    public void set(Object key, Object value) {
+        if (isInteger(key)) {
+            set(((Number) key).longValue(), value);
+        } else if (isInteger(value)) {
+            put(checkKey(key), keyBits(key), INTEGER,
+                    ((Number) value).longValue());
+        } else if (value instanceof Number) {
+            put(checkKey(key), keyBits(key), NUMBER, Double.doubleToRawLongBits(
+                    ((Number) value).doubleValue()));
+        } else {
+            put(checkKey(key), keyBits(key), checkValue(value), 0);
+        }
+    }
+
+    /**
+     * Adds a value after the end of the sequence,
+     * i.e. at key {@code length() + 1}.
+     *
+     * @param value the value
+     */
+    public void add(Object value) {
+        set(_length + 1L, value);
+    }
+
+    /**
+     * Performs an action on each key and value: first the sequence in
+     * order, then the other keys in no particular order.
+     * Integer and float keys and values are boxed as {@link Long} and
+     * {@link Double}.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(BiConsumer<Object, Object> action) {
+        for (int i = 0; i < _length; i++) {
+            action.accept((long) i + 1, arrayGet(i));
+        }
+        for (int i = 0; i < _hashKeys.length; i++) {
+            Object key = _hashKeys[i];
+            if (key != null) {
+                action.accept(unbox(key, _hashKeyBits[i]),
+                        unbox(_hashValues[i], _hashValueBits[i]));
+            }
+        }
+    }
+
+    /**
+     * Shrinks the table's internal arrays to fit its contents.
+     * {@link EltnValue} calls this on each table it finishes reading.
+     */
+    public void trimToSize() {
+        if (_longs.length > _length) {
+            _longs = (_length == 0) ? NO_LONGS : Arrays.copyOf(_longs, _length);
+        }
+        if (_objects != null && _objects.length > _length) {
+            _objects = Arrays.copyOf(_objects, _length);
+        }
+        int capacity = hashCapacity(_hashCount);
+        if (capacity < _hashKeys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Writes the table as an ELTN table constructor, as an
+     * {@link EltnWriter} would.  Entries with Boolean keys, which ELTN
+     * cannot represent, are left out.
+     * Nested tables are written in full, so a table that contains itself
+     * will overflow the stack.
+     *
+     * @return the table as ELTN text
+     */
+    @Override
+    public String toString() {
+        StringWriter out = new StringWriter();
+        try (EltnWriter writer = new DefaultEltnWriterFactory().createWriter(out)) {
+            /* a writer only takes a table as the value of a definition */
+            writer.writeDefName("t");
+            writeTo(writer);
+        } catch (IOException e) {
+            /* a StringWriter never throws */
+            throw new UncheckedIOException(e);
+        }
+        String text = out.toString();
+        return text.substring("t = ".length(), text.length() - 1);
+    }
+
+    private void writeTo(EltnWriter writer) throws IOException {
+        writer.startTable();
+        forEach((key, value) -> {
+            try {
+                if (key instanceof String) {
+                    writer.writeKey((String) key);
+                } else if (key instanceof Long) {
+                    writer.writeKey((long) (Long) key);
+                } else if (key instanceof Double) {
+                    writer.writeKey((double) (Double) key);
+                } else {
+                    return;
+                }
+                if (value instanceof EltnTable) {
+                    ((EltnTable) value).writeTo(writer);
+                } else if (value instanceof String) {
+                    writer.writeValue((String) value);
+                } else if (value instanceof Long) {
+                    writer.writeValue((long) (Long) value);
+                } else if (value instanceof Double) {
+                    writer.writeValue((double) (Double) value);
+                } else {
+                    writer.writeValue((boolean) (Boolean) value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.endTable();
+    }
+
+    /*
+     * Stores an encoded key and value.  A key or value of INTEGER or
+     * NUMBER has its value in the corresponding bits; a null value
+     * removes the key.
+     */
+    void put(Object key, long keyBits, Object value, long valueBits) {
+        if (value == NUMBER) {
+            checkFinite(Double.longBitsToDouble(valueBits));
+        }
+        if (key == NUMBER) {
+            double d = Double.longBitsToDouble(keyBits);
+            long l = (long) d;
+            if (l == d && d != 0x1p63) {
+                key = INTEGER;
+                keyBits = l;
+            } else {
+                checkFinite(d);
+                keyBits = Double.doubleToLongBits(d);
+            }
+        }
+        if (key == INTEGER && keyBits >= 1 && keyBits <= _length + 1L) {
+            int index = (int) keyBits - 1;
+            if (index < _length) {
+                if (value == null) {
+                    truncate(index);
+                } else {
+                    arraySet(index, value, valueBits);
+                }
+                return;
+            }
+            if (value != null && index < Integer.MAX_VALUE - 8) {
+                hashRemove(INTEGER, keyBits);
+                arraySet(index, value, valueBits);
+                migrate();
+                return;
+            }
+        }
+        if (value == null) {
+            hashRemove(key, keyBits);
+        } else {
+            hashPut(key, keyBits, value, valueBits);
+        }
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private Object arrayGet(int index) {
+        switch (_kind) {
+            case KIND_LONG:
+                return _longs[index];
+            case KIND_DOUBLE:
+                return Double.longBitsToDouble(_longs[index]);
+            default:
+                return _objects[index];
+        }
+    }
+
+    /*
+     * Sets _length or an earlier index, widening the array part to
+     * boxed objects if the value doesn't fit.
+     */
+    private void arraySet(int index, Object value, long valueBits) {
+        if (index == _length) {
+            if (_length == 0) {
+                _kind = (value == INTEGER) ? KIND_LONG
+                        : (value == NUMBER) ? KIND_DOUBLE : KIND_OBJECT;
+            }
+            if (_kind == KIND_OBJECT) {
+                if (_objects == null || _length == _objects.length) {
+                    _objects = Arrays.copyOf(
+                            (_objects == null) ? NO_OBJECTS : _objects,
+                            grow(_length));
+                }
+            } else if (_length == _longs.length) {
+                _longs = Arrays.copyOf(_longs, grow(_length));
+            }
+            _length++;
+        }
+        if (_kind == KIND_LONG && value == INTEGER
+                || _kind == KIND_DOUBLE && value == NUMBER) {
+            _longs[index] = valueBits;
+            return;
+        }
+        if (_kind != KIND_OBJECT) {
+            Object[] objects = new Object[Math.max(_longs.length, index + 1)];
+            for (int i = 0; i < _length; i++) {
+                if (i != index) {
+                    objects[i] = arrayGet(i);
+                }
+            }
+            _objects = objects;
+            _longs = NO_LONGS;
+            _kind = KIND_OBJECT;
+        }
+        _objects[index] = unbox(value, valueBits);
+    }
+
+    /*
+     * Moves the values of keys following the array part from the hash part.
+     */
+    private void migrate() {
+        while (_hashCount > 0 && _length < Integer.MAX_VALUE - 8) {
+            int slot = find(INTEGER, _length + 1L);
+            if (slot < 0) {
+                return;
+            }
+            Object value = _hashValues[slot];
+            long valueBits = _hashValueBits[slot];
+            removeSlot(slot);
+            arraySet(_length, value, valueBits);
+        }
+    }
+
+    /*
+     * Ends the array part before index, moving later values to the hash.
+     */
+    private void truncate(int index) {
+        int length = _length;
+        _length = index;
+        for (int i = index + 1; i < length; i++) {
+            Object value;
+            long valueBits = 0;
+            switch (_kind) {
+                case KIND_LONG:
+                    value = INTEGER;
+                    valueBits = _longs[i];
+                    break;
+                case KIND_DOUBLE:
+                    value = NUMBER;
+                    valueBits = _longs[i];
+                    break;
+                default:
+                    value = encode(_objects[i]);
+                    if (value != _objects[i]) {
+                        valueBits = (value == INTEGER)
+                                ? ((Number) _objects[i]).longValue()
+                                : Double.doubleToRawLongBits(
+                                        ((Number) _objects[i]).doubleValue());
+                    }
+                    break;
+            }
+            hashPut(INTEGER, i + 1L, value, valueBits);
+        }
+        if (_objects != null) {
+            Arrays.fill(_objects, index, length, null);
+        }
+    }
+
+    private Object hashGet(Object key, long keyBits) {
+        int slot = find(key, keyBits);
+        return (slot < 0) ? null
+                : unbox(_hashValues[slot], _hashValueBits[slot]);
+    }
+
+    private int find(Object key, long keyBits) {
+        if (_hashCount == 0) {
+            return -1;
+        }
+        final int mask = _hashKeys.length - 1;
+        int slot = hash(key, keyBits) & mask;
+        Object k;
+        while ((k = _hashKeys[slot]) != null) {
+            if (k == key ? (_hashKeyBits[slot] == keyBits)
+                    : (key != INTEGER && key != NUMBER && key.equals(k))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void hashPut(Object key, long keyBits,
+            Object value, long valueBits) {
+        int slot = find(key, keyBits);
+        if (slot < 0) {
+            if (hashCapacity(_hashCount + 1) > _hashKeys.length) {
+                rehash(hashCapacity(_hashCount + 1));
+            }
+            final int mask = _hashKeys.length - 1;
+            slot = hash(key, keyBits) & mask;
+            while (_hashKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            _hashKeys[slot] = key;
+            _hashKeyBits[slot] = keyBits;
+            _hashCount++;
+        }
+        _hashValues[slot] = value;
+        _hashValueBits[slot] = valueBits;
+    }
+
+    private void hashRemove(Object key, long keyBits) {
+        int slot = find(key, keyBits);
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /*
+     * Removes a slot by shifting back any later entries in its run,
+     * so that lookups never need tombstones.
+     */
+    private void removeSlot(int slot) {
+        final int mask = _hashKeys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        Object k;
+        while ((k = _hashKeys[next]) != null) {
+            int home = hash(k, _hashKeyBits[next]) & mask;
+            /* move next into the hole unless its home lies in (hole, next] */
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                _hashKeys[hole] = k;
+                _hashKeyBits[hole] = _hashKeyBits[next];
+                _hashValues[hole] = _hashValues[next];
+                _hashValueBits[hole] = _hashValueBits[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        _hashKeys[hole] = null;
+        _hashValues[hole] = null;
+        _hashCount--;
+    }
+
+    private void rehash(int capacity) {
+        Object[] keys = _hashKeys;
+        long[] keyBits = _hashKeyBits;
+        Object[] values = _hashValues;
+        long[] valueBits = _hashValueBits;
+        _hashKeys = (capacity == 0) ? NO_OBJECTS : new Object[capacity];
+        _hashKeyBits = (capacity == 0) ? NO_LONGS : new long[capacity];
+        _hashValues = (capacity == 0) ? NO_OBJECTS : new Object[capacity];
+        _hashValueBits = (capacity == 0) ? NO_LONGS : new long[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = hash(keys[i], keyBits[i]) & mask;
+                while (_hashKeys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                _hashKeys[slot] = keys[i];
+                _hashKeyBits[slot] = keyBits[i];
+                _hashValues[slot] = values[i];
+                _hashValueBits[slot] = valueBits[i];
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    /*
+     * The smallest power of two that holds count keys at a load of 3/4.
+     */
+    private static int hashCapacity(int count) {
+        if (count == 0) {
+            return 0;
+        }
+        int min = count + (count + 2) / 3;
+        return Math.max(2, Integer.highestOneBit(min - 1) << 1);
+    }
+
+    private static int grow(int length) {
+        return (length < 4) ? 4 : length + (length >> 1);
+    }
+
+    private static int hash(Object key, long keyBits) {
+        long h = (key == INTEGER || key == NUMBER)
+                ? keyBits : key.hashCode();
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte;
+    }
+
+    private static Object unbox(Object value, long bits) {
+        if (value == INTEGER) {
+            return bits;
+        } else if (value == NUMBER) {
+            return Double.longBitsToDouble(bits);
+        }
+        return value;
+    }
+
+    /*
+     * The marker for a boxed number, or the object itself.
+     */
+    private static Object encode(Object value) {
+        if (isInteger(value)) {
+            return INTEGER;
+        } else if (value instanceof Number) {
+            return NUMBER;
+        }
+        return value;
+    }
+
+    private static Object checkKey(Object key) {
+        if (key instanceof Number) {
+            return NUMBER;
+        } else if (key instanceof CharSequence) {
+            return key.toString();
+        } else if (key instanceof Boolean) {
+            return key;
+        }
+        throw new IllegalArgumentException("invalid key: " + key);
+    }
+
+    private static long keyBits(Object key) {
+        return (key instanceof Number)
+                ? Double.doubleToRawLongBits(((Number) key).doubleValue()) : 0;
+    }
+
+    private static void checkFinite(double d) {
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            throw new IllegalArgumentException("ELTN cannot represent " + d);
+        }
+    }
+
+    private static Object checkValue(Object value) {
+        if (value == null || value instanceof EltnTable
+                || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof CharSequence) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException("invalid value: " + value);
+    }
+}
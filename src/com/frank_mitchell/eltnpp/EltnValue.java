@@ -0,0 +1,232 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads ELTN values, including whole documents, into memory.
+ * Tables become {@link EltnTable}s; other values become
+ * {@link String}, {@link Long}, {@link Double}, {@link Boolean},
+ * or {@code null} for {@code nil}.
+ * Reading is iterative, so deeply nested tables don't overflow the stack.
+ *
+ * @author Frank Mitchell
+ */
+public final class EltnValue {
+
+    private EltnValue() {
+    }
+
+    /**
+     * Reads the rest of a document into a table of its definitions.
+     *
+     * @param parser a parser, usually at {@link EltnEvent#STREAM_START}
+     * @return a table from each definition name to its value
+     * @throws IOException if the parser could not read its source,
+     *         or if the document is malformed
+     */
+    public static EltnTable readDocument(EltnPullParser parser)
+            throws IOException {
+        EltnTable result = new EltnTable();
+        new Builder(parser, result).run(true);
+        return result;
+    }
+
+    /**
+     * Reads the value at the parser's current event.
+     * On {@link EltnEvent#DEF_NAME} or a table key, this reads the value
+     * that follows.  On {@link EltnEvent#TABLE_START}, this reads through
+     * the matching {@link EltnEvent#TABLE_END}, leaving the parser there.
+     *
+     * @param parser a parser
+     * @return the value, or {@code null} for {@code nil}
+     * @throws IOException if the parser could not read its source,
+     *         or if the document is malformed
+     * @throws IllegalStateException if the current event is not a value
+     *         or key
+     */
+    public static Object read(EltnPullParser parser) throws IOException {
+        switch (parser.getEvent()) {
+            case DEF_NAME:
+            case TABLE_KEY_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case TABLE_KEY_STRING:
+                nextValue(parser);
+                break;
+            default:
+                break;
+        }
+        switch (parser.getEvent()) {
+            case TABLE_START:
+                EltnTable result = new EltnTable();
+                new Builder(parser, result).run(false);
+                return result;
+            case VALUE_NIL:
+                return null;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_INTEGER:
+                return parser.getLong();
+            case VALUE_NUMBER:
+                return parser.getDouble();
+            case VALUE_STRING:
+                return parser.getString();
+            case ERROR:
+                throw error(parser);
+            default:
+                throw new IllegalStateException(
+                        "not a value: " + parser.getEvent());
+        }
+    }
+
+    /**
+     * Advances from a key to its value, passing over any comments
+     * in between.
+     */
+    static void nextValue(EltnPullParser parser) throws IOException {
+        do {
+            parser.next();
+        } while (parser.getEvent() == EltnEvent.COMMENT);
+    }
+
+    /**
+     * Describes an {@link EltnEvent#ERROR}, or other malformed input,
+     * at the parser's current position.
+     */
+    static IOException error(EltnPullParser parser) {
+        return new IOException("ELTN " + parser.getError()
+                + " at line " + parser.getTextLineNumber()
+                + ", column " + parser.getTextColumnNumber());
+    }
+
+    /**
+     * Builds tables from parser events with an explicit stack.
+     */
+    private static final class Builder {
+        private final EltnPullParser _parser;
+        private EltnTable[] _tables = new EltnTable[8];
+        private long[] _positions = new long[8];
+        private int _top = 0;
+
+        /* encoded as for EltnTable.put(); null for a positional value */
+        private Object _key = null;
+        private long _keyBits = 0;
+
+        Builder(EltnPullParser parser, EltnTable table) {
+            _parser = parser;
+            _tables[0] = table;
+        }
+
+        void run(boolean document) throws IOException {
+            final EltnPullParser parser = _parser;
+            while (parser.hasNext()) {
+                parser.next();
+                switch (parser.getEvent()) {
+                    case DEF_NAME:
+                    case TABLE_KEY_STRING:
+                        _key = parser.getString();
+                        _keyBits = 0;
+                        break;
+                    case TABLE_KEY_INTEGER:
+                        _key = EltnTable.INTEGER;
+                        _keyBits = parser.getLong();
+                        break;
+                    case TABLE_KEY_NUMBER:
+                        _key = EltnTable.NUMBER;
+                        _keyBits = Double.doubleToRawLongBits(parser.getDouble());
+                        break;
+                    case TABLE_START:
+                        EltnTable table = new EltnTable();
+                        store(table, 0);
+                        push(table);
+                        break;
+                    case TABLE_END:
+                        _tables[_top].trimToSize();
+                        _tables[_top] = null;
+                        if (_top == 0) {
+                            return;
+                        }
+                        _top--;
+                        break;
+                    case VALUE_NIL:
+                        store(null, 0);
+                        break;
+                    case VALUE_FALSE:
+                        store(Boolean.FALSE, 0);
+                        break;
+                    case VALUE_TRUE:
+                        store(Boolean.TRUE, 0);
+                        break;
+                    case VALUE_INTEGER:
+                        store(EltnTable.INTEGER, parser.getLong());
+                        break;
+                    case VALUE_NUMBER:
+                        store(EltnTable.NUMBER,
+                                Double.doubleToRawLongBits(parser.getDouble()));
+                        break;
+                    case VALUE_STRING:
+                        store(parser.getString(), 0);
+                        break;
+                    case ERROR:
+                        throw error(parser);
+                    case STREAM_END:
+                        if (document && _top == 0) {
+                            _tables[0].trimToSize();
+                            return;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (!document) {
+                throw new IOException("ELTN table not closed");
+            }
+        }
+
+        private void store(Object value, long valueBits) {
+            Object key = _key;
+            long keyBits = _keyBits;
+            if (key == null) {
+                key = EltnTable.INTEGER;
+                keyBits = ++_positions[_top];
+            }
+            _tables[_top].put(key, keyBits, value, valueBits);
+            _key = null;
+        }
+
+        private void push(EltnTable table) {
+            if (++_top == _tables.length) {
+                _tables = Arrays.copyOf(_tables, _top * 2);
+                _positions = Arrays.copyOf(_positions, _top * 2);
+            }
+            _tables[_top] = table;
+            _positions[_top] = 0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * A streaming writer for an ELTN (Extended Lua Table Notation) document.
+ * Its methods mirror the {@link EltnEvent}s an {@link EltnPullParser}
+ * reports, so that writing the events a parser reads reproduces the
+ * document.  For example,
+ * <pre>
+ * writer.writeDefName("server");
+ * writer.startTable();
+ * writer.writeKey("port");
+ * writer.writeValue(8080);
+ * writer.writeValue("backup");
+ * writer.endTable();
+ * </pre>
+ * writes {@code server = { port = 8080, "backup" }}.
+ * A value in a table without a preceding key is the next positional
+ * value.
+ * <p>
+ * Writers buffer their output; call {@link #flush()} or {@link #close()}
+ * when done.  Methods throw {@link IllegalStateException} if called
+ * where the document cannot contain the corresponding element.
+ *
+ * @author Frank Mitchell
+ */
+public interface EltnWriter extends Closeable, Flushable {
+
+    /**
+     * Writes a definition name, i.e. a key at the top level.
+     * The next call must write its value.
+     *
+     * @param name the name, which must be a valid Lua identifier
+     * @throws IOException if the output could not be written
+     * @throws IllegalArgumentException if the name is not an identifier
+     * @see EltnEvent#DEF_NAME
+     */
+    void writeDefName(CharSequence name) throws IOException;
+
+    /**
+     * Writes a string key in a table.
+     * The key is written bare if it is an identifier, otherwise in
+     * brackets and quotes.
+     *
+     * @param key the key
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#TABLE_KEY_STRING
+     */
+    void writeKey(CharSequence key) throws IOException;
+
+    /**
+     * Writes an integer key in a table.
+     *
+     * @param key the key
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#TABLE_KEY_INTEGER
+     */
+    void writeKey(long key) throws IOException;
+
+    /**
+     * Writes a number key in a table.
+     *
+     * @param key the key
+     * @throws IOException if the output could not be written
+     * @throws IllegalArgumentException if the key is NaN or infinite
+     * @see EltnEvent#TABLE_KEY_NUMBER
+     */
+    void writeKey(double key) throws IOException;
+
+    /**
+     * Starts a table as the current value.
+     *
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#TABLE_START
+     */
+    void startTable() throws IOException;
+
+    /**
+     * Ends the innermost table.
+     *
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#TABLE_END
+     */
+    void endTable() throws IOException;
+
+    /**
+     * Writes an integer value.
+     *
+     * @param value the value
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#VALUE_INTEGER
+     */
+    void writeValue(long value) throws IOException;
+
+    /**
+     * Writes a number value.  The number is written so that it reads
+     * back as exactly the same {@code double}.
+     *
+     * @param value the value
+     * @throws IOException if the output could not be written
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     * @see EltnEvent#VALUE_NUMBER
+     */
+    void writeValue(double value) throws IOException;
+
+    /**
+     * Writes a string value in quotes, escaping characters as needed.
+     *
+     * @param value the value, or {@code null} for {@code nil}
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#VALUE_STRING
+     */
+    void writeValue(CharSequence value) throws IOException;
+
+    /**
+     * Writes a Boolean value.
+     *
+     * @param value the value
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#VALUE_TRUE
+     * @see EltnEvent#VALUE_FALSE
+     */
+    void writeValue(boolean value) throws IOException;
+
+    /**
+     * Writes {@code nil}.
+     *
+     * @throws IOException if the output could not be written
+     * @see EltnEvent#VALUE_NIL
+     */
+    void writeNil() throws IOException;
+
+    /**
+     * Indicates the depth of nested tables at the current point in the
+     * document, as {@link EltnPullParser#getDepth()} would.
+     *
+     * @return the depth of nested tables.
+     */
+    int getDepth();
+}
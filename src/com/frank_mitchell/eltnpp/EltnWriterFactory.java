@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.codepoint.CodePointSink;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Factory for an {@link EltnWriter}.
+ *
+ * @author Frank Mitchell
+ */
+public interface EltnWriterFactory {
+    /**
+     * Whether this factory's writers can produce this particular
+     * character set.
+     *
+     * @param cs the Charset for which to test
+     * @return whether the writers produce this Charset
+     */
+    default boolean includesCharset(Charset cs) {
+        return true;
+    }
+
+    /**
+     * Creates a writer of UTF-16 characters.
+     *
+     * @param writer a stream of UTF-16 chars.
+     * @return a writer to the stream.
+     * @throws IOException if the writer throws an exception.
+     */
+    EltnWriter createWriter(Writer writer) throws IOException;
+
+    /**
+     * Creates a writer of bytes in the specified encoding.
+     *
+     * @param stream a stream of bytes.
+     * @param cs     a character encoding.
+     * @return a writer to the stream.
+     * @throws IOException if the stream throws an exception.
+     */
+    EltnWriter createWriter(OutputStream stream, Charset cs)
+            throws IOException;
+
+    /**
+     * Creates a writer of Unicode code points.
+     *
+     * @param sink a sink for code points.
+     * @return a writer to the sink.
+     * @throws IOException if the sink throws an exception.
+     */
+    EltnWriter createWriter(CodePointSink sink) throws IOException;
+
+    /**
+     * Creates a writer of compact binary ELTN, which a parser from the
+     * matching {@link EltnPullParserFactory} recognizes by its first
+     * bytes and reads much faster than text.
+     * The default implementation throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param stream a stream of bytes.
+     * @return a writer to the stream.
+     * @throws IOException if the stream throws an exception.
+     * @throws UnsupportedOperationException if this factory has no
+     *         binary writer.
+     */
+    default EltnWriter createBinaryWriter(OutputStream stream)
+            throws IOException {
+        throw new UnsupportedOperationException("No binary writer");
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A parser that reports only the parts of a document selected by an
+ * {@link EltnProjection}.
+ * Everything else is passed over with {@link EltnPullParser#skipValue()}
+ * and {@link EltnPullParser#skipTable()}, so a parser that skips at the
+ * lexical level never tokenizes unselected tables at all.
+ * <p>
+ * The keys and tables that lead toward a selected value are reported as
+ * well, so that the events still nest properly and {@link #getDepth()} and
+ * {@link #getCurrentPath()} mean what they always do; a key is held back
+ * until the parser sees that its value is a table.  Simple values are
+ * reported only if selected.
+ *
+ * @author Frank Mitchell
+ */
+final class ProjectingEltnPullParser implements EltnPullParser {
+
+    private final EltnPullParser _parser;
+    private final EltnProjection _projection;
+
+    /** Match states for the keys of the table at each depth */
+    private int[][] _states = new int[8][];
+    /** Whether the table at each depth is selected in full */
+    private boolean[] _selected = new boolean[8];
+    /** Match states after an explicit key that matched in full */
+    private int[] _keyStates = null;
+
+    /*
+     * A key reported after the parser has moved on to its table.
+     * The parser still knows the key's text and path from the table.
+     */
+    private boolean _pending = false;
+    private EltnEvent _savedEvent;
+    private int _savedOffset;
+    private int _savedLine;
+    private int _savedColumn;
+    private String _savedString;
+    private Number _savedNumber;
+
+    ProjectingEltnPullParser(EltnPullParser parser, EltnProjection projection) {
+        _parser = parser;
+        _projection = projection;
+        _states[0] = projection.initialStates();
+        _selected[0] = projection.isComplete(_states[0]);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return _parser.hasNext();
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (_pending) {
+            /* the table after the replayed key */
+            _pending = false;
+            return;
+        }
+        while (_parser.hasNext()) {
+            _parser.next();
+            final EltnEvent event = _parser.getEvent();
+            final int depth = _parser.getDepth();
+            int[] states;
+            switch (event) {
+                case DEF_NAME:
+                case TABLE_KEY_INTEGER:
+                case TABLE_KEY_NUMBER:
+                case TABLE_KEY_STRING:
+                    if (_selected[depth]) {
+                        return;
+                    }
+                    states = advance(_states[depth], event);
+                    if (_projection.isComplete(states)) {
+                        _keyStates = states;
+                        return;
+                    }
+                    if (states.length == 0) {
+                        /* nothing under this key can match */
+                        _parser.skipValue();
+                    } else if (peekForTable(event, states)) {
+                        return;
+                    }
+                    break;
+
+                case TABLE_START:
+                    if (_selected[depth - 1]) {
+                        enter(depth, null, true);
+                        return;
+                    }
+                    if (_keyStates != null) {
+                        states = _keyStates;
+                    } else if (_parser.getCurrentKeyType() == null) {
+                        /* a document that is a single table */
+                        states = _projection.initialStates();
+                    } else {
+                        states = advanceImplied(_states[depth - 1]);
+                    }
+                    _keyStates = null;
+                    if (states.length > 0) {
+                        enter(depth, states, _projection.isComplete(states));
+                        return;
+                    }
+                    _parser.skipTable();
+                    break;
+
+                case VALUE_FALSE:
+                case VALUE_INTEGER:
+                case VALUE_NIL:
+                case VALUE_NUMBER:
+                case VALUE_STRING:
+                case VALUE_TRUE:
+                    if (_selected[depth]) {
+                        return;
+                    }
+                    if (_keyStates != null) {
+                        _keyStates = null;
+                        return;
+                    }
+                    if (_projection.isComplete(advanceImplied(_states[depth]))) {
+                        return;
+                    }
+                    break;
+
+                case COMMENT:
+                    if (_selected[depth]) {
+                        return;
+                    }
+                    break;
+
+                default:
+                    /* TABLE_END of a reported table, STREAM_END, ERROR */
+                    return;
+            }
+            if (_parser.getEvent() == EltnEvent.ERROR) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Looks past a key that only leads toward a match.  If its value is
+     * a table the key is reported now, from a snapshot, and the table
+     * next; a simple value can't contain a match, so both are dropped.
+     *
+     * @return whether there is now an event to report
+     */
+    private boolean peekForTable(EltnEvent event, int[] states)
+            throws IOException {
+        _savedEvent = event;
+        _savedOffset = _parser.getTextOffset();
+        _savedLine = _parser.getTextLineNumber();
+        _savedColumn = _parser.getTextColumnNumber();
+        if (event == EltnEvent.DEF_NAME || event == EltnEvent.TABLE_KEY_STRING) {
+            _savedString = _parser.getString();
+            _savedNumber = null;
+        } else {
+            _savedString = _parser.getText().toString();
+            _savedNumber = _parser.getNumber();
+        }
+        do {
+            _parser.next();
+        } while (_parser.getEvent() == EltnEvent.COMMENT);
+        switch (_parser.getEvent()) {
+            case TABLE_START:
+                enter(_parser.getDepth(), states, false);
+                _pending = true;
+                return true;
+            case ERROR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void enter(int depth, int[] states, boolean selected) {
+        if (depth >= _states.length) {
+            _states = Arrays.copyOf(_states, depth * 2);
+            _selected = Arrays.copyOf(_selected, depth * 2);
+        }
+        _states[depth] = states;
+        _selected[depth] = selected;
+    }
+
+    private int[] advance(int[] states, EltnEvent type) {
+        switch (type) {
+            case TABLE_KEY_INTEGER:
+                return _projection.advance(states, type, "",
+                        _parser.getLong(), _parser.getDouble());
+            case TABLE_KEY_NUMBER:
+                return _projection.advance(states, type, "",
+                        0, _parser.getDouble());
+            default:
+                /* names can be compared as written; quoted strings can't */
+                CharSequence text = _parser.getText();
+                char first = (text.length() > 0) ? text.charAt(0) : '"';
+                CharSequence key = (first == '"' || first == '\'' || first == '[')
+                        ? _parser.getString() : text;
+                return _projection.advance(states, type, key, 0, 0);
+        }
+    }
+
+    private int[] advanceImplied(int[] states) {
+        /*
+         * A positional value; its key is the next index.  Values after an
+         * explicit key never get here: they're either matched, peeked at,
+         * or skipped.
+         */
+        CharSequence text = _parser.getCurrentKeyText();
+        long index = 0;
+        for (int i = 0; i < text.length(); i++) {
+            index = index * 10 + (text.charAt(i) - '0');
+        }
+        return _projection.advance(states, EltnEvent.TABLE_KEY_INTEGER, "",
+                index, index);
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        _keyStates = null;
+        /* on a replayed key the parser is already on its table */
+        _pending = false;
+        _parser.skipValue();
+    }
+
+    @Override
+    public void skipTable() throws IOException {
+        _keyStates = null;
+        if (_pending) {
+            _pending = false;
+            _parser.skipTable();
+            if (_parser.getEvent() == EltnEvent.ERROR) {
+                return;
+            }
+        }
+        _parser.skipTable();
+    }
+
+    @Override
+    public EltnEvent getEvent() {
+        return _pending ? _savedEvent : _parser.getEvent();
+    }
+
+    @Override
+    public EltnError getError() {
+        return _parser.getError();
+    }
+
+    @Override
+    public CharSequence getText() {
+        return _pending ? _parser.getCurrentKeyText() : _parser.getText();
+    }
+
+    @Override
+    public int getTextOffset() {
+        return _pending ? _savedOffset : _parser.getTextOffset();
+    }
+
+    @Override
+    public int getTextLineNumber() {
+        return _pending ? _savedLine : _parser.getTextLineNumber();
+    }
+
+    @Override
+    public int getTextColumnNumber() {
+        return _pending ? _savedColumn : _parser.getTextColumnNumber();
+    }
+
+    @Override
+    public boolean isInTable() {
+        return getDepth() > 0;
+    }
+
+    @Override
+    public String getString() {
+        return _pending ? _savedString : _parser.getString();
+    }
+
+    @Override
+    public int matchKey(EltnKeySet keys) {
+        if (!_pending) {
+            return _parser.matchKey(keys);
+        }
+        switch (_savedEvent) {
+            case DEF_NAME:
+            case TABLE_KEY_STRING:
+                return keys.indexOf(_savedString);
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public Number getNumber() throws NumberFormatException {
+        if (_pending) {
+            if (_savedNumber == null) {
+                throw new NumberFormatException(
+                        _savedEvent + " is not a number: " + _savedString);
+            }
+            return _savedNumber;
+        }
+        return _parser.getNumber();
+    }
+
+    @Override
+    public long getLong() throws NumberFormatException {
+        return _pending ? EltnPullParser.super.getLong() : _parser.getLong();
+    }
+
+    @Override
+    public int getInt() throws NumberFormatException {
+        return _pending ? EltnPullParser.super.getInt() : _parser.getInt();
+    }
+
+    @Override
+    public double getDouble() throws NumberFormatException {
+        return _pending ? EltnPullParser.super.getDouble() : _parser.getDouble();
+    }
+
+    @Override
+    public boolean getBoolean() {
+        return _pending || _parser.getBoolean();
+    }
+
+    @Override
+    public int getDepth() {
+        return _pending ? _parser.getDepth() - 1 : _parser.getDepth();
+    }
+
+    @Override
+    public CharSequence getCurrentKeyText() {
+        return _parser.getCurrentKeyText();
+    }
+
+    @Override
+    public EltnEvent getCurrentKeyType() {
+        return _parser.getCurrentKeyType();
+    }
+
+    @Override
+    public CharSequence getCurrentPath() {
+        return _parser.getCurrentPath();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.codepoint.CodePointSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+/**
+ * A factory whose parsers report only what an {@link EltnProjection}
+ * selects.
+ *
+ * @author Frank Mitchell
+ * @see EltnPullParserFactory#withProjection(EltnProjection)
+ */
+final class ProjectingEltnPullParserFactory implements EltnPullParserFactory {
+
+    private final EltnPullParserFactory _factory;
+    private final EltnProjection _projection;
+
+    ProjectingEltnPullParserFactory(EltnPullParserFactory factory,
+            EltnProjection projection) {
+        _factory = factory;
+        _projection = projection;
+    }
+
+    @Override
+    public boolean includesCharset(Charset cs) {
+        return _factory.includesCharset(cs);
+    }
+
+    @Override
+    public EltnPullParserFactory withSymbolTable(EltnSymbolTable symbols) {
+        return new ProjectingEltnPullParserFactory(
+                _factory.withSymbolTable(symbols), _projection);
+    }
+
+    @Override
+    public EltnPullParserFactory withMetrics(EltnParserMetrics metrics) {
+        return new ProjectingEltnPullParserFactory(
+                _factory.withMetrics(metrics), _projection);
+    }
+
+    @Override
+    public EltnPullParserFactory withParserReuse() {
+        return new ProjectingEltnPullParserFactory(
+                _factory.withParserReuse(), _projection);
+    }
+
+    @Override
+    public EltnPullParserFactory withStructuralIndex() {
+        return new ProjectingEltnPullParserFactory(
+                _factory.withStructuralIndex(), _projection);
+    }
+
+    @Override
+    public EltnPullParser createParser(Reader reader) throws IOException {
+        return _projection.apply(_factory.createParser(reader));
+    }
+
+    @Override
+    public EltnPullParser createParser(InputStream stream, Charset cs)
+            throws IOException {
+        return _projection.apply(_factory.createParser(stream, cs));
+    }
+
+    @Override
+    public EltnPullParser createParser(ByteBuffer buffer, Charset cs)
+            throws IOException {
+        return _projection.apply(_factory.createParser(buffer, cs));
+    }
+
+    @Override
+    public EltnPullParser createParser(Path path, Charset cs)
+            throws IOException {
+        return _projection.apply(_factory.createParser(path, cs));
+    }
+
+    @Override
+    public EltnPullParser createParser(CodePointSource source)
+            throws IOException {
+        return _projection.apply(_factory.createParser(source));
+    }
+}
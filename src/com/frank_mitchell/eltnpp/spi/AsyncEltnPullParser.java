@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSource;
+import com.frank_mitchell.eltnpp.EltnAsyncPullParser;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link DefaultEltnPullParser} over a {@link Utf8EltnLexer} that is fed
+ * bytes rather than reading them.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class AsyncEltnPullParser extends DefaultEltnPullParser
+        implements EltnAsyncPullParser {
+
+    private final Utf8EltnLexer _lexer;
+
+    /**
+     * Creates a parser with no input yet.
+     *
+     * @param asciiOnly whether to treat every byte above 0x7F as invalid
+     *        rather than as part of a UTF-8 sequence
+     * @param symbols canonical key strings, or null to make new ones
+     */
+    AsyncEltnPullParser(boolean asciiOnly, EltnSymbolTable symbols) {
+        this(new Utf8EltnLexer(asciiOnly), symbols);
+    }
+
+    private AsyncEltnPullParser(Utf8EltnLexer lexer, EltnSymbolTable symbols) {
+        super(lexer, symbols);
+        _lexer = lexer;
+        startDocument(lexer, EltnFlightRecorder.FED);
+    }
+
+    @Override
+    public void feed(ByteBuffer data) {
+        _lexer.feed(data);
+    }
+
+    @Override
+    public void endOfInput() {
+        _lexer.endOfInput();
+    }
+
+    @Override
+    public void reset() {
+        _lexer.reset();
+        startDocument(_lexer, EltnFlightRecorder.FED);
+    }
+
+    /**
+     * A fed parser can only start over on fed input.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void reset(Reader reader) {
+        throw notBlocking();
+    }
+
+    /**
+     * A fed parser can only start over on fed input.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void reset(InputStream stream, Charset cs) {
+        throw notBlocking();
+    }
+
+    /**
+     * A fed parser can only start over on fed input.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void reset(ByteBuffer buffer, Charset cs) {
+        throw notBlocking();
+    }
+
+    /**
+     * A fed parser can only start over on fed input.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void reset(CodePointSource source) {
+        throw notBlocking();
+    }
+
+    private UnsupportedOperationException notBlocking() {
+        return new UnsupportedOperationException(
+                "Use reset() and feed() on a non-blocking parser");
+    }
+}
@@ -0,0 +1,906 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.eltnpp.EltnError;
+import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnKeySet;
+import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the binary ELTN encoding that {@link BinaryEltnWriter} writes,
+ * reporting the same events a {@link DefaultEltnPullParser} would for
+ * the text it was converted from, except comments.
+ * <p>
+ * A binary document is the bytes {@code 1B 45 4C 54 4E} (ESC "ELTN"),
+ * a version byte, and a sequence of items up to the end of input.
+ * Each item is a tag byte and its operands:
+ * <table>
+ * <caption>Binary ELTN items</caption>
+ * <tr><th>Tag</th><th>Operands</th><th>Event</th></tr>
+ * <tr><td>{@code 01}</td><td>key index</td><td>DEF_NAME</td></tr>
+ * <tr><td>{@code 02}</td><td>key index</td><td>TABLE_KEY_STRING</td></tr>
+ * <tr><td>{@code 03}</td><td>integer</td><td>TABLE_KEY_INTEGER</td></tr>
+ * <tr><td>{@code 04}</td><td>double</td><td>TABLE_KEY_NUMBER</td></tr>
+ * <tr><td>{@code 05}</td><td></td><td>TABLE_START</td></tr>
+ * <tr><td>{@code 06}</td><td></td><td>TABLE_END</td></tr>
+ * <tr><td>{@code 07}</td><td></td><td>VALUE_NIL</td></tr>
+ * <tr><td>{@code 08}</td><td></td><td>VALUE_FALSE</td></tr>
+ * <tr><td>{@code 09}</td><td></td><td>VALUE_TRUE</td></tr>
+ * <tr><td>{@code 0A}</td><td>integer</td><td>VALUE_INTEGER</td></tr>
+ * <tr><td>{@code 0B}</td><td>double</td><td>VALUE_NUMBER</td></tr>
+ * <tr><td>{@code 0C}</td><td>string</td><td>VALUE_STRING</td></tr>
+ * <tr><td>{@code 0D}</td><td>string</td><td>none; adds the string to
+ *     the key dictionary</td></tr>
+ * </table>
+ * A key index is an unsigned varint (LEB128) counting dictionary entries
+ * from 0; an integer is a zigzag-encoded varint; a double is eight bytes,
+ * little-endian; and a string is an unsigned varint byte count followed
+ * by that many bytes of UTF-8.  Dictionary entries precede their first
+ * use, so each key is decoded once per document however often it occurs.
+ * <p>
+ * There are no lines or columns, so {@link #getTextLineNumber()} and
+ * {@link #getTextColumnNumber()} return -1, {@link #getTextOffset()}
+ * counts bytes, and {@link #getText()} is the text a
+ * {@link DefaultEltnWriter} would write for the event.
+ * Unlike the text parsers, these are never reused, record no metrics,
+ * and emit no Flight Recorder events.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class BinaryEltnPullParser implements EltnPullParser {
+
+    /** The bytes every binary document starts with, save the version */
+    static final byte[] MAGIC = {0x1B, 'E', 'L', 'T', 'N'};
+    static final byte VERSION = 1;
+
+    static final byte TAG_DEF_NAME = 0x01;
+    static final byte TAG_KEY_STRING = 0x02;
+    static final byte TAG_KEY_INTEGER = 0x03;
+    static final byte TAG_KEY_NUMBER = 0x04;
+    static final byte TAG_TABLE_START = 0x05;
+    static final byte TAG_TABLE_END = 0x06;
+    static final byte TAG_NIL = 0x07;
+    static final byte TAG_FALSE = 0x08;
+    static final byte TAG_TRUE = 0x09;
+    static final byte TAG_INTEGER = 0x0A;
+    static final byte TAG_NUMBER = 0x0B;
+    static final byte TAG_STRING = 0x0C;
+    static final byte TAG_DICTIONARY = 0x0D;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Most bytes in a varint */
+    private static final int MAX_VARINT = 10;
+
+    private final EltnSymbolTable _symbols;
+    /** Where to read more bytes, or null if {@link #_in} is all there is */
+    private final InputStream _stream;
+    private ByteBuffer _in;
+    /** Bytes dropped from the front of {@link #_in} */
+    private long _base;
+
+    private EltnEvent _event = EltnEvent.STREAM_START;
+    private EltnError _error = EltnError.OK;
+    private int _start = -1;
+
+    /* the current value */
+    private long _long;
+    private double _double;
+    private int _stringPos;
+    private int _stringLength;
+    private String _stringValue;
+    private final StringBuilder _textBuf = new StringBuilder();
+    private final StringBuilder _pathBuf = new StringBuilder();
+    private final CharArrayText _keyView = new CharArrayText();
+    private byte[] _scratch = new byte[256];
+
+    /* the key dictionary */
+    private String[] _keys = new String[64];
+    private String[] _keyTexts = new String[64];
+    private int _keyCount;
+    private EltnKeySet _matchSet;
+    private int[] _matches = new int[0];
+
+    /* the key at each depth, as in DefaultEltnPullParser */
+    private int _depth;
+    private boolean _afterKey;
+    /** The whole document is one table, with no definition names */
+    private boolean _singleTable;
+    private EltnEvent[] _levelTypes = new EltnEvent[8];
+    private int[] _levelKeys = new int[8];
+    private long[] _levelLongs = new long[8];
+    private double[] _levelDoubles = new double[8];
+    private long[] _nextIndex = new long[8];
+
+    /**
+     * Creates a parser for the bytes remaining in a buffer, which must
+     * start with {@link #MAGIC}.  The buffer's position and limit do not
+     * change.
+     *
+     * @param buffer the document
+     * @param symbols canonical key strings, or null to make new ones
+     */
+    BinaryEltnPullParser(ByteBuffer buffer, EltnSymbolTable symbols) {
+        _symbols = symbols;
+        _stream = null;
+        _in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates a parser for a stream, which must start with
+     * {@link #MAGIC}.
+     *
+     * @param stream the document
+     * @param symbols canonical key strings, or null to make new ones
+     */
+    BinaryEltnPullParser(InputStream stream, EltnSymbolTable symbols) {
+        _symbols = symbols;
+        _stream = stream;
+        _in = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        _in.limit(0);
+    }
+
+    /**
+     * Checks whether a buffer holds binary ELTN, without changing it.
+     *
+     * @param buffer a buffer of bytes
+     * @return whether its remaining bytes start with {@link #MAGIC}
+     */
+    static boolean isBinary(ByteBuffer buffer) {
+        if (buffer.remaining() < MAGIC.length) {
+            return false;
+        }
+        int pos = buffer.position();
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(pos + i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Makes at least {@code n} bytes available if the input has them.
+     * The buffer grows only as bytes arrive, so a length in hostile
+     * input costs no more memory than the input itself.
+     *
+     * @return whether it does
+     */
+    private boolean fill(int n) throws IOException {
+        if (_in.remaining() >= n) {
+            return true;
+        }
+        if (_stream == null) {
+            return false;
+        }
+        _base += _in.position();
+        _in.compact();
+        try {
+            while (_in.position() < n) {
+                if (!_in.hasRemaining()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(
+                            (int) Math.min(n, _in.capacity() * 2L))
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    _in.flip();
+                    bigger.put(_in);
+                    _in = bigger;
+                }
+                int count = _stream.read(_in.array(),
+                        _in.arrayOffset() + _in.position(), _in.remaining());
+                if (count < 0) {
+                    break;
+                }
+                _in.position(_in.position() + count);
+            }
+        } finally {
+            _in.flip();
+        }
+        return _in.remaining() >= n;
+    }
+
+    private long readVarint() throws IOException {
+        fill(MAX_VARINT);
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!_in.hasRemaining()) {
+                throw new Truncated();
+            }
+            byte b = _in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new Malformed();
+    }
+
+    private long readInteger() throws IOException {
+        long zigzag = readVarint();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private double readDouble() throws IOException {
+        if (!fill(8)) {
+            throw new Truncated();
+        }
+        double d = _in.getDouble();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            /* no writer produces these, since ELTN can't represent them */
+            throw new Malformed();
+        }
+        return d;
+    }
+
+    /**
+     * Reads a string's byte count and makes sure its bytes are there;
+     * afterwards they are the {@code _stringLength} bytes at
+     * {@code _stringPos}, and the buffer is just past them.
+     */
+    private void readString() throws IOException {
+        long length = readVarint();
+        if (length > Integer.MAX_VALUE - MAX_VARINT) {
+            throw new Malformed();
+        }
+        if (!fill((int) length)) {
+            throw new Truncated();
+        }
+        _stringPos = _in.position();
+        _stringLength = (int) length;
+        _in.position(_stringPos + _stringLength);
+    }
+
+    private String decode(int pos, int length) {
+        if (_in.hasArray()) {
+            return new String(_in.array(), _in.arrayOffset() + pos, length,
+                    StandardCharsets.UTF_8);
+        }
+        if (_scratch.length < length) {
+            _scratch = new byte[Math.max(length, _scratch.length * 2)];
+        }
+        ByteBuffer dup = _in.duplicate();
+        dup.position(pos);
+        dup.get(_scratch, 0, length);
+        return new String(_scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void addKey() throws IOException {
+        readString();
+        String key = decode(_stringPos, _stringLength);
+        if (_symbols != null) {
+            key = _symbols.intern(key);
+        }
+        if (_keyCount == _keys.length) {
+            _keys = Arrays.copyOf(_keys, _keyCount * 2);
+            _keyTexts = Arrays.copyOf(_keyTexts, _keyCount * 2);
+        }
+        _keys[_keyCount++] = key;
+    }
+
+    private int readKeyIndex() throws IOException {
+        long index = readVarint();
+        if (index < 0 || index >= _keyCount) {
+            throw new Malformed();
+        }
+        return (int) index;
+    }
+
+    private boolean readHeader() throws IOException {
+        if (!fill(MAGIC.length + 1)) {
+            return false;
+        }
+        for (byte b : MAGIC) {
+            if (_in.get() != b) {
+                return false;
+            }
+        }
+        return _in.get() == VERSION;
+    }
+
+    /**
+     * The input ended part way through an item.
+     */
+    private static final class Truncated extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * The input isn't binary ELTN.
+     */
+    private static final class Malformed extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return _event != EltnEvent.ERROR && _event != EltnEvent.STREAM_END;
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (!hasNext()) {
+            return;
+        }
+        _stringValue = null;
+        try {
+            if (_event == EltnEvent.STREAM_START && !readHeader()) {
+                setError(EltnError.INVALID_TOKEN);
+                return;
+            }
+            nextItem();
+        } catch (Truncated e) {
+            setError(EltnError.STREAM_END);
+        } catch (Malformed e) {
+            setError(EltnError.INVALID_TOKEN);
+        }
+    }
+
+    private void nextItem() throws IOException {
+        while (true) {
+            if (!fill(1)) {
+                _start = offset();
+                if (_depth > 0 || _afterKey) {
+                    setError(EltnError.STREAM_END);
+                } else {
+                    _event = EltnEvent.STREAM_END;
+                }
+                return;
+            }
+            _start = offset();
+            byte tag = _in.get();
+            switch (tag) {
+                case TAG_DICTIONARY:
+                    addKey();
+                    continue;
+                case TAG_DEF_NAME:
+                    if (_depth > 0 || _afterKey || _singleTable) {
+                        break;
+                    }
+                    setKey(EltnEvent.DEF_NAME, readKeyIndex());
+                    return;
+                case TAG_KEY_STRING:
+                    if (_depth == 0 || _afterKey) {
+                        break;
+                    }
+                    setKey(EltnEvent.TABLE_KEY_STRING, readKeyIndex());
+                    return;
+                case TAG_KEY_INTEGER:
+                    if (_depth == 0 || _afterKey) {
+                        break;
+                    }
+                    _long = readInteger();
+                    _double = _long;
+                    setKey(EltnEvent.TABLE_KEY_INTEGER, 0);
+                    return;
+                case TAG_KEY_NUMBER:
+                    if (_depth == 0 || _afterKey) {
+                        break;
+                    }
+                    _double = readDouble();
+                    setKey(EltnEvent.TABLE_KEY_NUMBER, 0);
+                    return;
+                case TAG_TABLE_START:
+                    if (!startValue(true)) {
+                        break;
+                    }
+                    startTable();
+                    return;
+                case TAG_TABLE_END:
+                    if (_depth == 0 || _afterKey) {
+                        break;
+                    }
+                    _depth--;
+                    _event = EltnEvent.TABLE_END;
+                    return;
+                case TAG_NIL:
+                    setValue(EltnEvent.VALUE_NIL);
+                    return;
+                case TAG_FALSE:
+                    setValue(EltnEvent.VALUE_FALSE);
+                    return;
+                case TAG_TRUE:
+                    setValue(EltnEvent.VALUE_TRUE);
+                    return;
+                case TAG_INTEGER:
+                    if (setValue(EltnEvent.VALUE_INTEGER)) {
+                        _long = readInteger();
+                        _double = _long;
+                    }
+                    return;
+                case TAG_NUMBER:
+                    if (setValue(EltnEvent.VALUE_NUMBER)) {
+                        _double = readDouble();
+                    }
+                    return;
+                case TAG_STRING:
+                    if (setValue(EltnEvent.VALUE_STRING)) {
+                        readString();
+                    }
+                    return;
+                default:
+                    setError(EltnError.INVALID_TOKEN);
+                    return;
+            }
+            setError(EltnError.UNEXPECTED_TOKEN);
+            return;
+        }
+    }
+
+    /**
+     * Checks that a value may come next, and gives it an implied key
+     * if it has none.
+     *
+     * @param table whether the value is a table
+     * @return whether the value may come next
+     */
+    private boolean startValue(boolean table) {
+        if (_afterKey) {
+            _afterKey = false;
+            return true;
+        }
+        if (_depth > 0) {
+            ensureLevel(_depth);
+            _levelTypes[_depth] = EltnEvent.TABLE_KEY_INTEGER;
+            _levelLongs[_depth] = _nextIndex[_depth]++;
+            return true;
+        }
+        /* a lone table may be the whole document */
+        if (table && _event == EltnEvent.STREAM_START) {
+            _singleTable = true;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean setValue(EltnEvent event) {
+        if (!startValue(false)) {
+            setError(EltnError.UNEXPECTED_TOKEN);
+            return false;
+        }
+        _event = event;
+        return true;
+    }
+
+    private void setKey(EltnEvent type, int key) {
+        ensureLevel(_depth);
+        _levelTypes[_depth] = type;
+        _levelKeys[_depth] = key;
+        _levelLongs[_depth] = _long;
+        _levelDoubles[_depth] = _double;
+        _afterKey = true;
+        _event = type;
+    }
+
+    private void startTable() {
+        _depth++;
+        ensureLevel(_depth);
+        _levelTypes[_depth] = null;
+        _nextIndex[_depth] = 1;
+        _event = EltnEvent.TABLE_START;
+    }
+
+    private void ensureLevel(int level) {
+        if (level >= _levelTypes.length) {
+            int size = _levelTypes.length * 2;
+            _levelTypes = Arrays.copyOf(_levelTypes, size);
+            _levelKeys = Arrays.copyOf(_levelKeys, size);
+            _levelLongs = Arrays.copyOf(_levelLongs, size);
+            _levelDoubles = Arrays.copyOf(_levelDoubles, size);
+            _nextIndex = Arrays.copyOf(_nextIndex, size);
+        }
+    }
+
+    private void setError(EltnError error) {
+        _event = EltnEvent.ERROR;
+        _error = error;
+    }
+
+    private int offset() {
+        return (int) (_base + _in.position());
+    }
+
+    /**
+     * Skips items without decoding strings, but still reads dictionary
+     * entries, which later items may need.
+     */
+    @Override
+    public void skipTable() throws IOException {
+        if (_depth == 0 || !hasNext()) {
+            return;
+        }
+        _stringValue = null;
+        _afterKey = false;
+        int nested = 0;
+        try {
+            while (true) {
+                if (!fill(1)) {
+                    throw new Truncated();
+                }
+                _start = offset();
+                byte tag = _in.get();
+                switch (tag) {
+                    case TAG_DICTIONARY:
+                        addKey();
+                        break;
+                    case TAG_DEF_NAME:
+                        throw new Malformed();
+                    case TAG_KEY_STRING:
+                        readKeyIndex();
+                        break;
+                    case TAG_KEY_INTEGER:
+                    case TAG_INTEGER:
+                        readVarint();
+                        break;
+                    case TAG_KEY_NUMBER:
+                    case TAG_NUMBER:
+                        readDouble();
+                        break;
+                    case TAG_STRING:
+                        readString();
+                        break;
+                    case TAG_TABLE_START:
+                        nested++;
+                        break;
+                    case TAG_TABLE_END:
+                        if (nested-- == 0) {
+                            _depth--;
+                            _event = EltnEvent.TABLE_END;
+                            return;
+                        }
+                        break;
+                    case TAG_NIL:
+                    case TAG_FALSE:
+                    case TAG_TRUE:
+                        break;
+                    default:
+                        throw new Malformed();
+                }
+            }
+        } catch (Truncated e) {
+            setError(EltnError.STREAM_END);
+        } catch (Malformed e) {
+            setError(EltnError.INVALID_TOKEN);
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    @Override
+    public EltnEvent getEvent() {
+        return _event;
+    }
+
+    @Override
+    public EltnError getError() {
+        return _error;
+    }
+
+    @Override
+    public CharSequence getText() {
+        switch (_event) {
+            case DEF_NAME:
+            case TABLE_KEY_STRING:
+                return keyText(_levelKeys[_depth]);
+            case TABLE_START:
+                return "{";
+            case TABLE_END:
+                return "}";
+            case VALUE_NIL:
+                return "nil";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_TRUE:
+                return "true";
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+                _keyView.set(_long);
+                return _keyView;
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                return Double.toString(_double);
+            case VALUE_STRING:
+                _textBuf.setLength(0);
+                appendQuoted(_textBuf, getString());
+                return _textBuf;
+            default:
+                return "";
+        }
+    }
+
+    @Override
+    public int getTextOffset() {
+        return _start;
+    }
+
+    @Override
+    public int getTextLineNumber() {
+        return -1;
+    }
+
+    @Override
+    public int getTextColumnNumber() {
+        return -1;
+    }
+
+    @Override
+    public boolean isInTable() {
+        return _depth > 0;
+    }
+
+    @Override
+    public String getString() {
+        if (_stringValue != null) {
+            return _stringValue;
+        }
+        switch (_event) {
+            case DEF_NAME:
+            case TABLE_KEY_STRING:
+                _stringValue = _keys[_levelKeys[_depth]];
+                break;
+            case VALUE_STRING:
+                _stringValue = decode(_stringPos, _stringLength);
+                break;
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+            case VALUE_NIL:
+            case VALUE_FALSE:
+            case VALUE_TRUE:
+                _stringValue = getText().toString();
+                break;
+            default:
+                throw new IllegalStateException(_event + " has no string value");
+        }
+        return _stringValue;
+    }
+
+    /**
+     * Caches each dictionary entry's index in the last set of keys
+     * matched, so that matching a key again costs an array lookup.
+     */
+    @Override
+    public int matchKey(EltnKeySet keys) {
+        if (_event != EltnEvent.DEF_NAME
+                && _event != EltnEvent.TABLE_KEY_STRING) {
+            return -1;
+        }
+        if (keys != _matchSet) {
+            _matchSet = keys;
+            Arrays.fill(_matches, -2);
+        }
+        int key = _levelKeys[_depth];
+        if (key >= _matches.length) {
+            int old = _matches.length;
+            _matches = Arrays.copyOf(_matches, Math.max(key + 1, old * 2));
+            Arrays.fill(_matches, old, _matches.length, -2);
+        }
+        int result = _matches[key];
+        if (result == -2) {
+            result = keys.indexOf(_keys[key]);
+            _matches[key] = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Number getNumber() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+                return _long;
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                return _double;
+            default:
+                throw notANumber();
+        }
+    }
+
+    @Override
+    public long getLong() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+                return _long;
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                long result = (long) _double;
+                if (result != _double || _double == 0x1p63) {
+                    throw new NumberFormatException(
+                            _double + " has no integer representation");
+                }
+                return result;
+            default:
+                throw notANumber();
+        }
+    }
+
+    @Override
+    public double getDouble() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                return _double;
+            default:
+                throw notANumber();
+        }
+    }
+
+    private NumberFormatException notANumber() {
+        return new NumberFormatException(_event + " is not a number: " + getText());
+    }
+
+    @Override
+    public int getDepth() {
+        return _depth;
+    }
+
+    private int keyLevel() {
+        return (_event == EltnEvent.TABLE_START) ? _depth - 1 : _depth;
+    }
+
+    @Override
+    public CharSequence getCurrentKeyText() {
+        int level = keyLevel();
+        if (level < 0 || _levelTypes[level] == null) {
+            return "";
+        }
+        return levelText(level);
+    }
+
+    @Override
+    public EltnEvent getCurrentKeyType() {
+        int level = keyLevel();
+        if (level < 0) {
+            return null;
+        }
+        return _levelTypes[level];
+    }
+
+    private CharSequence levelText(int level) {
+        switch (_levelTypes[level]) {
+            case DEF_NAME:
+            case TABLE_KEY_STRING:
+                return keyText(_levelKeys[level]);
+            case TABLE_KEY_INTEGER:
+                _keyView.set(_levelLongs[level]);
+                return _keyView;
+            default:
+                return Double.toString(_levelDoubles[level]);
+        }
+    }
+
+    /**
+     * Gets a key as a text writer would write it: bare if a name,
+     * otherwise quoted.
+     */
+    private String keyText(int key) {
+        String text = _keyTexts[key];
+        if (text == null) {
+            String s = _keys[key];
+            if (DefaultEltnWriter.isName(s)) {
+                text = s;
+            } else {
+                StringBuilder buf = new StringBuilder(s.length() + 2);
+                appendQuoted(buf, s);
+                text = buf.toString();
+            }
+            _keyTexts[key] = text;
+        }
+        return text;
+    }
+
+    @Override
+    public CharSequence getCurrentPath() {
+        StringBuilder path = _pathBuf;
+        path.setLength(0);
+        int level = keyLevel();
+        for (int i = 0; i <= level; i++) {
+            EltnEvent type = _levelTypes[i];
+            if (type == null) {
+                continue;
+            }
+            switch (type) {
+                case DEF_NAME:
+                    path.append(keyText(_levelKeys[i]));
+                    break;
+                case TABLE_KEY_STRING:
+                    String text = keyText(_levelKeys[i]);
+                    if (text.charAt(0) == '"') {
+                        path.append('[').append(text).append(']');
+                    } else {
+                        if (path.length() > 0) {
+                            path.append('.');
+                        }
+                        path.append(text);
+                    }
+                    break;
+                default:
+                    path.append('[').append(levelText(i)).append(']');
+                    break;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Appends a string in double quotes, escaped as
+     * {@link DefaultEltnWriter} would.
+     */
+    private static void appendQuoted(StringBuilder buf, String s) {
+        buf.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    buf.append('\\').append(c);
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                default:
+                    if (c < ' ' || c == 0x7F) {
+                        buf.append('\\')
+                                .append((char) ('0' + c / 100))
+                                .append((char) ('0' + c / 10 % 10))
+                                .append((char) ('0' + c % 10));
+                    } else {
+                        buf.append(c);
+                    }
+                    break;
+            }
+        }
+        buf.append('"');
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.eltnpp.EltnWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the binary ELTN encoding that {@link BinaryEltnPullParser}
+ * describes and reads.
+ * Each string key goes into the document's dictionary the first time it
+ * is written, and is written as its index from then on.
+ * Unlike a text writer this one accepts a table with no definition name
+ * at the start of a document, for documents that are a single table.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class BinaryEltnWriter implements EltnWriter {
+
+    private final OutputStream _out;
+    private final byte[] _buf = new byte[DefaultEltnWriter.BUFFER_SIZE];
+    private int _pos = 0;
+
+    private final Map<String, Integer> _keys = new HashMap<>();
+
+    private int _depth = 0;
+    private boolean _afterKey = false;
+    private boolean _started = false;
+    private boolean _singleTable = false;
+
+    BinaryEltnWriter(OutputStream out) {
+        _out = out;
+        byte[] magic = BinaryEltnPullParser.MAGIC;
+        System.arraycopy(magic, 0, _buf, 0, magic.length);
+        _buf[magic.length] = BinaryEltnPullParser.VERSION;
+        _pos = magic.length + 1;
+    }
+
+    @Override
+    public void writeDefName(CharSequence name) throws IOException {
+        if (_depth != 0 || _afterKey || _singleTable) {
+            throw new IllegalStateException("definition name not allowed here");
+        }
+        if (!DefaultEltnWriter.isName(name)) {
+            throw new IllegalArgumentException("not a name: " + name);
+        }
+        writeKeyIndex(BinaryEltnPullParser.TAG_DEF_NAME, name);
+        _started = true;
+        _afterKey = true;
+    }
+
+    @Override
+    public void writeKey(CharSequence key) throws IOException {
+        startKey();
+        writeKeyIndex(BinaryEltnPullParser.TAG_KEY_STRING, key);
+    }
+
+    @Override
+    public void writeKey(long key) throws IOException {
+        startKey();
+        writeTag(BinaryEltnPullParser.TAG_KEY_INTEGER);
+        writeInteger(key);
+    }
+
+    @Override
+    public void writeKey(double key) throws IOException {
+        checkFinite(key);
+        startKey();
+        writeTag(BinaryEltnPullParser.TAG_KEY_NUMBER);
+        writeDouble(key);
+    }
+
+    private void startKey() {
+        if (_depth == 0 || _afterKey) {
+            throw new IllegalStateException("table key not allowed here");
+        }
+        _afterKey = true;
+    }
+
+    @Override
+    public void startTable() throws IOException {
+        if (!_afterKey && _depth == 0 && !_started) {
+            _singleTable = true;
+        } else {
+            startValue();
+        }
+        _started = true;
+        writeTag(BinaryEltnPullParser.TAG_TABLE_START);
+        _depth++;
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        if (_depth == 0 || _afterKey) {
+            throw new IllegalStateException("table end not allowed here");
+        }
+        _depth--;
+        writeTag(BinaryEltnPullParser.TAG_TABLE_END);
+    }
+
+    @Override
+    public void writeValue(long value) throws IOException {
+        startValue();
+        writeTag(BinaryEltnPullParser.TAG_INTEGER);
+        writeInteger(value);
+    }
+
+    @Override
+    public void writeValue(double value) throws IOException {
+        checkFinite(value);
+        startValue();
+        writeTag(BinaryEltnPullParser.TAG_NUMBER);
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeValue(CharSequence value) throws IOException {
+        if (value == null) {
+            writeNil();
+            return;
+        }
+        startValue();
+        writeTag(BinaryEltnPullParser.TAG_STRING);
+        writeString(value);
+    }
+
+    @Override
+    public void writeValue(boolean value) throws IOException {
+        startValue();
+        writeTag(value ? BinaryEltnPullParser.TAG_TRUE : BinaryEltnPullParser.TAG_FALSE);
+    }
+
+    @Override
+    public void writeNil() throws IOException {
+        startValue();
+        writeTag(BinaryEltnPullParser.TAG_NIL);
+    }
+
+    @Override
+    public int getDepth() {
+        return _depth;
+    }
+
+    private void startValue() {
+        if (_afterKey) {
+            _afterKey = false;
+        } else if (_depth == 0) {
+            throw new IllegalStateException("value needs a definition name");
+        }
+    }
+
+    private static void checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("ELTN cannot represent " + value);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        _out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        _out.close();
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private void ensure(int n) throws IOException {
+        if (_pos + n > _buf.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (_pos > 0) {
+            _out.write(_buf, 0, _pos);
+            _pos = 0;
+        }
+    }
+
+    private void writeTag(byte tag) throws IOException {
+        ensure(1);
+        _buf[_pos++] = tag;
+    }
+
+    private void writeKeyIndex(byte tag, CharSequence key) throws IOException {
+        String s = key.toString();
+        Integer index = _keys.get(s);
+        if (index == null) {
+            index = _keys.size();
+            _keys.put(s, index);
+            writeTag(BinaryEltnPullParser.TAG_DICTIONARY);
+            writeString(s);
+        }
+        writeTag(tag);
+        writeVarint(index);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            _buf[_pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        _buf[_pos++] = (byte) value;
+    }
+
+    private void writeInteger(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeDouble(double value) throws IOException {
+        ensure(8);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            _buf[_pos++] = (byte) bits;
+            bits >>>= 8;
+        }
+    }
+
+    /**
+     * Writes a string's UTF-8 byte count and then its bytes, a lone
+     * surrogate becoming U+FFFD as in a text writer.
+     */
+    private void writeString(CharSequence s) throws IOException {
+        final int length = s.length();
+        long bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        writeVarint(bytes);
+        for (int i = 0; i < length; i++) {
+            ensure(4);
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                _buf[_pos++] = (byte) c;
+            } else if (c < 0x800) {
+                _buf[_pos++] = (byte) (0xC0 | (c >> 6));
+                _buf[_pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                _buf[_pos++] = (byte) (0xF0 | (cp >> 18));
+                _buf[_pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                _buf[_pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                _buf[_pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                if (Character.isSurrogate(c)) {
+                    c = '\uFFFD';
+                }
+                _buf[_pos++] = (byte) (0xE0 | (c >> 12));
+                _buf[_pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                _buf[_pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+}
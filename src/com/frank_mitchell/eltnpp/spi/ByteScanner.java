@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+/**
+ * Finds the bytes that lexers and the structural index stop at, so that
+ * they can pass over everything in between in bulk.
+ * Every method looks at the bytes from {@code pos} up to but not
+ * including {@code limit}, and returns the index of the first one that
+ * it's looking for, or {@code limit} if there is none.
+ * <p>
+ * This version looks at one byte at a time.  In the multi-release jar,
+ * JDK 21 and later load another version of this class instead, which
+ * can look for the ends of strings and comments in the structural index
+ * many bytes at a time with the Vector API.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class ByteScanner {
+
+    /**
+     * A system property that turns on the Vector API if {@code true}.
+     * Only the JDK 21 version of this class reads it.
+     */
+    static final String VECTOR_PROPERTY = "com.frank_mitchell.eltnpp.vector";
+
+    private ByteScanner() {
+    }
+
+    /**
+     * Tells whether this class looks at many bytes at a time.
+     *
+     * @return whether the Vector API is in use
+     */
+    static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Skips spaces, tabs, and carriage returns.
+     */
+    static int skipBlanks(byte[] buf, int pos, int limit) {
+        return ScalarByteScanner.skipBlanks(buf, pos, limit);
+    }
+
+    /**
+     * Finds the next byte in a quoted string that a lexer can't just
+     * pass over: the closing quote, a backslash, a line break, or part
+     * of a multibyte sequence.
+     */
+    static int findStringStop(byte[] buf, int pos, int limit, byte quote) {
+        return ScalarByteScanner.findStringStop(buf, pos, limit, quote);
+    }
+
+    /**
+     * Finds the next quote of a given kind, backslash, or line break.
+     */
+    static int findQuoteEscapeOrNewline(byte[] buf, int pos, int limit,
+            byte quote) {
+        return ScalarByteScanner.findQuoteEscapeOrNewline(buf, pos, limit, quote);
+    }
+
+    /**
+     * Finds the next byte in a long string or comment that a lexer can't
+     * just pass over: a "]" that may begin the closing, a newline, or
+     * part of a multibyte sequence.
+     */
+    static int findLongBracketStop(byte[] buf, int pos, int limit) {
+        return ScalarByteScanner.findLongBracketStop(buf, pos, limit);
+    }
+
+    /**
+     * Finds the next occurrence of a byte.
+     */
+    static int indexOf(byte[] buf, int pos, int limit, byte target) {
+        return ScalarByteScanner.indexOf(buf, pos, limit, target);
+    }
+
+    /**
+     * Finds the next byte that may begin an entry in an
+     * {@link EltnStructuralIndex}: one of {@code { } [ ] = , ; " ' -}.
+     */
+    static int findStructural(byte[] buf, int pos, int limit) {
+        return ScalarByteScanner.findStructural(buf, pos, limit);
+    }
+}
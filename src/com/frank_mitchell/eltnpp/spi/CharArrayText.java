@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.Arrays;
+
+/**
+ * A reusable text view backed by its own growable char array.
+ * Parsers copy text into one of these when it must outlive the current
+ * token, e.g. the current key.  Copying never allocates once the array
+ * is big enough, and a String is made only when asked for.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class CharArrayText extends EltnText {
+
+    private char[] _chars = new char[16];
+    private int _length = 0;
+    private String _string = "";
+
+    /**
+     * Replaces the contents of this view.
+     *
+     * @param cs the characters to copy
+     */
+    void set(CharSequence cs) {
+        final int length = cs.length();
+        if (_chars.length < length) {
+            _chars = Arrays.copyOf(_chars, Math.max(length, _chars.length * 2));
+        }
+        for (int i = 0; i < length; i++) {
+            _chars[i] = cs.charAt(i);
+        }
+        _length = length;
+        _string = null;
+    }
+
+    /**
+     * Replaces the contents of this view with a decimal integer.
+     *
+     * @param value the integer to format
+     */
+    void set(long value) {
+        if (_chars.length < 20) {
+            _chars = Arrays.copyOf(_chars, 20);
+        }
+        if (value == Long.MIN_VALUE) {
+            set("-9223372036854775808");
+            return;
+        }
+        long v = Math.abs(value);
+        int end = (value < 0) ? 1 : 0;
+        long n = v;
+        do {
+            end++;
+            n /= 10;
+        } while (n != 0);
+        _length = end;
+        do {
+            _chars[--end] = (char) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            _chars[0] = '-';
+        }
+        _string = null;
+    }
+
+    /**
+     * Empties this view.
+     */
+    void clear() {
+        _length = 0;
+        _string = "";
+    }
+
+    @Override
+    public int length() {
+        return _length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= _length) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        return _chars[index];
+    }
+
+    @Override
+    public String toString() {
+        if (_string == null) {
+            _string = new String(_chars, 0, _length);
+        }
+        return _string;
+    }
+}
@@ -25,267 +25,712 @@ package com.frank_mitchell.eltnpp.spi;
 
 import com.frank_mitchell.codepoint.CodePointSource;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Collections;
-import java.util.Set;
+import java.io.Reader;
 
 /**
  * Performs lexical analysis on an ELTN document.
  * Its responsibilities begin and end with slicing a stream of characters into
- * discrete tokens using {@link EltnToken} and {@link EltnTokenType}..
- * 
+ * discrete tokens using {@link EltnToken} and {@link EltnTokenType}.
+ * <p>
+ * Code points are pulled in bulk into a window, so scanning a token costs
+ * an array index per character and the lexer can look as far ahead as a
+ * long bracket needs.  A {@link Reader} fills the window a block of chars
+ * at a time; a {@link CodePointSource} has no bulk read, so it fills the
+ * window in one tight loop instead of a call per character per token.
+ * The window holds only the current token and whatever has been read
+ * past it, so reading a token allocates nothing once the window has grown
+ * to fit the longest token.
+ * Offsets and columns count code points.
+ *
  * @author Frank Mitchell <me@frank-mitchell.com>
  */
-class DefaultEltnLexer {
-
-    private static final String[] RESERVED_WORDS_ARRAY = {
-        "and", "break", "do", "else", "elseif", "end",
-        "false", "for", "function", "goto", "if", "in",
-        "local", "nil", "not", "or", "repeat", "return",
-        "then", "true", "until", "while"
-    };
-    
-    private static final Set<String> RESERVED_WORDS =
-            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(RESERVED_WORDS_ARRAY)));
-    
-    private static boolean isEltnDigit(int cp) {
-        return Character.isDigit(cp);
+class DefaultEltnLexer implements EltnLexer {
+
+    private static final int WINDOW_SIZE = 4096;
+
+    private CodePointSource _source;
+    private Reader _reader;
+    private char[] _readBuf;
+    private int _pendingHigh = -1;
+
+    private int[] _buf = new int[WINDOW_SIZE];
+    private int _pos = 0;
+    private int _limit = 0;
+    private int _base = 0;
+    private boolean _eof = false;
+
+    private int _line = 1;
+    private int _lineStart = 0;
+
+    private int _tokStart;
+    private int _tokEnd;
+    private boolean _tokBmp;
+    private boolean _escaped;
+    private int _hash;
+
+    private final TokenChars _chars = new TokenChars();
+    private final EltnToken _token = new EltnToken(_chars);
+
+    /**
+     * Creates a lexer that reads one code point at a time.
+     *
+     * @param source the code points to lex
+     */
+    DefaultEltnLexer(CodePointSource source) {
+        reset(source);
     }
 
-    private static boolean isEltnNamePart(int cp) {
-        return Character.isJavaIdentifierPart(cp);
+    /**
+     * Creates a lexer that reads UTF-16 chars in bulk.
+     *
+     * @param reader the chars to lex
+     */
+    DefaultEltnLexer(Reader reader) {
+        reset(reader);
     }
 
-    private static boolean isEltnNameStart(int cp) {
-        return Character.isJavaIdentifierStart(cp);
+    /**
+     * Starts over on new code points, keeping the window.
+     *
+     * @param source the code points to lex
+     */
+    void reset(CodePointSource source) {
+        _source = source;
+        _reader = null;
+        resetWindow();
     }
 
-    private static boolean isEltnNumberPart(int cp) {
-        switch(cp) {
-            case '0':
-            case '1':
-            case '2':
-            case '3':
-            case '4':
-            case '5':
-            case '6':
-            case '7':
-            case '8':
-            case '9':
-            case 'A':
-            case 'B':
-            case 'C':
-            case 'D':
-            case 'E':
-            case 'F':
-            case 'P':
-            case 'X':
-            case 'a':
-            case 'b':
-            case 'c':
-            case 'd':
-            case 'e':
-            case 'f':
-            case 'p':
-            case 'x':
-            case '+':
-            case '-':
-            case '.':
-                return true;
-            default:
-                return false;
+    /**
+     * Starts over on new UTF-16 chars, keeping the window.
+     *
+     * @param reader the chars to lex
+     */
+    void reset(Reader reader) {
+        _source = null;
+        _reader = reader;
+        if (_readBuf == null) {
+            _readBuf = new char[WINDOW_SIZE];
         }
+        resetWindow();
     }
 
-    static boolean isEltnSpace(int cp) {
-        return Character.isWhitespace(cp);
+    private void resetWindow() {
+        _pendingHigh = -1;
+        _pos = 0;
+        _limit = 0;
+        _base = 0;
+        _eof = false;
+        _line = 1;
+        _lineStart = 0;
+        _tokStart = 0;
+        _tokEnd = 0;
     }
 
-    private int _currentLineNumber = 0;
-    private int _currentOffset = 0;
-    private boolean _pushback = false;
-    private int _currentColumnNumber = 0;
-    private final CodePointSource _source;
-    
-    DefaultEltnLexer(CodePointSource source) {
-        _source = source;
+    @Override
+    public EltnToken nextToken() throws IOException {
+        EltnTokenType type = EltnTokenType.TOKEN_INVALID;
+        int c = skipSpace();
+        _tokStart = _pos;
+        _tokBmp = true;
+        _escaped = false;
+        _chars.reset();
+        int offset = _base + _pos;
+        int line = _line;
+        int col = offset - _lineStart + 1;
+        if (c < 0) {
+            type = EltnTokenType.TOKEN_END_OF_STREAM;
+        } else {
+            _pos++;
+            switch (c) {
+                case '}':
+                    type = EltnTokenType.TOKEN_CURLY_CLOSE;
+                    break;
+                case '{':
+                    type = EltnTokenType.TOKEN_CURLY_OPEN;
+                    break;
+                case '[':
+                    /* long string or '[' */
+                    c = peek();
+                    if (c == '[' || c == '=') {
+                        type = scanLongString();
+                    } else {
+                        type = EltnTokenType.TOKEN_SQUARE_OPEN;
+                    }
+                    break;
+                case ']':
+                    type = EltnTokenType.TOKEN_SQUARE_CLOSED;
+                    break;
+                case '=':
+                    type = EltnTokenType.TOKEN_EQUALS;
+                    break;
+                case ',':
+                    type = EltnTokenType.TOKEN_COMMA;
+                    break;
+                case ';':
+                    type = EltnTokenType.TOKEN_SEMICOLON;
+                    break;
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                case '.':
+                    type = scanNumber();
+                    break;
+                case '-':
+                    /* number or comment */
+                    c = peek();
+                    if (c == '-') {
+                        _pos++;
+                        type = scanComment();
+                    } else if ((c >= '0' && c <= '9') || c == '.') {
+                        type = scanNumber();
+                    }
+                    break;
+                case '"':
+                case '\'':
+                    type = scanQuotedString(c);
+                    break;
+                default:
+                    type = scanIdentifier(c);
+                    break;
+            }
+        }
+        _tokEnd = _pos;
+        _chars.reset();
+        _token.set(type, offset, _base + _pos, line, col);
+        _token.escaped = _escaped;
+        if (type == EltnTokenType.TOKEN_IDENTIFIER) {
+            _token.setHash(_hash);
+        }
+        return _token;
     }
 
-    EltnToken nextToken() throws IOException {
-        StringBuilder tokenbuf = new StringBuilder();
-        EltnTokenType type = EltnTokenType.TOKEN_INVALID;
-        /* Skip over whitespace (and comments?) */
-        int currentChar = getNextCodePoint();
-        while (currentChar >= 0 && isEltnSpace(currentChar)) {
-            currentChar = getNextCodePoint();
-        }
-        int offset = _currentOffset;
-        int line = _currentLineNumber;
-        int col = _currentColumnNumber;
-        if (currentChar >= 0) {
-            tokenbuf.appendCodePoint(currentChar);
-        }
-        switch (currentChar) {
-            case -1:
-                type = EltnTokenType.TOKEN_END_OF_STREAM;
-                break;
-            case '}':
-                type = EltnTokenType.TOKEN_CURLY_CLOSE;
-                break;
-            case '{':
-                type = EltnTokenType.TOKEN_CURLY_OPEN;
+    /**
+     * Characters that {@link #skipTable()} must look at; it passes over
+     * everything else without a second glance.
+     */
+    private static final boolean[] SKIP_STOPS = new boolean[128];
+
+    static {
+        for (char c : "{}\"'[-\n".toCharArray()) {
+            SKIP_STOPS[c] = true;
+        }
+    }
+
+    @Override
+    public EltnToken skipTable() throws IOException {
+        _tokStart = _pos;
+        int depth = 1;
+        int c;
+        while (true) {
+            /* the tight loop does nearly all the work */
+            /* nothing skipped need stay in the window */
+            _tokStart = _pos;
+            final int[] buf = _buf;
+            final int limit = _limit;
+            int pos = _pos;
+            while (pos < limit && ((c = buf[pos]) >= 128 || !SKIP_STOPS[c])) {
+                pos++;
+            }
+            _pos = pos;
+            _tokStart = pos;
+            if ((c = skipChar()) < 0) {
                 break;
-            case '[':
-                /* long quote or '[' */
-                currentChar = getNextCodePoint();
-                if (currentChar == '[' || currentChar == '=') {
-                    tokenbuf.appendCodePoint(currentChar);
-                    /* TODO: parse long quote */
-                } else {
-                    _pushback = true;
-                    type = EltnTokenType.TOKEN_SQUARE_OPEN;
+            }
+            switch (c) {
+                case '{':
+                    depth++;
+                    break;
+                case '}':
+                    depth--;
+                    if (depth == 0) {
+                        return setSingleCharToken(
+                                EltnTokenType.TOKEN_CURLY_CLOSE, _pos - 1);
+                    }
+                    break;
+                case '"':
+                case '\'':
+                    skipQuotedString(c);
+                    break;
+                case '[':
+                    skipLongBracket(skipLongBracketOpen());
+                    break;
+                case '-':
+                    if (peek() == '-') {
+                        _pos++;
+                        skipComment();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return setSingleCharToken(EltnTokenType.TOKEN_END_OF_STREAM, _pos);
+    }
+
+    private EltnToken setSingleCharToken(EltnTokenType type, int pos) {
+        int offset = _base + pos;
+        _tokStart = pos;
+        _tokEnd = _pos;
+        _tokBmp = true;
+        _chars.reset();
+        _token.set(type, offset, _base + _pos, _line,
+                offset - _lineStart + 1);
+        return _token;
+    }
+
+    /**
+     * Consumes one code point while skipping, keeping line counts but
+     * nothing else in the window.
+     *
+     * @return the next code point, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int skipChar() throws IOException {
+        if (_pos >= _limit) {
+            _tokStart = _pos;
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int c = _buf[_pos++];
+        if (c == '\n') {
+            newline();
+        }
+        return c;
+    }
+
+    private void skipQuotedString(int quote) throws IOException {
+        int c;
+        while ((c = skipChar()) >= 0 && c != quote) {
+            if (c == '\\') {
+                skipChar();
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        if (peek() == '[') {
+            _pos++;
+            int level = skipLongBracketOpen();
+            if (level >= 0) {
+                skipLongBracket(level);
+                return;
+            }
+        }
+        int c;
+        while ((c = skipChar()) >= 0 && c != '\n') {
+            /* skip */
+        }
+    }
+
+    /**
+     * Reads the rest of a long bracket opening, e.g. "==[" after "[".
+     *
+     * @return the number of "=" in the bracket, or -1 if it isn't one
+     */
+    private int skipLongBracketOpen() throws IOException {
+        int level = 0;
+        while (peek() == '=') {
+            _pos++;
+            level++;
+        }
+        if (peek() == '[') {
+            _pos++;
+            return level;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips through the long bracket closing that matches an opening.
+     *
+     * @param level the number of "=" in the opening, or -1 to do nothing
+     */
+    private void skipLongBracket(int level) throws IOException {
+        if (level < 0) {
+            return;
+        }
+        int c = skipChar();
+        while (c >= 0) {
+            if (c == ']') {
+                int n = 0;
+                c = skipChar();
+                while (c == '=') {
+                    n++;
+                    c = skipChar();
                 }
-                break;
-            case ']':
-                type = EltnTokenType.TOKEN_SQUARE_CLOSED;
-                break;
-            case '=':
-                type = EltnTokenType.TOKEN_EQUALS;
-                break;
-            case ',':
-                type = EltnTokenType.TOKEN_COMMA;
-                break;
-            case ';':
-                type = EltnTokenType.TOKEN_SEMICOLON;
-                break;
-            case '0':
-            case '1':
-            case '2':
-            case '3':
-            case '4':
-            case '5':
-            case '6':
-            case '7':
-            case '8':
-            case '9':
-            case '.':
-                /* parse number */
-                type = parseEltnNumber(tokenbuf);
-                break;
-            case '-':
-                /* number or comment */
-                currentChar = getNextCodePoint();
-                if (currentChar == '-') {
-                    tokenbuf.appendCodePoint(currentChar);
-                    /* TODO: parse comment */
-                } else if (isEltnDigit(currentChar) || currentChar == '.') {
-                    _pushback = true;
-                    /* parse negative number */
-                    type = parseEltnNumber(tokenbuf);
+                if (n == level && c == ']') {
+                    return;
                 }
+                /* c may begin another closing */
+            } else {
+                c = skipChar();
+            }
+        }
+    }
+
+    /**
+     * Consumes one code point of the current token.
+     *
+     * @return the next code point, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int nextChar() throws IOException {
+        if (_pos >= _limit && !fill()) {
+            return -1;
+        }
+        int c = _buf[_pos++];
+        if (c == '\n') {
+            newline();
+        } else if (c >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            _tokBmp = false;
+        }
+        return c;
+    }
+
+    /**
+     * Scans a long string after its first "[".
+     */
+    private EltnTokenType scanLongString() throws IOException {
+        int level = skipLongBracketOpen();
+        if (level < 0) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        return scanLongBracket(level)
+                ? EltnTokenType.TOKEN_LONG_STRING
+                : EltnTokenType.TOKEN_INVALID;
+    }
+
+    /**
+     * Scans a comment after its "--".
+     */
+    private EltnTokenType scanComment() throws IOException {
+        if (peek() == '[') {
+            _pos++;
+            int level = skipLongBracketOpen();
+            if (level >= 0) {
+                return scanLongBracket(level)
+                        ? EltnTokenType.TOKEN_LONG_COMMENT
+                        : EltnTokenType.TOKEN_INVALID;
+            }
+        }
+        int c;
+        while ((c = peek()) >= 0 && c != '\n') {
+            nextChar();
+        }
+        return EltnTokenType.TOKEN_COMMENT;
+    }
+
+    /**
+     * Scans through the long bracket closing that matches an opening,
+     * keeping everything in between as part of the token.
+     *
+     * @param level the number of "=" in the opening
+     * @return whether the closing was found before the end of input
+     */
+    private boolean scanLongBracket(int level) throws IOException {
+        int c;
+        while ((c = nextChar()) >= 0) {
+            if (c == ']') {
+                int n = 0;
+                while (peek() == '=') {
+                    _pos++;
+                    n++;
+                }
+                if (n == level && peek() == ']') {
+                    _pos++;
+                    return true;
+                }
+                /* a "]" after the "="s may begin another closing */
+            }
+        }
+        return false;
+    }
+
+    private EltnTokenType scanIdentifier(int c) throws IOException {
+        if (!EltnChars.isEltnNameStart(c)) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        /* hash the name as it goes by, for symbol tables and key sets */
+        int hash = hashCodePoint(0, c);
+        while (_pos < _limit || fill()) {
+            c = _buf[_pos];
+            if (!EltnChars.isEltnNamePart(c)) {
                 break;
-            case '"':
-            case '\'':
-                type = readQuotedString(tokenbuf, currentChar);
-                break;
-            default:
-                if (isEltnNameStart(currentChar)) {
-                    /* parse identifier */
-                    currentChar = getNextCodePoint();
-                    while (isEltnNamePart(currentChar)) {
-                        tokenbuf.appendCodePoint(currentChar);
-                        currentChar = getNextCodePoint();
-                    }
-                    if (currentChar >= 0) {
-                        _pushback = true;
-                    }
+            }
+            hash = hashCodePoint(hash, c);
+            _pos++;
+        }
+        _hash = hash;
+        _tokEnd = _pos;
+        return EltnChars.identifierType(_chars);
+    }
 
-                    String identifier = tokenbuf.toString();
-                    switch (identifier) {
-                        case "false":
-                            type = EltnTokenType.TOKEN_FALSE;
-                            break;
-                        case "nil":
-                            type = EltnTokenType.TOKEN_NIL;
-                            break;
-                        case "true":
-                            type = EltnTokenType.TOKEN_TRUE;
-                            break;
-                        default:
-                            if (RESERVED_WORDS.contains(identifier)) {
-                                type = EltnTokenType.TOKEN_INVALID;
-                            } else {
-                                type = EltnTokenType.TOKEN_IDENTIFIER;
-                            }
-                            break;
+    private int hashCodePoint(int hash, int cp) {
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return 31 * hash + cp;
+        }
+        _tokBmp = false;
+        hash = 31 * hash + Character.highSurrogate(cp);
+        return 31 * hash + Character.lowSurrogate(cp);
+    }
+
+    private EltnTokenType scanQuotedString(int quote) throws IOException {
+        int c;
+        while ((c = peek()) >= 0) {
+            if (c == '\n' || c == '\r') {
+                /* only an escaped line break may appear in a quoted string */
+                return EltnTokenType.TOKEN_INVALID;
+            }
+            nextChar();
+            if (c == quote) {
+                return EltnTokenType.TOKEN_QUOTED_STRING;
+            }
+            if (c == '\\') {
+                /* the next character can't end the string */
+                _escaped = true;
+                c = nextChar();
+                if (c < 0) {
+                    break;
+                }
+                if (c == '\n' || c == '\r') {
+                    /* "\r\n" or "\n\r" is one line break */
+                    int d = peek();
+                    if ((d == '\n' || d == '\r') && d != c) {
+                        nextChar();
+                    }
+                } else if (c == 'z') {
+                    /* "\z" skips white space, line breaks included */
+                    while ((c = peek()) >= 0 && EltnChars.isEltnSpace(c)) {
+                        nextChar();
                     }
                 }
+            }
+        }
+        /* unterminated */
+        return EltnTokenType.TOKEN_INVALID;
+    }
+
+    private EltnTokenType scanNumber() throws IOException {
+        int prev = _buf[_pos - 1];
+        boolean hex = false;
+        while (_pos < _limit || fill()) {
+            int c = _buf[_pos];
+            if (!EltnChars.continuesNumber(prev, c, hex)) {
                 break;
+            }
+            hex |= (c == 'x' || c == 'X');
+            prev = c;
+            _pos++;
+        }
+        _tokEnd = _pos;
+        return EltnNumbers.parse(_chars, _token);
+    }
+
+    /**
+     * Skips whitespace and returns the first code point after it without
+     * consuming it.
+     *
+     * @return the next code point, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int skipSpace() throws IOException {
+        while (true) {
+            _tokStart = _pos;
+            if (_pos >= _limit && !fill()) {
+                return -1;
+            }
+            int c = _buf[_pos];
+            if (c == '\n') {
+                _pos++;
+                newline();
+            } else if (EltnChars.isEltnSpace(c)) {
+                _pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (_pos >= _limit && !fill()) {
+            return -1;
         }
-        return new EltnToken(type, tokenbuf, offset, line, col);
+        return _buf[_pos];
+    }
+
+    private void newline() {
+        _line++;
+        _lineStart = _base + _pos;
     }
 
-    private EltnTokenType readQuotedString(StringBuilder tokenbuf, int currentChar) throws IOException {
-        EltnTokenType type;
-        int quoteChar = currentChar;
-        int prevChar = currentChar;
-        currentChar = getNextCodePoint();
-        while (currentChar >= 0 && currentChar <= 0x10FFFF
-                && (currentChar != quoteChar || prevChar =='\\')) {
-            /* TODO: Stop at unescaped newline */
-            tokenbuf.appendCodePoint(currentChar);
-            prevChar = currentChar;
-            currentChar = getNextCodePoint();
-        }
-        if (currentChar >= 0 && currentChar <= 0x10FFFF) {
-            tokenbuf.appendCodePoint(currentChar);
-        }
-        type = EltnTokenType.TOKEN_QUOTED_STRING;
-        return type;
+    /**
+     * Reads more code points into the window, discarding everything
+     * before the start of the current token.
+     *
+     * @return whether any code points were added
+     * @throws IOException if the input could not be read
+     */
+    private boolean fill() throws IOException {
+        if (_eof) {
+            return false;
+        }
+        if (_tokStart > 0) {
+            System.arraycopy(_buf, _tokStart, _buf, 0, _limit - _tokStart);
+            _base += _tokStart;
+            _pos -= _tokStart;
+            _tokEnd -= _tokStart;
+            _limit -= _tokStart;
+            _tokStart = 0;
+        }
+        if (_buf.length - _limit < 2) {
+            int[] bigger = new int[_buf.length * 2];
+            System.arraycopy(_buf, 0, bigger, 0, _limit);
+            _buf = bigger;
+        }
+        int count = (_reader != null) ? readChars() : readCodePoints();
+        if (count <= 0) {
+            _eof = true;
+            return false;
+        }
+        _limit += count;
+        return true;
     }
 
-    private EltnTokenType parseEltnNumber(StringBuilder tokenbuf) throws IOException {
-        EltnTokenType type;
-        int currentChar;
-        currentChar = getNextCodePoint();
-        while (isEltnNumberPart(currentChar)) {
-            tokenbuf.appendCodePoint(currentChar);
-            currentChar = getNextCodePoint();
-        }
-        if (currentChar >= 0) {
-            _pushback = true;
-        }
-        try {
-            /* Cruder than a regular expression, but easier */
-            Double d = Double.valueOf(tokenbuf.toString());
-            if (!d.isInfinite() && !d.isNaN()) {
-                type = EltnTokenType.TOKEN_NUMBER;
+    private int readCodePoints() throws IOException {
+        final CodePointSource source = _source;
+        final int[] buf = _buf;
+        final int max = buf.length;
+        int n = _limit;
+        while (n < max && source.hasNext()) {
+            source.next();
+            buf[n++] = source.getCodePoint();
+        }
+        return n - _limit;
+    }
+
+    /**
+     * Reads a block of chars and pairs up their surrogates.
+     * A high surrogate at the end of a block waits for the next one.
+     *
+     * @return the number of code points added, or -1 at end of input
+     */
+    private int readChars() throws IOException {
+        final char[] chars = _readBuf;
+        final int room = Math.min(_buf.length - _limit, chars.length);
+        int count;
+        do {
+            int start = 0;
+            if (_pendingHigh >= 0) {
+                chars[start++] = (char) _pendingHigh;
+                _pendingHigh = -1;
+            }
+            int read = _reader.read(chars, start, room - start);
+            if (read < 0) {
+                if (start == 0) {
+                    return -1;
+                }
+                /* an unpaired high surrogate at the very end */
+                read = 0;
+            } else if (start + read > 0
+                    && Character.isHighSurrogate(chars[start + read - 1])) {
+                _pendingHigh = chars[start + read - 1];
+                read--;
+            }
+            count = toCodePoints(chars, start + read);
+        } while (count == 0);
+        return count;
+    }
+
+    private int toCodePoints(char[] chars, int length) {
+        final int[] buf = _buf;
+        int n = _limit;
+        int i = 0;
+        while (i < length) {
+            char c = chars[i++];
+            if (Character.isHighSurrogate(c) && i < length
+                    && Character.isLowSurrogate(chars[i])) {
+                buf[n++] = Character.toCodePoint(c, chars[i++]);
             } else {
-                type = EltnTokenType.TOKEN_INVALID;
+                buf[n++] = c;
             }
-        } catch (NumberFormatException e) {
-            type = EltnTokenType.TOKEN_INVALID;
         }
-        return type;
+        return n - _limit;
     }
 
-    private int getNextCodePoint() throws IOException {
-        if (_pushback) {
-            _pushback = false;
-            return _source.getCodePoint();
+    /**
+     * The text of the current token, read straight out of the window.
+     * Text with no supplementary characters is never copied; anything
+     * else is converted to UTF-16 once per token.
+     */
+    private final class TokenChars implements CharSequence {
+        private char[] _decoded = new char[0];
+        private int _decodedLength = -1;
+
+        void reset() {
+            _decodedLength = -1;
         }
-        if (!_source.hasNext()) {
-            return -1;
+
+        private void decodeToken() {
+            if (_decodedLength >= 0) {
+                return;
+            }
+            int max = 2 * (_tokEnd - _tokStart);
+            if (_decoded.length < max) {
+                _decoded = new char[max];
+            }
+            int n = 0;
+            for (int i = _tokStart; i < _tokEnd; i++) {
+                n += Character.toChars(_buf[i], _decoded, n);
+            }
+            _decodedLength = n;
         }
-        _source.next();
-        _currentOffset++;
-        if (_source.getCodePoint() == '\n') {
-            _currentLineNumber++;
-            _currentColumnNumber = 1;
-        } else {
-            _currentColumnNumber++;
+
+        @Override
+        public int length() {
+            if (_tokBmp) {
+                return _tokEnd - _tokStart;
+            }
+            decodeToken();
+            return _decodedLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            if (_tokBmp) {
+                return (char) _buf[_tokStart + index];
+            }
+            return _decoded[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+            if (_tokBmp) {
+                return new String(_buf, _tokStart + start, end - start);
+            }
+            return new String(_decoded, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            if (_tokBmp) {
+                return new String(_buf, _tokStart, _tokEnd - _tokStart);
+            }
+            decodeToken();
+            return new String(_decoded, 0, _decodedLength);
         }
-        return _source.getCodePoint();
     }
 }
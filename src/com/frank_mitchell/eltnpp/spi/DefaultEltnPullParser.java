@@ -23,25 +23,49 @@
  */
 package com.frank_mitchell.eltnpp.spi;
 
+import com.frank_mitchell.codepoint.CodePoint;
 import com.frank_mitchell.codepoint.CodePointSource;
 import com.frank_mitchell.eltnpp.EltnError;
 import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnKeySet;
 import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * Default implementation for {@link EltnPullParser}
+ * <p>
+ * If the lexer runs out of input part way through a token the parser
+ * reports {@link EltnEvent#NEED_MORE_INPUT} and leaves its state as it
+ * was before that token, so the next call to {@link #next()} carries on.
+ * Only a fed lexer (see {@link AsyncEltnPullParser}) ever does that.
  *
  * @author Frank Mitchell
  */
-final class DefaultEltnPullParser implements EltnPullParser {
+class DefaultEltnPullParser implements EltnPullParser {
 
-    private final DefaultEltnLexer _lexer;
+    private EltnLexer _lexer;
+    private final EltnSymbolTable _symbols;
+    /** Lexers kept for {@link #reset(Reader)} and its kin */
+    private DefaultEltnLexer _charLexer;
+    private Utf8EltnLexer _byteLexer;
+    private IndexedEltnLexer _indexLexer;
+    /** Flight recorder events for this document, or null if none */
+    private EltnFlightRecorder _recorder;
 
     private EltnEvent _event = EltnEvent.STREAM_START;
     private EltnError _error = EltnError.OK;
-    private EltnEvent _lastEvent = EltnEvent.STREAM_START;
     private EltnToken _currToken = null;
+    private final StringBuilder _decodeBuf = new StringBuilder();
+    private String _stringValue = null;
+    private final StringBuilder _pathBuf = new StringBuilder();
 
     /**
      * Constructor for an instance. Should be used only by an [@link
@@ -50,7 +74,165 @@ final class DefaultEltnPullParser implements EltnPullParser {
      * @param source a source of Unicode code points.
      */
     public DefaultEltnPullParser(CodePointSource source) {
-        _lexer = new DefaultEltnLexer(source);
+        this((EltnSymbolTable) null);
+        resetSource(source, EltnFlightRecorder.CODE_POINT_SOURCE);
+    }
+
+    /**
+     * Constructor for an instance that reads tokens from a specific lexer.
+     *
+     * @param lexer a source of ELTN tokens.
+     */
+    DefaultEltnPullParser(EltnLexer lexer) {
+        this(lexer, null);
+    }
+
+    /**
+     * Constructor for an instance that reads tokens from a specific lexer
+     * and looks up the strings of keys and definition names in a symbol
+     * table.
+     *
+     * @param lexer a source of ELTN tokens.
+     * @param symbols canonical key strings, or null to make new ones.
+     */
+    DefaultEltnPullParser(EltnLexer lexer, EltnSymbolTable symbols) {
+        _lexer = lexer;
+        _symbols = symbols;
+        if (lexer instanceof DefaultEltnLexer) {
+            _charLexer = (DefaultEltnLexer) lexer;
+        } else if (lexer instanceof Utf8EltnLexer
+                && !((Utf8EltnLexer) lexer).isFed()) {
+            _byteLexer = (Utf8EltnLexer) lexer;
+        }
+    }
+
+    /**
+     * Constructor for an instance with no input until it is reset.
+     *
+     * @param symbols canonical key strings, or null to make new ones.
+     */
+    DefaultEltnPullParser(EltnSymbolTable symbols) {
+        this(null, symbols);
+        _event = EltnEvent.STREAM_END;
+    }
+
+    @Override
+    public void reset(Reader reader) throws IOException {
+        if (_charLexer == null) {
+            _charLexer = new DefaultEltnLexer(reader);
+        } else {
+            _charLexer.reset(reader);
+        }
+        startDocument(_charLexer, EltnFlightRecorder.READER);
+    }
+
+    @Override
+    public void reset(InputStream stream, Charset cs) throws IOException {
+        if (!DefaultEltnPullParserFactory.isByteLexable(cs)) {
+            resetSource(CodePoint.getSource(stream, cs),
+                    EltnFlightRecorder.INPUT_STREAM);
+            return;
+        }
+        boolean asciiOnly = DefaultEltnPullParserFactory.isAscii(cs);
+        if (_byteLexer == null) {
+            _byteLexer = new Utf8EltnLexer(stream, asciiOnly);
+        } else {
+            _byteLexer.reset(stream, asciiOnly);
+        }
+        startDocument(_byteLexer, EltnFlightRecorder.INPUT_STREAM);
+    }
+
+    @Override
+    public void reset(ByteBuffer buffer, Charset cs) throws IOException {
+        String kind = (buffer instanceof MappedByteBuffer)
+                ? EltnFlightRecorder.MAPPED_FILE : EltnFlightRecorder.BYTE_BUFFER;
+        if (!DefaultEltnPullParserFactory.isByteLexable(cs)) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            resetSource(CodePoint.getSource(new ByteArrayInputStream(bytes), cs),
+                    kind);
+            return;
+        }
+        boolean asciiOnly = DefaultEltnPullParserFactory.isAscii(cs);
+        if (_byteLexer == null) {
+            _byteLexer = new Utf8EltnLexer(buffer, asciiOnly);
+        } else {
+            _byteLexer.reset(buffer, asciiOnly);
+        }
+        startDocument(_byteLexer, kind);
+    }
+
+    @Override
+    public void reset(CodePointSource source) throws IOException {
+        resetSource(source, EltnFlightRecorder.CODE_POINT_SOURCE);
+    }
+
+    /**
+     * Starts over at the beginning of an indexed document.
+     *
+     * @param index the document's structural index.
+     */
+    void reset(EltnStructuralIndex index) {
+        if (_indexLexer == null) {
+            _indexLexer = new IndexedEltnLexer(index);
+        } else {
+            _indexLexer.reset(index);
+        }
+        startDocument(_indexLexer, EltnFlightRecorder.STRUCTURAL_INDEX);
+    }
+
+    private void resetSource(CodePointSource source, String kind) {
+        if (_charLexer == null) {
+            _charLexer = new DefaultEltnLexer(source);
+        } else {
+            _charLexer.reset(source);
+        }
+        startDocument(_charLexer, kind);
+    }
+
+    /**
+     * Restarts on a lexer that has just been created or reset, and starts
+     * recording the new document if the flight recorder wants it.
+     *
+     * @param lexer a source of ELTN tokens.
+     * @param kind what the lexer reads, as {@link EltnFlightRecorder}
+     *        names it.
+     */
+    final void startDocument(EltnLexer lexer, String kind) {
+        endDocument(EltnFlightRecorder.ABANDONED);
+        restart(lexer);
+        _recorder = EltnFlightRecorder.begin(kind,
+                lexer instanceof Utf8EltnLexer
+                || lexer instanceof IndexedEltnLexer);
+    }
+
+    private void endDocument(String outcome) {
+        if (_recorder != null) {
+            _recorder.end(outcome, (_currToken == null) ? 0 : _currToken.end);
+            _recorder = null;
+        }
+    }
+
+    /**
+     * Returns to the start of a document from a lexer that has just been
+     * created or reset, keeping the key stacks as they have grown.
+     *
+     * @param lexer a source of ELTN tokens.
+     */
+    void restart(EltnLexer lexer) {
+        _lexer = lexer;
+        _event = EltnEvent.STREAM_START;
+        _error = EltnError.OK;
+        _currToken = null;
+        _stringValue = null;
+        _expect = Expect.DOCUMENT;
+        _singleTable = false;
+        _depth = 0;
+        _keyTexts[0].clear();
+        _keyTypes[0] = null;
+        _nextIndex[0] = 0;
+        _skippingTable = false;
+        _skippingValue = false;
     }
 
     @Override
@@ -70,14 +252,17 @@ final class DefaultEltnPullParser implements EltnPullParser {
 
     @Override
     public CharSequence getText() {
-        return getTextString();
+        if (_currToken == null) {
+            return "";
+        }
+        return _currToken.getView();
     }
 
     private String getTextString() {
         if (_currToken == null) {
             return "";
         }
-        return _currToken.text;
+        return _currToken.getText();
     }
 
     @Override
@@ -85,7 +270,7 @@ final class DefaultEltnPullParser implements EltnPullParser {
         if (_currToken == null) {
             return -1;
         }
-        return _currToken.offset;
+        return _currToken.start;
     }
 
     @Override
@@ -111,89 +296,242 @@ final class DefaultEltnPullParser implements EltnPullParser {
 
     @Override
     public String getString() {
-        // TODO: cache results for subsequent invocations
+        if (_stringValue == null) {
+            if (_symbols != null && (_event == EltnEvent.DEF_NAME
+                    || _event == EltnEvent.TABLE_KEY_STRING)) {
+                _stringValue = internKey(_currToken);
+            } else {
+                _stringValue = decodeString();
+            }
+        }
+        return _stringValue;
+    }
+
+    @Override
+    public int matchKey(EltnKeySet keys) {
+        if (_event != EltnEvent.DEF_NAME
+                && _event != EltnEvent.TABLE_KEY_STRING) {
+            return -1;
+        }
+        EltnToken token = _currToken;
+        CharSequence cs = token.getChars();
+        switch (token.type) {
+            case TOKEN_IDENTIFIER:
+                return keys.indexOf(cs, 0, cs.length(), token.hash());
+            case TOKEN_QUOTED_STRING:
+                if (token.escaped) {
+                    return keys.indexOf(unescape(token));
+                }
+                return keys.indexOf(cs, 1, quotedEnd(cs));
+            default:
+                return keys.indexOf(getString());
+        }
+    }
+
+    private String internKey(EltnToken token) {
+        CharSequence cs = token.getChars();
+        switch (token.type) {
+            case TOKEN_IDENTIFIER:
+                return _symbols.intern(cs, 0, cs.length(), token.hash());
+            case TOKEN_QUOTED_STRING:
+                if (token.escaped) {
+                    return _symbols.intern(unescape(token));
+                }
+                return _symbols.intern(cs, 1, quotedEnd(cs));
+            default:
+                return decodeString();
+        }
+    }
+
+    private String decodeString() {
         switch (_currToken.type) {
             case TOKEN_QUOTED_STRING:
-                return unescapeQuotedString(getTextString());
+                return unescapeQuotedString(_currToken);
             case TOKEN_LONG_STRING:
-                return unquoteLongString(getTextString());
+                return unquoteLongString(_currToken.getChars());
             case TOKEN_COMMENT:
-                return trimComment(getTextString());
+                return trimComment(_currToken.getChars());
             case TOKEN_LONG_COMMENT:
-                return trimLongComment(getTextString());
+                return trimLongComment(_currToken.getChars());
             default:
                 return getTextString();
         }
     }
 
+    /**
+     * Strips the brackets from a long string, e.g. "[==[...]==]".
+     * As in Lua, a newline right after the opening bracket is dropped,
+     * and nothing inside is an escape.
+     */
     private static String unquoteLongString(CharSequence cs) {
-        return cs.toString();
+        final int length = cs.length();
+        int level = 0;
+        while (level + 1 < length && cs.charAt(level + 1) == '=') {
+            level++;
+        }
+        int start = level + 2;
+        int end = length - (level + 2);
+        if (start < end) {
+            char c = cs.charAt(start);
+            if (c == '\n' || c == '\r') {
+                start++;
+                if (start < end) {
+                    char d = cs.charAt(start);
+                    if ((d == '\n' || d == '\r') && d != c) {
+                        start++;
+                    }
+                }
+            }
+        }
+        if (start >= end) {
+            return "";
+        }
+        return cs.subSequence(start, end).toString();
     }
 
+    /**
+     * Strips the "--" from a line comment, and the '\r' of a CRLF.
+     */
     private static String trimComment(CharSequence cs) {
-        return cs.toString();
+        int end = cs.length();
+        if (end > 2 && cs.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return cs.subSequence(2, end).toString();
     }
 
+    /**
+     * Strips the "--" and brackets from a long comment.
+     */
     private static String trimLongComment(CharSequence cs) {
-        return unquoteLongString(cs.subSequence(2, -1));
+        return unquoteLongString(cs.subSequence(2, cs.length()));
     }
 
-    private static String unescapeQuotedString(CharSequence cs) {
-        StringBuilder result = new StringBuilder(cs.length());
+    /**
+     * Replacement characters for single-character escapes, indexed by the
+     * character after the backslash; 0 means "not a simple escape".
+     */
+    private static final char[] SIMPLE_ESCAPES = new char[128];
+
+    /**
+     * Values of hexadecimal digits, indexed by character; -1 means
+     * "not a digit".
+     */
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        SIMPLE_ESCAPES['a'] = (char) 0x07;
+        SIMPLE_ESCAPES['b'] = '\b';
+        SIMPLE_ESCAPES['f'] = '\f';
+        SIMPLE_ESCAPES['n'] = '\n';
+        SIMPLE_ESCAPES['r'] = '\r';
+        SIMPLE_ESCAPES['t'] = '\t';
+        SIMPLE_ESCAPES['v'] = (char) 0x0b;
+        SIMPLE_ESCAPES['\\'] = '\\';
+        SIMPLE_ESCAPES['"'] = '"';
+        SIMPLE_ESCAPES['\''] = '\'';
+        SIMPLE_ESCAPES['\n'] = '\n';
+
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            DIGIT_VALUES[c] = (byte) (c - '0');
+        }
+        for (int c = 'a'; c <= 'f'; c++) {
+            DIGIT_VALUES[c] = (byte) (c - 'a' + 10);
+            DIGIT_VALUES[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    private static int digitValue(CharSequence cs, int i, int end, int radix) {
+        if (i >= end) {
+            return -1;
+        }
+        char c = cs.charAt(i);
+        if (c >= DIGIT_VALUES.length || DIGIT_VALUES[c] >= radix) {
+            return -1;
+        }
+        return DIGIT_VALUES[c];
+    }
+
+    /**
+     * Gets the contents of a quoted string.
+     * If the lexer saw no backslash the result is a plain substring;
+     * otherwise escapes are decoded into a reused buffer.
+     *
+     * @param token a {@link EltnTokenType#TOKEN_QUOTED_STRING} token
+     * @return the string value of the token
+     */
+    private String unescapeQuotedString(EltnToken token) {
+        if (!token.escaped) {
+            CharSequence cs = token.getChars();
+            return cs.subSequence(1, quotedEnd(cs)).toString();
+        }
+        return unescape(token).toString();
+    }
+
+    /**
+     * Gets the index of a quoted string's closing quote, or its length
+     * if the string is unterminated.
+     */
+    private static int quotedEnd(CharSequence cs) {
+        int length = cs.length();
+        return (length >= 2 && cs.charAt(length - 1) == cs.charAt(0))
+                ? length - 1 : length;
+    }
+
+    /**
+     * Decodes the escapes in a quoted string into a reused buffer.
+     *
+     * @param token a {@link EltnTokenType#TOKEN_QUOTED_STRING} token
+     * @return the buffer, holding the string value of the token
+     */
+    private StringBuilder unescape(EltnToken token) {
+        CharSequence cs = token.getChars();
+        int end = quotedEnd(cs);
+        StringBuilder result = _decodeBuf;
+        result.setLength(0);
         int i = 1;
-        while (i < cs.length() - 1) {
+        while (i < end) {
+            int run = i;
+            while (i < end && cs.charAt(i) != '\\') {
+                i++;
+            }
+            result.append(cs, run, i);
+            if (i >= end) {
+                break;
+            }
+            i++; // skip the backslash
+            if (i >= end) {
+                break;
+            }
             char c = cs.charAt(i);
-            if (c != '\\') {
-                result.append(c);
+            if (c < SIMPLE_ESCAPES.length && SIMPLE_ESCAPES[c] != 0) {
+                result.append(SIMPLE_ESCAPES[c]);
                 i++;
                 continue;
             }
-            i++;
-            c = cs.charAt(i);
             switch (c) {
-                case 'a':
-                    result.append((char) 0x07);
-                    i++;
-                    break;
-                case 'b':
-                    result.append('\b');
-                    i++;
+                case 'x':
+                    i = appendHexEscape(cs, i, end, result);
                     break;
-                case 'f':
-                    result.append('\f');
-                    i++;
+                case 'u':
+                    i = appendUnicodeEscape(cs, i, end, result);
                     break;
-                case 'n':
+                case '\n':
+                case '\r':
+                    /* "\r\n" or "\n\r" is one line break */
                     result.append('\n');
                     i++;
-                    break;
-                case 't':
-                    result.append('\t');
-                    i++;
-                    break;
-                case 'r':
-                    result.append('\r');
-                    i++;
-                    break;
-                case 'v':
-                    result.append((char) 0x0b);
-                    i++;
-                    break;
-                case 'u':
-                    i = appendUnicodeEscape(cs, i, result);
-                    break;
-                case 'x':
-                    i = appendHexEscape(cs, i, result);
+                    if (i < end && (cs.charAt(i) == '\n' || cs.charAt(i) == '\r')
+                            && cs.charAt(i) != c) {
+                        i++;
+                    }
                     break;
                 case 'z':
                     i++;
-                    c = cs.charAt(i);
-                    while (DefaultEltnLexer.isEltnSpace(c) && i < cs.length() - 1) {
+                    while (i < end && EltnChars.isEltnSpace(cs.charAt(i))) {
                         i++;
-                        c = cs.charAt(i);
                     }
-                    result.append(c);
-                    i++;
                     break;
                 case '0':
                 case '1':
@@ -203,7 +541,9 @@ final class DefaultEltnPullParser implements EltnPullParser {
                 case '5':
                 case '6':
                 case '7':
-                    i = appendOctalEscape(cs, i, result);
+                case '8':
+                case '9':
+                    i = appendDecimalEscape(cs, i, end, result);
                     break;
                 default:
                     result.append(c);
@@ -211,243 +551,575 @@ final class DefaultEltnPullParser implements EltnPullParser {
                     break;
             }
         }
-        return result.toString();
+        return result;
     }
 
-    private static int appendHexEscape(CharSequence cs, int i, StringBuilder result) {
-        final int max = 3;  // 'x' + two digits
-
-        if (cs.charAt(i) != 'x' || cs.length() < i + max) {
-            return i;
+    private static int appendHexEscape(CharSequence cs, int i, int end, StringBuilder result) {
+        int hi = digitValue(cs, i + 1, end, 16);
+        int lo = digitValue(cs, i + 2, end, 16);
+        if (hi < 0 || lo < 0) {
+            // Invalid hexdigits, so just leave them alone.
+            result.append('x');
+            return i + 1;
         }
-        StringBuilder tmp = new StringBuilder();
-        int j = i + 1;
+        result.append((char) (hi * 16 + lo));
+        return i + 3;
+    }
 
-        while (j < cs.length() && (j - i) < max) {
-            tmp.append(cs.charAt(j));
+    private static int appendDecimalEscape(CharSequence cs, int i, int end, StringBuilder result) {
+        int value = 0;
+        int j = i;
+        int digit;
+        while (j - i < 3 && (digit = digitValue(cs, j, end, 10)) >= 0) {
+            value = value * 10 + digit;
             j++;
         }
-        appendCode(result, tmp.toString(), 16);
+        if (value > 255) {
+            // Too large for a byte, so keep it as written, backslash included.
+            result.append('\\').append(cs, i, j);
+            return j;
+        }
+        result.append((char) value);
         return j;
     }
 
-    private static int appendOctalEscape(CharSequence cs, int i, StringBuilder result) {
-        StringBuilder tmp = new StringBuilder();
-        int j = i;
-        while (isOctalDigit(cs.charAt(j)) && j < cs.length() && (j - i) < 3) {
-            tmp.append(cs.charAt(j));
+    private static int appendUnicodeEscape(CharSequence cs, int i, int end, StringBuilder result) {
+        final int max = 8;  // enough hex digits for any code point
+        if (i + 1 >= end || cs.charAt(i + 1) != '{') {
+            result.append('u');
+            return i + 1;
+        }
+        int value = 0;
+        int j = i + 2;
+        int digit;
+        while (j - (i + 2) < max && (digit = digitValue(cs, j, end, 16)) >= 0) {
+            value = value * 16 + digit;
             j++;
         }
-        appendCode(result, tmp.toString(), 8);
-        return j;
+        if (j == i + 2 || j >= end || cs.charAt(j) != '}' || value > 0x10FFFF) {
+            // Invalid escape, so just leave it alone.
+            result.append('u');
+            return i + 1;
+        }
+        result.appendCodePoint(value);
+        return j + 1; // bypass the final '}'
     }
 
-    private static int appendUnicodeEscape(CharSequence cs, int i, StringBuilder result) {
-        int j = i;
-        int max = 9;
-        StringBuilder tmp = new StringBuilder();
-        if (cs.charAt(i) == 'u' && cs.charAt(i + 1) == '{') {
-            j = i + 2;
-            while (cs.charAt(j) != '}' && j < cs.length() && (j - i) < max) {
-                char c = cs.charAt(j);
-                tmp.append(c);
-                j++;
-            }
-            if (cs.charAt(j) == '}') {
-                appendCode(result, tmp.toString(), 16);
-                j++; // bypass the final '}'
-            }
+    @Override
+    public Number getNumber() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+                return _currToken.longValue;
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                return _currToken.doubleValue;
+            default:
+                throw notANumber();
         }
-        return j;
     }
 
-    private static void appendCode(StringBuilder result, String digits, int radix) {
-        try {
-            int univalue = Integer.parseUnsignedInt(digits, radix);
-            if (univalue <= 0x10FFFF) {
-                result.appendCodePoint(univalue);
-            }
-        } catch (NumberFormatException e) {
-            // Invalid hexdigits, so just leave them alone.
+    @Override
+    public long getLong() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+                return _currToken.longValue;
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                double d = _currToken.doubleValue;
+                long result = (long) d;
+                if (result != d || d == 0x1p63) {
+                    throw new NumberFormatException(
+                            getTextString() + " has no integer representation");
+                }
+                return result;
+            default:
+                throw notANumber();
         }
     }
 
-    private static boolean isOctalDigit(int c) {
-        switch (c) {
-            case '0':
-            case '1':
-            case '2':
-            case '3':
-            case '4':
-            case '5':
-            case '6':
-            case '7':
-                return true;
-            default:
-                return false;
+    @Override
+    public int getInt() throws NumberFormatException {
+        long result = getLong();
+        if ((int) result != result) {
+            throw new NumberFormatException(getTextString() + " is out of int range");
         }
+        return (int) result;
     }
 
     @Override
-    public Number getNumber() throws NumberFormatException {
-        return Double.valueOf(getTextString());
+    public double getDouble() throws NumberFormatException {
+        switch (_event) {
+            case TABLE_KEY_INTEGER:
+            case VALUE_INTEGER:
+            case TABLE_KEY_NUMBER:
+            case VALUE_NUMBER:
+                return _currToken.doubleValue;
+            default:
+                throw notANumber();
+        }
+    }
+
+    private NumberFormatException notANumber() {
+        return new NumberFormatException(_event + " is not a number: " + getText());
     }
 
     @Override
     public int getDepth() {
-        return 0;
+        return _depth;
+    }
+
+    private int keyLevel() {
+        return (_event == EltnEvent.TABLE_START) ? _depth - 1 : _depth;
     }
 
     @Override
     public CharSequence getCurrentKeyText() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        int level = keyLevel();
+        if (level < 0 || _keyTypes[level] == null) {
+            return "";
+        }
+        return _keyTexts[level];
     }
 
     @Override
     public EltnEvent getCurrentKeyType() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        int level = keyLevel();
+        if (level < 0) {
+            return null;
+        }
+        return _keyTypes[level];
     }
 
     @Override
     public CharSequence getCurrentPath() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        StringBuilder path = _pathBuf;
+        path.setLength(0);
+        int level = keyLevel();
+        for (int i = 0; i <= level && i < _keyTypes.length; i++) {
+            EltnEvent type = _keyTypes[i];
+            if (type == null) {
+                continue;
+            }
+            CharSequence text = _keyTexts[i];
+            switch (type) {
+                case DEF_NAME:
+                    path.append(text);
+                    break;
+                case TABLE_KEY_STRING:
+                    char first = text.length() > 0 ? text.charAt(0) : '"';
+                    if (first == '[') {
+                        /* keep a long string from reading as "[[" */
+                        path.append("[ ").append(text).append(" ]");
+                    } else if (first == '"' || first == '\'') {
+                        path.append('[').append(text).append(']');
+                    } else {
+                        if (path.length() > 0) {
+                            path.append('.');
+                        }
+                        path.append(text);
+                    }
+                    break;
+                default:
+                    path.append('[').append(text).append(']');
+                    break;
+            }
+        }
+        return path;
     }
 
     /* --------------------------- Parser --------------------------------- */
+
+    /**
+     * What the grammar allows next.
+     */
+    private enum Expect {
+        /** A definition name, a single table, or the end of the stream */
+        DOCUMENT,
+        /** The "=" after a definition name */
+        DEF_EQUALS,
+        /** Another definition name, a ";", or the end of the stream */
+        DEF_SEPARATOR,
+        /** Another definition name or the end of the stream, after ";" */
+        DEF_NAME,
+        /** A scalar value or a table */
+        VALUE,
+        /** A key, a value, or "}" */
+        FIELD,
+        /** A "," or ";" between fields, or "}" */
+        FIELD_SEPARATOR,
+        /** A string or number inside "[" ... "]" */
+        KEY,
+        /** The "]" after a key */
+        KEY_CLOSE,
+        /** The "=" after a key */
+        KEY_EQUALS,
+        /** Nothing but the end of the stream */
+        END
+    }
+
+    private Expect _expect = Expect.DOCUMENT;
+    private boolean _singleTable = false;
+    private int _depth = 0;
+    private CharArrayText[] _keyTexts = {new CharArrayText()};
+    private EltnEvent[] _keyTypes = new EltnEvent[1];
+    private long[] _nextIndex = new long[1];
+
+    /** The lexer ran out of input part way through skipping a table */
+    private boolean _skippingTable = false;
+    /** Skip the value after the current key once it arrives */
+    private boolean _skippingValue = false;
+
     @Override
     public void next() throws IOException {
         if (!hasNext()) {
             return;
         }
-
-        if (_event != EltnEvent.COMMENT) {
-            _lastEvent = _event;
+        if (_skippingTable) {
+            skipTable();
+            return;
         }
+        nextEvent();
+        if (_skippingValue && _event != EltnEvent.NEED_MORE_INPUT
+                && _event != EltnEvent.COMMENT) {
+            _skippingValue = false;
+            if (_event == EltnEvent.TABLE_START) {
+                skipTable();
+            }
+        }
+    }
 
-        EltnToken token = _lexer.nextToken();
+    private void nextEvent() throws IOException {
+        _stringValue = null;
+        if (_recorder != null) {
+            _recorder.countEvent();
+        }
 
-        if (null == token.type) {
-            _event = EltnEvent.ERROR;
-            _error = EltnError.UNKNOWN;
+        while (true) {
+            EltnToken token = _lexer.nextToken();
             _currToken = token;
-            return;
-        }
 
-        switch (_lastEvent) {
-            case STREAM_START:
-                handleStreamStart(token);
-                break;
+            if (null == token.type) {
+                setError(EltnError.UNKNOWN);
+                return;
+            }
 
-            case COMMENT:
-                /* expect based on prior non-comment state */
-                break;
+            switch (token.type) {
+                case TOKEN_NEED_MORE_INPUT:
+                    _event = EltnEvent.NEED_MORE_INPUT;
+                    return;
+                case TOKEN_COMMENT:
+                case TOKEN_LONG_COMMENT:
+                    /* comments may appear anywhere and change nothing */
+                    _event = EltnEvent.COMMENT;
+                    return;
+                case TOKEN_INVALID:
+                    setError(EltnError.INVALID_TOKEN);
+                    return;
+                default:
+                    break;
+            }
+
+            switch (_expect) {
+                case DOCUMENT:
+                    if (token.type == EltnTokenType.TOKEN_CURLY_OPEN) {
+                        _singleTable = true;
+                        startTable();
+                        return;
+                    }
+                    if (startDefinition(token)) {
+                        return;
+                    }
+                    break;
+
+                case DEF_SEPARATOR:
+                    if (token.type == EltnTokenType.TOKEN_SEMICOLON) {
+                        _expect = Expect.DEF_NAME;
+                        continue;
+                    }
+                    if (startDefinition(token)) {
+                        return;
+                    }
+                    break;
+
+                case DEF_NAME:
+                    if (startDefinition(token)) {
+                        return;
+                    }
+                    break;
+
+                case DEF_EQUALS:
+                case KEY_EQUALS:
+                    if (token.type == EltnTokenType.TOKEN_EQUALS) {
+                        _expect = Expect.VALUE;
+                        continue;
+                    }
+                    break;
+
+                case VALUE:
+                    if (startValue(token)) {
+                        return;
+                    }
+                    break;
+
+                case FIELD:
+                    switch (token.type) {
+                        case TOKEN_CURLY_CLOSE:
+                            endTable();
+                            return;
+                        case TOKEN_SQUARE_OPEN:
+                            _expect = Expect.KEY;
+                            continue;
+                        case TOKEN_IDENTIFIER:
+                            _event = EltnEvent.TABLE_KEY_STRING;
+                            setKey(EltnEvent.TABLE_KEY_STRING, token);
+                            _expect = Expect.KEY_EQUALS;
+                            return;
+                        default:
+                            if (isValueStart(token)) {
+                                setImpliedKey();
+                                startValue(token);
+                                return;
+                            }
+                            break;
+                    }
+                    break;
+
+                case FIELD_SEPARATOR:
+                    switch (token.type) {
+                        case TOKEN_COMMA:
+                        case TOKEN_SEMICOLON:
+                            _expect = Expect.FIELD;
+                            continue;
+                        case TOKEN_CURLY_CLOSE:
+                            endTable();
+                            return;
+                        default:
+                            break;
+                    }
+                    break;
+
+                case KEY:
+                    switch (token.type) {
+                        case TOKEN_QUOTED_STRING:
+                        case TOKEN_LONG_STRING:
+                            _event = EltnEvent.TABLE_KEY_STRING;
+                            break;
+                        case TOKEN_INTEGER:
+                            _event = EltnEvent.TABLE_KEY_INTEGER;
+                            break;
+                        case TOKEN_NUMBER:
+                            _event = EltnEvent.TABLE_KEY_NUMBER;
+                            break;
+                        default:
+                            setError(unexpected(token));
+                            return;
+                    }
+                    setKey(_event, token);
+                    _expect = Expect.KEY_CLOSE;
+                    return;
+
+                case KEY_CLOSE:
+                    if (token.type == EltnTokenType.TOKEN_SQUARE_CLOSED) {
+                        _expect = Expect.KEY_EQUALS;
+                        continue;
+                    }
+                    break;
+
+                case END:
+                    if (token.type == EltnTokenType.TOKEN_END_OF_STREAM) {
+                        _event = EltnEvent.STREAM_END;
+                        endDocument(EltnFlightRecorder.COMPLETE);
+                        return;
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+
+            setError(unexpected(token));
+            return;
+        }
+    }
 
+    @Override
+    public void skipValue() throws IOException {
+        switch (_event) {
             case DEF_NAME:
-            case TABLE_KEY_STRING:
-            case TABLE_KEY_NUMBER:
             case TABLE_KEY_INTEGER:
-                handleKeyDefinition(token);
-                break;
-
-            case VALUE_FALSE:
-            case VALUE_NIL:
-            case VALUE_TRUE:
-            case VALUE_INTEGER:
-            case VALUE_NUMBER:
-            case VALUE_STRING:
-                handleNewEntryOrClose(token);
+            case TABLE_KEY_NUMBER:
+            case TABLE_KEY_STRING:
+                do {
+                    next();
+                } while (_event == EltnEvent.COMMENT);
+                if (_event == EltnEvent.NEED_MORE_INPUT) {
+                    _skippingValue = true;
+                    return;
+                }
+                if (_event != EltnEvent.TABLE_START) {
+                    return;
+                }
                 break;
-
             case TABLE_START:
-                /* expect a TABLE_KEY_*, VALUE_*, TABLE_START, or TABLE_END */
                 break;
+            default:
+                return;
+        }
+        skipTable();
+    }
 
-            case TABLE_END:
-                /* expect a COMMA, SEMICOLON, or TABLE_END (if depth > 0) */
-                break;
+    @Override
+    public void skipTable() throws IOException {
+        if (_depth == 0 || !hasNext()) {
+            return;
+        }
 
-            default:
-                /* end state; do nothing */
-                break;
+        _stringValue = null;
+        if (_recorder != null) {
+            _recorder.countEvent();
+        }
+
+        EltnToken token = _lexer.skipTable();
+        _currToken = token;
+        _skippingTable = (token.type == EltnTokenType.TOKEN_NEED_MORE_INPUT);
+        if (_skippingTable) {
+            _event = EltnEvent.NEED_MORE_INPUT;
+        } else if (token.type == EltnTokenType.TOKEN_CURLY_CLOSE) {
+            endTable();
+        } else {
+            setError(unexpected(token));
         }
     }
 
-    private void handleNewEntryOrClose(EltnToken token) {
-        /* expect a COMMA (if depth > 0) or SEMICOLON */
- /* expect another TABLE_KEY_*, a VALUE_*. or a TABLE_START */
- /* else if depth > 0 expect a TABLE_END */
- /* else expect a STREAM_END */
+    private static EltnError unexpected(EltnToken token) {
         if (token.type == EltnTokenType.TOKEN_END_OF_STREAM) {
-            _event = EltnEvent.STREAM_END;
-            _currToken = token;
-        } else {
-            _event = EltnEvent.ERROR;
-            _error = EltnError.UNEXPECTED_TOKEN;
-            _currToken = token;
+            return EltnError.STREAM_END;
         }
+        return EltnError.UNEXPECTED_TOKEN;
     }
 
-    private void handleKeyDefinition(EltnToken token) throws IOException {
-        /* expect an EQUALS then a VALUE_* or TABLE_START */
-        if (token.type != EltnTokenType.TOKEN_EQUALS) {
-            _event = EltnEvent.ERROR;
-            _error = EltnError.INVALID_TOKEN;
-            _currToken = token;
-        } else {
-            token = _lexer.nextToken();
-            switch (token.type) {
-                case TOKEN_QUOTED_STRING:
-                case TOKEN_LONG_STRING:
-                    _event = EltnEvent.VALUE_STRING;
-                    _currToken = token;
-                    break;
-                case TOKEN_NUMBER:
-                    /* TODO: distinguish integers */
-                    _event = EltnEvent.VALUE_NUMBER;
-                    _currToken = token;
-                    break;
-                case TOKEN_TRUE:
-                    _event = EltnEvent.VALUE_TRUE;
-                    _currToken = token;
-                    break;
-                case TOKEN_FALSE:
-                    _event = EltnEvent.VALUE_FALSE;
-                    _currToken = token;
-                    break;
-                case TOKEN_NIL:
-                    _event = EltnEvent.VALUE_NIL;
-                    _currToken = token;
-                    break;
-                default:
-                    /* TODO: TABLE_OPEN */
-                    _event = EltnEvent.ERROR;
-                    _error = EltnError.UNEXPECTED_TOKEN;
-                    _currToken = token;
-                    break;
-            }
+    private void setError(EltnError error) {
+        _event = EltnEvent.ERROR;
+        _error = error;
+        endDocument(error.name());
+    }
+
+    private static boolean isValueStart(EltnToken token) {
+        switch (token.type) {
+            case TOKEN_QUOTED_STRING:
+            case TOKEN_LONG_STRING:
+            case TOKEN_INTEGER:
+            case TOKEN_NUMBER:
+            case TOKEN_TRUE:
+            case TOKEN_FALSE:
+            case TOKEN_NIL:
+            case TOKEN_CURLY_OPEN:
+                return true;
+            default:
+                return false;
         }
     }
 
-    private void handleStreamStart(EltnToken token) {
-        /* expect DEF_NAME, TABLE_START, or STRvEAM_END */
+    /**
+     * Emits the event for a definition name, or ends the stream.
+     *
+     * @param token the token after the previous definition, if any
+     * @return false if the token can neither start a definition nor end
+     *         the document
+     */
+    private boolean startDefinition(EltnToken token) {
         switch (token.type) {
+            case TOKEN_IDENTIFIER:
+                _event = EltnEvent.DEF_NAME;
+                setKey(EltnEvent.DEF_NAME, token);
+                _expect = Expect.DEF_EQUALS;
+                return true;
             case TOKEN_END_OF_STREAM:
                 _event = EltnEvent.STREAM_END;
-                _currToken = token;
+                endDocument(EltnFlightRecorder.COMPLETE);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Emits the event for a value, or starts a table.
+     *
+     * @param token the first token of the value
+     * @return false if the token cannot start a value
+     */
+    private boolean startValue(EltnToken token) {
+        switch (token.type) {
+            case TOKEN_QUOTED_STRING:
+            case TOKEN_LONG_STRING:
+                _event = EltnEvent.VALUE_STRING;
                 break;
-            case TOKEN_IDENTIFIER:
-                _event = EltnEvent.DEF_NAME;
-                _currToken = token;
+            case TOKEN_INTEGER:
+                _event = EltnEvent.VALUE_INTEGER;
                 break;
-            case TOKEN_CURLY_OPEN:
-                _event = EltnEvent.TABLE_START;
-                _currToken = token;
+            case TOKEN_NUMBER:
+                _event = EltnEvent.VALUE_NUMBER;
                 break;
-            default:
-                _event = EltnEvent.ERROR;
-                _error = EltnError.INVALID_TOKEN;
-                _currToken = token;
+            case TOKEN_TRUE:
+                _event = EltnEvent.VALUE_TRUE;
                 break;
+            case TOKEN_FALSE:
+                _event = EltnEvent.VALUE_FALSE;
+                break;
+            case TOKEN_NIL:
+                _event = EltnEvent.VALUE_NIL;
+                break;
+            case TOKEN_CURLY_OPEN:
+                startTable();
+                return true;
+            default:
+                return false;
+        }
+        _expect = afterValue();
+        return true;
+    }
+
+    private Expect afterValue() {
+        if (_depth > 0) {
+            return Expect.FIELD_SEPARATOR;
+        }
+        return _singleTable ? Expect.END : Expect.DEF_SEPARATOR;
+    }
+
+    private void startTable() {
+        _event = EltnEvent.TABLE_START;
+        _depth++;
+        if (_depth >= _keyTexts.length) {
+            int size = _keyTexts.length * 2;
+            _keyTexts = Arrays.copyOf(_keyTexts, size);
+            _keyTypes = Arrays.copyOf(_keyTypes, size);
+            _nextIndex = Arrays.copyOf(_nextIndex, size);
+        }
+        if (_keyTexts[_depth] == null) {
+            _keyTexts[_depth] = new CharArrayText();
         }
+        _keyTexts[_depth].clear();
+        _keyTypes[_depth] = null;
+        _nextIndex[_depth] = 1;
+        _expect = Expect.FIELD;
+    }
+
+    private void endTable() {
+        _event = EltnEvent.TABLE_END;
+        _depth--;
+        _expect = afterValue();
+    }
+
+    private void setKey(EltnEvent type, EltnToken token) {
+        _keyTypes[_depth] = type;
+        _keyTexts[_depth].set(token.getChars());
+    }
+
+    private void setImpliedKey() {
+        _keyTypes[_depth] = EltnEvent.TABLE_KEY_INTEGER;
+        _keyTexts[_depth].set(_nextIndex[_depth]++);
     }
 }
@@ -23,13 +23,16 @@
  */
 package com.frank_mitchell.eltnpp.spi;
 
-import com.frank_mitchell.codepoint.CodePoint;
 import com.frank_mitchell.codepoint.CodePointSource;
+import com.frank_mitchell.eltnpp.EltnAsyncPullParser;
+import com.frank_mitchell.eltnpp.EltnParserMetrics;
 import com.frank_mitchell.eltnpp.EltnPullParser;
 import com.frank_mitchell.eltnpp.EltnPullParserFactory;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -40,15 +43,130 @@ import java.nio.charset.StandardCharsets;
  */
 public class DefaultEltnPullParserFactory implements EltnPullParserFactory {
 
+    private final EltnSymbolTable _symbols;
+    /** Where parsers add what they measure, or null to measure nothing */
+    private final EltnParserMetrics _metrics;
+    /** Each thread's parser, or null to create a new one every time */
+    private final ThreadLocal<DefaultEltnPullParser> _reused;
+    /** Whether to index UTF-8 buffers before parsing them */
+    private final boolean _indexed;
+
     /**
      * Default constructor.
      */
     public DefaultEltnPullParserFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory whose parsers share a symbol table.
+     *
+     * @param symbols canonical key strings, or null for none.
+     */
+    public DefaultEltnPullParserFactory(EltnSymbolTable symbols) {
+        this(symbols, false);
+    }
+
+    /**
+     * Creates a factory whose parsers share a symbol table, and which
+     * may hand each thread the same parser every time.
+     *
+     * @param symbols canonical key strings, or null for none.
+     * @param reuse whether to reuse parsers as
+     *        {@link #withParserReuse()} describes.
+     */
+    public DefaultEltnPullParserFactory(EltnSymbolTable symbols,
+            boolean reuse) {
+        this(symbols, null, reuse, false);
+    }
+
+    private DefaultEltnPullParserFactory(EltnSymbolTable symbols,
+            EltnParserMetrics metrics, boolean reuse, boolean indexed) {
+        _symbols = symbols;
+        _metrics = metrics;
+        _reused = reuse ? ThreadLocal.withInitial(this::newBlankParser) : null;
+        _indexed = indexed;
+    }
+
+    /**
+     * Creates a parser with no input, to be reset before use.
+     */
+    private DefaultEltnPullParser newBlankParser() {
+        if (_metrics != null) {
+            return new MeteredEltnPullParser(_symbols, _metrics);
+        }
+        return new DefaultEltnPullParser(_symbols);
+    }
+
+    /**
+     * Gets a parser to reset to new input.
+     */
+    private DefaultEltnPullParser blankParser() {
+        if (_reused != null) {
+            return _reused.get();
+        }
+        return newBlankParser();
+    }
+
+    /**
+     * Gets a factory whose parsers look up keys in a symbol table.
+     *
+     * @param symbols canonical key strings.
+     * @return a new factory sharing the table.
+     */
+    @Override
+    public EltnPullParserFactory withSymbolTable(EltnSymbolTable symbols) {
+        return new DefaultEltnPullParserFactory(symbols, _metrics,
+                _reused != null, _indexed);
+    }
+
+    /**
+     * Gets a factory that resets and returns the calling thread's parser
+     * instead of creating a new one.
+     *
+     * @return a new factory that reuses parsers.
+     */
+    @Override
+    public EltnPullParserFactory withParserReuse() {
+        if (_reused != null) {
+            return this;
+        }
+        return new DefaultEltnPullParserFactory(_symbols, _metrics, true,
+                _indexed);
+    }
+
+    /**
+     * Gets a factory whose parsers count and time what they do.
+     * Non-blocking parsers are not measured.
+     *
+     * @param metrics counters and timers to add to.
+     * @return a new factory whose parsers add to the metrics.
+     */
+    @Override
+    public EltnPullParserFactory withMetrics(EltnParserMetrics metrics) {
+        return new DefaultEltnPullParserFactory(_symbols, metrics,
+                _reused != null, _indexed);
+    }
+
+    /**
+     * Gets a factory that builds an {@link EltnStructuralIndex} of each
+     * UTF-8 or ASCII buffer and parses by walking the index.
+     *
+     * @return a new factory that indexes buffers.
+     */
+    @Override
+    public EltnPullParserFactory withStructuralIndex() {
+        if (_indexed) {
+            return this;
+        }
+        return new DefaultEltnPullParserFactory(_symbols, _metrics,
+                _reused != null, true);
     }
 
     /**
      * Creates a parser to process UTF-16 characters.
      * In other words, a stream of Java {@code char}s.
+     * The lexer reads the chars in blocks, not one code point at a time.
      *
      * @param reader a stream of UTF-16 chars.
      * @return a parser for the reader.
@@ -56,11 +174,16 @@ public class DefaultEltnPullParserFactory implements EltnPullParserFactory {
      */
     @Override
     public EltnPullParser createParser(Reader reader) throws IOException {
-        return createParser(CodePoint.getSource(reader, StandardCharsets.UTF_16));
+        DefaultEltnPullParser result = blankParser();
+        result.reset(reader);
+        return result;
     }
 
     /**
-     * Creates a parser to process bytes in the specified encoding.
+     * Creates a parser to process bytes in the specified encoding,
+     * or binary ELTN if the stream starts with its header.
+     * The parser looks for the header on its first event, so creating it
+     * reads nothing and never blocks.
      *
      * @param stream a stream of bytes.
      * @param cs a character encoding.
@@ -69,11 +192,64 @@ public class DefaultEltnPullParserFactory implements EltnPullParserFactory {
      */
     @Override
     public EltnPullParser createParser(InputStream stream, Charset cs) throws IOException {
-        return createParser(CodePoint.getSource(stream, cs));
+        return new DetectingEltnPullParser(blankParser(), stream, cs, _symbols);
+    }
+
+    /**
+     * Creates a parser to process the bytes remaining in a buffer,
+     * either binary ELTN or text in the specified encoding.
+     * UTF-8 and US-ASCII buffers are lexed in place without decoding,
+     * or indexed first if this factory was made by
+     * {@link #withStructuralIndex()}.
+     * The buffer's position and limit do not change.
+     *
+     * @param buffer a buffer of bytes.
+     * @param cs a character encoding.
+     * @return a parser for the buffer.
+     * @throws IOException if the buffer could not be read.
+     */
+    @Override
+    public EltnPullParser createParser(ByteBuffer buffer, Charset cs) throws IOException {
+        if (BinaryEltnPullParser.isBinary(buffer)) {
+            return new BinaryEltnPullParser(buffer, _symbols);
+        }
+        DefaultEltnPullParser result = blankParser();
+        if (_indexed && isByteLexable(cs)) {
+            result.reset(EltnStructuralIndex.build(buffer, cs));
+        } else {
+            result.reset(buffer, cs);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a parser that is fed bytes instead of reading them.
+     * Only UTF-8 and ASCII are supported.
+     *
+     * @param cs a character encoding.
+     * @return a parser with no input yet.
+     * @throws UnsupportedOperationException for any other encoding.
+     */
+    @Override
+    public EltnAsyncPullParser createAsyncParser(Charset cs) {
+        if (isByteLexable(cs)) {
+            return new AsyncEltnPullParser(isAscii(cs), _symbols);
+        }
+        return EltnPullParserFactory.super.createAsyncParser(cs);
+    }
+
+    static boolean isByteLexable(Charset cs) {
+        return StandardCharsets.UTF_8.equals(cs) || isAscii(cs);
+    }
+
+    static boolean isAscii(Charset cs) {
+        return StandardCharsets.US_ASCII.equals(cs);
     }
 
     @Override
     public EltnPullParser createParser(CodePointSource source) throws IOException {
-        return new DefaultEltnPullParser(source);
+        DefaultEltnPullParser result = blankParser();
+        result.reset(source);
+        return result;
     }
 }
@@ -0,0 +1,573 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSink;
+import com.frank_mitchell.eltnpp.EltnWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.CharsetEncoder;
+import java.util.Arrays;
+
+/**
+ * Writes an ELTN document through a large internal buffer of chars.
+ * Numbers are formatted straight into the buffer, and strings that need
+ * no escapes are copied in bulk, so writing allocates nothing in the
+ * common cases.
+ * Each definition goes on its own line; tables are written inline,
+ * as in {@code name = { 1, 2, key = "value" }}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+class DefaultEltnWriter implements EltnWriter {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    /* room for the longest integer or shortest-form double */
+    private static final int NUMBER_SIZE = 32;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
+    /* characters that need an escape in a quoted string */
+    private static final boolean[] ESCAPED = new boolean[128];
+
+    static {
+        for (int c = 0; c < ' '; c++) {
+            ESCAPED[c] = true;
+        }
+        ESCAPED['"'] = true;
+        ESCAPED['\\'] = true;
+        ESCAPED[0x7F] = true;
+    }
+
+    /**
+     * Where the buffer goes when it fills.
+     */
+    interface Output {
+        void write(char[] buf, int length) throws IOException;
+
+        void flush() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final Output _out;
+    private final CharsetEncoder _encoder;
+    private final char[] _buf = new char[BUFFER_SIZE];
+    private int _pos = 0;
+
+    private int _depth = 0;
+    private boolean _afterKey = false;
+    private boolean[] _hasItems = new boolean[16];
+
+    DefaultEltnWriter(Output out) {
+        this(out, null);
+    }
+
+    /**
+     * Creates a writer whose output can't hold every character.
+     *
+     * @param out where the text goes
+     * @param encoder tells which characters the output can hold, so a
+     *        string can write the others as Unicode escapes; or
+     *        {@code null} if the output holds all of Unicode
+     */
+    DefaultEltnWriter(Output out, CharsetEncoder encoder) {
+        _out = out;
+        _encoder = encoder;
+    }
+
+    static Output output(Writer writer) {
+        return new Output() {
+            @Override
+            public void write(char[] buf, int length) throws IOException {
+                writer.write(buf, 0, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    static Output utf8Output(OutputStream stream) {
+        return new Output() {
+            private final byte[] _bytes = new byte[BUFFER_SIZE * 3];
+
+            @Override
+            public void write(char[] buf, int length) throws IOException {
+                final byte[] bytes = _bytes;
+                int n = 0;
+                for (int i = 0; i < length; i++) {
+                    char c = buf[i];
+                    if (c < 0x80) {
+                        bytes[n++] = (byte) c;
+                    } else if (c < 0x800) {
+                        bytes[n++] = (byte) (0xC0 | (c >> 6));
+                        bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < length
+                            && Character.isLowSurrogate(buf[i + 1])) {
+                        int cp = Character.toCodePoint(c, buf[++i]);
+                        bytes[n++] = (byte) (0xF0 | (cp >> 18));
+                        bytes[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                        bytes[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        bytes[n++] = (byte) (0x80 | (cp & 0x3F));
+                    } else {
+                        if (Character.isSurrogate(c)) {
+                            c = '\uFFFD';
+                        }
+                        bytes[n++] = (byte) (0xE0 | (c >> 12));
+                        bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                    }
+                }
+                stream.write(bytes, 0, n);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                stream.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                stream.close();
+            }
+        };
+    }
+
+    static Output output(CodePointSink sink) {
+        return new Output() {
+            @Override
+            public void write(char[] buf, int length) throws IOException {
+                for (int i = 0; i < length; ) {
+                    int cp = Character.codePointAt(buf, i, length);
+                    sink.putCodePoint(cp);
+                    i += Character.charCount(cp);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                sink.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                sink.close();
+            }
+        };
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    @Override
+    public void writeDefName(CharSequence name) throws IOException {
+        if (_depth != 0 || _afterKey) {
+            throw new IllegalStateException("definition name not allowed here");
+        }
+        if (!isName(name)) {
+            throw new IllegalArgumentException("not a name: " + name);
+        }
+        writeChars(name);
+        writeChars(" = ");
+        _afterKey = true;
+    }
+
+    @Override
+    public void writeKey(CharSequence key) throws IOException {
+        startKey();
+        if (isName(key)) {
+            writeChars(key);
+        } else {
+            writeChar('[');
+            writeQuoted(key);
+            writeChar(']');
+        }
+        endKey();
+    }
+
+    @Override
+    public void writeKey(long key) throws IOException {
+        startKey();
+        writeChar('[');
+        writeLong(key);
+        writeChar(']');
+        endKey();
+    }
+
+    @Override
+    public void writeKey(double key) throws IOException {
+        checkFinite(key);
+        startKey();
+        writeChar('[');
+        writeDouble(key);
+        writeChar(']');
+        endKey();
+    }
+
+    private void startKey() throws IOException {
+        if (_depth == 0 || _afterKey) {
+            throw new IllegalStateException("table key not allowed here");
+        }
+        startItem();
+    }
+
+    private void endKey() throws IOException {
+        writeChars(" = ");
+        _afterKey = true;
+    }
+
+    private void startItem() throws IOException {
+        ensure(2);
+        if (_hasItems[_depth]) {
+            _buf[_pos++] = ',';
+        }
+        _buf[_pos++] = ' ';
+        _hasItems[_depth] = true;
+    }
+
+    @Override
+    public void startTable() throws IOException {
+        startValue();
+        writeChar('{');
+        if (++_depth == _hasItems.length) {
+            _hasItems = Arrays.copyOf(_hasItems, _depth * 2);
+        }
+        _hasItems[_depth] = false;
+    }
+
+    @Override
+    public void endTable() throws IOException {
+        if (_depth == 0 || _afterKey) {
+            throw new IllegalStateException("table end not allowed here");
+        }
+        boolean hasItems = _hasItems[_depth];
+        _depth--;
+        writeChars(hasItems ? " }" : "}");
+        endValue();
+    }
+
+    @Override
+    public void writeValue(long value) throws IOException {
+        startValue();
+        writeLong(value);
+        endValue();
+    }
+
+    @Override
+    public void writeValue(double value) throws IOException {
+        checkFinite(value);
+        startValue();
+        writeDouble(value);
+        endValue();
+    }
+
+    @Override
+    public void writeValue(CharSequence value) throws IOException {
+        if (value == null) {
+            writeNil();
+            return;
+        }
+        startValue();
+        writeQuoted(value);
+        endValue();
+    }
+
+    @Override
+    public void writeValue(boolean value) throws IOException {
+        startValue();
+        writeChars(value ? "true" : "false");
+        endValue();
+    }
+
+    @Override
+    public void writeNil() throws IOException {
+        startValue();
+        writeChars("nil");
+        endValue();
+    }
+
+    @Override
+    public int getDepth() {
+        return _depth;
+    }
+
+    private void startValue() throws IOException {
+        if (_afterKey) {
+            _afterKey = false;
+        } else if (_depth == 0) {
+            throw new IllegalStateException("value needs a definition name");
+        } else {
+            startItem();
+        }
+    }
+
+    private void endValue() throws IOException {
+        if (_depth == 0) {
+            writeChar('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushAll();
+        _out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushAll();
+        _out.close();
+    }
+
+    /* ---------------------------------------------------------------- */
+
+    private void ensure(int n) throws IOException {
+        if (_pos + n > _buf.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        int length = _pos;
+        /* keep a surrogate pair together for the output's sake */
+        if (length > 1 && Character.isHighSurrogate(_buf[length - 1])) {
+            length--;
+        }
+        _out.write(_buf, length);
+        if (length < _pos) {
+            _buf[0] = _buf[length];
+            _pos = 1;
+        } else {
+            _pos = 0;
+        }
+    }
+
+    private void flushAll() throws IOException {
+        flushBuffer();
+        if (_pos > 0) {
+            _out.write(_buf, _pos);
+            _pos = 0;
+        }
+    }
+
+    private void writeChar(char c) throws IOException {
+        ensure(1);
+        _buf[_pos++] = c;
+    }
+
+    private void writeChars(CharSequence s) throws IOException {
+        writeChars(s, 0, s.length());
+    }
+
+    private void writeChars(CharSequence s, int start, int end)
+            throws IOException {
+        int i = start;
+        while (i < end) {
+            if (_pos == _buf.length) {
+                flushBuffer();
+            }
+            int n = Math.min(end - i, _buf.length - _pos);
+            if (s instanceof String) {
+                ((String) s).getChars(i, i + n, _buf, _pos);
+            } else {
+                for (int j = 0; j < n; j++) {
+                    _buf[_pos + j] = s.charAt(i + j);
+                }
+            }
+            _pos += n;
+            i += n;
+        }
+    }
+
+    private void writeQuoted(CharSequence s) throws IOException {
+        writeChar('"');
+        final int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 128) {
+                if (ESCAPED[c]) {
+                    writeChars(s, start, i);
+                    writeEscape(c);
+                    start = i + 1;
+                }
+            } else if (_encoder != null) {
+                int n = (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(s.charAt(i + 1))) ? 2 : 1;
+                if (!_encoder.canEncode(s.subSequence(i, i + n))) {
+                    writeChars(s, start, i);
+                    writeUnicodeEscape(Character.codePointAt(s, i));
+                    i += n - 1;
+                    start = i + 1;
+                }
+            }
+        }
+        writeChars(s, start, length);
+        writeChar('"');
+    }
+
+    private void writeEscape(char c) throws IOException {
+        ensure(4);
+        _buf[_pos++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                _buf[_pos++] = c;
+                break;
+            case '\n':
+                _buf[_pos++] = 'n';
+                break;
+            case '\r':
+                _buf[_pos++] = 'r';
+                break;
+            case '\t':
+                _buf[_pos++] = 't';
+                break;
+            default:
+                /* always three digits, in case a digit follows */
+                _buf[_pos++] = (char) ('0' + c / 100);
+                _buf[_pos++] = (char) ('0' + c / 10 % 10);
+                _buf[_pos++] = (char) ('0' + c % 10);
+                break;
+        }
+    }
+
+    private void writeUnicodeEscape(int cp) throws IOException {
+        writeChars("\\u{");
+        writeChars(Integer.toHexString(cp).toUpperCase());
+        writeChar('}');
+    }
+
+    private void writeLong(long value) throws IOException {
+        ensure(NUMBER_SIZE);
+        if (value == Long.MIN_VALUE) {
+            writeChars("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            _buf[_pos++] = '-';
+            value = -value;
+        }
+        writeDigits(value, digits(value));
+    }
+
+    private void writeDigits(long value, int digits) {
+        int end = _pos + digits;
+        for (int i = end - 1; i >= _pos; i--) {
+            _buf[i] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        _pos = end;
+    }
+
+    private static int digits(long value) {
+        int n = 1;
+        while (n < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[n]) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Writes a double in a form that reads back as the same double.
+     * Integral values get a ".0"; other values in a moderate range try
+     * the fewest decimal places that convert back exactly, using the
+     * same exact fast path as {@link EltnNumbers}.  Anything else falls
+     * back to {@link Double#toString(double)}.
+     */
+    private void writeDouble(double value) throws IOException {
+        ensure(NUMBER_SIZE);
+        long l = (long) value;
+        if (l == value && value != 0x1p63) {
+            if (l == 0 && Double.doubleToRawLongBits(value) < 0) {
+                _buf[_pos++] = '-';
+            }
+            writeLong(l);
+            _buf[_pos++] = '.';
+            _buf[_pos++] = '0';
+            return;
+        }
+        double abs = Math.abs(value);
+        if (abs >= 1e-5 && abs < 1e15) {
+            for (int places = 1; places < POWERS_OF_TEN.length; places++) {
+                double scaled = abs * POWERS_OF_TEN[places];
+                if (scaled >= 0x1p53) {
+                    break;
+                }
+                long mantissa = Math.round(scaled);
+                if (mantissa / (double) POWERS_OF_TEN[places] == abs) {
+                    if (value < 0) {
+                        _buf[_pos++] = '-';
+                    }
+                    long whole = mantissa / POWERS_OF_TEN[places];
+                    writeDigits(whole, digits(whole));
+                    _buf[_pos++] = '.';
+                    writeDigits(mantissa % POWERS_OF_TEN[places], places);
+                    return;
+                }
+            }
+        }
+        writeChars(Double.toString(value));
+    }
+
+    private static void checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("ELTN cannot represent " + value);
+        }
+    }
+
+    /**
+     * Checks whether a key can be written bare: an ASCII identifier
+     * that isn't a reserved word.
+     */
+    static boolean isName(CharSequence s) {
+        final int length = s.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_'
+                    || i > 0 && c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return !EltnChars.isReservedWord(s);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2023 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSink;
+import com.frank_mitchell.eltnpp.EltnWriter;
+import com.frank_mitchell.eltnpp.EltnWriterFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Factory object for {@link DefaultEltnWriter}.
+ *
+ * @author Frank Mitchell
+ */
+public class DefaultEltnWriterFactory implements EltnWriterFactory {
+
+    /**
+     * Default constructor.
+     */
+    public DefaultEltnWriterFactory() {
+    }
+
+    /**
+     * Creates a writer of UTF-16 characters.
+     *
+     * @param writer a stream of UTF-16 chars.
+     * @return a writer to the stream.
+     * @throws IOException if the writer throws an exception.
+     */
+    @Override
+    public EltnWriter createWriter(Writer writer) throws IOException {
+        return new DefaultEltnWriter(DefaultEltnWriter.output(writer));
+    }
+
+    /**
+     * Creates a writer of bytes in the specified encoding.
+     * UTF-8 is encoded directly; other encodings go through an
+     * {@link OutputStreamWriter}.  A string writes each character the
+     * encoding can't hold as a Unicode escape rather than let it turn
+     * into {@code ?}.
+     *
+     * @param stream a stream of bytes.
+     * @param cs a character encoding.
+     * @return a writer to the stream.
+     * @throws IOException if the stream throws an exception.
+     */
+    @Override
+    public EltnWriter createWriter(OutputStream stream, Charset cs)
+            throws IOException {
+        if (StandardCharsets.UTF_8.equals(cs)) {
+            return new DefaultEltnWriter(DefaultEltnWriter.utf8Output(stream));
+        }
+        /* names are ASCII, so only strings need escapes; a new encoder
+           reports anything else it can't encode instead of replacing it */
+        Writer writer = new OutputStreamWriter(stream, cs.newEncoder());
+        return new DefaultEltnWriter(DefaultEltnWriter.output(writer),
+                cs.newEncoder());
+    }
+
+    /**
+     * Creates a writer of Unicode code points.
+     *
+     * @param sink a sink for code points.
+     * @return a writer to the sink.
+     * @throws IOException if the sink throws an exception.
+     */
+    @Override
+    public EltnWriter createWriter(CodePointSink sink) throws IOException {
+        return new DefaultEltnWriter(DefaultEltnWriter.output(sink));
+    }
+
+    /**
+     * Creates a writer of binary ELTN, which
+     * {@link DefaultEltnPullParserFactory} parsers read from a stream,
+     * buffer, or file in place of text.
+     *
+     * @param stream a stream of bytes.
+     * @return a writer to the stream.
+     * @throws IOException if the stream throws an exception.
+     */
+    @Override
+    public EltnWriter createBinaryWriter(OutputStream stream)
+            throws IOException {
+        return new BinaryEltnWriter(stream);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSource;
+import com.frank_mitchell.eltnpp.EltnError;
+import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnKeySet;
+import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A parser for a stream of either text or binary ELTN.
+ * It reads nothing until the first call to {@link #next()}, which looks
+ * for the binary header and then hands every call to a text or a binary
+ * parser.  Until then it answers as any parser does at
+ * {@link EltnEvent#STREAM_START}, so creating one never blocks.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class DetectingEltnPullParser implements EltnPullParser {
+
+    private final DefaultEltnPullParser _text;
+    private final EltnSymbolTable _symbols;
+    /** The stream to look at, or null once a parser has it */
+    private InputStream _stream;
+    private Charset _cs;
+    /** The parser reading the input, or null until the first event */
+    private EltnPullParser _parser;
+
+    /**
+     * Creates a parser for a stream.
+     *
+     * @param text the parser to use if the stream holds text
+     * @param stream the document
+     * @param cs the encoding if the stream holds text
+     * @param symbols canonical key strings for a binary parser, or null
+     */
+    DetectingEltnPullParser(DefaultEltnPullParser text, InputStream stream,
+            Charset cs, EltnSymbolTable symbols) {
+        _text = text;
+        _symbols = symbols;
+        start(stream, cs);
+    }
+
+    private void start(InputStream stream, Charset cs) {
+        if (!stream.markSupported()) {
+            stream = new PushbackInputStream(stream,
+                    BinaryEltnPullParser.MAGIC.length);
+        }
+        _stream = stream;
+        _cs = cs;
+        _parser = null;
+    }
+
+    /**
+     * Gets the parser for the input, choosing one if need be.
+     */
+    private EltnPullParser parser() throws IOException {
+        if (_parser == null) {
+            if (startsBinary(_stream, BinaryEltnPullParser.MAGIC)) {
+                _parser = new BinaryEltnPullParser(_stream, _symbols);
+            } else {
+                _text.reset(_stream, _cs);
+                _parser = _text;
+            }
+            _stream = null;
+            _cs = null;
+        }
+        return _parser;
+    }
+
+    /**
+     * Checks whether a stream starts with binary ELTN's header, and puts
+     * back what it read.
+     *
+     * @param stream a stream that supports mark, or a pushback stream
+     */
+    private static boolean startsBinary(InputStream stream, byte[] magic)
+            throws IOException {
+        byte[] head = new byte[magic.length];
+        int n;
+        if (stream.markSupported()) {
+            stream.mark(magic.length);
+            n = stream.readNBytes(head, 0, head.length);
+            stream.reset();
+        } else {
+            n = stream.readNBytes(head, 0, head.length);
+            ((PushbackInputStream) stream).unread(head, 0, n);
+        }
+        return n == magic.length && Arrays.equals(head, magic);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return _parser == null || _parser.hasNext();
+    }
+
+    @Override
+    public void next() throws IOException {
+        parser().next();
+    }
+
+    @Override
+    public EltnEvent getEvent() {
+        return (_parser == null) ? EltnEvent.STREAM_START : _parser.getEvent();
+    }
+
+    @Override
+    public EltnError getError() {
+        return (_parser == null) ? EltnError.OK : _parser.getError();
+    }
+
+    @Override
+    public CharSequence getText() {
+        return (_parser == null) ? "" : _parser.getText();
+    }
+
+    @Override
+    public int getTextOffset() {
+        return (_parser == null) ? -1 : _parser.getTextOffset();
+    }
+
+    @Override
+    public int getTextLineNumber() {
+        return (_parser == null) ? -1 : _parser.getTextLineNumber();
+    }
+
+    @Override
+    public int getTextColumnNumber() {
+        return (_parser == null) ? -1 : _parser.getTextColumnNumber();
+    }
+
+    @Override
+    public boolean isInTable() {
+        return _parser != null && _parser.isInTable();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        if (_parser != null) {
+            _parser.skipValue();
+        }
+    }
+
+    @Override
+    public void skipTable() throws IOException {
+        if (_parser != null) {
+            _parser.skipTable();
+        }
+    }
+
+    @Override
+    public int matchKey(EltnKeySet keys) {
+        return (_parser == null) ? -1 : _parser.matchKey(keys);
+    }
+
+    @Override
+    public void reset(Reader reader) throws IOException {
+        _text.reset(reader);
+        _parser = _text;
+        _stream = null;
+    }
+
+    @Override
+    public void reset(InputStream stream, Charset cs) throws IOException {
+        start(stream, cs);
+    }
+
+    @Override
+    public void reset(ByteBuffer buffer, Charset cs) throws IOException {
+        _text.reset(buffer, cs);
+        _parser = _text;
+        _stream = null;
+    }
+
+    @Override
+    public void reset(CodePointSource source) throws IOException {
+        _text.reset(source);
+        _parser = _text;
+        _stream = null;
+    }
+
+    @Override
+    public String getString() {
+        if (_parser == null) {
+            throw new IllegalStateException(getEvent() + " has no string value");
+        }
+        return _parser.getString();
+    }
+
+    @Override
+    public Number getNumber() throws NumberFormatException {
+        if (_parser == null) {
+            throw new NumberFormatException(getEvent() + " is not a number");
+        }
+        return _parser.getNumber();
+    }
+
+    @Override
+    public long getLong() throws NumberFormatException {
+        return (_parser == null) ? EltnPullParser.super.getLong() : _parser.getLong();
+    }
+
+    @Override
+    public int getInt() throws NumberFormatException {
+        return (_parser == null) ? EltnPullParser.super.getInt() : _parser.getInt();
+    }
+
+    @Override
+    public double getDouble() throws NumberFormatException {
+        return (_parser == null)
+                ? EltnPullParser.super.getDouble() : _parser.getDouble();
+    }
+
+    @Override
+    public boolean getBoolean() {
+        return (_parser == null)
+                ? EltnPullParser.super.getBoolean() : _parser.getBoolean();
+    }
+
+    @Override
+    public int getDepth() {
+        return (_parser == null) ? 0 : _parser.getDepth();
+    }
+
+    @Override
+    public CharSequence getCurrentKeyText() {
+        return (_parser == null) ? "" : _parser.getCurrentKeyText();
+    }
+
+    @Override
+    public EltnEvent getCurrentKeyType() {
+        return (_parser == null) ? null : _parser.getCurrentKeyType();
+    }
+
+    @Override
+    public CharSequence getCurrentPath() {
+        return (_parser == null) ? "" : _parser.getCurrentPath();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.Arrays;
+
+/**
+ * Character classes and word lists shared by the ELTN lexers.
+ * ASCII characters are classified by table lookup; only the rest of
+ * Unicode goes to {@link Character}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class EltnChars {
+
+    private EltnChars() {
+    }
+
+    private static final String[] RESERVED_WORDS_ARRAY = {
+        "and", "break", "do", "else", "elseif", "end",
+        "false", "for", "function", "goto", "if", "in",
+        "local", "nil", "not", "or", "repeat", "return",
+        "then", "true", "until", "while"
+    };
+
+    private static final int SPACE = 1;
+    private static final int DIGIT = 2;
+    private static final int NAME_START = 4;
+    private static final int NAME_PART = 8;
+    private static final int NUMBER_PART = 16;
+
+    /**
+     * Classes of ASCII characters, as bits.
+     * Built from the same {@link Character} methods used for the rest of
+     * Unicode, so the two can never disagree.
+     */
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    private static final int MAX_RESERVED_LENGTH = 8;
+
+    /**
+     * Reserved words, bucketed by first letter and length;
+     * no bucket holds more than two.
+     */
+    private static final String[][] RESERVED_BY_START
+            = new String[26 * (MAX_RESERVED_LENGTH + 1)][];
+
+    /**
+     * Token types of the words in {@link #RESERVED_BY_START}.
+     */
+    private static final EltnTokenType[][] RESERVED_TYPES
+            = new EltnTokenType[RESERVED_BY_START.length][];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            int bits = 0;
+            if (Character.isWhitespace(c)) {
+                bits |= SPACE;
+            }
+            if (Character.isDigit(c)) {
+                bits |= DIGIT;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                bits |= NAME_START;
+            }
+            if (Character.isJavaIdentifierPart(c)) {
+                bits |= NAME_PART;
+            }
+            if ("0123456789ABCDEFPXabcdefpx+-.".indexOf(c) >= 0) {
+                bits |= NUMBER_PART;
+            }
+            ASCII_CLASSES[c] = (byte) bits;
+        }
+        for (String word : RESERVED_WORDS_ARRAY) {
+            EltnTokenType type;
+            switch (word) {
+                case "false":
+                    type = EltnTokenType.TOKEN_FALSE;
+                    break;
+                case "nil":
+                    type = EltnTokenType.TOKEN_NIL;
+                    break;
+                case "true":
+                    type = EltnTokenType.TOKEN_TRUE;
+                    break;
+                default:
+                    type = EltnTokenType.TOKEN_INVALID;
+                    break;
+            }
+            int slot = reservedSlot(word.charAt(0), word.length());
+            String[] words = RESERVED_BY_START[slot];
+            int n = (words == null) ? 0 : words.length;
+            RESERVED_BY_START[slot] = (words == null)
+                    ? new String[1] : Arrays.copyOf(words, n + 1);
+            RESERVED_BY_START[slot][n] = word;
+            EltnTokenType[] types = RESERVED_TYPES[slot];
+            RESERVED_TYPES[slot] = (types == null)
+                    ? new EltnTokenType[1]
+                    : Arrays.copyOf(types, n + 1);
+            RESERVED_TYPES[slot][n] = type;
+        }
+    }
+
+    private static int reservedSlot(char first, int length) {
+        return (first - 'a') * (MAX_RESERVED_LENGTH + 1) + length;
+    }
+
+    private static boolean isAscii(int cp) {
+        return (cp & ~0x7F) == 0;
+    }
+
+    static boolean isReservedWord(CharSequence cs) {
+        return reservedType(cs) != null;
+    }
+
+    /**
+     * Looks up a reserved word by its first letter and length, then
+     * compares at most two candidates.  Most identifiers fail the first
+     * test without looking past their first character.
+     *
+     * @param cs the characters of a word
+     * @return the word's token type, or null if it isn't reserved
+     */
+    private static EltnTokenType reservedType(CharSequence cs) {
+        final int length = cs.length();
+        if (length < 2 || length > MAX_RESERVED_LENGTH) {
+            return null;
+        }
+        char first = cs.charAt(0);
+        if (first < 'a' || first > 'z') {
+            return null;
+        }
+        int slot = reservedSlot(first, length);
+        String[] words = RESERVED_BY_START[slot];
+        if (words == null) {
+            return null;
+        }
+        for (int w = 0; w < words.length; w++) {
+            String word = words[w];
+            int i = 1;
+            while (i < length && word.charAt(i) == cs.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return RESERVED_TYPES[slot][w];
+            }
+        }
+        return null;
+    }
+
+    static boolean isEltnDigit(int cp) {
+        return isAscii(cp)
+                ? (ASCII_CLASSES[cp] & DIGIT) != 0
+                : Character.isDigit(cp);
+    }
+
+    static boolean isEltnNamePart(int cp) {
+        return isAscii(cp)
+                ? (ASCII_CLASSES[cp] & NAME_PART) != 0
+                : Character.isJavaIdentifierPart(cp);
+    }
+
+    static boolean isEltnNameStart(int cp) {
+        return isAscii(cp)
+                ? (ASCII_CLASSES[cp] & NAME_START) != 0
+                : Character.isJavaIdentifierStart(cp);
+    }
+
+    static boolean isEltnNumberPart(int cp) {
+        return isAscii(cp) && (ASCII_CLASSES[cp] & NUMBER_PART) != 0;
+    }
+
+    /**
+     * Tells whether a number goes on with a character. As in Lua, a sign
+     * belongs to a number only right after its exponent marker, "e" or "E"
+     * in decimal and "p" or "P" in hexadecimal; anywhere else it starts
+     * the next token, such as a comment.
+     *
+     * @param prev the character before, which is part of the number
+     * @param cp the character that might go on
+     * @param hex whether the number so far holds an "x" or "X"
+     * @return whether {@code cp} is part of the number
+     */
+    static boolean continuesNumber(int prev, int cp, boolean hex) {
+        if (cp == '+' || cp == '-') {
+            return hex ? (prev == 'p' || prev == 'P')
+                    : (prev == 'e' || prev == 'E');
+        }
+        return isEltnNumberPart(cp);
+    }
+
+    static boolean isEltnSpace(int cp) {
+        return isAscii(cp)
+                ? (ASCII_CLASSES[cp] & SPACE) != 0
+                : Character.isWhitespace(cp);
+    }
+
+    /**
+     * Classifies a complete identifier-like word.
+     *
+     * @param word the characters of the word
+     * @return the keyword's token type, {@link EltnTokenType#TOKEN_INVALID}
+     *         for other reserved words, or
+     *         {@link EltnTokenType#TOKEN_IDENTIFIER}
+     */
+    static EltnTokenType identifierType(CharSequence word) {
+        EltnTokenType type = reservedType(word);
+        return (type == null) ? EltnTokenType.TOKEN_IDENTIFIER : type;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emits JDK Flight Recorder events for the document a
+ * {@link DefaultEltnPullParser} is parsing.
+ * <p>
+ * Every event is disabled until a recording enables it by name:
+ * <ul>
+ * <li>{@value #DOCUMENT_START} when a document begins;</li>
+ * <li>{@value #DOCUMENT} when it ends, fails, or is abandoned;</li>
+ * <li>{@value #SLOW_PARSE} likewise, but only if it took longer than
+ *     the event's threshold (100 ms unless the recording says otherwise);
+ *     and</li>
+ * <li>{@value #THROUGHPUT} every period (1 s unless the recording says
+ *     otherwise) with the totals of documents that ended since the last
+ *     one.</li>
+ * </ul>
+ * A parser asks {@link #begin(String, boolean)} for an instance at the
+ * start of each document.  Unless the flight recorder has started and
+ * enabled one of these events the answer is null, and the parser does
+ * nothing else about it until the next document.
+ * <p>
+ * The flight recorder only runs a periodic event in recordings that
+ * start after it learns of the event, so {@value #THROUGHPUT} works
+ * only in recordings that start after the first parser does.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class EltnFlightRecorder {
+
+    static final String DOCUMENT_START = "com.frank_mitchell.eltnpp.DocumentStart";
+    static final String DOCUMENT = "com.frank_mitchell.eltnpp.Document";
+    static final String SLOW_PARSE = "com.frank_mitchell.eltnpp.SlowParse";
+    static final String THROUGHPUT = "com.frank_mitchell.eltnpp.Throughput";
+
+    /* Kinds of source */
+    static final String READER = "Reader";
+    static final String INPUT_STREAM = "InputStream";
+    static final String BYTE_BUFFER = "ByteBuffer";
+    static final String MAPPED_FILE = "MappedFile";
+    static final String CODE_POINT_SOURCE = "CodePointSource";
+    static final String FED = "Fed";
+    static final String STRUCTURAL_INDEX = "StructuralIndex";
+
+    /* Outcomes other than the name of an EltnError */
+    static final String COMPLETE = "COMPLETE";
+    static final String ABANDONED = "ABANDONED";
+
+    /** Whether this runtime has the jdk.jfr module at all */
+    private static final boolean AVAILABLE = isAvailable();
+
+    static {
+        if (AVAILABLE) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recorderInitialized(FlightRecorder recorder) {
+                    FlightRecorder.addPeriodicEvent(ThroughputEvent.class,
+                            ThroughputEvent::emit);
+                }
+            });
+        }
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private final String _source;
+    private final boolean _bytes;
+    private final DocumentEvent _document;
+    private final SlowParseEvent _slowParse;
+    private final boolean _throughput;
+    private long _events;
+
+    private EltnFlightRecorder(String source, boolean bytes,
+            DocumentEvent document, SlowParseEvent slowParse,
+            boolean throughput) {
+        _source = source;
+        _bytes = bytes;
+        _document = document;
+        _slowParse = slowParse;
+        _throughput = throughput;
+    }
+
+    /**
+     * Starts recording a document, if anything is recording documents.
+     *
+     * @param source the kind of source the document comes from
+     * @param bytes whether the lexer's offsets count bytes rather than
+     *        code points
+     * @return a recorder for the document, or null if nothing is
+     *         recording documents
+     */
+    static EltnFlightRecorder begin(String source, boolean bytes) {
+        if (!AVAILABLE || !FlightRecorder.isInitialized()) {
+            return null;
+        }
+        return Types.begin(source, bytes);
+    }
+
+    /**
+     * Counts an event the parser has reported.
+     */
+    void countEvent() {
+        _events++;
+    }
+
+    /**
+     * Finishes recording a document.
+     *
+     * @param outcome {@link #COMPLETE}, {@link #ABANDONED}, or the name of
+     *        the error that ended the document
+     * @param end the lexer's offset after the last token
+     */
+    void end(String outcome, long end) {
+        long bytes = _bytes ? end : 0;
+        long codePoints = _bytes ? 0 : end;
+        if (_document != null) {
+            _document.end();
+            if (_document.shouldCommit()) {
+                _document.set(_source, bytes, codePoints, _events, outcome);
+                _document.commit();
+            }
+        }
+        if (_slowParse != null) {
+            _slowParse.end();
+            if (_slowParse.shouldCommit()) {
+                _slowParse.set(_source, bytes, codePoints, _events, outcome);
+                _slowParse.commit();
+            }
+        }
+        if (_throughput) {
+            ThroughputEvent.add(bytes, codePoints, _events);
+        }
+    }
+
+    /**
+     * Looks up event types only once the flight recorder is running.
+     */
+    private static final class Types {
+        static final EventType DOCUMENT_START =
+                EventType.getEventType(DocumentStartEvent.class);
+        static final EventType DOCUMENT =
+                EventType.getEventType(DocumentEvent.class);
+        static final EventType SLOW_PARSE =
+                EventType.getEventType(SlowParseEvent.class);
+        static final EventType THROUGHPUT =
+                EventType.getEventType(ThroughputEvent.class);
+
+        static EltnFlightRecorder begin(String source, boolean bytes) {
+            if (DOCUMENT_START.isEnabled()) {
+                DocumentStartEvent event = new DocumentStartEvent();
+                event.source = source;
+                event.commit();
+            }
+            DocumentEvent document = null;
+            if (DOCUMENT.isEnabled()) {
+                document = new DocumentEvent();
+                document.begin();
+            }
+            SlowParseEvent slowParse = null;
+            if (SLOW_PARSE.isEnabled()) {
+                slowParse = new SlowParseEvent();
+                slowParse.begin();
+            }
+            boolean throughput = THROUGHPUT.isEnabled();
+            if (document == null && slowParse == null && !throughput) {
+                return null;
+            }
+            return new EltnFlightRecorder(source, bytes, document,
+                    slowParse, throughput);
+        }
+    }
+
+    @Name(DOCUMENT_START)
+    @Label("ELTN Document Start")
+    @Description("A parser began a document")
+    @Category("ELTN")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class DocumentStartEvent extends Event {
+        @Label("Source")
+        @Description("Reader, InputStream, ByteBuffer, MappedFile, CodePointSource, Fed, or StructuralIndex")
+        String source;
+    }
+
+    /**
+     * Fields common to events about a whole document.
+     */
+    abstract static class ParseEvent extends Event {
+        @Label("Source")
+        @Description("Reader, InputStream, ByteBuffer, MappedFile, CodePointSource, Fed, or StructuralIndex")
+        String source;
+
+        @Label("Bytes")
+        @Description("Bytes lexed, if the lexer read bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Code Points")
+        @Description("Code points lexed, if the lexer read characters")
+        long codePoints;
+
+        @Label("Events")
+        @Description("Events the parser reported")
+        long events;
+
+        @Label("Outcome")
+        @Description("COMPLETE, ABANDONED by a reset, or the error that ended it")
+        String outcome;
+
+        final void set(String source, long bytes, long codePoints,
+                long events, String outcome) {
+            this.source = source;
+            this.bytes = bytes;
+            this.codePoints = codePoints;
+            this.events = events;
+            this.outcome = outcome;
+        }
+    }
+
+    @Name(DOCUMENT)
+    @Label("ELTN Document")
+    @Description("A parser finished, failed, or abandoned a document")
+    @Category("ELTN")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class DocumentEvent extends ParseEvent {
+    }
+
+    @Name(SLOW_PARSE)
+    @Label("ELTN Slow Parse")
+    @Description("A parser took longer than the threshold over a document")
+    @Category("ELTN")
+    @Enabled(false)
+    @Threshold("100 ms")
+    static final class SlowParseEvent extends ParseEvent {
+    }
+
+    @Name(THROUGHPUT)
+    @Label("ELTN Throughput")
+    @Description("Documents that ended since the last period, and their rates")
+    @Category("ELTN")
+    @Enabled(false)
+    @Period("1 s")
+    @StackTrace(false)
+    static final class ThroughputEvent extends Event {
+        private static final LongAdder DOCUMENTS = new LongAdder();
+        private static final LongAdder BYTES = new LongAdder();
+        private static final LongAdder CODE_POINTS = new LongAdder();
+        private static final LongAdder EVENTS = new LongAdder();
+        private static long lastEmitted = System.nanoTime();
+
+        @Label("Documents")
+        long documents;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Code Points")
+        long codePoints;
+
+        @Label("Events")
+        long events;
+
+        @Label("Byte Rate")
+        @DataAmount
+        @Frequency
+        double bytesPerSecond;
+
+        @Label("Event Rate")
+        @Frequency
+        double eventsPerSecond;
+
+        static void add(long bytes, long codePoints, long events) {
+            DOCUMENTS.increment();
+            BYTES.add(bytes);
+            CODE_POINTS.add(codePoints);
+            EVENTS.add(events);
+        }
+
+        static synchronized void emit() {
+            long now = System.nanoTime();
+            double seconds = Math.max(now - lastEmitted, 1) / 1e9;
+            lastEmitted = now;
+            ThroughputEvent event = new ThroughputEvent();
+            event.documents = DOCUMENTS.sumThenReset();
+            event.bytes = BYTES.sumThenReset();
+            event.codePoints = CODE_POINTS.sumThenReset();
+            event.events = EVENTS.sumThenReset();
+            event.bytesPerSecond = event.bytes / seconds;
+            event.eventsPerSecond = event.events / seconds;
+            event.commit();
+        }
+    }
+}
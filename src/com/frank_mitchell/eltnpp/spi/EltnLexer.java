@@ -0,0 +1,55 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.io.IOException;
+
+/**
+ * Slices an ELTN document into {@link EltnToken}s.
+ * Implementations differ only in the kind of input they read.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+interface EltnLexer {
+
+    /**
+     * Reads the next token.
+     * The result is the same object on every call, overwritten in place.
+     *
+     * @return the lexer's token, now holding the next token in the stream
+     * @throws IOException if the input could not be read
+     */
+    EltnToken nextToken() throws IOException;
+
+    /**
+     * Skips the rest of a table whose "{" has already been read.
+     * This counts braces and steps over quoted strings, long strings,
+     * and comments without building tokens for anything in between.
+     *
+     * @return the lexer's token, now holding the matching "}", or
+     *         {@link EltnTokenType#TOKEN_END_OF_STREAM} if there is none
+     * @throws IOException if the input could not be read
+     */
+    EltnToken skipTable() throws IOException;
+}
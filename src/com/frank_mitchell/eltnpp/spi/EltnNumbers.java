@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+/**
+ * Scans ELTN (i.e. Lua) numerals in a single pass.
+ * The scanner validates the numeral and accumulates its mantissa and
+ * exponent as it goes, so well-formed input never needs a second parse
+ * and malformed input never throws.
+ * Most floating-point numerals convert exactly from the accumulated
+ * mantissa; the rest fall back to {@link Double#parseDouble(String)}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class EltnNumbers {
+
+    private EltnNumbers() {
+    }
+
+    /**
+     * Most significant decimal digits an unsigned long can hold.
+     */
+    private static final int MAX_DECIMAL_DIGITS = 19;
+
+    /**
+     * Most significant hex digits a long can hold.
+     */
+    private static final int MAX_HEX_DIGITS = 16;
+
+    /**
+     * Largest mantissa a double represents exactly.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Exponents stop accumulating here; anything larger over- or
+     * underflows regardless.
+     */
+    private static final int MAX_EXPONENT = 100000;
+
+    /**
+     * Powers of ten a double represents exactly.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Scans a number, possibly preceded by a minus sign, whose extent
+     * {@link EltnChars#continuesNumber(int, int, boolean)} decided, and
+     * stores its value in a token.
+     * As in Lua, a hexadecimal integer wraps around on overflow while a
+     * decimal integer that overflows becomes a float.
+     *
+     * @param text the characters of the number
+     * @param token the token in which to store
+     *        {@link EltnToken#longValue} and {@link EltnToken#doubleValue}
+     * @return {@link EltnTokenType#TOKEN_INTEGER},
+     *         {@link EltnTokenType#TOKEN_NUMBER}, or
+     *         {@link EltnTokenType#TOKEN_INVALID}
+     */
+    static EltnTokenType parse(CharSequence text, EltnToken token) {
+        final int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        if (i + 1 < length && text.charAt(i) == '0'
+                && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            return parseHex(text, i + 2, negative, token);
+        }
+        return parseDecimal(text, i, negative, token);
+    }
+
+    private static EltnTokenType parseDecimal(CharSequence text, int start,
+            boolean negative, EltnToken token) {
+        final int length = text.length();
+        long mantissa = 0;          /* unsigned */
+        int digits = 0;             /* significant digits in mantissa */
+        int exponent = 0;           /* power of ten to apply to mantissa */
+        boolean truncated = false;  /* nonzero digits didn't fit */
+        boolean integral = true;
+        int i = start;
+        char c;
+
+        while (i < length && (c = text.charAt(i)) >= '0' && c <= '9') {
+            if (digits < MAX_DECIMAL_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+                truncated |= (c != '0');
+            }
+            i++;
+        }
+        int count = i - start;
+        if (i < length && text.charAt(i) == '.') {
+            integral = false;
+            i++;
+            int fraction = i;
+            while (i < length && (c = text.charAt(i)) >= '0' && c <= '9') {
+                if (digits < MAX_DECIMAL_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= (c != '0');
+                }
+                i++;
+            }
+            count += i - fraction;
+        }
+        if (count == 0) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            integral = false;
+            long scanned = scanExponent(text, i + 1);
+            if (scanned < 0) {
+                return EltnTokenType.TOKEN_INVALID;
+            }
+            i = (int) (scanned >>> 32);
+            exponent += (int) scanned;
+        }
+        if (i != length) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+
+        if (integral && exponent == 0) {
+            if (negative
+                    ? Long.compareUnsigned(mantissa, Long.MIN_VALUE) <= 0
+                    : mantissa >= 0) {
+                token.longValue = negative ? -mantissa : mantissa;
+                token.doubleValue = token.longValue;
+                return EltnTokenType.TOKEN_INTEGER;
+            }
+            /* too big for an integer; fall through to a float */
+        }
+
+        double value;
+        if (!truncated && mantissa >= 0 && mantissa <= MAX_EXACT_MANTISSA
+                && exponent >= -22 && exponent <= 22) {
+            /* both operands are exact, so the result is correctly rounded */
+            value = (exponent < 0)
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+            if (negative) {
+                value = -value;
+            }
+        } else {
+            value = Double.parseDouble(text.toString());
+        }
+        return setDouble(value, token);
+    }
+
+    private static EltnTokenType parseHex(CharSequence text, int start,
+            boolean negative, EltnToken token) {
+        final int length = text.length();
+        long mantissa = 0;          /* wraps around for integers */
+        int digits = 0;             /* significant digits in mantissa */
+        int exponent = 0;           /* power of two to apply to mantissa */
+        boolean integral = true;
+        int i = start;
+        int d;
+
+        while (i < length && (d = hexValue(text.charAt(i))) >= 0) {
+            mantissa = (mantissa << 4) | d;
+            if (digits > 0 || d != 0) {
+                digits++;
+            }
+            i++;
+        }
+        int count = i - start;
+        if (i < length && text.charAt(i) == '.') {
+            integral = false;
+            i++;
+            int fraction = i;
+            while (i < length && (d = hexValue(text.charAt(i))) >= 0) {
+                if (digits < MAX_HEX_DIGITS) {
+                    mantissa = (mantissa << 4) | d;
+                    if (digits > 0 || d != 0) {
+                        digits++;
+                    }
+                    exponent -= 4;
+                } else {
+                    /* force the slow path below */
+                    digits++;
+                }
+                i++;
+            }
+            count += i - fraction;
+        }
+        if (count == 0) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        if (i < length && (text.charAt(i) == 'p' || text.charAt(i) == 'P')) {
+            integral = false;
+            long scanned = scanExponent(text, i + 1);
+            if (scanned < 0) {
+                return EltnTokenType.TOKEN_INVALID;
+            }
+            i = (int) (scanned >>> 32);
+            exponent += (int) scanned;
+        }
+        if (i != length) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+
+        if (integral) {
+            token.longValue = negative ? -mantissa : mantissa;
+            token.doubleValue = token.longValue;
+            return EltnTokenType.TOKEN_INTEGER;
+        }
+
+        double value;
+        if (digits <= MAX_HEX_DIGITS && mantissa >= 0
+                && mantissa <= MAX_EXACT_MANTISSA) {
+            /* scalb() rounds an exact mantissa only once */
+            value = Math.scalb((double) mantissa, exponent);
+            if (negative) {
+                value = -value;
+            }
+        } else {
+            /* Java insists on a binary exponent in hex floats */
+            String hex = text.toString();
+            if (hex.indexOf('p') < 0 && hex.indexOf('P') < 0) {
+                hex = hex + "p0";
+            }
+            value = Double.parseDouble(hex);
+        }
+        return setDouble(value, token);
+    }
+
+    /**
+     * Scans an optionally signed decimal exponent.
+     *
+     * @param text the characters of the number
+     * @param start the index just past the exponent marker
+     * @return the index past the exponent in the upper 32 bits and the
+     *         exponent in the lower 32 bits, or -1 if there are no digits
+     */
+    private static long scanExponent(CharSequence text, int start) {
+        final int length = text.length();
+        int i = start;
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            negative = (text.charAt(i) == '-');
+            i++;
+        }
+        int digitStart = i;
+        int exponent = 0;
+        char c;
+        while (i < length && (c = text.charAt(i)) >= '0' && c <= '9') {
+            if (exponent < MAX_EXPONENT) {
+                exponent = exponent * 10 + (c - '0');
+            }
+            i++;
+        }
+        if (i == digitStart) {
+            return -1;
+        }
+        if (negative) {
+            exponent = -exponent;
+        }
+        return ((long) i << 32) | (exponent & 0xFFFFFFFFL);
+    }
+
+    private static EltnTokenType setDouble(double value, EltnToken token) {
+        if (Double.isInfinite(value)) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        token.doubleValue = value;
+        return EltnTokenType.TOKEN_NUMBER;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
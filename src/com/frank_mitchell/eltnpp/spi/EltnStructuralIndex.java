@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An index of where the structure of a UTF-8 ELTN document lies.
+ * <p>
+ * Building the index scans the document once, in a tight loop that looks
+ * at nothing but the characters {@code { } [ ] = , ;} and the starts and
+ * ends of quoted strings, long strings, and comments; each of those
+ * becomes an <em>entry</em>.  Parsers created from the index then walk
+ * the entries instead of the bytes, lexing only the names, numbers, and
+ * keywords in the gaps between them, and skip a table by jumping
+ * straight to its matching "}".
+ * <p>
+ * The index never changes once built, so any number of parsers may walk
+ * it, one after another or on different threads at once, and callers may
+ * look up entries at random.  The document's bytes must not change while
+ * the index is in use.
+ * <p>
+ * Parsers created from an index report text offsets in bytes from the
+ * start of the document, but do not count lines or columns;
+ * {@link EltnPullParser#getTextLineNumber()} and
+ * {@link EltnPullParser#getTextColumnNumber()} return -1.
+ *
+ * @author Frank Mitchell
+ * @see com.frank_mitchell.eltnpp.EltnPullParserFactory#withStructuralIndex()
+ */
+public final class EltnStructuralIndex {
+
+    private final byte[] _buf;
+    /** The index in {@link #_buf} of the first byte of the document */
+    private final int _base;
+    /** The index in {@link #_buf} just past the document */
+    private final int _limit;
+    private final boolean _asciiOnly;
+
+    /**
+     * Two ints for each entry: the offset of its first byte, then
+     * <ul>
+     * <li>for "{", the number of the matching "}" entry, or -1;</li>
+     * <li>for a string or comment, the offset of its last byte, as
+     *     its bitwise complement for a quoted string with a backslash
+     *     in it, or {@link #length()} if it never ends;</li>
+     * <li>for anything else, 0.</li>
+     * </ul>
+     */
+    private final int[] _tape;
+    private final int _size;
+
+    private EltnStructuralIndex(byte[] buf, int base, int limit,
+            boolean asciiOnly) {
+        _buf = buf;
+        _base = base;
+        _limit = limit;
+        _asciiOnly = asciiOnly;
+        StructuralScanner scanner = new StructuralScanner(buf, base, limit);
+        scanner.scan();
+        _tape = scanner.tape();
+        _size = scanner.size();
+    }
+
+    /**
+     * Indexes the UTF-8 bytes remaining in a buffer.
+     *
+     * @param buffer the document
+     * @return an index of the document
+     * @see #build(ByteBuffer, Charset)
+     */
+    public static EltnStructuralIndex build(ByteBuffer buffer) {
+        return build(buffer, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indexes the bytes remaining in a buffer.
+     * A heap buffer is indexed in place; a direct or mapped buffer is
+     * copied onto the heap first.
+     * The buffer's position and limit do not change.
+     *
+     * @param buffer the document
+     * @param cs the document's encoding
+     * @return an index of the document
+     * @throws UnsupportedOperationException if the encoding is not UTF-8
+     *         or US-ASCII
+     */
+    public static EltnStructuralIndex build(ByteBuffer buffer, Charset cs) {
+        if (!DefaultEltnPullParserFactory.isByteLexable(cs)) {
+            throw new UnsupportedOperationException(
+                    "Only UTF-8 and ASCII can be indexed, not " + cs);
+        }
+        boolean asciiOnly = DefaultEltnPullParserFactory.isAscii(cs);
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return new EltnStructuralIndex(buffer.array(),
+                    offset + buffer.position(), offset + buffer.limit(),
+                    asciiOnly);
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new EltnStructuralIndex(bytes, 0, bytes.length, asciiOnly);
+    }
+
+    /**
+     * Gets the number of bytes in the document.
+     *
+     * @return the length of the document
+     */
+    public int length() {
+        return _limit - _base;
+    }
+
+    /**
+     * Gets the number of entries in the index.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Gets the offset of an entry's first byte from the start of the
+     * document.
+     *
+     * @param entry the number of the entry, from 0 to {@link #size()}
+     * @return the entry's offset
+     */
+    public int offset(int entry) {
+        return _tape[slot(entry)];
+    }
+
+    /**
+     * Gets the offset just past an entry's last byte.  A string or
+     * comment that never ends runs to the end of the document.
+     *
+     * @param entry the number of the entry
+     * @return the entry's end
+     */
+    public int end(int entry) {
+        int slot = slot(entry);
+        int last = lastByte(_tape[slot], _tape[slot + 1]);
+        return (last < 0) ? length() : last + 1;
+    }
+
+    /**
+     * Gets the character that begins an entry: one of {@code { } [ ] = , ;}
+     * for a structural character, {@code "} or {@code '} for a quoted
+     * string, {@code [} for a long string, or {@code -} for a comment.
+     *
+     * @param entry the number of the entry
+     * @return the entry's first character
+     */
+    public char kind(int entry) {
+        return (char) _buf[_base + _tape[slot(entry)]];
+    }
+
+    /**
+     * Tells whether an entry is a string or comment rather than a single
+     * structural character.
+     *
+     * @param entry the number of the entry
+     * @return whether the entry spans a string or comment
+     */
+    public boolean isSpan(int entry) {
+        int slot = slot(entry);
+        return lastByte(_tape[slot], _tape[slot + 1]) != _tape[slot];
+    }
+
+    /**
+     * Gets the entry of the "}" that closes a "{".
+     *
+     * @param entry the number of a "{" entry
+     * @return the number of the matching "}" entry, or -1 if the table
+     *         is never closed or the entry isn't a "{"
+     */
+    public int match(int entry) {
+        int slot = slot(entry);
+        if (_buf[_base + _tape[slot]] != '{') {
+            return -1;
+        }
+        return _tape[slot + 1];
+    }
+
+    /**
+     * Creates a parser that walks this index from the start.
+     *
+     * @return a new parser for the document
+     */
+    public EltnPullParser createParser() {
+        return createParser(null);
+    }
+
+    /**
+     * Creates a parser that walks this index from the start, and looks up
+     * the strings of keys and definition names in a symbol table.
+     *
+     * @param symbols canonical key strings, or null to make new ones
+     * @return a new parser for the document
+     */
+    public EltnPullParser createParser(EltnSymbolTable symbols) {
+        DefaultEltnPullParser result = new DefaultEltnPullParser(symbols);
+        result.reset(this);
+        return result;
+    }
+
+    private int slot(int entry) {
+        if (entry < 0 || entry >= _size) {
+            throw new IndexOutOfBoundsException(Integer.toString(entry));
+        }
+        return entry * 2;
+    }
+
+    /**
+     * Gets the offset of an entry's last byte.
+     *
+     * @param offset the offset of the entry's first byte
+     * @param aux the entry's second int
+     * @return the offset of the last byte, or -1 if the entry never ends
+     */
+    int lastByte(int offset, int aux) {
+        switch (_buf[_base + offset]) {
+            case '"':
+            case '\'':
+            case '-':
+                break;
+            case '[':
+                if (aux == 0) {
+                    return offset;
+                }
+                break;
+            default:
+                return offset;
+        }
+        int last = (aux < 0) ? ~aux : aux;
+        return (last >= length()) ? -1 : last;
+    }
+
+    byte[] bytes() {
+        return _buf;
+    }
+
+    int base() {
+        return _base;
+    }
+
+    int limit() {
+        return _limit;
+    }
+
+    boolean isAsciiOnly() {
+        return _asciiOnly;
+    }
+
+    int[] tape() {
+        return _tape;
+    }
+}
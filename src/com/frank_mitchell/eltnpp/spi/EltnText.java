@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+/**
+ * Base class for the read-only character views a parser hands out.
+ * A view reads the parser's own buffers, so it costs nothing to create,
+ * but its contents change when the parser moves on.
+ * {@link #hashCode()} agrees with {@link String#hashCode()} for the same
+ * characters, so a view can be hashed without first making a String.
+ * Equality is identity; compare contents with
+ * {@link String#contentEquals(CharSequence)}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+abstract class EltnText implements CharSequence {
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        final int length = length();
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + charAt(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public abstract String toString();
+}
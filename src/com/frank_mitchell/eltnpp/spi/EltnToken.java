@@ -23,69 +23,167 @@
  */
 package com.frank_mitchell.eltnpp.spi;
 
-import java.util.Objects;
-
 /**
+ * A single token produced by a lexer.
+ * Each lexer owns exactly one instance, which it overwrites on every call
+ * to {@code nextToken()}; callers must copy anything they need to keep.
+ * The token's text stays in the lexer's buffer and becomes a {@link String}
+ * only when someone asks for it.
  *
  * @author Frank Mitchell <me@frank-mitchell.com>
  */
 final class EltnToken {
 
-    final EltnTokenType type;
-    final String text;
-    final int offset;
-    final int line;
-    final int column;
+    EltnTokenType type = EltnTokenType.TOKEN_INVALID;
+    int start;
+    int end;
+    int line;
+    int column;
+
+    /**
+     * Whether a quoted string token contains at least one backslash.
+     * If not, its value is simply the text between the quotes.
+     */
+    boolean escaped;
+
+    /**
+     * The value of a {@link EltnTokenType#TOKEN_INTEGER} token.
+     */
+    long longValue;
 
-    EltnToken(EltnTokenType type, CharSequence text, int offset, int line, int col) {
+    /**
+     * The value of a {@link EltnTokenType#TOKEN_NUMBER} or
+     * {@link EltnTokenType#TOKEN_INTEGER} token.
+     */
+    double doubleValue;
+
+    private final CharSequence _chars;
+    private final TextView _view = new TextView();
+    private String _text;
+    private int _hash;
+    private boolean _hashed;
+
+    /**
+     * Creates a token whose text is always the current contents of
+     * {@code chars}.
+     *
+     * @param chars the lexer's token buffer
+     */
+    EltnToken(CharSequence chars) {
+        _chars = chars;
+    }
+
+    /**
+     * Overwrites every field of this token.
+     * The lexer must already have placed the token's text in its buffer.
+     *
+     * @param type the new token type
+     * @param start the offset of the token's first character
+     * @param end the offset just past the token's last character
+     * @param line the line number of the first character
+     * @param col the column number of the first character
+     */
+    void set(EltnTokenType type, int start, int end, int line, int col) {
         this.type = type;
-        this.text = text.toString();
-        this.offset = offset;
+        this.start = start;
+        this.end = end;
         this.line = line;
         this.column = col;
+        this.escaped = false;
+        _text = null;
+        _hashed = false;
     }
 
-    @Override
-    public int hashCode() {
-        int hash = 3;
-        hash = 23 * hash + Objects.hashCode(this.type);
-        hash = 23 * hash + Objects.hashCode(this.text);
-        hash = 23 * hash + this.offset;
-        hash = 23 * hash + this.line;
-        hash = 23 * hash + this.column;
-        return hash;
+    /**
+     * Records the hash of this token's text, computed by a lexer that
+     * saw each character go by anyway.
+     *
+     * @param hash what {@link String#hashCode()} would return for the text
+     */
+    void setHash(int hash) {
+        _hash = hash;
+        _hashed = true;
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
+    /**
+     * The hash of this token's text, as {@link String#hashCode()} would
+     * compute it.  If the lexer didn't supply it, it's computed on the
+     * first call and cached until the token is overwritten.
+     *
+     * @return the hash of the token text
+     */
+    int hash() {
+        if (!_hashed) {
+            int hash = 0;
+            final int length = _chars.length();
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + _chars.charAt(i);
+            }
+            setHash(hash);
         }
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
+        return _hash;
+    }
+
+    /**
+     * The characters of this token, without copying.
+     * The result changes when the lexer reads the next token.
+     *
+     * @return the lexer's view of the token text
+     */
+    CharSequence getChars() {
+        return _chars;
+    }
+
+    /**
+     * A read-only view of the characters of this token, safe to hand to
+     * callers.  Like the token, it changes when the lexer moves on.
+     *
+     * @return a view of the token text
+     */
+    EltnText getView() {
+        return _view;
+    }
+
+    /**
+     * The characters of this token as a String.
+     * The String is created on the first call and cached until
+     * the token is overwritten.
+     *
+     * @return the token text
+     */
+    String getText() {
+        if (_text == null) {
+            _text = _chars.toString();
         }
-        final EltnToken other = (EltnToken) obj;
-        if (this.offset != other.offset) {
-            return false;
+        return _text;
+    }
+
+    private final class TextView extends EltnText {
+
+        @Override
+        public int length() {
+            return _chars.length();
         }
-        if (this.line != other.line) {
-            return false;
+
+        @Override
+        public char charAt(int index) {
+            return _chars.charAt(index);
         }
-        if (this.column != other.column) {
-            return false;
+
+        @Override
+        public int hashCode() {
+            return hash();
         }
-        if (!Objects.equals(this.text, other.text)) {
-            return false;
+
+        @Override
+        public String toString() {
+            return getText();
         }
-        return this.type == other.type;
     }
 
     @Override
     public String toString() {
-        return "EltnToken{" + "type=" + type + ", text=" + text + ", offset=" + offset + ", line=" + line + ", column=" + column + '}';
+        return "EltnToken{" + "type=" + type + ", text=" + _chars + ", start=" + start + ", end=" + end + ", line=" + line + ", column=" + column + '}';
     }
 
 }
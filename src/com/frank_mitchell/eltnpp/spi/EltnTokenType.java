@@ -43,9 +43,11 @@ package com.frank_mitchell.eltnpp.spi;
     TOKEN_IDENTIFIER,
     TOKEN_QUOTED_STRING,
     TOKEN_LONG_STRING,
+    TOKEN_INTEGER,
     TOKEN_NUMBER,
     TOKEN_TRUE,
     TOKEN_FALSE,
     TOKEN_NIL,
-    TOKEN_END_OF_STREAM    
+    TOKEN_END_OF_STREAM,
+    TOKEN_NEED_MORE_INPUT
 }
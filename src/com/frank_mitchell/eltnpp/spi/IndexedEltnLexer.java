@@ -0,0 +1,385 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lexes a document by walking its {@link EltnStructuralIndex}.
+ * Structural characters, strings, and comments come straight from the
+ * index; only the gaps between entries, which hold nothing but space,
+ * names, numbers, and keywords, are read byte by byte.
+ * Skipping a table jumps to the "}" the index matched with its "{".
+ * <p>
+ * Offsets count bytes.  Lines and columns are not counted, and are
+ * always -1.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class IndexedEltnLexer implements EltnLexer {
+
+    private EltnStructuralIndex _index;
+    private byte[] _buf;
+    private int[] _tape;
+    private int _size;
+    private int _base;
+    private int _limit;
+    private boolean _asciiOnly;
+
+    /** The next entry to read */
+    private int _next;
+    /** The index in {@link #_buf} where the next gap resumes */
+    private int _pos;
+    /** The entries of the "{" of each open table */
+    private int[] _open = new int[16];
+    private int _depth;
+
+    private int _tokStart;
+    private int _tokEnd;
+
+    private final TokenChars _chars = new TokenChars();
+    private final EltnToken _token = new EltnToken(_chars);
+
+    /**
+     * Creates a lexer for an indexed document.
+     *
+     * @param index the document's index
+     */
+    IndexedEltnLexer(EltnStructuralIndex index) {
+        reset(index);
+    }
+
+    /**
+     * Starts over at the beginning of an indexed document.
+     *
+     * @param index the document's index
+     */
+    void reset(EltnStructuralIndex index) {
+        _index = index;
+        _buf = index.bytes();
+        _tape = index.tape();
+        _size = index.size();
+        _base = index.base();
+        _limit = index.limit();
+        _asciiOnly = index.isAsciiOnly();
+        _next = 0;
+        _pos = _base;
+        _depth = 0;
+    }
+
+    @Override
+    public EltnToken nextToken() {
+        final byte[] buf = _buf;
+        final int stop = (_next < _size) ? _base + _tape[_next * 2] : _limit;
+        int pos = _pos;
+        while (pos < stop) {
+            int b = buf[pos] & 0xFF;
+            if (b < 0x80) {
+                if (!EltnChars.isEltnSpace(b)) {
+                    break;
+                }
+                pos++;
+            } else {
+                int packed = Utf8EltnLexer.decode(buf, pos, stop, _asciiOnly);
+                if (!EltnChars.isEltnSpace(packed & 0xFFFFFF)) {
+                    break;
+                }
+                pos += packed >>> 24;
+            }
+        }
+        if (pos < stop) {
+            return scanWord(pos, stop);
+        }
+        if (_next >= _size) {
+            _pos = _limit;
+            return setToken(EltnTokenType.TOKEN_END_OF_STREAM, _limit,
+                    _limit, true);
+        }
+        return readEntry(_next++, stop);
+    }
+
+    /**
+     * Makes a token of an entry in the index.
+     *
+     * @param entry the entry's number
+     * @param start the index in {@link #_buf} of its first byte
+     */
+    private EltnToken readEntry(int entry, int start) {
+        final int aux = _tape[entry * 2 + 1];
+        EltnTokenType type;
+        switch (_buf[start]) {
+            case '{':
+                if (_depth == _open.length) {
+                    _open = Arrays.copyOf(_open, _depth * 2);
+                }
+                _open[_depth++] = entry;
+                return setSingleByteToken(EltnTokenType.TOKEN_CURLY_OPEN, start);
+            case '}':
+                if (_depth > 0) {
+                    _depth--;
+                }
+                return setSingleByteToken(EltnTokenType.TOKEN_CURLY_CLOSE, start);
+            case '[':
+                if (aux == 0) {
+                    return setSingleByteToken(EltnTokenType.TOKEN_SQUARE_OPEN, start);
+                }
+                type = EltnTokenType.TOKEN_LONG_STRING;
+                break;
+            case ']':
+                return setSingleByteToken(EltnTokenType.TOKEN_SQUARE_CLOSED, start);
+            case '=':
+                return setSingleByteToken(EltnTokenType.TOKEN_EQUALS, start);
+            case ',':
+                return setSingleByteToken(EltnTokenType.TOKEN_COMMA, start);
+            case ';':
+                return setSingleByteToken(EltnTokenType.TOKEN_SEMICOLON, start);
+            case '-':
+                type = (start + 2 < _limit && _buf[start + 2] == '['
+                        && StructuralScanner.longBracketLevel(_buf, start + 2, _limit) >= 0)
+                        ? EltnTokenType.TOKEN_LONG_COMMENT
+                        : EltnTokenType.TOKEN_COMMENT;
+                break;
+            default:
+                type = EltnTokenType.TOKEN_QUOTED_STRING;
+                break;
+        }
+        int last = _index.lastByte(start - _base, aux);
+        if (last < 0) {
+            /* never closed */
+            _next = _size;
+            _pos = _limit;
+            return setToken(EltnTokenType.TOKEN_INVALID, start, _limit, false);
+        }
+        _pos = _base + last + 1;
+        setToken(type, start, _pos, false);
+        _token.escaped = (aux < 0);
+        return _token;
+    }
+
+    /**
+     * Lexes a name, number, or keyword in a gap between entries.
+     *
+     * @param pos the index of its first byte
+     * @param stop the index of the next entry
+     */
+    private EltnToken scanWord(int pos, int stop) {
+        final byte[] buf = _buf;
+        int b = buf[pos] & 0xFF;
+        int end = pos + 1;
+        if ((b >= '0' && b <= '9') || b == '.'
+                || (b == '-' && end < stop && (EltnChars.isEltnDigit(buf[end])
+                || buf[end] == '.'))) {
+            boolean hex = false;
+            while (end < stop
+                    && EltnChars.continuesNumber(buf[end - 1], buf[end], hex)) {
+                hex |= (buf[end] == 'x' || buf[end] == 'X');
+                end++;
+            }
+            _pos = end;
+            setToken(EltnTokenType.TOKEN_INVALID, pos, end, true);
+            _token.type = EltnNumbers.parse(_chars, _token);
+            return _token;
+        }
+        if (b < 0x80) {
+            if (!EltnChars.isEltnNameStart(b)) {
+                _pos = end;
+                return setToken(EltnTokenType.TOKEN_INVALID, pos, end, true);
+            }
+            return scanName(pos, end, stop, b, true);
+        }
+        int packed = Utf8EltnLexer.decode(buf, pos, stop, _asciiOnly);
+        int cp = packed & 0xFFFFFF;
+        end = pos + (packed >>> 24);
+        if (!EltnChars.isEltnNameStart(cp)) {
+            _pos = end;
+            return setToken(EltnTokenType.TOKEN_INVALID, pos, end, false);
+        }
+        return scanName(pos, end, stop, hashCodePoint(0, cp), false);
+    }
+
+    private EltnToken scanName(int start, int pos, int stop, int hash,
+            boolean ascii) {
+        final byte[] buf = _buf;
+        while (pos < stop) {
+            int b = buf[pos] & 0xFF;
+            if (b < 0x80) {
+                if (!EltnChars.isEltnNamePart(b)) {
+                    break;
+                }
+                hash = 31 * hash + b;
+                pos++;
+            } else {
+                int packed = Utf8EltnLexer.decode(buf, pos, stop, _asciiOnly);
+                int cp = packed & 0xFFFFFF;
+                if (!EltnChars.isEltnNamePart(cp)) {
+                    break;
+                }
+                hash = hashCodePoint(hash, cp);
+                pos += packed >>> 24;
+                ascii = false;
+            }
+        }
+        _pos = pos;
+        setToken(EltnTokenType.TOKEN_IDENTIFIER, start, pos, ascii);
+        _token.type = EltnChars.identifierType(_chars);
+        _token.setHash(hash);
+        return _token;
+    }
+
+    private static int hashCodePoint(int hash, int cp) {
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return 31 * hash + cp;
+        }
+        hash = 31 * hash + Character.highSurrogate(cp);
+        return 31 * hash + Character.lowSurrogate(cp);
+    }
+
+    @Override
+    public EltnToken skipTable() {
+        if (_depth == 0) {
+            _next = _size;
+            _pos = _limit;
+            return setToken(EltnTokenType.TOKEN_END_OF_STREAM, _limit,
+                    _limit, true);
+        }
+        int close = _tape[_open[--_depth] * 2 + 1];
+        if (close < 0) {
+            _next = _size;
+            _pos = _limit;
+            return setToken(EltnTokenType.TOKEN_END_OF_STREAM, _limit,
+                    _limit, true);
+        }
+        _next = close + 1;
+        return setSingleByteToken(EltnTokenType.TOKEN_CURLY_CLOSE,
+                _base + _tape[close * 2]);
+    }
+
+    private EltnToken setSingleByteToken(EltnTokenType type, int start) {
+        _pos = start + 1;
+        return setToken(type, start, start + 1, true);
+    }
+
+    private EltnToken setToken(EltnTokenType type, int start, int end,
+            boolean ascii) {
+        _tokStart = start;
+        _tokEnd = end;
+        _chars.reset(ascii);
+        _token.set(type, start - _base, end - _base, -1, -1);
+        return _token;
+    }
+
+    /**
+     * The text of the current token, read straight out of the document.
+     * Strings are checked for non-ASCII bytes only when someone asks for
+     * their text; pure ASCII is never copied, and anything else is
+     * decoded once per token.
+     */
+    private final class TokenChars implements CharSequence {
+        private char[] _decoded = new char[0];
+        private int _decodedLength = -1;
+        private boolean _ascii;
+        private boolean _checked;
+
+        void reset(boolean ascii) {
+            _ascii = ascii;
+            _checked = ascii;
+            _decodedLength = -1;
+        }
+
+        private boolean isAscii() {
+            if (!_checked) {
+                _checked = true;
+                _ascii = true;
+                for (int i = _tokStart; i < _tokEnd; i++) {
+                    if (_buf[i] < 0) {
+                        _ascii = false;
+                        break;
+                    }
+                }
+            }
+            return _ascii;
+        }
+
+        private void decodeToken() {
+            if (_decodedLength >= 0) {
+                return;
+            }
+            int max = _tokEnd - _tokStart;
+            if (_decoded.length < max) {
+                _decoded = new char[max];
+            }
+            int n = 0;
+            int i = _tokStart;
+            while (i < _tokEnd) {
+                int packed = Utf8EltnLexer.decode(_buf, i, _tokEnd, _asciiOnly);
+                n += Character.toChars(packed & 0xFFFFFF, _decoded, n);
+                i += packed >>> 24;
+            }
+            _decodedLength = n;
+        }
+
+        @Override
+        public int length() {
+            if (isAscii()) {
+                return _tokEnd - _tokStart;
+            }
+            decodeToken();
+            return _decodedLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            if (_ascii) {
+                return (char) _buf[_tokStart + index];
+            }
+            return _decoded[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+            if (_ascii) {
+                return new String(_buf, _tokStart + start, end - start,
+                        StandardCharsets.ISO_8859_1);
+            }
+            return new String(_decoded, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            if (isAscii()) {
+                return new String(_buf, _tokStart, _tokEnd - _tokStart,
+                        StandardCharsets.ISO_8859_1);
+            }
+            decodeToken();
+            return new String(_decoded, 0, _decodedLength);
+        }
+    }
+}
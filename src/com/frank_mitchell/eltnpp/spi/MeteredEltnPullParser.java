@@ -0,0 +1,389 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSource;
+import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnParserMetrics;
+import com.frank_mitchell.eltnpp.EltnParserMetrics.Phase;
+import com.frank_mitchell.eltnpp.EltnSymbolTable;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link DefaultEltnPullParser} that counts what it does and times
+ * some of it for an {@link EltnParserMetrics}.
+ * All the measuring happens here and in wrappers around the lexer and
+ * the input, so a parser without metrics never tests whether to measure.
+ * <p>
+ * Counts accumulate in plain arrays and go to the shared metrics once
+ * per document.  Timing is sampled: one call in the metrics' sample
+ * interval is timed, and the lexer and input wrappers time themselves
+ * only during that call, so that the phases can be told apart.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class MeteredEltnPullParser extends DefaultEltnPullParser {
+
+    private static final EltnTokenType[] TOKEN_TYPES = EltnTokenType.values();
+    private static final EltnEvent[] EVENTS = EltnEvent.values();
+
+    private final EltnParserMetrics _metrics;
+    private final int _sampleMask;
+    private final MeteredLexer _meteredLexer = new MeteredLexer();
+
+    private boolean _countsBytes;
+    private boolean _started;
+    private final long[] _tokens = new long[TOKEN_TYPES.length];
+    private final long[] _events = new long[EVENTS.length];
+    private int _maxDepth;
+    private boolean _stringPending;
+    private long _stringsDecoded;
+    private long _stringsSkipped;
+
+    private int _calls;
+    private int _stringCalls;
+    private boolean _sampling;
+    private long _sampleLex;
+    private long _sampleDecode;
+    private final long[] _nanos = new long[Phase.values().length];
+
+    /**
+     * Creates a parser with no input until it is reset.
+     *
+     * @param symbols canonical key strings, or null to make new ones
+     * @param metrics where to add counts and times
+     */
+    MeteredEltnPullParser(EltnSymbolTable symbols, EltnParserMetrics metrics) {
+        super(symbols);
+        _metrics = metrics;
+        _sampleMask = metrics.getSampleInterval() - 1;
+    }
+
+    @Override
+    public void reset(Reader reader) throws IOException {
+        _countsBytes = false;
+        super.reset(new TimedReader(reader));
+    }
+
+    @Override
+    public void reset(InputStream stream, Charset cs) throws IOException {
+        _countsBytes = DefaultEltnPullParserFactory.isByteLexable(cs);
+        super.reset(new TimedInputStream(stream), cs);
+    }
+
+    @Override
+    public void reset(ByteBuffer buffer, Charset cs) throws IOException {
+        /* bytes lexed in place decode as they're lexed */
+        _countsBytes = DefaultEltnPullParserFactory.isByteLexable(cs);
+        super.reset(buffer, cs);
+    }
+
+    @Override
+    public void reset(CodePointSource source) throws IOException {
+        _countsBytes = false;
+        super.reset(new TimedSource(source));
+    }
+
+    @Override
+    void restart(EltnLexer lexer) {
+        flush();
+        _meteredLexer._lexer = lexer;
+        _meteredLexer._end = 0;
+        super.restart(_meteredLexer);
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (!hasNext()) {
+            return;
+        }
+        _started = true;
+        if (_stringPending) {
+            _stringPending = false;
+            _stringsSkipped++;
+        }
+        if (startSample()) {
+            long start = System.nanoTime();
+            try {
+                super.next();
+            } finally {
+                endSample(start);
+            }
+        } else {
+            super.next();
+        }
+        countEvent();
+    }
+
+    @Override
+    public void skipTable() throws IOException {
+        if (getDepth() == 0 || !hasNext()) {
+            return;
+        }
+        if (startSample()) {
+            long start = System.nanoTime();
+            try {
+                super.skipTable();
+            } finally {
+                endSample(start);
+            }
+        } else {
+            super.skipTable();
+        }
+        countEvent();
+    }
+
+    @Override
+    public String getString() {
+        if (!_stringPending) {
+            return super.getString();
+        }
+        _stringPending = false;
+        _stringsDecoded++;
+        if (((++_stringCalls) & _sampleMask) != 0) {
+            return super.getString();
+        }
+        long start = System.nanoTime();
+        String result = super.getString();
+        _nanos[Phase.UNESCAPE.ordinal()] += System.nanoTime() - start;
+        return result;
+    }
+
+    private boolean startSample() {
+        if (_sampling || ((++_calls) & _sampleMask) != 0) {
+            return false;
+        }
+        _sampling = true;
+        _sampleLex = 0;
+        _sampleDecode = 0;
+        return true;
+    }
+
+    private void endSample(long start) {
+        long total = System.nanoTime() - start;
+        _sampling = false;
+        _nanos[Phase.DECODE.ordinal()] += _sampleDecode;
+        _nanos[Phase.LEX.ordinal()] += _sampleLex - _sampleDecode;
+        _nanos[Phase.PARSE.ordinal()] += total - _sampleLex;
+    }
+
+    private void countEvent() {
+        EltnEvent event = getEvent();
+        _events[event.ordinal()]++;
+        switch (event) {
+            case DEF_NAME:
+            case TABLE_KEY_STRING:
+            case VALUE_STRING:
+                _stringPending = true;
+                break;
+            case TABLE_START:
+                if (getDepth() > _maxDepth) {
+                    _maxDepth = getDepth();
+                }
+                break;
+            case ERROR:
+                _metrics.recordError(getError());
+                flush();
+                break;
+            case STREAM_END:
+                flush();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Adds everything counted since the document began to the metrics.
+     */
+    private void flush() {
+        if (!_started) {
+            return;
+        }
+        _started = false;
+        if (_stringPending) {
+            _stringPending = false;
+            _stringsSkipped++;
+        }
+        long end = _meteredLexer._end;
+        _metrics.recordDocument(_countsBytes ? end : 0,
+                _countsBytes ? 0 : end, _maxDepth);
+        for (int i = 0; i < _tokens.length; i++) {
+            if (_tokens[i] != 0) {
+                _metrics.recordTokens(TOKEN_TYPES[i].name(), _tokens[i]);
+                _tokens[i] = 0;
+            }
+        }
+        for (int i = 0; i < _events.length; i++) {
+            if (_events[i] != 0) {
+                _metrics.recordEvents(EVENTS[i], _events[i]);
+                _events[i] = 0;
+            }
+        }
+        _metrics.recordStrings(_stringsDecoded, _stringsSkipped);
+        for (Phase phase : Phase.values()) {
+            if (_nanos[phase.ordinal()] != 0) {
+                _metrics.recordTime(phase, _nanos[phase.ordinal()]);
+                _nanos[phase.ordinal()] = 0;
+            }
+        }
+        _maxDepth = 0;
+        _stringsDecoded = 0;
+        _stringsSkipped = 0;
+    }
+
+    /**
+     * Counts tokens, and times them during a sampled call.
+     */
+    private final class MeteredLexer implements EltnLexer {
+        EltnLexer _lexer;
+        /** Offset just past the last token: bytes or code points read */
+        long _end;
+
+        @Override
+        public EltnToken nextToken() throws IOException {
+            return count(_sampling ? timedNextToken() : _lexer.nextToken());
+        }
+
+        @Override
+        public EltnToken skipTable() throws IOException {
+            if (!_sampling) {
+                return count(_lexer.skipTable());
+            }
+            long start = System.nanoTime();
+            EltnToken token = _lexer.skipTable();
+            _sampleLex += System.nanoTime() - start;
+            return count(token);
+        }
+
+        private EltnToken timedNextToken() throws IOException {
+            long start = System.nanoTime();
+            EltnToken token = _lexer.nextToken();
+            _sampleLex += System.nanoTime() - start;
+            return token;
+        }
+
+        private EltnToken count(EltnToken token) {
+            if (token.type != null) {
+                _tokens[token.type.ordinal()]++;
+            }
+            _end = token.end;
+            return token;
+        }
+    }
+
+    /**
+     * Times reads during a sampled call.
+     */
+    private final class TimedReader extends FilterReader {
+        TimedReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (!_sampling) {
+                return in.read(cbuf, off, len);
+            }
+            long start = System.nanoTime();
+            int result = in.read(cbuf, off, len);
+            _sampleDecode += System.nanoTime() - start;
+            return result;
+        }
+    }
+
+    /**
+     * Times reads during a sampled call.
+     */
+    private final class TimedInputStream extends FilterInputStream {
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!_sampling) {
+                return in.read();
+            }
+            long start = System.nanoTime();
+            int result = in.read();
+            _sampleDecode += System.nanoTime() - start;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!_sampling) {
+                return in.read(b, off, len);
+            }
+            long start = System.nanoTime();
+            int result = in.read(b, off, len);
+            _sampleDecode += System.nanoTime() - start;
+            return result;
+        }
+    }
+
+    /**
+     * Times code points during a sampled call.
+     */
+    private final class TimedSource implements CodePointSource {
+        private final CodePointSource _source;
+
+        TimedSource(CodePointSource source) {
+            _source = source;
+        }
+
+        @Override
+        public int getCodePoint() {
+            return _source.getCodePoint();
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            return _source.hasNext();
+        }
+
+        @Override
+        public void next() throws IOException {
+            if (!_sampling) {
+                _source.next();
+                return;
+            }
+            long start = System.nanoTime();
+            _source.next();
+            _sampleDecode += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _source.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+/**
+ * Finds bytes of interest one byte at a time.
+ * Every method looks at the bytes from {@code pos} up to but not
+ * including {@code limit}, and returns the index of the first one that
+ * it's looking for, or {@code limit} if there is none.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ * @see ByteScanner
+ */
+final class ScalarByteScanner {
+
+    /**
+     * Bytes that may begin an entry in an {@link EltnStructuralIndex}.
+     */
+    private static final boolean[] STRUCTURAL = new boolean[256];
+
+    static {
+        for (char c : "{}[]=,;\"'-".toCharArray()) {
+            STRUCTURAL[c] = true;
+        }
+    }
+
+    private ScalarByteScanner() {
+    }
+
+    static int skipBlanks(byte[] buf, int pos, int limit) {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    static int findStringStop(byte[] buf, int pos, int limit, byte quote) {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == quote || b == '\\' || b == '\n' || b == '\r' || b < 0) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    static int findQuoteEscapeOrNewline(byte[] buf, int pos, int limit,
+            byte quote) {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == quote || b == '\\' || b == '\n' || b == '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    static int findLongBracketStop(byte[] buf, int pos, int limit) {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == ']' || b == '\n' || b < 0) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    static int indexOf(byte[] buf, int pos, int limit, byte target) {
+        while (pos < limit && buf[pos] != target) {
+            pos++;
+        }
+        return pos;
+    }
+
+    static int findStructural(byte[] buf, int pos, int limit) {
+        while (pos < limit && !STRUCTURAL[buf[pos] & 0xFF]) {
+            pos++;
+        }
+        return pos;
+    }
+}
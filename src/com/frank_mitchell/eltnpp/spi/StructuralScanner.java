@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.Arrays;
+
+/**
+ * Builds the tape of an {@link EltnStructuralIndex} in a single pass.
+ * Everything but the few bytes that can begin an entry is passed over
+ * by {@link ByteScanner}, as is everything inside strings and comments
+ * but what could end them.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class StructuralScanner {
+
+    private final byte[] _buf;
+    private final int _base;
+    private final int _limit;
+    private int[] _tape;
+    private int _size;
+
+    /**
+     * Creates a scanner for part of an array.
+     *
+     * @param buf the document
+     * @param base the index of the document's first byte
+     * @param limit the index just past the document
+     */
+    StructuralScanner(byte[] buf, int base, int limit) {
+        _buf = buf;
+        _base = base;
+        _limit = limit;
+    }
+
+    /**
+     * The entries found, in the layout {@link EltnStructuralIndex}
+     * describes.  The array may be longer than it needs to be.
+     */
+    int[] tape() {
+        return _tape;
+    }
+
+    /**
+     * The number of entries found.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Finds every entry in the document.
+     */
+    void scan() {
+        final byte[] buf = _buf;
+        final int base = _base;
+        final int limit = _limit;
+        final int length = limit - base;
+        int[] tape = new int[Math.max(32, (length >>> 3) & ~1)];
+        int n = 0;
+        int[] open = new int[16];
+        int depth = 0;
+        int pos = base;
+        while (true) {
+            /* "-" begins an entry only if another "-" follows */
+            pos = ByteScanner.findStructural(buf, pos, limit);
+            if (pos >= limit) {
+                break;
+            }
+            int b = buf[pos];
+            int aux = 0;
+            int next = pos + 1;
+            switch (b) {
+                case '{':
+                    if (depth == open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                    }
+                    open[depth++] = n >> 1;
+                    aux = -1;
+                    break;
+                case '}':
+                    if (depth > 0) {
+                        tape[open[--depth] * 2 + 1] = n >> 1;
+                    }
+                    break;
+                case '[':
+                    if (next < limit && (buf[next] == '[' || buf[next] == '=')) {
+                        int level = longBracketLevel(buf, pos, limit);
+                        if (level < 0) {
+                            /* "[=" but no long string; the lexer says so */
+                            aux = length;
+                        } else {
+                            int last = closeLongBracket(buf,
+                                    pos + level + 2, limit, level);
+                            aux = last - base;
+                            next = Math.min(last + 1, limit);
+                        }
+                    }
+                    break;
+                case '"':
+                case '\'': {
+                    int p = next;
+                    boolean escaped = false;
+                    while ((p = ByteScanner.findQuoteEscapeOrNewline(buf, p, limit,
+                            (byte) b)) < limit && buf[p] == '\\') {
+                        escaped = true;
+                        p = skipEscape(buf, p + 1, limit);
+                    }
+                    if (p >= limit || buf[p] != b) {
+                        /* unterminated, or broken by a line */
+                        aux = length;
+                        next = limit;
+                    } else {
+                        aux = escaped ? ~(p - base) : p - base;
+                        next = p + 1;
+                    }
+                    break;
+                }
+                case '-': {
+                    if (next >= limit || buf[next] != '-') {
+                        /* a minus sign */
+                        pos = next;
+                        continue;
+                    }
+                    int p = next + 1;
+                    int level = (p < limit && buf[p] == '[')
+                            ? longBracketLevel(buf, p, limit) : -1;
+                    int last;
+                    if (level >= 0) {
+                        last = closeLongBracket(buf, p + level + 2, limit,
+                                level);
+                    } else {
+                        last = ByteScanner.indexOf(buf, p, limit,
+                                (byte) '\n') - 1;
+                    }
+                    aux = last - base;
+                    next = Math.min(last + 1, limit);
+                    break;
+                }
+                default:
+                    break;
+            }
+            if (n == tape.length) {
+                tape = Arrays.copyOf(tape, n * 2);
+            }
+            tape[n] = pos - base;
+            tape[n + 1] = aux;
+            n += 2;
+            pos = next;
+        }
+        _tape = tape;
+        _size = n >> 1;
+    }
+
+    /**
+     * Reads a long bracket opening such as "[==[".
+     *
+     * @param buf the document
+     * @param pos the index of the first "["
+     * @param limit the index just past the document
+     * @return the number of "=" in the opening, or -1 if it isn't one
+     */
+    static int longBracketLevel(byte[] buf, int pos, int limit) {
+        int p = pos + 1;
+        while (p < limit && buf[p] == '=') {
+            p++;
+        }
+        if (p < limit && buf[p] == '[') {
+            return p - pos - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips the character after a backslash; "\r\n" or "\n\r" counts as
+     * one, and "\z" also skips the white space after it, as in Lua.
+     *
+     * @return the index just past the escaped character
+     */
+    private static int skipEscape(byte[] buf, int p, int limit) {
+        if (p >= limit) {
+            return limit;
+        }
+        byte c = buf[p++];
+        if ((c == '\n' || c == '\r') && p < limit
+                && (buf[p] == '\n' || buf[p] == '\r') && buf[p] != c) {
+            p++;
+        } else if (c == 'z') {
+            while (p < limit && EltnChars.isEltnSpace(buf[p])) {
+                p++;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Finds the long bracket closing that matches an opening.
+     *
+     * @param buf the document
+     * @param pos the index just past the opening
+     * @param limit the index just past the document
+     * @param level the number of "=" in the opening
+     * @return the index of the closing's last "]", or {@code limit}
+     *         if there is none
+     */
+    private static int closeLongBracket(byte[] buf, int pos, int limit,
+            int level) {
+        while ((pos = ByteScanner.indexOf(buf, pos, limit, (byte) ']'))
+                < limit) {
+            int p = pos + 1;
+            while (p < limit && buf[p] == '=') {
+                p++;
+            }
+            if (p < limit && buf[p] == ']' && p - pos - 1 == level) {
+                return p;
+            }
+            /* a "]" after the "="s may begin another closing */
+            pos = p;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,1076 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Performs lexical analysis on an ELTN document encoded in UTF-8 or ASCII.
+ * Unlike {@link DefaultEltnLexer} this reads bytes straight out of an array,
+ * refilled in bulk from an {@link InputStream} or {@link ByteBuffer},
+ * and only decodes the multibyte sequences it actually meets.
+ * Offsets count bytes; columns count code points.
+ * <p>
+ * A lexer created without a source is fed bytes through
+ * {@link #feed(ByteBuffer)} instead.  When it runs out part way through
+ * a token it rewinds to where that token began and returns
+ * {@link EltnTokenType#TOKEN_NEED_MORE_INPUT}; the next call after
+ * another feed lexes the token again from the start.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class Utf8EltnLexer implements EltnLexer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int DIRECT_BUFFER_SIZE = 65536;
+
+    private static final int REPLACEMENT_CHAR = 0xFFFD;
+
+    private InputStream _stream;
+    private ByteBuffer _source;
+    private boolean _asciiOnly;
+
+    private byte[] _buf;
+    /** The buffer this lexer allocated, kept while it lexes another's */
+    private byte[] _ownBuf;
+    private boolean _inPlace;
+    private int _pos;
+    private int _limit;
+    private int _base;
+    private boolean _eof;
+
+    private int _line = 1;
+    private int _lineStart = 0;
+    private int _lineExtraBytes = 0;
+
+    private int _tokStart;
+    private int _tokEnd;
+    private boolean _tokAscii;
+    private int _seqLen;
+    private boolean _escaped;
+    private int _hash;
+
+    private final boolean _fed;
+    private boolean _fedToEnd;
+    private int _markPos;
+    private int _markLine;
+    private int _markLineStart;
+    private int _markLineExtraBytes;
+    private int _skipDepth;
+
+    private final TokenChars _chars = new TokenChars();
+    private final EltnToken _token = new EltnToken(_chars);
+
+    /**
+     * Creates a lexer that reads an InputStream in bulk.
+     *
+     * @param stream the byte stream
+     * @param asciiOnly whether to treat every byte above 0x7F as invalid
+     *        rather than as part of a UTF-8 sequence
+     */
+    Utf8EltnLexer(InputStream stream, boolean asciiOnly) {
+        _fed = false;
+        reset(stream, asciiOnly);
+    }
+
+    /**
+     * Creates a lexer that lexes only the bytes given to
+     * {@link #feed(ByteBuffer)}.
+     *
+     * @param asciiOnly whether to treat every byte above 0x7F as invalid
+     *        rather than as part of a UTF-8 sequence
+     */
+    Utf8EltnLexer(boolean asciiOnly) {
+        _fed = true;
+        _asciiOnly = asciiOnly;
+        _buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a lexer for the bytes between a buffer's position and limit.
+     * A heap buffer is lexed in place.  A direct or mapped buffer is copied
+     * out in large bulk slices, which stay in cache and keep each token
+     * contiguous; that is cheaper than reading it a byte at a time.
+     * Neither the buffer's position nor its limit changes.
+     *
+     * @param buffer the bytes to lex
+     * @param asciiOnly whether to treat every byte above 0x7F as invalid
+     *        rather than as part of a UTF-8 sequence
+     */
+    Utf8EltnLexer(ByteBuffer buffer, boolean asciiOnly) {
+        _fed = false;
+        reset(buffer, asciiOnly);
+    }
+
+    /**
+     * Starts over on a new stream, keeping the buffer.
+     *
+     * @param stream the byte stream
+     * @param asciiOnly whether bytes above 0x7F are invalid
+     */
+    void reset(InputStream stream, boolean asciiOnly) {
+        checkNotFed();
+        _stream = stream;
+        _source = null;
+        _asciiOnly = asciiOnly;
+        _buf = ownBuffer(DEFAULT_BUFFER_SIZE);
+        resetState();
+    }
+
+    /**
+     * Starts over on the bytes remaining in a buffer, keeping this
+     * lexer's own buffer for later.
+     *
+     * @param buffer the bytes to lex
+     * @param asciiOnly whether bytes above 0x7F are invalid
+     */
+    void reset(ByteBuffer buffer, boolean asciiOnly) {
+        checkNotFed();
+        _stream = null;
+        _asciiOnly = asciiOnly;
+        if (buffer.hasArray()) {
+            if (!_inPlace && _buf != null) {
+                _ownBuf = _buf;
+            }
+            _source = null;
+            _buf = buffer.array();
+            _inPlace = true;
+            resetState();
+            _pos = buffer.arrayOffset() + buffer.position();
+            _limit = buffer.arrayOffset() + buffer.limit();
+            _base = -_pos;
+            _eof = true;
+        } else {
+            _source = buffer.duplicate();
+            _buf = ownBuffer(Math.min(DIRECT_BUFFER_SIZE,
+                    Math.max(16, _source.remaining())));
+            resetState();
+        }
+    }
+
+    /**
+     * Discards everything fed so far, so a new document can be fed.
+     */
+    void reset() {
+        if (!_fed) {
+            throw new IllegalStateException("Not a fed lexer");
+        }
+        resetState();
+    }
+
+    /**
+     * Tells whether this lexer is fed bytes rather than reading them.
+     */
+    boolean isFed() {
+        return _fed;
+    }
+
+    private void checkNotFed() {
+        if (_fed) {
+            throw new IllegalStateException("Cannot reset a fed lexer");
+        }
+    }
+
+    /**
+     * Gets a buffer this lexer owns of at least a given size, reusing
+     * the last one if it is big enough.
+     */
+    private byte[] ownBuffer(int size) {
+        byte[] result = _inPlace ? _ownBuf : _buf;
+        _inPlace = false;
+        if (result == null || result.length < size) {
+            result = new byte[size];
+        }
+        _ownBuf = null;
+        return result;
+    }
+
+    private void resetState() {
+        _pos = 0;
+        _limit = 0;
+        _base = 0;
+        _eof = false;
+        _line = 1;
+        _lineStart = 0;
+        _lineExtraBytes = 0;
+        _tokStart = 0;
+        _tokEnd = 0;
+        _fedToEnd = false;
+        mark(0);
+    }
+
+    /**
+     * Appends the bytes remaining in a buffer to the input of a fed lexer.
+     * The buffer's position moves to its limit.
+     *
+     * @param data the next bytes of the document
+     * @throws IllegalStateException if this lexer isn't fed, or
+     *         {@link #endOfInput()} has been called
+     */
+    void feed(ByteBuffer data) {
+        if (!_fed || _fedToEnd) {
+            throw new IllegalStateException("Cannot feed this lexer");
+        }
+        int count = data.remaining();
+        compact(Math.min(_tokStart, _markPos));
+        if (_buf.length - _limit < count) {
+            byte[] bigger = new byte[Math.max(_limit + count, _buf.length * 2)];
+            System.arraycopy(_buf, 0, bigger, 0, _limit);
+            _buf = bigger;
+        }
+        data.get(_buf, _limit, count);
+        _limit += count;
+    }
+
+    /**
+     * Tells a fed lexer that no more bytes will come, so whatever remains
+     * is lexed as the end of the document.
+     */
+    void endOfInput() {
+        _fedToEnd = true;
+    }
+
+    @Override
+    public EltnToken nextToken() throws IOException {
+        if (!_fed) {
+            return scanToken();
+        }
+        mark(0);
+        try {
+            return scanToken();
+        } catch (Starved e) {
+            return rewind();
+        }
+    }
+
+    private EltnToken scanToken() throws IOException {
+        EltnTokenType type = EltnTokenType.TOKEN_INVALID;
+        int b = skipSpace();
+        _tokStart = _pos;
+        _tokAscii = true;
+        _escaped = false;
+        int offset = _base + _pos;
+        int line = _line;
+        int col = offset - _lineStart - _lineExtraBytes + 1;
+        if (b < 0) {
+            type = EltnTokenType.TOKEN_END_OF_STREAM;
+        } else {
+            _pos++;
+            switch (b) {
+                case '}':
+                    type = EltnTokenType.TOKEN_CURLY_CLOSE;
+                    break;
+                case '{':
+                    type = EltnTokenType.TOKEN_CURLY_OPEN;
+                    break;
+                case '[':
+                    /* long string or '[' */
+                    b = peekByte();
+                    if (b == '[' || b == '=') {
+                        type = scanLongString();
+                    } else {
+                        type = EltnTokenType.TOKEN_SQUARE_OPEN;
+                    }
+                    break;
+                case ']':
+                    type = EltnTokenType.TOKEN_SQUARE_CLOSED;
+                    break;
+                case '=':
+                    type = EltnTokenType.TOKEN_EQUALS;
+                    break;
+                case ',':
+                    type = EltnTokenType.TOKEN_COMMA;
+                    break;
+                case ';':
+                    type = EltnTokenType.TOKEN_SEMICOLON;
+                    break;
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                case '.':
+                    type = scanNumber();
+                    break;
+                case '-':
+                    /* number or comment */
+                    b = peekByte();
+                    if (b == '-') {
+                        _pos++;
+                        type = scanComment();
+                    } else if ((b >= '0' && b <= '9') || b == '.') {
+                        type = scanNumber();
+                    }
+                    break;
+                case '"':
+                case '\'':
+                    type = scanQuotedString(b);
+                    break;
+                default:
+                    type = scanIdentifier(b);
+                    break;
+            }
+        }
+        _tokEnd = _pos;
+        _chars.reset();
+        _token.set(type, offset, _base + _pos, line, col);
+        _token.escaped = _escaped;
+        if (type == EltnTokenType.TOKEN_IDENTIFIER) {
+            _token.setHash(_hash);
+        }
+        return _token;
+    }
+
+    /**
+     * Bytes that {@link #skipTable()} must look at; it passes over
+     * everything else without a second glance.
+     */
+    private static final boolean[] SKIP_STOPS = new boolean[256];
+
+    static {
+        for (char c : "{}\"'[-\n".toCharArray()) {
+            SKIP_STOPS[c] = true;
+        }
+        for (int b = 0x80; b < 0xC0; b++) {
+            SKIP_STOPS[b] = true;
+        }
+    }
+
+    @Override
+    public EltnToken skipTable() throws IOException {
+        if (!_fed) {
+            return skipTable(1);
+        }
+        /* pick up where the last starved call left off */
+        int depth = (_skipDepth > 0) ? _skipDepth : 1;
+        try {
+            EltnToken token = skipTable(depth);
+            _skipDepth = 0;
+            return token;
+        } catch (Starved e) {
+            return rewind();
+        }
+    }
+
+    private EltnToken skipTable(int depth) throws IOException {
+        _tokStart = _pos;
+        int b;
+        while (true) {
+            /* the tight loop does nearly all the work */
+            final byte[] buf = _buf;
+            final int limit = _limit;
+            int pos = _pos;
+            while (pos < limit && !SKIP_STOPS[buf[pos] & 0xFF]) {
+                pos++;
+            }
+            _pos = pos;
+            if (_fed) {
+                /* nothing before here needs scanning again */
+                mark(depth);
+            }
+            if ((b = skipByte()) < 0) {
+                break;
+            }
+            switch (b) {
+                case '{':
+                    depth++;
+                    break;
+                case '}':
+                    depth--;
+                    if (depth == 0) {
+                        return setSingleByteToken(
+                                EltnTokenType.TOKEN_CURLY_CLOSE, _pos - 1);
+                    }
+                    break;
+                case '"':
+                case '\'':
+                    skipQuotedString(b);
+                    break;
+                case '[':
+                    skipLongBracket(skipLongBracketOpen());
+                    break;
+                case '-':
+                    if (peekByte() == '-') {
+                        _pos++;
+                        skipComment();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return setSingleByteToken(EltnTokenType.TOKEN_END_OF_STREAM, _pos);
+    }
+
+    /**
+     * Remembers where to start again if a fed lexer runs out of bytes.
+     *
+     * @param depth the depth of tables being skipped there, or 0
+     */
+    private void mark(int depth) {
+        _markPos = _pos;
+        _markLine = _line;
+        _markLineStart = _lineStart;
+        _markLineExtraBytes = _lineExtraBytes;
+        _skipDepth = depth;
+    }
+
+    /**
+     * Goes back to the last {@link #mark(int)} after running out of bytes.
+     *
+     * @return the lexer's token, now a
+     *         {@link EltnTokenType#TOKEN_NEED_MORE_INPUT}
+     */
+    private EltnToken rewind() {
+        _pos = _markPos;
+        _line = _markLine;
+        _lineStart = _markLineStart;
+        _lineExtraBytes = _markLineExtraBytes;
+        return setSingleByteToken(EltnTokenType.TOKEN_NEED_MORE_INPUT, _pos);
+    }
+
+    private EltnToken setSingleByteToken(EltnTokenType type, int pos) {
+        int offset = _base + pos;
+        _tokStart = pos;
+        _tokEnd = _pos;
+        _tokAscii = true;
+        _chars.reset();
+        _token.set(type, offset, _base + _pos, _line,
+                offset - _lineStart - _lineExtraBytes + 1);
+        return _token;
+    }
+
+    /**
+     * Consumes one byte while skipping, keeping line and column counts
+     * but nothing else in the buffer.
+     *
+     * @return the next unsigned byte, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int skipByte() throws IOException {
+        if (_pos >= _limit) {
+            _tokStart = _pos;
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int b = _buf[_pos++] & 0xFF;
+        if (b == '\n') {
+            newline();
+        } else if ((b & 0xC0) == 0x80 && !_asciiOnly) {
+            /* a continuation byte adds no column */
+            _lineExtraBytes++;
+        }
+        return b;
+    }
+
+    private void skipQuotedString(int quote) throws IOException {
+        int b;
+        while ((b = skipByte()) >= 0 && b != quote) {
+            if (b == '\\') {
+                skipByte();
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        if (peekByte() == '[') {
+            _pos++;
+            int level = skipLongBracketOpen();
+            if (level >= 0) {
+                skipLongBracket(level);
+                return;
+            }
+        }
+        int b;
+        while ((b = skipByte()) >= 0 && b != '\n') {
+            /* skip */
+        }
+    }
+
+    /**
+     * Reads the rest of a long bracket opening, e.g. "==[" after "[".
+     *
+     * @return the number of "=" in the bracket, or -1 if it isn't one
+     */
+    private int skipLongBracketOpen() throws IOException {
+        int level = 0;
+        while (peekByte() == '=') {
+            _pos++;
+            level++;
+        }
+        if (peekByte() == '[') {
+            _pos++;
+            return level;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips through the long bracket closing that matches an opening.
+     *
+     * @param level the number of "=" in the opening, or -1 to do nothing
+     */
+    private void skipLongBracket(int level) throws IOException {
+        if (level < 0) {
+            return;
+        }
+        int b = skipByte();
+        while (b >= 0) {
+            if (b == ']') {
+                int n = 0;
+                b = skipByte();
+                while (b == '=') {
+                    n++;
+                    b = skipByte();
+                }
+                if (n == level && b == ']') {
+                    return;
+                }
+                /* b may begin another closing */
+            } else {
+                b = skipByte();
+            }
+        }
+    }
+
+    /**
+     * Consumes one byte of the current token.
+     *
+     * @return the next unsigned byte, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int nextByte() throws IOException {
+        if (_pos >= _limit && !fill()) {
+            return -1;
+        }
+        int b = _buf[_pos++] & 0xFF;
+        if (b == '\n') {
+            newline();
+        } else if (b >= 0x80) {
+            _tokAscii = false;
+            if ((b & 0xC0) == 0x80 && !_asciiOnly) {
+                _lineExtraBytes++;
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Scans a long string after its first "[".
+     */
+    private EltnTokenType scanLongString() throws IOException {
+        int level = skipLongBracketOpen();
+        if (level < 0) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        return scanLongBracket(level)
+                ? EltnTokenType.TOKEN_LONG_STRING
+                : EltnTokenType.TOKEN_INVALID;
+    }
+
+    /**
+     * Scans a comment after its "--".
+     */
+    private EltnTokenType scanComment() throws IOException {
+        if (peekByte() == '[') {
+            _pos++;
+            int level = skipLongBracketOpen();
+            if (level >= 0) {
+                return scanLongBracket(level)
+                        ? EltnTokenType.TOKEN_LONG_COMMENT
+                        : EltnTokenType.TOKEN_INVALID;
+            }
+        }
+        int b;
+        while ((b = peekByte()) >= 0 && b != '\n') {
+            nextByte();
+        }
+        return EltnTokenType.TOKEN_COMMENT;
+    }
+
+    /**
+     * Scans through the long bracket closing that matches an opening,
+     * keeping everything in between as part of the token.
+     *
+     * @param level the number of "=" in the opening
+     * @return whether the closing was found before the end of input
+     */
+    private boolean scanLongBracket(int level) throws IOException {
+        int b;
+        while (true) {
+            _pos = ByteScanner.findLongBracketStop(_buf, _pos, _limit);
+            if ((b = nextByte()) < 0) {
+                break;
+            }
+            if (b == ']') {
+                int n = 0;
+                while (peekByte() == '=') {
+                    _pos++;
+                    n++;
+                }
+                if (n == level && peekByte() == ']') {
+                    _pos++;
+                    return true;
+                }
+                /* a "]" after the "="s may begin another closing */
+            }
+        }
+        return false;
+    }
+
+    private EltnTokenType scanIdentifier(int b) throws IOException {
+        int cp = b;
+        if (b >= 0x80) {
+            _pos--;
+            cp = decode();
+            consumeSequence();
+        }
+        if (!EltnChars.isEltnNameStart(cp)) {
+            return EltnTokenType.TOKEN_INVALID;
+        }
+        /* hash the name as it goes by, for symbol tables and key sets */
+        int hash = hashCodePoint(0, cp);
+        while (_pos < _limit || fill()) {
+            b = _buf[_pos] & 0xFF;
+            if (b < 0x80) {
+                if (!EltnChars.isEltnNamePart(b)) {
+                    break;
+                }
+                hash = 31 * hash + b;
+                _pos++;
+            } else {
+                cp = decode();
+                if (!EltnChars.isEltnNamePart(cp)) {
+                    break;
+                }
+                hash = hashCodePoint(hash, cp);
+                consumeSequence();
+            }
+        }
+        _hash = hash;
+        _tokEnd = _pos;
+        return EltnChars.identifierType(_chars);
+    }
+
+    private static int hashCodePoint(int hash, int cp) {
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return 31 * hash + cp;
+        }
+        hash = 31 * hash + Character.highSurrogate(cp);
+        return 31 * hash + Character.lowSurrogate(cp);
+    }
+
+    private EltnTokenType scanQuotedString(int quote) throws IOException {
+        while (_pos < _limit || fill()) {
+            _pos = ByteScanner.findStringStop(_buf, _pos, _limit, (byte) quote);
+            if (_pos >= _limit) {
+                continue;
+            }
+            int b = _buf[_pos] & 0xFF;
+            if (b == quote) {
+                _pos++;
+                return EltnTokenType.TOKEN_QUOTED_STRING;
+            } else if (b == '\\') {
+                _escaped = true;
+                _pos++;
+                if (_pos < _limit || fill()) {
+                    b = _buf[_pos] & 0xFF;
+                    if (b < 0x80) {
+                        _pos++;
+                        if (b == '\n' || b == '\r') {
+                            escapedNewline(b);
+                        } else if (b == 'z') {
+                            skipEscapedSpace();
+                        }
+                    } else {
+                        decode();
+                        consumeSequence();
+                    }
+                }
+            } else if (b == '\n' || b == '\r') {
+                /* only an escaped line break may appear in a quoted string */
+                return EltnTokenType.TOKEN_INVALID;
+            } else {
+                decode();
+                consumeSequence();
+            }
+        }
+        /* unterminated */
+        return EltnTokenType.TOKEN_INVALID;
+    }
+
+    /**
+     * Finishes an escaped line break, which may be "\r\n" or "\n\r".
+     *
+     * @param b the line break character just consumed
+     */
+    private void escapedNewline(int b) throws IOException {
+        if (b == '\n') {
+            newline();
+        }
+        if (_pos < _limit || fill()) {
+            int c = _buf[_pos];
+            if ((c == '\n' || c == '\r') && c != b) {
+                _pos++;
+                if (c == '\n') {
+                    newline();
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips the white space, line breaks included, after a "\z" escape.
+     */
+    private void skipEscapedSpace() throws IOException {
+        while (_pos < _limit || fill()) {
+            int c = _buf[_pos];
+            if (!EltnChars.isEltnSpace(c)) {
+                break;
+            }
+            _pos++;
+            if (c == '\n') {
+                newline();
+            }
+        }
+    }
+
+    private EltnTokenType scanNumber() throws IOException {
+        int prev = _buf[_pos - 1];
+        boolean hex = false;
+        while (_pos < _limit || fill()) {
+            int b = _buf[_pos];
+            if (!EltnChars.continuesNumber(prev, b, hex)) {
+                break;
+            }
+            hex |= (b == 'x' || b == 'X');
+            prev = b;
+            _pos++;
+        }
+        _tokEnd = _pos;
+        return EltnNumbers.parse(_chars, _token);
+    }
+
+    /**
+     * Skips whitespace and returns the first byte after it without
+     * consuming that byte.
+     *
+     * @return the next unsigned byte, or -1 at end of input
+     * @throws IOException if the input could not be read
+     */
+    private int skipSpace() throws IOException {
+        while (true) {
+            _tokStart = _pos;
+            if (_pos >= _limit && !fill()) {
+                return -1;
+            }
+            _pos = ByteScanner.skipBlanks(_buf, _pos, _limit);
+            if (_pos >= _limit) {
+                continue;
+            }
+            int b = _buf[_pos] & 0xFF;
+            switch (b) {
+                case '\n':
+                    _pos++;
+                    newline();
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case 0x0B:
+                case '\f':
+                case 0x1C:
+                case 0x1D:
+                case 0x1E:
+                case 0x1F:
+                    _pos++;
+                    break;
+                default:
+                    if (b < 0x80 || !EltnChars.isEltnSpace(decode())) {
+                        return b;
+                    }
+                    consumeSequence();
+                    break;
+            }
+        }
+    }
+
+    private int peekByte() throws IOException {
+        if (_pos >= _limit && !fill()) {
+            return -1;
+        }
+        return _buf[_pos] & 0xFF;
+    }
+
+    private void newline() {
+        _line++;
+        _lineStart = _base + _pos;
+        _lineExtraBytes = 0;
+    }
+
+    /**
+     * Decodes the code point starting at the current position without
+     * consuming it.  Malformed sequences decode to U+FFFD.
+     * Sets the length of the sequence for {@link #consumeSequence()}.
+     *
+     * @return the code point
+     * @throws IOException if the input could not be read
+     */
+    private int decode() throws IOException {
+        int length = _asciiOnly ? 1 : sequenceLength(_buf[_pos] & 0xFF);
+        while (_limit - _pos < length && fill()) {
+            /* keep filling */
+        }
+        int packed = decode(_buf, _pos, _limit, _asciiOnly);
+        _seqLen = packed >>> 24;
+        return packed & 0xFFFFFF;
+    }
+
+    /**
+     * Gets the number of bytes a UTF-8 lead byte promises, so a fed lexer
+     * doesn't wait for bytes that aren't part of the sequence.
+     */
+    private static int sequenceLength(int b0) {
+        if (b0 < 0xC2 || b0 > 0xF4) {
+            return 1;
+        } else if (b0 <= 0xDF) {
+            return 2;
+        } else if (b0 <= 0xEF) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private void consumeSequence() {
+        _pos += _seqLen;
+        _lineExtraBytes += _seqLen - 1;
+        _tokAscii = false;
+    }
+
+    /**
+     * Decodes one code point.
+     *
+     * @param buf the bytes to decode
+     * @param pos the index of the first byte
+     * @param limit the index past the last available byte
+     * @param asciiOnly whether bytes above 0x7F are always invalid
+     * @return the code point in the low 24 bits and the number of bytes
+     *         it took up in the high 8
+     */
+    static int decode(byte[] buf, int pos, int limit, boolean asciiOnly) {
+        int b0 = buf[pos] & 0xFF;
+        if (b0 < 0x80) {
+            return (1 << 24) | b0;
+        }
+        if (asciiOnly) {
+            return (1 << 24) | REPLACEMENT_CHAR;
+        }
+        int n;
+        int cp;
+        if (b0 >= 0xC2 && b0 <= 0xDF) {
+            n = 2;
+            cp = b0 & 0x1F;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            n = 3;
+            cp = b0 & 0x0F;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            n = 4;
+            cp = b0 & 0x07;
+        } else {
+            return (1 << 24) | REPLACEMENT_CHAR;
+        }
+        for (int i = 1; i < n; i++) {
+            if (pos + i >= limit || (buf[pos + i] & 0xC0) != 0x80) {
+                return (i << 24) | REPLACEMENT_CHAR;
+            }
+            cp = (cp << 6) | (buf[pos + i] & 0x3F);
+        }
+        if ((n == 3 && (cp < 0x800 || (cp >= 0xD800 && cp <= 0xDFFF)))
+                || (n == 4 && (cp < 0x10000 || cp > 0x10FFFF))) {
+            return (n << 24) | REPLACEMENT_CHAR;
+        }
+        return (n << 24) | cp;
+    }
+
+    /**
+     * Reads more bytes into the buffer, discarding everything before the
+     * start of the current token.
+     * A fed lexer has nothing more to read until it's fed again, so unless
+     * its input has ended it gives up on the token.
+     *
+     * @return whether any bytes were added
+     * @throws IOException if the input could not be read
+     */
+    private boolean fill() throws IOException {
+        if (_eof) {
+            return false;
+        }
+        if (_fed) {
+            if (!_fedToEnd) {
+                throw Starved.INSTANCE;
+            }
+            _eof = true;
+            return false;
+        }
+        if (_tokStart > 0) {
+            compact(_tokStart);
+        } else if (_limit == _buf.length) {
+            byte[] bigger = new byte[_buf.length * 2];
+            System.arraycopy(_buf, 0, bigger, 0, _limit);
+            _buf = bigger;
+        }
+        int count;
+        if (_stream != null) {
+            count = _stream.read(_buf, _limit, _buf.length - _limit);
+        } else {
+            count = Math.min(_source.remaining(), _buf.length - _limit);
+            _source.get(_buf, _limit, count);
+            if (count == 0) {
+                count = -1;
+            }
+        }
+        if (count < 0) {
+            _eof = true;
+            return false;
+        }
+        _limit += count;
+        return true;
+    }
+
+    /**
+     * Moves the bytes from an index onward to the start of the buffer.
+     *
+     * @param from the index of the first byte to keep
+     */
+    private void compact(int from) {
+        if (from <= 0) {
+            return;
+        }
+        System.arraycopy(_buf, from, _buf, 0, _limit - from);
+        _base += from;
+        _pos -= from;
+        _tokStart -= from;
+        _tokEnd -= from;
+        _markPos -= from;
+        _limit -= from;
+    }
+
+    /**
+     * Thrown when a fed lexer runs out of bytes part way through a token.
+     * There's only one, and it has no stack trace, so it costs no more
+     * than a return.
+     */
+    private static final class Starved extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final Starved INSTANCE = new Starved();
+
+        private Starved() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The text of the current token, read straight out of the buffer.
+     * Pure ASCII is never copied; anything else is decoded once per token.
+     */
+    private final class TokenChars implements CharSequence {
+        private char[] _decoded = new char[0];
+        private int _decodedLength = -1;
+
+        void reset() {
+            _decodedLength = -1;
+        }
+
+        private void decodeToken() {
+            if (_decodedLength >= 0) {
+                return;
+            }
+            int max = _tokEnd - _tokStart;
+            if (_decoded.length < max) {
+                _decoded = new char[max];
+            }
+            int n = 0;
+            int i = _tokStart;
+            while (i < _tokEnd) {
+                int packed = decode(_buf, i, _tokEnd, _asciiOnly);
+                n += Character.toChars(packed & 0xFFFFFF, _decoded, n);
+                i += packed >>> 24;
+            }
+            _decodedLength = n;
+        }
+
+        @Override
+        public int length() {
+            if (_tokAscii) {
+                return _tokEnd - _tokStart;
+            }
+            decodeToken();
+            return _decodedLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            if (_tokAscii) {
+                return (char) _buf[_tokStart + index];
+            }
+            return _decoded[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+            if (_tokAscii) {
+                return new String(_buf, _tokStart + start, end - start,
+                        StandardCharsets.ISO_8859_1);
+            }
+            return new String(_decoded, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            if (_tokAscii) {
+                return new String(_buf, _tokStart, _tokEnd - _tokStart,
+                        StandardCharsets.ISO_8859_1);
+            }
+            decodeToken();
+            return new String(_decoded, 0, _decodedLength);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds bytes of interest a whole vector at a time.
+ * Most runs between stops are short, so each method first looks at a few
+ * bytes one at a time, and calls a separate method that loads vectors
+ * only if it finds nothing there; that keeps the first part small enough
+ * to inline into the structural scanner's loops.
+ * It then compares a vector of bytes against everything it's looking
+ * for at once, and leaves the bytes past the last whole vector to
+ * {@link ScalarByteScanner}.
+ * Only {@link ByteScanner} refers to this class, and only after making
+ * sure the {@code jdk.incubator.vector} module is there.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+final class VectorByteScanner {
+
+    private static final VectorSpecies<Byte> SPECIES
+            = ByteVector.SPECIES_PREFERRED;
+
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * How many bytes to look at one at a time before loading vectors.
+     */
+    private static final int PROLOGUE = 16;
+
+    private VectorByteScanner() {
+    }
+
+    /**
+     * Tells whether this processor's vectors are wide enough to be
+     * worth using.
+     */
+    static boolean isUseful() {
+        return SPECIES.vectorBitSize() >= 128;
+    }
+
+    static int findQuoteEscapeOrNewline(byte[] buf, int pos, int limit,
+            byte quote) {
+        int end = (limit - pos <= PROLOGUE) ? limit : pos + PROLOGUE;
+        int i = ScalarByteScanner.findQuoteEscapeOrNewline(buf, pos, end, quote);
+        if (i < end || i == limit) {
+            return i;
+        }
+        return findQuoteEscapeOrNewlineVector(buf, i, limit, quote);
+    }
+
+    private static int findQuoteEscapeOrNewlineVector(byte[] buf, int i, int limit,
+            byte quote) {
+        for (; i <= limit - LANES; i += LANES) {
+            ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+            VectorMask<Byte> stop = v.eq(quote)
+                    .or(v.eq((byte) '\\'))
+                    .or(v.eq((byte) '\n'))
+                    .or(v.eq((byte) '\r'));
+            if (stop.anyTrue()) {
+                return i + stop.firstTrue();
+            }
+        }
+        return ScalarByteScanner.findQuoteEscapeOrNewline(buf, i, limit, quote);
+    }
+
+    static int indexOf(byte[] buf, int pos, int limit, byte target) {
+        int end = (limit - pos <= PROLOGUE) ? limit : pos + PROLOGUE;
+        int i = ScalarByteScanner.indexOf(buf, pos, end, target);
+        if (i < end || i == limit) {
+            return i;
+        }
+        return indexOfVector(buf, i, limit, target);
+    }
+
+    private static int indexOfVector(byte[] buf, int i, int limit, byte target) {
+        for (; i <= limit - LANES; i += LANES) {
+            VectorMask<Byte> found
+                    = ByteVector.fromArray(SPECIES, buf, i).eq(target);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        return ScalarByteScanner.indexOf(buf, i, limit, target);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnAsyncPullParser}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnAsyncPullParserTest {
+
+    private static final String DOCUMENT
+            = "name = 'caf\u00e9 \u20ac\ud83d\ude00'\n"
+            + "config = { host = \"example.com\", port = 8080,\n"
+            + "  ratios = { 0.5, -2.5e-3, 0x10 }, [\"x\\ty\"] = true,\n"
+            + "  [3] = 'it\\'s', [1.5] = nil, \u00e9t\u00e9 = false }\n"
+            + "-- line \u00e9\nlong = --[=[ ] ]=]\n [==[\n\u00e9]]\n]==]\n"
+            + "last = \"\\u{1F600}\\n\"";
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Describes an event well enough to tell two parses apart.
+     */
+    private static String describe(EltnPullParser parser) {
+        EltnEvent event = parser.getEvent();
+        StringBuilder result = new StringBuilder();
+        result.append(event).append(' ').append(parser.getText())
+                .append(" @").append(parser.getTextLineNumber())
+                .append(':').append(parser.getTextColumnNumber())
+                .append('/').append(parser.getTextOffset());
+        switch (event) {
+            case VALUE_STRING:
+                result.append(" = ").append(parser.getString());
+                break;
+            case VALUE_INTEGER:
+            case VALUE_NUMBER:
+                result.append(" = ").append(parser.getNumber());
+                break;
+            default:
+                break;
+        }
+        return result.toString();
+    }
+
+    private static List<String> readAll(byte[] input) throws IOException {
+        EltnPullParser parser = EltnService.createPullParser(
+                ByteBuffer.wrap(input), StandardCharsets.UTF_8);
+        List<String> events = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            events.add(describe(parser));
+        }
+        return events;
+    }
+
+    /**
+     * Feeds a document in chunks of a fixed size, feeding the next chunk
+     * only when the parser asks for it.
+     */
+    private static List<String> readFed(byte[] input, int chunk)
+            throws IOException {
+        EltnAsyncPullParser parser = EltnService.createAsyncPullParser();
+        List<String> events = new ArrayList<>();
+        int fed = 0;
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent() == EltnEvent.NEED_MORE_INPUT) {
+                if (fed < input.length) {
+                    int n = Math.min(chunk, input.length - fed);
+                    parser.feed(ByteBuffer.wrap(input, fed, n));
+                    fed += n;
+                } else {
+                    parser.endOfInput();
+                }
+                continue;
+            }
+            events.add(describe(parser));
+        }
+        return events;
+    }
+
+    @Test
+    public void testOneByteAtATime() throws IOException {
+        byte[] input = bytes(DOCUMENT);
+        List<String> expected = readAll(input);
+        assertEquals(EltnEvent.STREAM_END.toString(),
+                expected.get(expected.size() - 1).split(" ")[0]);
+        assertEquals(expected, readFed(input, 1));
+    }
+
+    @Test
+    public void testChunkSizes() throws IOException {
+        byte[] input = bytes(DOCUMENT);
+        List<String> expected = readAll(input);
+        for (int chunk = 2; chunk <= input.length; chunk++) {
+            assertEquals("chunk " + chunk, expected, readFed(input, chunk));
+        }
+    }
+
+    @Test
+    public void testNeedMoreInputUntilEnd() throws IOException {
+        EltnAsyncPullParser parser = EltnService.createAsyncPullParser();
+        parser.next();
+        assertEquals(EltnEvent.NEED_MORE_INPUT, parser.getEvent());
+        assertTrue(parser.hasNext());
+
+        /* a number might go on, so it isn't finished until more comes */
+        parser.feed(ByteBuffer.wrap(bytes("x = 1")));
+        parser.next();
+        assertEquals(EltnEvent.DEF_NAME, parser.getEvent());
+        parser.next();
+        assertEquals(EltnEvent.NEED_MORE_INPUT, parser.getEvent());
+
+        /* stop after the first byte of a two-byte sequence in a string */
+        byte[] rest = bytes("\ny = \"\u00e9\"");
+        parser.feed(ByteBuffer.wrap(rest, 0, rest.length - 2));
+        parser.next();
+        assertEquals(EltnEvent.VALUE_INTEGER, parser.getEvent());
+        assertEquals(1L, parser.getLong());
+        parser.next();
+        assertEquals(EltnEvent.DEF_NAME, parser.getEvent());
+        assertEquals("y", parser.getText().toString());
+        parser.next();
+        assertEquals(EltnEvent.NEED_MORE_INPUT, parser.getEvent());
+
+        parser.feed(ByteBuffer.wrap(rest, rest.length - 2, 1));
+        parser.next();
+        assertEquals(EltnEvent.NEED_MORE_INPUT, parser.getEvent());
+
+        parser.feed(ByteBuffer.wrap(rest, rest.length - 1, 1));
+        parser.next();
+        assertEquals(EltnEvent.VALUE_STRING, parser.getEvent());
+        assertEquals("\u00e9", parser.getString());
+        assertEquals(2, parser.getTextLineNumber());
+        assertEquals(5, parser.getTextColumnNumber());
+        parser.next();
+        assertEquals(EltnEvent.NEED_MORE_INPUT, parser.getEvent());
+
+        parser.endOfInput();
+        parser.next();
+        assertEquals(EltnEvent.STREAM_END, parser.getEvent());
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    public void testSkipValueAcrossFeeds() throws IOException {
+        byte[] input = bytes("a = { 'x', { '}' }, -- }\n"
+                + "[[ } ]] }\nb = 2\n");
+        EltnAsyncPullParser parser = EltnService.createAsyncPullParser();
+        int fed = 0;
+        List<String> events = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent() == EltnEvent.NEED_MORE_INPUT) {
+                if (fed < input.length) {
+                    parser.feed(ByteBuffer.wrap(input, fed++, 1));
+                } else {
+                    parser.endOfInput();
+                }
+                continue;
+            }
+            events.add(parser.getEvent() + " " + parser.getText());
+            if (parser.getEvent() == EltnEvent.DEF_NAME
+                    && "a".contentEquals(parser.getText())) {
+                parser.skipValue();
+                if (parser.getEvent() != EltnEvent.NEED_MORE_INPUT) {
+                    events.add(parser.getEvent() + " " + parser.getText());
+                }
+            }
+        }
+        assertEquals(List.of("DEF_NAME a", "TABLE_END }", "DEF_NAME b",
+                "VALUE_INTEGER 2", "STREAM_END "), events);
+    }
+
+    @Test
+    public void testBrokenQuotedString() throws IOException {
+        for (String text : new String[]{"a = 'unterminated", "a = 'two\nlines'"}) {
+            List<String> events = readFed(bytes(text), 1);
+            assertEquals(text, EltnEvent.ERROR.toString(),
+                    events.get(events.size() - 1).split(" ")[0]);
+            assertEquals(text, readAll(bytes(text)), events);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFeedAfterEnd() {
+        EltnAsyncPullParser parser = EltnService.createAsyncPullParser();
+        parser.endOfInput();
+        parser.feed(ByteBuffer.wrap(bytes("x = 1")));
+    }
+}
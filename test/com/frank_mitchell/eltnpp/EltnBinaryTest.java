@@ -0,0 +1,352 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for binary ELTN: conversion, detection, and parsing.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnBinaryTest {
+
+    private static final String DOCUMENT
+            = "-- settings\n"
+            + "name = \"server\"\n"
+            + "port = 8080; ratio = -2.5; hex = 0x10\n"
+            + "flags = { true, false, nil, -7 }\n"
+            + "nested = { a = { b = { \"x\\ty\", 1e300 } }, [\"two words\"] = 2,"
+            + " [10] = \"ten\", [2.5] = \"half\", a = 'again' }\n"
+            + "text = \"caf\\u{E9} \\u{1047F}\"\n";
+
+    private static byte[] toBinary(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EltnService.copy(EltnService.createPullParser(new StringReader(text)),
+                EltnService.createBinaryWriter(out));
+        return out.toByteArray();
+    }
+
+    private static EltnPullParser binaryParser(byte[] bytes)
+            throws IOException {
+        return EltnService.createPullParser(ByteBuffer.wrap(bytes),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Describes each event a parser reports, less comments, with what a
+     * reader of that event would ask for.
+     */
+    private static List<String> events(EltnPullParser parser)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            EltnEvent event = parser.getEvent();
+            StringBuilder buf = new StringBuilder();
+            buf.append(event).append(' ').append(parser.getDepth());
+            switch (event) {
+                case COMMENT:
+                    continue;
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                case VALUE_STRING:
+                    buf.append(' ').append(parser.getString());
+                    break;
+                case TABLE_KEY_INTEGER:
+                case VALUE_INTEGER:
+                    buf.append(' ').append(parser.getLong());
+                    break;
+                case TABLE_KEY_NUMBER:
+                case VALUE_NUMBER:
+                    buf.append(' ').append(parser.getDouble());
+                    break;
+                case ERROR:
+                    buf.append(' ').append(parser.getError());
+                    break;
+                default:
+                    break;
+            }
+            buf.append(' ').append(parser.getCurrentKeyType())
+                    .append(' ').append(parser.getCurrentPath());
+            result.add(buf.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void testSameEvents() throws IOException {
+        List<String> expected = events(EltnService.createPullParser(
+                new StringReader(DOCUMENT)));
+        byte[] bytes = toBinary(DOCUMENT);
+        assertEquals(expected, events(binaryParser(bytes)));
+        assertEquals(expected, events(EltnService.createPullParser(
+                new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSingleTable() throws IOException {
+        String text = "{ 1, 2, k = { \"v\" } }";
+        List<String> expected = events(EltnService.createPullParser(
+                new StringReader(text)));
+        assertEquals(expected, events(binaryParser(toBinary(text))));
+    }
+
+    @Test
+    public void testText() throws IOException {
+        EltnPullParser parser = binaryParser(toBinary(
+                "a = { [\"two words\"] = \"say \\\"hi\\\"\", [3] = 1.5 }"));
+        parser.next();
+        assertEquals("a", parser.getText().toString());
+        parser.next();
+        assertEquals("{", parser.getText().toString());
+        parser.next();
+        assertEquals("\"two words\"", parser.getText().toString());
+        assertEquals("a[\"two words\"]", parser.getCurrentPath().toString());
+        parser.next();
+        assertEquals("\"say \\\"hi\\\"\"", parser.getText().toString());
+        assertEquals("say \"hi\"", parser.getString());
+        parser.next();
+        assertEquals("3", parser.getText().toString());
+        parser.next();
+        assertEquals("1.5", parser.getText().toString());
+        assertEquals("a[3]", parser.getCurrentPath().toString());
+        assertEquals(-1, parser.getTextLineNumber());
+        assertTrue(parser.getTextOffset() > 0);
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        StringBuilder text = new StringBuilder("list = {");
+        for (int i = 0; i < 100; i++) {
+            text.append(" { identifier = ").append(i).append(" },");
+        }
+        text.append(" }");
+        byte[] bytes = toBinary(text.toString());
+        byte[] key = "identifier".getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + key.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + key.length, key, 0, key.length)) {
+                count++;
+            }
+        }
+        assertEquals(1, count);
+        assertTrue(bytes.length < text.length() / 2);
+
+        EltnSymbolTable symbols = new EltnSymbolTable();
+        EltnPullParser parser = EltnService.getParserFactory(
+                StandardCharsets.UTF_8).withSymbolTable(symbols).createParser(
+                        ByteBuffer.wrap(bytes), StandardCharsets.UTF_8);
+        String first = null;
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent() == EltnEvent.TABLE_KEY_STRING) {
+                if (first == null) {
+                    first = parser.getString();
+                }
+                assertSame(first, parser.getString());
+            }
+        }
+        assertSame(first, symbols.intern("identifier"));
+    }
+
+    @Test
+    public void testSkipAndMatch() throws IOException {
+        EltnKeySet keys = EltnKeySet.of("port", "name");
+        EltnPullParser parser = binaryParser(toBinary(DOCUMENT));
+        List<String> seen = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent() == EltnEvent.DEF_NAME) {
+                switch (parser.matchKey(keys)) {
+                    case 0:
+                        parser.next();
+                        seen.add("port " + parser.getLong());
+                        break;
+                    case 1:
+                        parser.next();
+                        seen.add("name " + parser.getString());
+                        break;
+                    default:
+                        parser.skipValue();
+                        break;
+                }
+            }
+        }
+        assertEquals(EltnEvent.STREAM_END, parser.getEvent());
+        assertEquals(Arrays.asList("name server", "port 8080"), seen);
+    }
+
+    @Test
+    public void testReadDocument() throws IOException {
+        EltnTable text = EltnValue.readDocument(EltnService.createPullParser(
+                new StringReader(DOCUMENT)));
+        EltnTable binary = EltnValue.readDocument(
+                binaryParser(toBinary(DOCUMENT)));
+        assertEquals(text.toString(), binary.toString());
+        assertEquals("caf\u00e9 \ud801\udc7f", binary.get("text"));
+    }
+
+    @Test
+    public void testBackToText() throws IOException {
+        StringWriter out = new StringWriter();
+        EltnService.copy(binaryParser(toBinary(DOCUMENT)),
+                EltnService.createWriter(out));
+        List<String> expected = events(EltnService.createPullParser(
+                new StringReader(DOCUMENT)));
+        assertEquals(expected, events(EltnService.createPullParser(
+                new StringReader(out.toString()))));
+    }
+
+    /**
+     * Hands out a few bytes at a time, and can't mark.
+     */
+    private static final class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 3));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'z');
+        String text = "big = \"" + new String(chars) + "\"; after = { 1 }";
+        byte[] bytes = toBinary(text);
+        List<String> expected = events(EltnService.createPullParser(
+                new StringReader(text)));
+        assertEquals(expected, events(EltnService.createPullParser(
+                new TrickleInputStream(new ByteArrayInputStream(bytes)),
+                StandardCharsets.UTF_8)));
+
+        /* text still parses through a stream that can't mark */
+        assertEquals(expected, events(EltnService.createPullParser(
+                new TrickleInputStream(new ByteArrayInputStream(
+                        text.getBytes(StandardCharsets.UTF_8))),
+                StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Path file = Files.createTempFile("eltn", ".bin");
+        try {
+            Files.write(file, toBinary(DOCUMENT));
+            List<String> expected = events(EltnService.createPullParser(
+                    new StringReader(DOCUMENT)));
+            assertEquals(expected, events(EltnService.createPullParser(file)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        byte[] bytes = toBinary("a = { 1, 2 }");
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        List<String> events = events(binaryParser(truncated));
+        assertTrue(events.get(events.size() - 1).startsWith("ERROR 1 STREAM_END"));
+
+        byte[] badTag = bytes.clone();
+        badTag[bytes.length - 1] = 0x7F;
+        events = events(binaryParser(badTag));
+        assertTrue(events.get(events.size() - 1).startsWith("ERROR 1 INVALID_TOKEN"));
+
+        byte[] badVersion = bytes.clone();
+        badVersion[5] = 99;
+        events = events(binaryParser(badVersion));
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).startsWith("ERROR 0 INVALID_TOKEN"));
+
+        /* little-endian 1.5 ends F8 3F; infinity ends F0 7F */
+        byte[] infinite = toBinary("a = 1.5");
+        infinite[infinite.length - 2] = (byte) 0xF0;
+        infinite[infinite.length - 1] = 0x7F;
+        events = events(binaryParser(infinite));
+        assertTrue(events.get(events.size() - 1).startsWith("ERROR 0 INVALID_TOKEN"));
+    }
+
+    @Test
+    public void testHostileLength() throws IOException {
+        /* a string claiming a length near 2 GiB, then nothing */
+        byte[] bytes = { 0x1B, 'E', 'L', 'T', 'N', 1, 0x0D,
+                (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        List<String> events = events(EltnService.createPullParser(
+                new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+        assertTrue(events.get(events.size() - 1).startsWith("ERROR"));
+        assertTrue(events.get(events.size() - 1).contains("STREAM_END"));
+        events = events(binaryParser(bytes));
+        assertTrue(events.get(events.size() - 1).contains("STREAM_END"));
+    }
+
+    @Test
+    public void testCreateDoesNotRead() throws IOException {
+        PipedOutputStream out = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(out);
+        out.write("a=1".getBytes(StandardCharsets.UTF_8));
+        /* would block on a header read with the writer still open */
+        EltnPullParser parser = EltnService.createPullParser(in,
+                StandardCharsets.UTF_8);
+        assertEquals(EltnEvent.STREAM_START, parser.getEvent());
+        out.close();
+        assertEquals(events(EltnService.createPullParser(
+                new StringReader("a=1"))), events(parser));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriterChecksStructure() throws IOException {
+        EltnWriter writer = EltnService.createBinaryWriter(
+                new ByteArrayOutputStream());
+        writer.writeDefName("a");
+        writer.writeKey("b");
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the flight recorder events parsers emit.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnFlightRecorderTest {
+
+    private static final String PREFIX = "com.frank_mitchell.eltnpp.";
+    private static final String DOCUMENT_START = PREFIX + "DocumentStart";
+    private static final String DOCUMENT = PREFIX + "Document";
+    private static final String SLOW_PARSE = PREFIX + "SlowParse";
+    private static final String THROUGHPUT = PREFIX + "Throughput";
+
+    private static final String TEXT = "a = 'x'; b = { 1, 2, k = true }";
+
+    private interface Parsing {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs some parsing during a recording and gets this library's events.
+     */
+    private static List<RecordedEvent> record(Recording recording,
+            Parsing parsing) throws IOException {
+        Path file = Files.createTempFile("eltn", ".jfr");
+        try {
+            recording.start();
+            parsing.run();
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> result = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith(PREFIX)) {
+                    result.add(event);
+                }
+            }
+            return result;
+        } finally {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events,
+            String name) {
+        List<RecordedEvent> result = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a parser to the end and counts the events it reports.
+     */
+    private static long readAll(EltnPullParser parser) throws IOException {
+        long count = 0;
+        while (parser.hasNext()) {
+            parser.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDisabledByDefault() throws IOException {
+        List<RecordedEvent> events = record(new Recording(), () -> {
+            readAll(EltnService.createPullParser(new StringReader(TEXT)));
+        });
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testDocumentEvents() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(DOCUMENT_START);
+        recording.enable(DOCUMENT);
+        long[] counts = new long[2];
+        List<RecordedEvent> events = record(recording, () -> {
+            counts[0] = readAll(EltnService.createPullParser(utf8(TEXT),
+                    StandardCharsets.UTF_8));
+            counts[1] = readAll(EltnService.createPullParser(
+                    new StringReader(TEXT)));
+            readAll(EltnService.createPullParser(new StringReader("a = }")));
+        });
+
+        List<RecordedEvent> starts = named(events, DOCUMENT_START);
+        assertEquals(3, starts.size());
+        assertEquals("ByteBuffer", starts.get(0).getString("source"));
+        assertEquals("Reader", starts.get(1).getString("source"));
+
+        List<RecordedEvent> documents = named(events, DOCUMENT);
+        assertEquals(3, documents.size());
+
+        RecordedEvent bytes = documents.get(0);
+        assertEquals("ByteBuffer", bytes.getString("source"));
+        assertEquals("COMPLETE", bytes.getString("outcome"));
+        assertEquals(TEXT.length(), bytes.getLong("bytes"));
+        assertEquals(0, bytes.getLong("codePoints"));
+        assertEquals(counts[0], bytes.getLong("events"));
+        assertFalse(bytes.getDuration().isNegative());
+
+        RecordedEvent chars = documents.get(1);
+        assertEquals("Reader", chars.getString("source"));
+        assertEquals("COMPLETE", chars.getString("outcome"));
+        assertEquals(0, chars.getLong("bytes"));
+        assertEquals(TEXT.length(), chars.getLong("codePoints"));
+        assertEquals(counts[1], chars.getLong("events"));
+
+        RecordedEvent failed = documents.get(2);
+        assertEquals(EltnError.UNEXPECTED_TOKEN.name(),
+                failed.getString("outcome"));
+        assertEquals(2, failed.getLong("events"));
+    }
+
+    @Test
+    public void testAbandonedAndFed() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(DOCUMENT);
+        List<RecordedEvent> events = record(recording, () -> {
+            EltnPullParser parser = EltnService.createPullParser(
+                    new StringReader(TEXT));
+            parser.next();
+            parser.reset(new StringReader(TEXT));
+            readAll(parser);
+
+            EltnAsyncPullParser async = EltnService.getParserFactory(
+                    StandardCharsets.UTF_8).createAsyncParser(
+                            StandardCharsets.UTF_8);
+            async.feed(utf8(TEXT));
+            async.endOfInput();
+            readAll(async);
+        });
+
+        List<RecordedEvent> documents = named(events, DOCUMENT);
+        assertEquals(3, documents.size());
+        assertEquals("ABANDONED", documents.get(0).getString("outcome"));
+        assertEquals(1, documents.get(0).getLong("events"));
+        assertEquals("COMPLETE", documents.get(1).getString("outcome"));
+        assertEquals("Fed", documents.get(2).getString("source"));
+        assertEquals("COMPLETE", documents.get(2).getString("outcome"));
+        assertEquals(TEXT.length(), documents.get(2).getLong("bytes"));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Path file = Files.createTempFile("eltn", ".eltn");
+        try {
+            Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+            Recording recording = new Recording();
+            recording.enable(DOCUMENT);
+            List<RecordedEvent> events = record(recording, () -> {
+                readAll(EltnService.createPullParser(file,
+                        StandardCharsets.UTF_8));
+            });
+            List<RecordedEvent> documents = named(events, DOCUMENT);
+            assertEquals(1, documents.size());
+            assertEquals("MappedFile", documents.get(0).getString("source"));
+            assertEquals(TEXT.length(), documents.get(0).getLong("bytes"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSlowParseThreshold() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(SLOW_PARSE).withThreshold(Duration.ofHours(1));
+        List<RecordedEvent> events = record(recording, () -> {
+            readAll(EltnService.createPullParser(new StringReader(TEXT)));
+        });
+        assertTrue(events.isEmpty());
+
+        recording = new Recording();
+        recording.enable(SLOW_PARSE).withThreshold(Duration.ZERO);
+        events = record(recording, () -> {
+            EltnPullParser parser = EltnService.createPullParser(
+                    new StringReader(TEXT));
+            parser.next();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readAll(parser);
+        });
+        List<RecordedEvent> slow = named(events, SLOW_PARSE);
+        assertEquals(1, slow.size());
+        assertEquals("COMPLETE", slow.get(0).getString("outcome"));
+        assertTrue(slow.get(0).getDuration().toMillis() >= 20);
+    }
+
+    @Test
+    public void testThroughput() throws IOException {
+        /* the periodic event only runs if a parser ran before recording */
+        readAll(EltnService.createPullParser(new StringReader(TEXT)));
+        Recording recording = new Recording();
+        recording.enable(THROUGHPUT).withPeriod(Duration.ofMillis(50));
+        List<RecordedEvent> events = record(recording, () -> {
+            for (int i = 0; i < 10; i++) {
+                readAll(EltnService.createPullParser(utf8(TEXT),
+                        StandardCharsets.UTF_8));
+            }
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long documents = 0;
+        long bytes = 0;
+        for (RecordedEvent event : named(events, THROUGHPUT)) {
+            documents += event.getLong("documents");
+            bytes += event.getLong("bytes");
+        }
+        assertEquals(10, documents);
+        assertEquals(10 * TEXT.length(), bytes);
+    }
+}
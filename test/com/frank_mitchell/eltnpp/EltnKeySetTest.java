@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnKeySet} and {@link EltnPullParser#matchKey}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnKeySetTest {
+
+    private static final EltnKeySet KEYS
+            = EltnKeySet.of("host", "port", "a\tb", "caf\u00e9", "x y");
+
+    private static final String TEXT
+            = "host = 1\n"
+            + "t = { port = 2, ['x y'] = 3, [\"a\\tb\"] = 4, caf\u00e9 = 5,"
+            + " [\"host\"] = 6, hostname = 7, [1] = 8, 'port' }\n";
+
+    @Test
+    public void testIndexOf() {
+        assertEquals(5, KEYS.size());
+        assertEquals("port", KEYS.get(1));
+        assertEquals(0, KEYS.indexOf("host"));
+        assertEquals(0, KEYS.indexOf(new StringBuilder("host")));
+        assertEquals(1, KEYS.indexOf("[port]", 1, 5));
+        assertEquals(3, KEYS.indexOf("caf\u00e9"));
+        assertEquals(-1, KEYS.indexOf("hos"));
+        assertEquals(-1, KEYS.indexOf(""));
+        assertEquals(-1, EltnKeySet.of().indexOf("host"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicate() {
+        EltnKeySet.of("a", "b", "a");
+    }
+
+    private static List<Integer> matches(EltnPullParser parser)
+            throws IOException {
+        List<Integer> result = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            int index = parser.matchKey(KEYS);
+            switch (parser.getEvent()) {
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                    result.add(index);
+                    break;
+                default:
+                    assertEquals(-1, index);
+                    break;
+            }
+        }
+        assertEquals(EltnEvent.STREAM_END, parser.getEvent());
+        return result;
+    }
+
+    @Test
+    public void testMatchKey() throws IOException {
+        List<Integer> expected = List.of(0, -1, 1, 4, 2, 3, 0, -1);
+        assertEquals(expected, matches(EltnService.createPullParser(
+                new StringReader(TEXT))));
+        assertEquals(expected, matches(EltnService.createPullParser(
+                ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8)));
+    }
+}
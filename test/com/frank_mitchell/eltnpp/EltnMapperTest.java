@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnMapper}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnMapperTest {
+
+    public enum Mode {
+        FAST, SAFE
+    }
+
+    public static class Server {
+        public String host;
+        public int port;
+        public boolean tls;
+        public Mode mode;
+        public List<String> aliases;
+    }
+
+    public static class Config {
+        public Server server;
+        public long[] retries;
+        public double[] ratios;
+        public Map<String, Integer> limits;
+        public Set<Mode> modes;
+        public Object extra;
+        private float scale = 1.0f;
+        transient int ignored = -1;
+
+        float getScale() {
+            return scale;
+        }
+    }
+
+    public static class Node {
+        public String name;
+        public Node[] children;
+    }
+
+    private static EltnPullParser parser(String text) throws IOException {
+        return EltnService.createPullParser(new StringReader(text));
+    }
+
+    @Test
+    public void testReadDocument() throws IOException {
+        Config config = EltnMapper.read(parser(
+                "server = { host = -- primary\n 'example.com', port = 8080, tls = true,\n"
+                + "  mode = 'SAFE', aliases = { 'a', \"b\" }, unknown = { 1, { 2 } } }\n"
+                + "retries = { 1, 2, 4 }\n"
+                + "ratios = { 0.5, 1 }\n"
+                + "limits = { cpu = --[[ cores ]] 4, ['mem'] = 1024 }\n"
+                + "modes = { 'FAST', 'FAST' }\n"
+                + "extra = { 1, x = 'y' }\n"
+                + "scale = 2.5 ignored = 7\n"), Config.class);
+        assertEquals("example.com", config.server.host);
+        assertEquals(8080, config.server.port);
+        assertTrue(config.server.tls);
+        assertEquals(Mode.SAFE, config.server.mode);
+        assertEquals(List.of("a", "b"), config.server.aliases);
+        assertArrayEquals(new long[] {1, 2, 4}, config.retries);
+        assertArrayEquals(new double[] {0.5, 1.0}, config.ratios, 0.0);
+        assertEquals(Map.of("cpu", 4, "mem", 1024), config.limits);
+        assertEquals(Set.of(Mode.FAST), config.modes);
+        assertEquals("y", ((EltnTable) config.extra).get("x"));
+        assertEquals(2.5f, config.getScale(), 0.0f);
+        assertEquals(-1, config.ignored);
+    }
+
+    @Test
+    public void testReadValue() throws IOException {
+        EltnPullParser p = parser("tree = --[[ root ]] { name = 'root', children = {\n"
+                + "  { name = 'leaf' }, { name = 'branch', children = { { } } } } }");
+        p.next();
+        Node root = EltnMapper.read(p, Node.class);
+        assertEquals(EltnEvent.TABLE_END, p.getEvent());
+        assertEquals("root", root.name);
+        assertEquals(2, root.children.length);
+        assertEquals("leaf", root.children[0].name);
+        assertNull(root.children[0].children);
+        assertNull(root.children[1].children[0].name);
+    }
+
+    @Test
+    public void testReadPrimitive() throws IOException {
+        EltnPullParser p = parser("a = 42 b = 2.5 c = true");
+        p.next();
+        p.next();
+        int a = EltnMapper.read(p, int.class);
+        assertEquals(42, a);
+        p.next();
+        p.next();
+        assertEquals(2.5, EltnMapper.read(p, double.class), 0.0);
+        p.next();
+        p.next();
+        assertEquals(Boolean.TRUE, EltnMapper.read(p, boolean.class));
+    }
+
+    @Test
+    public void testNil() throws IOException {
+        Server server = EltnMapper.read(parser(
+                "port = nil host = nil aliases = nil"), Server.class);
+        assertEquals(0, server.port);
+        assertNull(server.host);
+        assertNull(server.aliases);
+    }
+
+    @Test
+    public void testTypeMismatch() throws IOException {
+        assertMismatch("port = 'eighty'");
+        assertMismatch("port = 1.5");
+        assertMismatch("port = 0x100000000");
+        assertMismatch("mode = 'SLOW'");
+        assertMismatch("aliases = { x = 'y' }");
+        assertMismatch("host = { }");
+    }
+
+    private static void assertMismatch(String text) throws IOException {
+        try {
+            EltnMapper.read(parser(text), Server.class);
+            fail("read " + text);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 1"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() throws IOException {
+        EltnMapper.read(parser("x = 1"), Runnable.class);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnParallelReader}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnParallelReaderTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String generate(int definitions) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < definitions; i++) {
+            text.append("def").append(i % 300).append(" = { id = ").append(i)
+                    .append(", name = 'x = {").append(i).append("', ratio = ")
+                    .append(i / 8.0).append(", tags = { 'a', \"b\\\"}\" } }\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testDefinitionOffsets() {
+        String text = "a = 1\n"
+                + "b = 'c = 2' -- d = 3\n"
+                + "e = { f = { g = \"}\" } } --[[ h = 4 ]] i = [==[ j = ]] ]==]\n"
+                + "k = { [ [[l]] ] = true, ['m'] = 0x1p-4 } n=-1.5e+3";
+        int[] offsets = EltnParallelReader.definitionOffsets(utf8(text));
+        StringBuilder names = new StringBuilder();
+        for (int offset : offsets) {
+            names.append(text.charAt(offset));
+        }
+        assertEquals("abeikn", names.toString());
+    }
+
+    @Test
+    public void testRanges() {
+        ByteBuffer buffer = utf8(generate(1000));
+        int[] ranges = EltnParallelReader.ranges(buffer, 16, 1024);
+        assertEquals(16, ranges.length);
+        assertEquals(0, ranges[0]);
+        assertEquals(1, EltnParallelReader.ranges(buffer, 16, 1 << 20).length);
+    }
+
+    @Test
+    public void testReadDefinitions() throws IOException {
+        String text = generate(1000);
+        ByteBuffer buffer = utf8(text);
+        List<String> names = EltnParallelReader.readDefinitions(buffer,
+                EltnPullParser::getString, POOL, 1024);
+        assertEquals(1000, names.size());
+        assertEquals("def299", names.get(299));
+        assertEquals("def0", names.get(300));
+        assertEquals(0, buffer.position());
+
+        List<Object> values = EltnParallelReader.readDefinitions(buffer,
+                EltnValue::read, POOL, 1024);
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals((long) i, ((EltnTable) values.get(i)).get("id"));
+        }
+    }
+
+    @Test
+    public void testTwoRanges() throws IOException {
+        String text = generate(100);
+        ByteBuffer buffer = utf8(text);
+        int half = buffer.remaining() / 2;
+        assertEquals(2, EltnParallelReader.ranges(buffer, 16, half).length);
+
+        Thread caller = Thread.currentThread();
+        List<Boolean> inPool = EltnParallelReader.readDefinitions(buffer,
+                p -> Thread.currentThread() != caller, POOL, half);
+        assertEquals(100, inPool.size());
+        assertFalse(inPool.contains(Boolean.FALSE));
+    }
+
+    @Test
+    public void testSameAsSequential() throws IOException {
+        String text = generate(1000);
+        EltnTable expected = EltnValue.readDocument(
+                EltnService.createPullParser(new StringReader(text)));
+        List<Object[]> definitions = EltnParallelReader.readDefinitions(
+                utf8(text), p -> new Object[] {p.getString(), EltnValue.read(p)},
+                POOL, 1024);
+        EltnTable actual = new EltnTable();
+        for (Object[] definition : definitions) {
+            actual.set(definition[0], definition[1]);
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testErrorInRange() {
+        String text = generate(1000) + "oops = { 1, 2\n" + generate(10);
+        try {
+            EltnParallelReader.readDefinitions(utf8(text), EltnValue::read,
+                    POOL, 1024);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("starting at byte"));
+        }
+    }
+}
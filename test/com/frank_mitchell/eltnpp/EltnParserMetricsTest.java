@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnParserMetrics}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnParserMetricsTest {
+
+    private static final String DOCUMENT
+            = "a = 'x\\ty'; b = { 1, { 2.5, \"s\" }, k = true }\nc = [[long]]";
+
+    private static EltnPullParserFactory factory(EltnParserMetrics metrics) {
+        return EltnService.getParserFactory(StandardCharsets.UTF_8)
+                .withMetrics(metrics);
+    }
+
+    private static void readAll(EltnPullParser parser, boolean strings)
+            throws IOException {
+        while (parser.hasNext()) {
+            parser.next();
+            if (strings && parser.getEvent() == EltnEvent.VALUE_STRING) {
+                parser.getString();
+            }
+        }
+    }
+
+    @Test
+    public void testCounts() throws IOException {
+        EltnParserMetrics metrics = new EltnParserMetrics();
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        readAll(factory(metrics).createParser(ByteBuffer.wrap(bytes),
+                StandardCharsets.UTF_8), true);
+
+        assertEquals(1, metrics.getDocuments());
+        assertEquals(bytes.length, metrics.getBytes());
+        assertEquals(0, metrics.getCodePoints());
+        assertEquals(2, metrics.getMaxDepth());
+
+        Map<String, Long> events = metrics.getEventCounts();
+        assertEquals(Long.valueOf(3), events.get("DEF_NAME"));
+        assertEquals(Long.valueOf(2), events.get("TABLE_START"));
+        assertEquals(Long.valueOf(3), events.get("VALUE_STRING"));
+        assertEquals(Long.valueOf(1), events.get("STREAM_END"));
+
+        Map<String, Long> tokens = metrics.getTokenCounts();
+        assertEquals(Long.valueOf(2), tokens.get("TOKEN_QUOTED_STRING"));
+        assertEquals(Long.valueOf(1), tokens.get("TOKEN_LONG_STRING"));
+        assertEquals(Long.valueOf(4), tokens.get("TOKEN_EQUALS"));
+
+        /* three values decoded; three names and one key skipped */
+        assertEquals(3, metrics.getStringsDecoded());
+        assertEquals(4, metrics.getStringsSkipped());
+        assertTrue(metrics.getErrorCounts().isEmpty());
+    }
+
+    @Test
+    public void testCodePointsAndErrors() throws IOException {
+        EltnParserMetrics metrics = new EltnParserMetrics();
+        EltnPullParserFactory factory = factory(metrics);
+        readAll(factory.createParser(new StringReader("\u00e9 = '\ud801\udc7f'")),
+                false);
+        assertEquals(7, metrics.getCodePoints());
+        assertEquals(0, metrics.getBytes());
+        assertEquals(2, metrics.getStringsSkipped());
+
+        readAll(factory.createParser(new StringReader("a = { 1 2 }")), false);
+        assertEquals(2, metrics.getDocuments());
+        assertEquals(Long.valueOf(1),
+                metrics.getErrorCounts().get("UNEXPECTED_TOKEN"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getDocuments());
+        assertTrue(metrics.getEventCounts().isEmpty());
+    }
+
+    @Test
+    public void testResetRecordsUnfinishedDocument() throws IOException {
+        EltnParserMetrics metrics = new EltnParserMetrics();
+        EltnPullParserFactory factory = factory(metrics).withParserReuse();
+        EltnPullParser parser = factory.createParser(
+                new StringReader(DOCUMENT));
+        parser.next();
+        parser.next();
+        assertEquals(0, metrics.getDocuments());
+
+        assertSame(parser, factory.createParser(new StringReader("x = 1")));
+        assertEquals(1, metrics.getDocuments());
+        assertEquals(Long.valueOf(1), metrics.getEventCounts().get("DEF_NAME"));
+        readAll(parser, false);
+        assertEquals(2, metrics.getDocuments());
+    }
+
+    @Test
+    public void testTimers() throws IOException {
+        EltnParserMetrics metrics = new EltnParserMetrics(1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(DOCUMENT).append('\n');
+        }
+        readAll(factory(metrics).createParser(
+                new StringReader(text.toString())), true);
+
+        assertTrue(metrics.getDecodeNanos() > 0);
+        assertTrue(metrics.getLexNanos() > 0);
+        assertTrue(metrics.getParseNanos() > 0);
+        assertTrue(metrics.getUnescapeNanos() > 0);
+        assertEquals(metrics.getNanos(EltnParserMetrics.Phase.LEX),
+                metrics.getLexNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleIntervalPowerOfTwo() {
+        new EltnParserMetrics(48);
+    }
+
+    @Test
+    public void testMXBean() throws IOException, JMException {
+        EltnParserMetrics metrics = new EltnParserMetrics();
+        readAll(factory(metrics).createParser(new StringReader(DOCUMENT)),
+                false);
+        ObjectName name = metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Documents"));
+            TabularData events
+                    = (TabularData) server.getAttribute(name, "EventCounts");
+            assertEquals(3L, events.get(new Object[] {"DEF_NAME"})
+                    .get("value"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(name));
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.codepoint.CodePoint;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link EltnPullParser#reset(java.io.Reader)} and
+ * {@link EltnPullParserFactory#withParserReuse()}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnParserReuseTest {
+
+    private static final String FIRST
+            = "name = 'caf\u00e9'\nconfig = { port = 8080, { 1, 2 } }";
+
+    private static final String SECOND
+            = "{ [1.5] = \"x\\ty\", [[long]], -- comment\n ok = true }";
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> events(EltnPullParser parser)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            result.add(parser.getEvent() + " " + parser.getText()
+                    + " " + parser.getCurrentPath()
+                    + " @" + parser.getTextLineNumber()
+                    + ":" + parser.getTextColumnNumber());
+        }
+        return result;
+    }
+
+    private static List<String> fresh(String text) throws IOException {
+        return events(EltnService.createPullParser(new StringReader(text)));
+    }
+
+    @Test
+    public void testResetEverySource() throws IOException {
+        EltnPullParser parser = EltnService.createPullParser(
+                new StringReader(FIRST));
+        assertEquals(fresh(FIRST), events(parser));
+
+        parser.reset(ByteBuffer.wrap(bytes(SECOND)), StandardCharsets.UTF_8);
+        assertEquals(EltnEvent.STREAM_START, parser.getEvent());
+        assertEquals(fresh(SECOND), events(parser));
+
+        parser.reset(new ByteArrayInputStream(bytes(FIRST)),
+                StandardCharsets.UTF_8);
+        assertEquals(fresh(FIRST), events(parser));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes(SECOND).length);
+        direct.put(bytes(SECOND)).flip();
+        parser.reset(direct, StandardCharsets.UTF_8);
+        assertEquals(fresh(SECOND), events(parser));
+
+        parser.reset(new ByteArrayInputStream(
+                SECOND.getBytes(StandardCharsets.ISO_8859_1)),
+                StandardCharsets.ISO_8859_1);
+        assertEquals(fresh(SECOND), events(parser));
+
+        parser.reset(CodePoint.getSource(new StringReader(SECOND),
+                StandardCharsets.UTF_16));
+        assertEquals(fresh(SECOND), events(parser));
+
+        parser.reset(new StringReader(FIRST));
+        assertEquals(fresh(FIRST), events(parser));
+    }
+
+    @Test
+    public void testResetMidDocument() throws IOException {
+        EltnPullParser parser = EltnService.createPullParser(
+                new StringReader("a = { b = { c = { 1 2 } } }"));
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        assertEquals(EltnEvent.ERROR, parser.getEvent());
+        assertEquals(3, parser.getDepth());
+
+        parser.reset(new StringReader(SECOND));
+        assertEquals(EltnError.OK, parser.getError());
+        assertEquals(0, parser.getDepth());
+        assertEquals(fresh(SECOND), events(parser));
+
+        parser.reset(new StringReader(FIRST));
+        parser.next();
+        parser.next();
+        parser.next();
+        parser.next();
+        parser.next();
+        assertEquals(1, parser.getDepth());
+        parser.reset(new StringReader(FIRST));
+        assertEquals(fresh(FIRST), events(parser));
+    }
+
+    @Test
+    public void testResetAsync() throws IOException {
+        EltnAsyncPullParser parser = EltnService.createAsyncPullParser();
+        parser.feed(ByteBuffer.wrap(bytes("a = { 1, ")));
+        parser.next();
+        parser.next();
+        assertEquals(EltnEvent.TABLE_START, parser.getEvent());
+
+        parser.reset();
+        assertEquals(EltnEvent.STREAM_START, parser.getEvent());
+        parser.feed(ByteBuffer.wrap(bytes(FIRST)));
+        parser.endOfInput();
+        assertEquals(fresh(FIRST), events(parser));
+
+        try {
+            parser.reset(new StringReader(FIRST));
+            fail("reset a non-blocking parser to a reader");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFactoryReusesPerThread() throws Exception {
+        EltnPullParserFactory factory = EltnService
+                .getParserFactory(StandardCharsets.UTF_8).withParserReuse();
+
+        EltnPullParser first = factory.createParser(
+                ByteBuffer.wrap(bytes(FIRST)), StandardCharsets.UTF_8);
+        assertEquals(fresh(FIRST), events(first));
+
+        EltnPullParser second = factory.createParser(
+                new StringReader(SECOND));
+        assertSame(first, second);
+        assertEquals(fresh(SECOND), events(second));
+
+        AtomicReference<EltnPullParser> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                other.set(factory.createParser(new StringReader(FIRST)));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotNull(other.get());
+        assertNotSame(first, other.get());
+
+        EltnPullParser plain = EltnService.createPullParser(
+                new StringReader(FIRST));
+        assertNotSame(plain, EltnService.createPullParser(
+                new StringReader(FIRST)));
+    }
+
+    @Test
+    public void testServiceCachesFactories() {
+        assertSame(EltnService.getParserFactory(StandardCharsets.UTF_8),
+                EltnService.getParserFactory(StandardCharsets.UTF_8));
+        assertSame(EltnService.getWriterFactory(StandardCharsets.UTF_8),
+                EltnService.getWriterFactory(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSteadyStateAllocation() throws IOException {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        EltnPullParserFactory factory = EltnService
+                .getParserFactory(StandardCharsets.UTF_8).withParserReuse();
+        ByteBuffer message = ByteBuffer.wrap(bytes(
+                "id = 42; op = 'get'; args = { 'key', ttl = 30 }"));
+
+        int events = parseMessages(factory, message, 1000);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        events = parseMessages(factory, message, 10000);
+        long after = threads.getThreadAllocatedBytes(threadId);
+
+        assertTrue(events > 100000);
+        assertTrue("allocated " + (after - before) + " bytes for 10000"
+                + " messages", after - before < 16 * 1024);
+    }
+
+    private static int parseMessages(EltnPullParserFactory factory,
+            ByteBuffer message, int count) throws IOException {
+        int events = 0;
+        for (int i = 0; i < count; i++) {
+            EltnPullParser parser = factory.createParser(message,
+                    StandardCharsets.UTF_8);
+            while (parser.hasNext()) {
+                parser.next();
+                events++;
+            }
+        }
+        return events;
+    }
+}
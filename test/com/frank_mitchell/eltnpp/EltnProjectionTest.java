@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnProjection} and the parsers it creates.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnProjectionTest {
+
+    private static final String CONFIG
+            = "server = { host = 'example.com', port = 8080,\n"
+            + "  tls = { cert = 'a.pem', key = 'a.key' } }\n"
+            + "client = { timeout = 30, retries = { 1, 2, 4 } }\n"
+            + "users = { { name = 'ann', id = 1 }, { name = 'bob', id = 2 } }\n"
+            + "misc = { ['odd name'] = true }\n";
+
+    private static List<String> project(String text, String... patterns)
+            throws IOException {
+        EltnPullParserFactory factory
+                = EltnService.getParserFactory(EltnService.UTF_32);
+        if (patterns.length > 0) {
+            factory = factory.withProjection(EltnProjection.of(patterns));
+        }
+        EltnPullParser parser = factory.createParser(new StringReader(text));
+        List<String> events = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            EltnEvent event = parser.getEvent();
+            switch (event) {
+                case STREAM_END:
+                    break;
+                case TABLE_START:
+                case TABLE_END:
+                    events.add(event.toString());
+                    break;
+                case ERROR:
+                    events.add(event + " " + parser.getError());
+                    break;
+                default:
+                    events.add(parser.getCurrentPath() + "=" + parser.getText());
+                    break;
+            }
+        }
+        return events;
+    }
+
+    private static void assertEvents(List<String> events, String... expected) {
+        assertEquals(List.of(expected), events);
+    }
+
+    @Test
+    public void testSingleValue() throws IOException {
+        assertEvents(project(CONFIG, "server.port"),
+                "server=server", "TABLE_START",
+                "server.port=port", "server.port=8080",
+                "TABLE_END");
+    }
+
+    @Test
+    public void testSubtree() throws IOException {
+        assertEvents(project(CONFIG, "server['tls']", "client.retries[2]"),
+                "server=server", "TABLE_START",
+                "server.tls=tls", "TABLE_START",
+                "server.tls.cert=cert", "server.tls.cert='a.pem'",
+                "server.tls.key=key", "server.tls.key='a.key'",
+                "TABLE_END", "TABLE_END",
+                "client=client", "TABLE_START",
+                "client.retries=retries", "TABLE_START",
+                "client.retries[2]=2",
+                "TABLE_END", "TABLE_END");
+    }
+
+    @Test
+    public void testWildcards() throws IOException {
+        assertEvents(project(CONFIG, "users[*].name"),
+                "users=users", "TABLE_START",
+                "TABLE_START", "users[1].name=name", "users[1].name='ann'",
+                "TABLE_END",
+                "TABLE_START", "users[2].name=name", "users[2].name='bob'",
+                "TABLE_END",
+                "TABLE_END");
+        assertEvents(project(CONFIG, "**.key", "*[\"odd name\"]"),
+                "server=server", "TABLE_START",
+                "server.tls=tls", "TABLE_START",
+                "server.tls.key=key", "server.tls.key='a.key'",
+                "TABLE_END", "TABLE_END",
+                "client=client", "TABLE_START",
+                "client.retries=retries", "TABLE_START", "TABLE_END",
+                "TABLE_END",
+                "users=users", "TABLE_START",
+                "TABLE_START", "TABLE_END", "TABLE_START", "TABLE_END",
+                "TABLE_END",
+                "misc=misc", "TABLE_START",
+                "misc['odd name']='odd name'", "misc['odd name']=true",
+                "TABLE_END");
+    }
+
+    @Test
+    public void testEverything() throws IOException {
+        List<String> all = project(CONFIG);
+        assertEquals(all, project(CONFIG, "**"));
+        assertEquals(all, project(CONFIG, ""));
+    }
+
+    @Test
+    public void testSingleTableDocument() throws IOException {
+        assertEvents(project("{ a = 1, b = { 2, 3 } }", "b[2]"),
+                "TABLE_START",
+                "b=b", "TABLE_START", "b[2]=3", "TABLE_END",
+                "TABLE_END");
+    }
+
+    @Test
+    public void testReplayedKey() throws IOException {
+        EltnPullParser parser = EltnService.getParserFactory(EltnService.UTF_32)
+                .withProjection(EltnProjection.of("t[2].x"))
+                .createParser(new StringReader("t = { 'a', [2] = { y = 0, x = 1 } }"));
+
+        parser.next();
+        parser.next();
+        parser.next();
+        assertEquals(EltnEvent.TABLE_KEY_INTEGER, parser.getEvent());
+        assertEquals("2", parser.getText().toString());
+        assertEquals(2L, parser.getLong());
+        assertEquals(1, parser.getDepth());
+        assertEquals(13, parser.getTextColumnNumber());
+        assertEquals("t[2]", parser.getCurrentPath().toString());
+
+        parser.next();
+        assertEquals(EltnEvent.TABLE_START, parser.getEvent());
+        assertEquals(2, parser.getDepth());
+        parser.next();
+        assertEquals(EltnEvent.TABLE_KEY_STRING, parser.getEvent());
+        assertEquals("x", parser.getString());
+        parser.next();
+        assertEquals(1, parser.getInt());
+        parser.next();
+        assertEquals(EltnEvent.TABLE_END, parser.getEvent());
+    }
+
+    @Test
+    public void testStringKeyAgainstIndex() throws IOException {
+        /* 'x' - '0' == 72 */
+        assertEvents(project("t = { x = 5, y = 6 }", "t[72]"),
+                "t=t", "TABLE_START", "TABLE_END");
+        assertEvents(project("t = { x = 5, 'a', 'b' }", "t[2]"),
+                "t=t", "TABLE_START", "t[2]='b'", "TABLE_END");
+    }
+
+    @Test
+    public void testTableUnderUnmatchedKey() throws IOException {
+        /* 'b' - '0' == 50 */
+        assertEvents(project("t = { b = { c = 1 } }", "t[50].c"),
+                "t=t", "TABLE_START", "TABLE_END");
+        assertEvents(project("t = { b = { c = 1 }, { c = 2 } }", "t[1].c"),
+                "t=t", "TABLE_START",
+                "TABLE_START", "t[1].c=c", "t[1].c=2", "TABLE_END",
+                "TABLE_END");
+    }
+
+    @Test
+    public void testErrorInSkippedTable() throws IOException {
+        assertEvents(project("a = { 1, 2 b = 3", "b"),
+                "ERROR STREAM_END");
+    }
+
+    @Test
+    public void testEscapesDecodeAsInDocuments() throws IOException {
+        assertEvents(project("t = { AB = 1, x = 2 }", "t['\\065\\z\n  \\66']"),
+                "t=t", "TABLE_START", "t.AB=AB", "t.AB=1", "TABLE_END");
+        assertEvents(project("t = { ['\\300'] = 1, x = 2 }", "t['\\300']"),
+                "t=t", "TABLE_START", "t['\\300']='\\300'", "t['\\300']=1",
+                "TABLE_END");
+    }
+
+    @Test
+    public void testCurrentPathsAreValidPatterns() throws IOException {
+        String text = "t = { [ [[k]] ] = 1, [ [==[a]]b]==] ] = { 2 },"
+                + " ['\\z q'] = 3, [\"\\u{E9}\"] = 4, [2] = 5, [1.5] = 6 }";
+        EltnPullParser parser = EltnService.createPullParser(
+                new StringReader(text));
+        List<String> all = project(text);
+        while (parser.hasNext()) {
+            parser.next();
+            if (parser.getEvent().name().startsWith("VALUE_")) {
+                String path = parser.getCurrentPath().toString();
+                List<String> selected = project(text, path);
+                assertTrue(path + " in " + selected,
+                        selected.contains(path + "=" + parser.getText()));
+                assertTrue(path, selected.size() < all.size());
+            }
+        }
+    }
+
+    @Test
+    public void testPatterns() {
+        EltnProjection.of("a", "a.b", "a[\"b\"]['c\\n']", "a[1][-2][0x10][1.5]",
+                "*", "**", "[*]", "a.*.**", "[\"\\u{E9}\\x41\"]",
+                "a['\\065\\z  b\\q']", "a[ [[b]] ]", "a[[==[b]]]==]]");
+        String[] bad = {
+            ".a", "a.", "a..b", "a b", "a[", "a[]", "a[x]", "a['b]",
+            "a['b\nc']", "a[ [[b] ]", "a[ [=[b]] ]", "a[ [[b]] x]",
+            "1a", "a*", "[--1]"
+        };
+        for (String pattern : bad) {
+            try {
+                EltnProjection.of(pattern);
+                fail("accepted " + pattern);
+            } catch (IllegalArgumentException e) {
+                /* expected */
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package com.frank_mitchell.eltnpp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -83,9 +84,12 @@ public class EltnPullParserTest {
         assertDefName(parser, "key");
 
         parser.next();
-        assertEvent(parser, EltnEvent.VALUE_NUMBER, "1");
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "1");
         assertFalse(parser.isInTable());
-        assertEquals(1.0, parser.getNumber());
+        assertEquals(1L, parser.getNumber());
+        assertEquals(1L, parser.getLong());
+        assertEquals(1, parser.getInt());
+        assertEquals(1.0, parser.getDouble(), 0.0);
 
         parser.next();
         assertStreamEnd(parser);
@@ -95,16 +99,345 @@ public class EltnPullParserTest {
         assertEvent(parser, EltnEvent.DEF_NAME, name);
         assertFalse(parser.isInTable());
         assertEquals(name, parser.getString());
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, name);
+    }
+
+    private void assertCurrentKey(EltnPullParser parser, EltnEvent type, String key) {
+        assertEquals(type, parser.getCurrentKeyType());
+        assertEquals(key, parser.getCurrentKeyText().toString());
     }
 
     private void assertEvent(EltnPullParser parser, EltnEvent event, CharSequence text)
             throws IOException {
         assertEquals(EltnError.OK, parser.getError());
         assertEquals(event, parser.getEvent());
-        assertEquals(text, parser.getText());
+        assertEquals(text, parser.getText().toString());
+        assertEquals(text.toString().hashCode(), parser.getText().hashCode());
         assertTrue(parser.hasNext());
     }
 
+    @Test
+    public void testParseNumbers() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "a = 0x7fffffffffffffff b = -0x10 c = 2.5 d = 1e3 "
+                + "e = 9223372036854775808 f = -9223372036854775808");
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "0x7fffffffffffffff");
+        assertEquals(Long.MAX_VALUE, parser.getLong());
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "-0x10");
+        assertEquals(-16, parser.getInt());
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_NUMBER, "2.5");
+        assertEquals(2.5, parser.getDouble(), 0.0);
+        assertEquals(2.5, parser.getNumber());
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_NUMBER, "1e3");
+        assertEquals(1000L, parser.getLong());
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_NUMBER, "9223372036854775808");
+        assertEquals(0x1p63, parser.getDouble(), 0.0);
+
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "-9223372036854775808");
+        assertEquals(Long.MIN_VALUE, parser.getLong());
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNoIntegerRepresentation() throws IOException {
+        EltnPullParser parser = createParserForText("a = 2.5");
+
+        parser.next();
+        parser.next();
+        parser.getLong();
+    }
+
+    @Test
+    public void testParseDefinitions() throws IOException {
+        EltnPullParser parser = createParserForText("a = 1; b = 'two'\nc = nil");
+
+        parser.next();
+        assertDefName(parser, "a");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "1");
+
+        parser.next();
+        assertDefName(parser, "b");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_STRING, "'two'");
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, "b");
+
+        parser.next();
+        assertDefName(parser, "c");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_NIL, "nil");
+        assertFalse(parser.getBoolean());
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testTrailingSemicolon() throws IOException {
+        EltnPullParser parser = createParserForText("a = 1;");
+
+        parser.next();
+        assertDefName(parser, "a");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "1");
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testParseTable() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "t = { 'x', name = true, [\"k\"] = 2, [10] = {}, [1.5] = 3; 4, }");
+
+        parser.next();
+        assertDefName(parser, "t");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        assertEquals(1, parser.getDepth());
+        assertTrue(parser.isInTable());
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, "t");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_STRING, "'x'");
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "1");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_STRING, "name");
+        assertEquals("name", parser.getString());
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_TRUE, "true");
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_STRING, "name");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_STRING, "\"k\"");
+        assertEquals("k", parser.getString());
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "2");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_INTEGER, "10");
+        assertEquals(10, parser.getInt());
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        assertEquals(2, parser.getDepth());
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "10");
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(1, parser.getDepth());
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "10");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_NUMBER, "1.5");
+        assertEquals(1.5, parser.getDouble(), 0.0);
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "3");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "4");
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "2");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(0, parser.getDepth());
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, "t");
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testParseSingleTable() throws IOException {
+        EltnPullParser parser = createParserForText("{ { 1 } }");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "1");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "1");
+        assertEquals(2, parser.getDepth());
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testCurrentPath() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "a = { b = { [\"x\"] = { 10, 20, 30 }, [2.5] = {} } }");
+
+        parser.next();
+        assertEquals("a", parser.getCurrentPath().toString());
+        parser.next();
+        assertEquals("a", parser.getCurrentPath().toString());
+        parser.next();
+        assertEquals("a.b", parser.getCurrentPath().toString());
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_STRING, "\"x\"");
+        assertEquals("a.b[\"x\"]", parser.getCurrentPath().toString());
+        parser.next();
+        assertEquals("a.b[\"x\"]", parser.getCurrentPath().toString());
+        parser.next();
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "30");
+        assertEquals("a.b[\"x\"][3]", parser.getCurrentPath().toString());
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals("a.b[\"x\"]", parser.getCurrentPath().toString());
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        assertEquals("a.b[2.5]", parser.getCurrentPath().toString());
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "a = { x = { 1, \"}\\\"\", '{' }, [[ } ]],\n"
+                + " --[==[ } ]] ]==] -- } {\n"
+                + " y = [=[ ]] } ]=] }\n"
+                + "b = 'after' c = {} d = 5");
+
+        parser.next();
+        assertDefName(parser, "a");
+        parser.skipValue();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(0, parser.getDepth());
+        assertEquals(3, parser.getTextLineNumber());
+        assertEquals(19, parser.getTextColumnNumber());
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, "a");
+
+        parser.next();
+        assertDefName(parser, "b");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_STRING, "'after'");
+
+        parser.next();
+        assertDefName(parser, "c");
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        parser.skipValue();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(0, parser.getDepth());
+
+        parser.next();
+        assertDefName(parser, "d");
+        parser.skipValue();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "5");
+        parser.skipValue();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "5");
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testSkipTable() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "t = { 1, { 2, { 3 } }, k = { 4 } } u = 6");
+
+        parser.next();
+        assertDefName(parser, "t");
+        parser.skipTable();
+        assertDefName(parser, "t");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        parser.next();
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_START, "{");
+        assertEquals(2, parser.getDepth());
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "2");
+        parser.skipTable();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(1, parser.getDepth());
+        assertCurrentKey(parser, EltnEvent.TABLE_KEY_INTEGER, "2");
+
+        parser.next();
+        assertEvent(parser, EltnEvent.TABLE_KEY_STRING, "k");
+        parser.skipTable();
+        assertEvent(parser, EltnEvent.TABLE_END, "}");
+        assertEquals(0, parser.getDepth());
+
+        parser.next();
+        assertDefName(parser, "u");
+        parser.next();
+        assertEvent(parser, EltnEvent.VALUE_INTEGER, "6");
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testSkipUnterminatedTable() throws IOException {
+        EltnPullParser parser = createParserForText("a = { 1, { 2 }, '}");
+
+        parser.next();
+        parser.skipValue();
+        assertEquals(EltnEvent.ERROR, parser.getEvent());
+        assertEquals(EltnError.STREAM_END, parser.getError());
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertError("a = { 1 2 }", EltnError.UNEXPECTED_TOKEN, "2");
+        assertError("a = { [true] = 1 }", EltnError.UNEXPECTED_TOKEN, "true");
+        assertError("a = { 1, ", EltnError.STREAM_END, "");
+        assertError("a = 1 }", EltnError.UNEXPECTED_TOKEN, "}");
+        assertError("{} a = 1", EltnError.UNEXPECTED_TOKEN, "a");
+        assertError("a = 1; { }", EltnError.UNEXPECTED_TOKEN, "{");
+        assertError("a = 1;;", EltnError.UNEXPECTED_TOKEN, ";");
+        assertError("a = while", EltnError.INVALID_TOKEN, "while");
+    }
+
+    @Test
+    public void testBrokenQuotedString() throws IOException {
+        assertError("a = 'unterminated", EltnError.INVALID_TOKEN,
+                "'unterminated");
+        assertError("a = 'two\nlines'", EltnError.INVALID_TOKEN, "'two");
+        assertError("a = \"two\r\nlines\"", EltnError.INVALID_TOKEN, "\"two");
+        assertError("a = 'open\\", EltnError.INVALID_TOKEN, "'open\\");
+    }
+
+    private void assertError(String text, EltnError error, String errorText)
+            throws IOException {
+        EltnPullParser parser = createParserForText(text);
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        assertEquals(EltnEvent.ERROR, parser.getEvent());
+        assertEquals(error, parser.getError());
+        assertEquals(errorText, parser.getText().toString());
+    }
+
     @Test
     public void testParseKeyValueBoolean() throws IOException {
         EltnPullParser parser = createParserForText("key = true");
@@ -118,6 +451,7 @@ public class EltnPullParserTest {
         assertEvent(parser, EltnEvent.VALUE_TRUE, "true");
         assertFalse(parser.isInTable());
         assertEquals(true, parser.getBoolean());
+        assertCurrentKey(parser, EltnEvent.DEF_NAME, "key");
 
         parser.next();
         assertStreamEnd(parser);
@@ -155,6 +489,13 @@ public class EltnPullParserTest {
                 "this text has an \nescaped newline");
     }
 
+    @Test
+    public void testEscapedCrLf() throws IOException {
+        runStringFormatTest(
+                "'this text has an \\\r\nescaped newline'",
+                "this text has an \nescaped newline");
+    }
+
     @Test
     public void testBackslashZ() throws IOException {
         runStringFormatTest(
@@ -170,10 +511,19 @@ public class EltnPullParserTest {
     }
 
     @Test
-    public void testOctalEscapes() throws IOException {
+    public void testDecimalEscapes() throws IOException {
         runStringFormatTest(
-                "'this text had octal escapes\\56\\56\\056\\0'",
-                "this text had octal escapes...\0");
+                "'this text had decimal escapes\\46\\46\\046\\0'",
+                "this text had decimal escapes...\0");
+        runStringFormatTest("'\\065\\066'", "AB");
+        /* as the writers escape control characters */
+        runStringFormatTest("'\\027[0m\\127'", "\u001B[0m\u007F");
+        runStringFormatTest("'\\0651\\9\\255'", "A1\t\u00FF");
+    }
+
+    @Test
+    public void testDecimalEscapeTooLarge() throws IOException {
+        runStringFormatTest("'\\256\\999x\\300'", "\\256\\999x\\300");
     }
 
     @Test
@@ -183,6 +533,121 @@ public class EltnPullParserTest {
                 "this text has unicode:\n\u00A9\u1e9e\ud801\udc7f");
     }
 
+    @Test
+    public void testEscapedQuotes() throws IOException {
+        runStringFormatTest(
+                "'it\\'s \\\\'",
+                "it's \\");
+    }
+
+    @Test
+    public void testInvalidEscapesLeftAlone() throws IOException {
+        runStringFormatTest(
+                "'\\xZ1 \\u{110000}'",
+                "xZ1 u{110000}");
+    }
+
+    @Test
+    public void testStringIsCached() throws IOException {
+        EltnPullParser parser = createParserForText("key = 'a\\tb'");
+
+        parser.next();
+        parser.next();
+        String value = parser.getString();
+        assertEquals("a\tb", value);
+        assertSame(value, parser.getString());
+    }
+
+    @Test
+    public void testLongStrings() throws IOException {
+        runStringFormatTest("[[no \\escapes\\]]", "no \\escapes\\");
+        runStringFormatTest("[==[a]]b]=]c]==]", "a]]b]=]c");
+        runStringFormatTest("[[\nfirst newline dropped\n]]",
+                "first newline dropped\n");
+        runStringFormatTest("[=[\r\nCRLF dropped]=]", "CRLF dropped");
+        runStringFormatTest("[[\n\nonly one]]", "\nonly one");
+        runStringFormatTest("[[]]", "");
+    }
+
+    @Test
+    public void testCommentAfterNumber() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "x = 1--comment\ny = 1e-2--\nz = 0x1p+4-- hex");
+
+        parser.next();
+        assertDefName(parser, "x");
+        parser.next();
+        assertEquals(EltnEvent.VALUE_INTEGER, parser.getEvent());
+        assertEquals(1L, parser.getNumber().longValue());
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+        assertEquals("comment", parser.getString());
+
+        parser.next();
+        assertDefName(parser, "y");
+        parser.next();
+        assertEquals(EltnEvent.VALUE_NUMBER, parser.getEvent());
+        assertEquals(0.01, parser.getNumber().doubleValue(), 0.0);
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+
+        parser.next();
+        assertDefName(parser, "z");
+        parser.next();
+        assertEquals(EltnEvent.VALUE_NUMBER, parser.getEvent());
+        assertEquals(16.0, parser.getNumber().doubleValue(), 0.0);
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testComments() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "-- line\r\nkey --[==[ long\n]] ]==] = --[[\nnext]] 1 --");
+
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+        assertEquals(" line", parser.getString());
+
+        parser.next();
+        assertDefName(parser, "key");
+
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+        assertEquals(" long\n]] ", parser.getString());
+
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+        assertEquals("next", parser.getString());
+
+        parser.next();
+        assertEquals(EltnEvent.VALUE_INTEGER, parser.getEvent());
+
+        parser.next();
+        assertEquals(EltnEvent.COMMENT, parser.getEvent());
+        assertEquals("", parser.getString());
+
+        parser.next();
+        assertStreamEnd(parser);
+    }
+
+    @Test
+    public void testSkipValueAfterComment() throws IOException {
+        EltnPullParser parser = createParserForText(
+                "a = -- table follows\n { b = 1 } c = 2");
+
+        parser.next();
+        assertDefName(parser, "a");
+        parser.skipValue();
+        assertEquals(EltnEvent.TABLE_END, parser.getEvent());
+
+        parser.next();
+        assertDefName(parser, "c");
+    }
+
     public void runStringFormatTest(String input, String expected)
             throws IOException {
         EltnPullParser parser = createParserForText("key = " + input);
@@ -30,8 +30,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -58,6 +61,39 @@ public class EltnServiceTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void testCreatePullParser_ByteBuffer_Charset() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap("key = true".getBytes(StandardCharsets.UTF_8));
+        Charset cs = StandardCharsets.UTF_8;
+        EltnPullParser result = EltnService.createPullParser(buffer, cs);
+        assertNotNull(result);
+        result.next();
+        assertEquals(EltnEvent.DEF_NAME, result.getEvent());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testCreatePullParser_Path() throws IOException {
+        Path path = Files.createTempFile("eltnpp", ".eltn");
+        try {
+            Files.write(path, "k = '\u00E9' @".getBytes(StandardCharsets.UTF_8));
+            EltnPullParser result = EltnService.createPullParser(path);
+            assertNotNull(result);
+
+            result.next();
+            assertEquals(EltnEvent.DEF_NAME, result.getEvent());
+            result.next();
+            assertEquals(EltnEvent.VALUE_STRING, result.getEvent());
+            assertEquals(4, result.getTextOffset());
+            result.next();
+            assertEquals(EltnEvent.ERROR, result.getEvent());
+            assertEquals(9, result.getTextOffset());
+            assertEquals(9, result.getTextColumnNumber());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
     @Test
     public void testCreatePullParser_CodePointSource() throws IOException {
         Reader reader = new StringReader("");
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import com.frank_mitchell.eltnpp.spi.DefaultEltnPullParserFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnSymbolTable}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnSymbolTableTest {
+
+    @Test
+    public void testIntern() {
+        EltnSymbolTable symbols = new EltnSymbolTable();
+        String first = symbols.intern(new StringBuilder("host"));
+        assertEquals("host", first);
+        assertSame(first, symbols.intern(new StringBuilder("host")));
+        assertSame(first, symbols.intern("[host]", 1, 5));
+        assertEquals("port", symbols.intern("port"));
+        assertEquals(2, symbols.getHitCount());
+        assertEquals(2, symbols.getMissCount());
+
+        symbols.clear();
+        assertEquals(0, symbols.getHitCount());
+        assertNotSame(first, symbols.intern(new StringBuilder("host")));
+    }
+
+    @Test
+    public void testBounded() {
+        EltnSymbolTable symbols = new EltnSymbolTable(16);
+        assertEquals(16, symbols.getCapacity());
+        for (int i = 0; i < 10000; i++) {
+            String key = "key" + i;
+            assertEquals(key, symbols.intern(new StringBuilder(key)));
+        }
+        assertEquals(16, symbols.getCapacity());
+        assertEquals(10000, symbols.getMissCount());
+
+        char[] big = new char[EltnSymbolTable.MAX_SYMBOL_LENGTH + 1];
+        Arrays.fill(big, 'x');
+        StringBuilder longKey = new StringBuilder().append(big);
+        assertNotSame(symbols.intern(longKey), symbols.intern(longKey));
+    }
+
+    @Test
+    public void testShared() throws Exception {
+        EltnSymbolTable symbols = new EltnSymbolTable(64);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        String key = "k" + (i % 100);
+                        assertEquals(key, symbols.intern(new StringBuilder(key)));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(80000, symbols.getHitCount() + symbols.getMissCount());
+    }
+
+    private static List<String> keys(EltnPullParser parser) throws IOException {
+        List<String> keys = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            switch (parser.getEvent()) {
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                    keys.add(parser.getString());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void testParsersShareSymbols() throws IOException {
+        String text = "caf\u00e9 = { host = 1, ['port'] = 2, [\"a\\tb\"] = 3,"
+                + " \ud835\udc00x = 4 }";
+        EltnSymbolTable symbols = new EltnSymbolTable();
+        EltnPullParserFactory factory = new DefaultEltnPullParserFactory()
+                .withSymbolTable(symbols);
+
+        List<String> fromBytes = keys(factory.createParser(
+                ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8));
+        assertEquals(List.of("caf\u00e9", "host", "port", "a\tb",
+                "\ud835\udc00x"), fromBytes);
+        assertEquals(5, symbols.getMissCount());
+
+        List<String> fromChars = keys(factory.createParser(
+                new StringReader(text)));
+        assertEquals(fromBytes.size(), fromChars.size());
+        for (int i = 0; i < fromBytes.size(); i++) {
+            assertSame(fromBytes.get(i), fromChars.get(i));
+        }
+        assertEquals(5, symbols.getHitCount());
+    }
+}
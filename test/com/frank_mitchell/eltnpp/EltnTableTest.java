@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnTable}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnTableTest {
+
+    @Test
+    public void testSequence() {
+        EltnTable t = new EltnTable();
+        for (long i = 1; i <= 100; i++) {
+            t.set(i, i * 10);
+        }
+        assertEquals(100, t.length());
+        assertEquals(100, t.size());
+        assertEquals(500L, t.get(50));
+        assertEquals(500L, t.getLong(50, -1));
+        assertEquals(500.0, t.getDouble(50, -1), 0.0);
+        assertNull(t.get(0));
+        assertNull(t.get(101));
+        assertEquals(-1, t.getLong(101, -1));
+    }
+
+    @Test
+    public void testMixedSequence() {
+        EltnTable t = new EltnTable();
+        t.add(1.5);
+        t.add(2.5);
+        assertEquals(2.5, t.getDouble(2, 0), 0.0);
+        assertEquals(-1, t.getLong(2, -1));
+        t.add(3L);
+        t.add("four");
+        t.add(Boolean.TRUE);
+        assertEquals(5, t.length());
+        assertEquals(1.5, t.get(1));
+        assertEquals(3L, t.get(3));
+        assertEquals("four", t.get(4));
+        assertEquals(Boolean.TRUE, t.get(5));
+        t.set(3L, 30L);
+        assertEquals(30L, t.get(3));
+    }
+
+    @Test
+    public void testHashKeys() {
+        EltnTable t = new EltnTable();
+        t.set("name", "ann");
+        t.set(0.5, 1L);
+        t.set(-7L, 2L);
+        t.set(Boolean.FALSE, "no");
+        assertEquals(0, t.length());
+        assertEquals(4, t.size());
+        assertEquals("ann", t.get("name"));
+        assertEquals("ann", t.get(new StringBuilder("name")));
+        assertEquals(1L, t.get(0.5));
+        assertEquals(2L, t.get(-7));
+        assertEquals("no", t.get(Boolean.FALSE));
+        assertNull(t.get("other"));
+    }
+
+    @Test
+    public void testFloatKeysNormalize() {
+        EltnTable t = new EltnTable();
+        t.set(1.0, "one");
+        t.set(-0.0, "zero");
+        assertEquals(1, t.length());
+        assertEquals("one", t.get(1L));
+        assertEquals("zero", t.get(0L));
+        assertEquals("zero", t.get(0.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNKey() {
+        new EltnTable().set(Double.NaN, 1L);
+    }
+
+    @Test
+    public void testNonFinite() {
+        EltnTable table = new EltnTable();
+        for (double d : new double[]{Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY}) {
+            try {
+                table.set(1, d);
+                fail("value " + d);
+            } catch (IllegalArgumentException e) {
+                /* expected */
+            }
+            try {
+                table.set("x", (Object) d);
+                fail("value " + d);
+            } catch (IllegalArgumentException e) {
+                /* expected */
+            }
+            try {
+                table.set(d, "x");
+                fail("key " + d);
+            } catch (IllegalArgumentException e) {
+                /* expected */
+            }
+        }
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testMigrateFromHash() {
+        EltnTable t = new EltnTable();
+        t.set(3L, "c");
+        t.set(2L, "b");
+        assertEquals(0, t.length());
+        t.set(1L, "a");
+        assertEquals(3, t.length());
+        assertEquals("c", t.get(3));
+    }
+
+    @Test
+    public void testRemove() {
+        EltnTable t = new EltnTable();
+        for (long i = 1; i <= 5; i++) {
+            t.set(i, i);
+        }
+        t.set(5L, (Object) null);
+        assertEquals(4, t.length());
+        t.set(2L, (Object) null);
+        assertEquals(1, t.length());
+        assertEquals(3, t.size());
+        assertNull(t.get(2));
+        assertEquals(4L, t.get(4));
+        t.set(2L, 2L);
+        assertEquals(4, t.length());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        EltnTable t = new EltnTable();
+        Map<Object, Object> expected = new HashMap<>();
+        for (int n = 0; n < 20000; n++) {
+            Object key;
+            switch (random.nextInt(3)) {
+                case 0:
+                    key = (long) random.nextInt(200) - 20;
+                    break;
+                case 1:
+                    key = "k" + random.nextInt(200);
+                    break;
+                default:
+                    key = random.nextInt(100) + 0.5;
+                    break;
+            }
+            Object value = random.nextInt(4) == 0 ? null : (long) n;
+            t.set(key, value);
+            if (value == null) {
+                expected.remove(key);
+            } else {
+                expected.put(key, value);
+            }
+            if (n % 1000 == 0) {
+                t.trimToSize();
+            }
+        }
+        assertEquals(expected.size(), t.size());
+        Map<Object, Object> actual = new HashMap<>();
+        t.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testToString() {
+        EltnTable t = new EltnTable();
+        assertEquals("{}", t.toString());
+        t.add(1L);
+        t.add("two");
+        t.set("end", 2.5);
+        assertEquals("{ [1] = 1, [2] = \"two\", [\"end\"] = 2.5 }", t.toString());
+
+        EltnTable inner = new EltnTable();
+        inner.set("a\nb", true);
+        inner.set(Boolean.TRUE, "dropped");
+        assertEquals("{ [\"a\\nb\"] = true }", inner.toString());
+        t = new EltnTable();
+        t.set(0.5, inner);
+        assertEquals("{ [0.5] = { [\"a\\nb\"] = true } }", t.toString());
+    }
+}
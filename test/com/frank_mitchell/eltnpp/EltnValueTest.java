@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnValue}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnValueTest {
+
+    private static EltnPullParser parser(String text) throws IOException {
+        return EltnService.createPullParser(new StringReader(text));
+    }
+
+    @Test
+    public void testReadDocument() throws IOException {
+        EltnTable doc = EltnValue.readDocument(parser(
+                "server = { host = 'example.com', port = 8080, tls = true }\n"
+                + "ratios = { 0.5, 0.25, [4] = 0.125 }\n"
+                + "names = { 'a', 'b\\tc', nil, ['x y'] = false }\n"
+                + "nothing = nil\n"));
+        assertEquals(3, doc.size());
+
+        EltnTable server = (EltnTable) doc.get("server");
+        assertEquals("example.com", server.get("host"));
+        assertEquals(8080L, server.get("port"));
+        assertEquals(Boolean.TRUE, server.get("tls"));
+
+        EltnTable ratios = (EltnTable) doc.get("ratios");
+        assertEquals(2, ratios.length());
+        assertEquals(0.25, ratios.getDouble(2, 0), 0.0);
+        assertEquals(0.125, ratios.get(4));
+
+        EltnTable names = (EltnTable) doc.get("names");
+        assertEquals(2, names.length());
+        assertEquals("b\tc", names.get(2));
+        assertEquals(Boolean.FALSE, names.get("x y"));
+        assertFalse(doc.toString().contains("nothing"));
+    }
+
+    @Test
+    public void testReadValue() throws IOException {
+        EltnPullParser p = parser("a = --[[ one ]] 1 b = { 2, { 3 } } c = -- x\n'x'");
+        p.next();
+        assertEquals(EltnEvent.DEF_NAME, p.getEvent());
+        assertEquals(1L, EltnValue.read(p));
+        p.next();
+        EltnTable b = (EltnTable) EltnValue.read(p);
+        assertEquals(EltnEvent.TABLE_END, p.getEvent());
+        assertEquals(0, p.getDepth());
+        assertEquals(3L, ((EltnTable) b.get(2)).get(1));
+        p.next();
+        assertEquals("x", EltnValue.read(p));
+    }
+
+    @Test
+    public void testDeepNesting() throws IOException {
+        final int depth = 1000;
+        StringBuilder text = new StringBuilder("deep = ");
+        for (int i = 0; i < depth; i++) {
+            text.append('{');
+        }
+        for (int i = 0; i < depth; i++) {
+            text.append('}');
+        }
+        Object value = EltnValue.readDocument(parser(text.toString())).get("deep");
+        int n = 0;
+        while (value instanceof EltnTable) {
+            value = ((EltnTable) value).get(1);
+            n++;
+        }
+        assertEquals(depth, n);
+    }
+
+    @Test(expected = IOException.class)
+    public void testError() throws IOException {
+        EltnValue.readDocument(parser("a = { 1, 2 "));
+    }
+}
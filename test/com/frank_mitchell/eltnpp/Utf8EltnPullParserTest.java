@@ -0,0 +1,50 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs the conforming parser tests against UTF-8 bytes instead of chars.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class Utf8EltnPullParserTest extends EltnPullParserTest {
+
+    @Override
+    protected EltnPullParser createParser(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buf = new char[256];
+        int count;
+        while ((count = reader.read(buf)) >= 0) {
+            text.append(buf, 0, count);
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        return EltnService.createPullParser(new ByteArrayInputStream(bytes),
+                StandardCharsets.UTF_8);
+    }
+}
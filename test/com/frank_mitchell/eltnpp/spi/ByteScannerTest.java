@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link ByteScanner}, whichever version the JVM loaded.
+ * The build's {@code test21} target runs these on JDK 21 with the
+ * Vector API.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class ByteScannerTest {
+
+    /** Longer than the widest vector, with a ragged tail */
+    private static final int LENGTH = 64 * 3 + 17;
+
+    private interface Finder {
+        int find(byte[] buf, int pos, int limit);
+    }
+
+    private interface Stop {
+        boolean at(byte b);
+    }
+
+    private static int reference(Stop stop, byte[] buf, int pos, int limit) {
+        while (pos < limit && !stop.at(buf[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Puts each byte of interest at every position of a run of filler,
+     * and scans from several starting points.
+     */
+    private static void check(Finder finder, Stop stop, byte filler,
+            byte[] targets) {
+        byte[] buf = new byte[LENGTH];
+        for (byte target : targets) {
+            for (int at = 0; at < LENGTH; at++) {
+                Arrays.fill(buf, filler);
+                buf[at] = target;
+                for (int pos : new int[]{0, 1, 63, at, Math.max(0, at - 1)}) {
+                    for (int limit : new int[]{LENGTH, at, at + 1}) {
+                        if (pos > limit || limit > LENGTH) {
+                            continue;
+                        }
+                        assertEquals("target " + target + " at " + at
+                                + " from " + pos + " to " + limit,
+                                reference(stop, buf, pos, limit),
+                                finder.find(buf, pos, limit));
+                    }
+                }
+            }
+        }
+        Arrays.fill(buf, filler);
+        assertEquals(LENGTH, finder.find(buf, 0, LENGTH));
+        assertEquals(5, finder.find(buf, 5, 5));
+    }
+
+    /**
+     * Compares a finder with the reference on random bytes.
+     */
+    private static void checkRandom(Finder finder, Stop stop) {
+        Random random = new Random(42);
+        byte[] buf = new byte[4096];
+        for (int trial = 0; trial < 100; trial++) {
+            for (int i = 0; i < buf.length; i++) {
+                /* mostly letters, so stops are far apart */
+                buf[i] = (random.nextInt(100) == 0)
+                        ? (byte) random.nextInt(256)
+                        : (byte) ('a' + random.nextInt(26));
+            }
+            int pos = random.nextInt(buf.length);
+            while (pos < buf.length) {
+                int expected = reference(stop, buf, pos, buf.length);
+                assertEquals(expected, finder.find(buf, pos, buf.length));
+                pos = expected + 1;
+            }
+        }
+    }
+
+    @Test
+    public void testSkipBlanks() {
+        Stop stop = b -> b != ' ' && b != '\t' && b != '\r';
+        check(ByteScanner::skipBlanks, stop, (byte) ' ',
+                new byte[]{'x', '\n', (byte) 0xC3, 0x0B});
+        check(ByteScanner::skipBlanks, stop, (byte) '\t', new byte[]{'x'});
+    }
+
+    @Test
+    public void testFindStringStop() {
+        Finder finder = (buf, pos, limit)
+                -> ByteScanner.findStringStop(buf, pos, limit, (byte) '"');
+        Stop stop = b -> b == '"' || b == '\\' || b == '\n' || b == '\r'
+                || b < 0;
+        check(finder, stop, (byte) 'a',
+                new byte[]{'"', '\\', '\n', '\r', (byte) 0x80, (byte) 0xFF, '\''});
+        checkRandom(finder, stop);
+    }
+
+    @Test
+    public void testFindQuoteEscapeOrNewline() {
+        Finder finder = (buf, pos, limit)
+                -> ByteScanner.findQuoteEscapeOrNewline(buf, pos, limit, (byte) '\'');
+        Stop stop = b -> b == '\'' || b == '\\' || b == '\n' || b == '\r';
+        check(finder, stop, (byte) 'a',
+                new byte[]{'\'', '\\', '"', '\n', '\r', (byte) 0xE2});
+        checkRandom(finder, stop);
+    }
+
+    @Test
+    public void testFindLongBracketStop() {
+        Stop stop = b -> b == ']' || b == '\n' || b < 0;
+        check(ByteScanner::findLongBracketStop, stop, (byte) '=',
+                new byte[]{']', '\n', (byte) 0xF0, '['});
+        checkRandom(ByteScanner::findLongBracketStop, stop);
+    }
+
+    @Test
+    public void testIndexOf() {
+        Finder finder = (buf, pos, limit)
+                -> ByteScanner.indexOf(buf, pos, limit, (byte) ']');
+        Stop stop = b -> b == ']';
+        check(finder, stop, (byte) 'a', new byte[]{']', '['});
+        checkRandom(finder, stop);
+    }
+
+    @Test
+    public void testFindStructural() {
+        Stop stop = b -> "{}[]=,;\"'-".indexOf(b) >= 0;
+        byte[] targets = "{}[]=,;\"'-_yY\u007f+ ".getBytes(
+                StandardCharsets.US_ASCII);
+        check(ByteScanner::findStructural, stop, (byte) 'a', targets);
+        checkRandom(ByteScanner::findStructural, stop);
+    }
+
+    @Test
+    public void testVectorized() {
+        assumeTrue(Boolean.getBoolean("eltnpp.test.vectorized"));
+        assertTrue(ByteScanner.isVectorized());
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePointSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link DefaultEltnLexer}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class DefaultEltnLexerTest {
+
+    /**
+     * A source over a String of BMP characters that allocates nothing
+     * per character, so that any allocation we measure is the lexer's.
+     */
+    private static final class StringSource implements CodePointSource {
+        private final String _text;
+        private int _index = -1;
+
+        StringSource(String text) {
+            _text = text;
+        }
+
+        @Override
+        public int getCodePoint() {
+            return _text.charAt(_index);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index + 1 < _text.length();
+        }
+
+        @Override
+        public void next() {
+            _index++;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Hands out one char per read, so surrogate pairs and every token
+     * cross a refill.
+     */
+    private static final class TrickleReader extends Reader {
+        private final String _text;
+        private int _index = 0;
+
+        TrickleReader(String text) {
+            _text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (_index >= _text.length()) {
+                return -1;
+            }
+            cbuf[off] = _text.charAt(_index++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static DefaultEltnLexer createLexer(String text) {
+        return new DefaultEltnLexer(new StringSource(text));
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder buf = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            buf.append(text);
+        }
+        return buf.toString();
+    }
+
+    private static int lexAll(DefaultEltnLexer lexer) throws IOException {
+        int count = 0;
+        while (lexer.nextToken().type != EltnTokenType.TOKEN_END_OF_STREAM) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testTokenIsReused() throws IOException {
+        DefaultEltnLexer lexer = createLexer("key = 'value'");
+
+        EltnToken first = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, first.type);
+        assertEquals("key", first.getText());
+
+        EltnToken second = lexer.nextToken();
+        assertSame(first, second);
+        assertEquals(EltnTokenType.TOKEN_EQUALS, second.type);
+        assertEquals("=", second.getText());
+    }
+
+    @Test
+    public void testTokenPositions() throws IOException {
+        DefaultEltnLexer lexer = createLexer("key =\n  'value'");
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(0, token.start);
+        assertEquals(3, token.end);
+        assertEquals(1, token.line);
+        assertEquals(1, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(4, token.start);
+        assertEquals(5, token.end);
+        assertEquals(1, token.line);
+        assertEquals(5, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(8, token.start);
+        assertEquals(15, token.end);
+        assertEquals(2, token.line);
+        assertEquals(3, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM, token.type);
+        assertEquals(15, token.start);
+    }
+
+    @Test
+    public void testReservedWords() throws IOException {
+        DefaultEltnLexer lexer = createLexer("true false nil while whiles");
+
+        assertEquals(EltnTokenType.TOKEN_TRUE, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_FALSE, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_NIL, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_INVALID, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, lexer.nextToken().type);
+    }
+
+    @Test
+    public void testSteadyStateAllocation() throws IOException {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        String text = repeat(
+                "entry = { name = 'some name', [\"key\"] = true, nil,"
+                + " 42, -1.5e3, 0x1p4 },\n",
+                20000);
+
+        // Warm up, then measure a fresh lexer over the same text.
+        lexAll(createLexer(text));
+        DefaultEltnLexer lexer = createLexer(text);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int tokens = lexAll(lexer);
+        long after = threads.getThreadAllocatedBytes(threadId);
+
+        assertTrue(tokens > 200000);
+        // Allow for a few buffer resizes, but nothing proportional
+        // to the number of tokens.
+        assertTrue("allocated " + (after - before) + " bytes for "
+                + tokens + " tokens", after - before < 16 * 1024);
+    }
+
+    @Test
+    public void testLongStrings() throws IOException {
+        DefaultEltnLexer lexer = createLexer(
+                "[[a]] [==[b]]\n]=]]==] [=[ [[ ]=] [==x [[open");
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_STRING, token.type);
+        assertEquals("[[a]]", token.getText());
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_STRING, token.type);
+        assertEquals("[==[b]]\n]=]]==]", token.getText());
+        assertEquals(1, token.line);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_STRING, token.type);
+        assertEquals("[=[ [[ ]=]", token.getText());
+        assertEquals(2, token.line);
+        assertEquals(9, token.column);
+
+        assertEquals(EltnTokenType.TOKEN_INVALID, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_INVALID, lexer.nextToken().type);
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM,
+                lexer.nextToken().type);
+    }
+
+    @Test
+    public void testComments() throws IOException {
+        DefaultEltnLexer lexer = createLexer(
+                "-- line\nx --[==[ long\n]] ]==] -- [[not long\n--[=x\n--");
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_COMMENT, token.type);
+        assertEquals("-- line", token.getText());
+
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, lexer.nextToken().type);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_COMMENT, token.type);
+        assertEquals("--[==[ long\n]] ]==]", token.getText());
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_COMMENT, token.type);
+        assertEquals("-- [[not long", token.getText());
+        assertEquals(3, token.line);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_COMMENT, token.type);
+        assertEquals("--[=x", token.getText());
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_COMMENT, token.type);
+        assertEquals("--", token.getText());
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM,
+                lexer.nextToken().type);
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        String text = "\ud835\udc00x = '\ud801\udc7f\u00e9' --[[\ud801\udc7f]]\n"
+                + repeat("a", 5000) + " = [[" + repeat("b", 5000) + "]]";
+        DefaultEltnLexer lexer = new DefaultEltnLexer(new TrickleReader(text));
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, token.type);
+        assertEquals("\ud835\udc00x", token.getText());
+        assertEquals(0, token.start);
+        assertEquals(2, token.end);
+
+        assertEquals(EltnTokenType.TOKEN_EQUALS, lexer.nextToken().type);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_QUOTED_STRING, token.type);
+        assertEquals("'\ud801\udc7f\u00e9'", token.getText());
+        assertEquals(1, token.line);
+        assertEquals(6, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_COMMENT, token.type);
+        assertEquals("--[[\ud801\udc7f]]", token.getText());
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, token.type);
+        assertEquals(repeat("a", 5000), token.getText());
+        assertEquals(2, token.line);
+
+        assertEquals(EltnTokenType.TOKEN_EQUALS, lexer.nextToken().type);
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_LONG_STRING, token.type);
+        assertEquals(5004, token.getText().length());
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM,
+                lexer.nextToken().type);
+    }
+
+    @Test
+    public void testSkipTable() throws IOException {
+        DefaultEltnLexer lexer = createLexer(
+                "{ a = '}', b = [==[ } ]] ]==], -- }\n --[[ } ]] { } } x");
+
+        assertEquals(EltnTokenType.TOKEN_CURLY_OPEN, lexer.nextToken().type);
+        EltnToken token = lexer.skipTable();
+        assertEquals(EltnTokenType.TOKEN_CURLY_CLOSE, token.type);
+        assertEquals(2, token.line);
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, lexer.nextToken().type);
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.codepoint.CodePoint;
+import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link DefaultEltnWriter}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class DefaultEltnWriterTest {
+
+    private final StringWriter _out = new StringWriter();
+    private final EltnWriter _writer;
+
+    public DefaultEltnWriterTest() throws IOException {
+        _writer = new DefaultEltnWriterFactory().createWriter(_out);
+    }
+
+    private String written() throws IOException {
+        _writer.flush();
+        return _out.toString();
+    }
+
+    private static EltnPullParser parser(String text) throws IOException {
+        return new DefaultEltnPullParserFactory()
+                .createParser(new StringReader(text));
+    }
+
+    @Test
+    public void testDocument() throws IOException {
+        _writer.writeDefName("server");
+        _writer.startTable();
+        _writer.writeKey("host");
+        _writer.writeValue("example.com");
+        _writer.writeKey("port");
+        _writer.writeValue(8080);
+        _writer.writeKey("odd key");
+        _writer.writeValue(true);
+        _writer.writeKey(3);
+        _writer.writeNil();
+        _writer.writeKey(0.5);
+        _writer.startTable();
+        _writer.endTable();
+        _writer.writeValue(1.25);
+        assertEquals(1, _writer.getDepth());
+        _writer.endTable();
+        _writer.writeDefName("end_");
+        _writer.writeValue(false);
+        assertEquals("server = { host = \"example.com\", port = 8080,"
+                + " [\"odd key\"] = true, [3] = nil, [0.5] = {}, 1.25 }\n"
+                + "end_ = false\n", written());
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        _writer.writeDefName("s");
+        _writer.writeValue("a\"b\\c\nd\te\u00011\u00e9");
+        assertEquals("s = \"a\\\"b\\\\c\\nd\\te\\0011\u00e9\"\n", written());
+        EltnPullParser p = parser(written());
+        p.next();
+        p.next();
+        assertEquals("a\"b\\c\nd\te\u00011\u00e9", p.getString());
+    }
+
+    @Test
+    public void testReservedWordKey() throws IOException {
+        _writer.writeDefName("t");
+        _writer.startTable();
+        _writer.writeKey("end");
+        _writer.writeValue(1);
+        _writer.endTable();
+        assertEquals("t = { [\"end\"] = 1 }\n", written());
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+        _writer.writeDefName("n");
+        _writer.startTable();
+        long[] longs = {0, -1, 42, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long l : longs) {
+            _writer.writeValue(l);
+        }
+        double[] doubles = {0.0, -0.0, 1.0, -2.5, 0.1, 1e-7, 123456.789,
+            1e22, 0x1p-1074, Double.MAX_VALUE, 9007199254740993.0};
+        for (double d : doubles) {
+            _writer.writeValue(d);
+        }
+        _writer.endTable();
+        assertTrue(written(), written().startsWith("n = { 0, -1, 42, "
+                + Long.MAX_VALUE + ", " + Long.MIN_VALUE
+                + ", 0.0, -0.0, 1.0, -2.5, 0.1, "));
+
+        EltnPullParser p = parser(written());
+        p.next();
+        p.next();
+        for (long l : longs) {
+            p.next();
+            assertEquals(EltnEvent.VALUE_INTEGER, p.getEvent());
+            assertEquals(l, p.getLong());
+        }
+        for (double d : doubles) {
+            p.next();
+            assertEquals(p.getText().toString(),
+                    EltnEvent.VALUE_NUMBER, p.getEvent());
+            assertEquals(p.getText().toString(), Double.doubleToLongBits(d),
+                    Double.doubleToLongBits(p.getDouble()));
+        }
+    }
+
+    @Test
+    public void testRandomDoublesRoundTrip() throws IOException {
+        Random random = new Random(7);
+        double[] doubles = new double[2000];
+        _writer.writeDefName("d");
+        _writer.startTable();
+        for (int i = 0; i < doubles.length; i++) {
+            switch (i % 3) {
+                case 0:
+                    doubles[i] = random.nextDouble();
+                    break;
+                case 1:
+                    doubles[i] = Math.round(random.nextDouble() * 1e6) / 1e3;
+                    break;
+                default:
+                    doubles[i] = Double.longBitsToDouble(random.nextLong());
+                    if (Double.isNaN(doubles[i]) || Double.isInfinite(doubles[i])) {
+                        doubles[i] = 0.5;
+                    }
+                    break;
+            }
+            _writer.writeValue(doubles[i]);
+        }
+        _writer.endTable();
+        EltnPullParser p = parser(written());
+        p.next();
+        p.next();
+        for (double d : doubles) {
+            p.next();
+            assertEquals(p.getText().toString(), Double.doubleToLongBits(d),
+                    Double.doubleToLongBits(p.getDouble()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaN() throws IOException {
+        _writer.writeDefName("x");
+        _writer.writeValue(Double.NaN);
+    }
+
+    @Test
+    public void testIllegalStates() throws IOException {
+        assertIllegal(() -> _writer.writeValue(1));
+        assertIllegal(() -> _writer.writeKey("k"));
+        assertIllegal(() -> _writer.endTable());
+        _writer.writeDefName("x");
+        assertIllegal(() -> _writer.writeDefName("y"));
+        _writer.startTable();
+        assertIllegal(() -> _writer.writeDefName("y"));
+        _writer.writeKey("k");
+        assertIllegal(() -> _writer.endTable());
+    }
+
+    private interface Action {
+        void run() throws IOException;
+    }
+
+    private static void assertIllegal(Action action) throws IOException {
+        try {
+            action.run();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUtf8AcrossBuffers() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < DefaultEltnWriter.BUFFER_SIZE * 2 + 1) {
+            text.append("x\u00e9\u20ac\ud83d\ude00");
+        }
+        String value = text.toString();
+        for (int pad = 0; pad < 3; pad++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            EltnWriter writer = new DefaultEltnWriterFactory()
+                    .createWriter(bytes, StandardCharsets.UTF_8);
+            writer.writeDefName("s" + "_".repeat(pad));
+            writer.writeValue(value);
+            writer.close();
+            String expected = "s" + "_".repeat(pad) + " = \"" + value + "\"\n";
+            assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+                    bytes.toByteArray());
+        }
+    }
+
+    @Test
+    public void testUnencodableCharacters() throws IOException {
+        String value = "caf\u00e9 \u20ac\ud83d\ude00";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EltnWriter writer = new DefaultEltnWriterFactory()
+                .createWriter(bytes, StandardCharsets.ISO_8859_1);
+        writer.writeDefName("s");
+        writer.writeValue(value);
+        writer.close();
+        String written = new String(bytes.toByteArray(),
+                StandardCharsets.ISO_8859_1);
+        assertEquals("s = \"caf\u00e9 \\u{20AC}\\u{1F600}\"\n", written);
+
+        EltnPullParser p = parser(written);
+        p.next();
+        p.next();
+        assertEquals(value, p.getString());
+    }
+
+    @Test
+    public void testCodePointSink() throws IOException {
+        StringWriter out = new StringWriter();
+        EltnWriter writer = new DefaultEltnWriterFactory().createWriter(
+                CodePoint.getSink(out, StandardCharsets.UTF_16));
+        writer.writeDefName("s");
+        writer.writeValue("\ud83d\ude00");
+        writer.close();
+        assertEquals("s = \"\ud83d\ude00\"\n", out.toString());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnChars}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnCharsTest {
+
+    @Test
+    public void testClassesMatchCharacter() {
+        for (int cp = -1; cp < 0x3000; cp++) {
+            String c = Integer.toHexString(cp);
+            assertEquals(c, cp >= 0 && Character.isWhitespace(cp),
+                    EltnChars.isEltnSpace(cp));
+            assertEquals(c, cp >= 0 && Character.isDigit(cp),
+                    EltnChars.isEltnDigit(cp));
+            assertEquals(c, cp >= 0 && Character.isJavaIdentifierStart(cp),
+                    EltnChars.isEltnNameStart(cp));
+            assertEquals(c, cp >= 0 && Character.isJavaIdentifierPart(cp),
+                    EltnChars.isEltnNamePart(cp));
+        }
+        assertTrue(EltnChars.isEltnNumberPart('x'));
+        assertTrue(EltnChars.isEltnNumberPart('-'));
+        assertFalse(EltnChars.isEltnNumberPart('g'));
+        assertFalse(EltnChars.isEltnNumberPart((byte) 0xC3));
+    }
+
+    @Test
+    public void testContinuesNumber() {
+        assertTrue(EltnChars.continuesNumber('1', 'e', false));
+        assertTrue(EltnChars.continuesNumber('e', '-', false));
+        assertTrue(EltnChars.continuesNumber('E', '+', false));
+        assertFalse(EltnChars.continuesNumber('1', '-', false));
+        assertFalse(EltnChars.continuesNumber('1', '+', false));
+        assertTrue(EltnChars.continuesNumber('p', '-', true));
+        assertFalse(EltnChars.continuesNumber('e', '-', true));
+        assertFalse(EltnChars.continuesNumber('1', ' ', false));
+    }
+
+    @Test
+    public void testIdentifierType() {
+        assertEquals(EltnTokenType.TOKEN_TRUE, EltnChars.identifierType("true"));
+        assertEquals(EltnTokenType.TOKEN_FALSE, EltnChars.identifierType("false"));
+        assertEquals(EltnTokenType.TOKEN_NIL,
+                EltnChars.identifierType(new StringBuilder("nil")));
+        for (String word : new String[]{"and", "break", "do", "else",
+            "elseif", "end", "for", "function", "goto", "if", "in", "local",
+            "not", "or", "repeat", "return", "then", "until", "while"}) {
+            assertTrue(word, EltnChars.isReservedWord(word));
+            assertEquals(word, EltnTokenType.TOKEN_INVALID,
+                    EltnChars.identifierType(word));
+        }
+        for (String word : new String[]{"a", "tru", "truee", "True", "nix",
+            "elsei", "functions", "_end", "\u00e9nd", "x", "retur"}) {
+            assertFalse(word, EltnChars.isReservedWord(word));
+            assertEquals(word, EltnTokenType.TOKEN_IDENTIFIER,
+                    EltnChars.identifierType(word));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnNumbers}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnNumbersTest {
+
+    private final EltnToken _token = new EltnToken("");
+
+    private EltnTokenType parse(String text) {
+        return EltnNumbers.parse(text, _token);
+    }
+
+    private void assertInteger(long expected, String text) {
+        assertEquals(text, EltnTokenType.TOKEN_INTEGER, parse(text));
+        assertEquals(text, expected, _token.longValue);
+        assertEquals(text, (double) expected, _token.doubleValue, 0.0);
+    }
+
+    private void assertNumber(double expected, String text) {
+        assertEquals(text, EltnTokenType.TOKEN_NUMBER, parse(text));
+        assertEquals(text, Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(_token.doubleValue));
+    }
+
+    private void assertInvalid(String text) {
+        assertEquals(text, EltnTokenType.TOKEN_INVALID, parse(text));
+    }
+
+    @Test
+    public void testDecimalIntegers() {
+        assertInteger(0, "0");
+        assertInteger(0, "-0");
+        assertInteger(42, "0042");
+        assertInteger(-17, "-17");
+        assertInteger(Long.MAX_VALUE, "9223372036854775807");
+        assertInteger(Long.MIN_VALUE, "-9223372036854775808");
+        assertNumber(9223372036854775808.0, "9223372036854775808");
+        assertNumber(-9223372036854775809.0, "-9223372036854775809");
+        assertNumber(1e20, "100000000000000000000");
+    }
+
+    @Test
+    public void testHexIntegers() {
+        assertInteger(255, "0xff");
+        assertInteger(-16, "-0X10");
+        assertInteger(-1, "0xffffffffffffffff");
+        /* wraps around like Lua */
+        assertInteger(0x23456789abcdef01L, "0x123456789abcdef01");
+    }
+
+    @Test
+    public void testDecimalFloats() {
+        assertNumber(1.0, "1.");
+        assertNumber(0.5, ".5");
+        assertNumber(-0.0, "-0.0");
+        assertNumber(2.5, "2.5");
+        assertNumber(1000.0, "1e3");
+        assertNumber(0.001, "1E-3");
+        assertNumber(1.5e+300, "1.5e+300");
+        assertNumber(4.9e-324, "4.9e-324");
+        assertNumber(0.0, "1e-400");
+        assertNumber(0.1, "0.1000000000000000000000000000000000001");
+        assertNumber(1.7976931348623157e308, "1.7976931348623157e308");
+    }
+
+    @Test
+    public void testHexFloats() {
+        assertNumber(16.0, "0x1p4");
+        assertNumber(0.5, "0x.8");
+        assertNumber(1.5, "0x1.8");
+        assertNumber(-0.25, "-0x1P-2");
+        assertNumber(255.5, "0xff.8p0");
+        assertNumber(Double.MIN_VALUE, "0x1p-1074");
+        assertNumber(Double.MAX_VALUE, "0x1.fffffffffffffp1023");
+        assertNumber(0x1.23456789abcdefp0, "0x1.23456789abcdef0123");
+    }
+
+    @Test
+    public void testInvalid() {
+        assertInvalid("");
+        assertInvalid("-");
+        assertInvalid(".");
+        assertInvalid("0x");
+        assertInvalid("0x.p1");
+        assertInvalid("1e");
+        assertInvalid("1e+");
+        assertInvalid("0x1p");
+        assertInvalid("1..2");
+        assertInvalid("1.2.3");
+        assertInvalid("1-2");
+        assertInvalid("1f");
+        assertInvalid("1d");
+        assertInvalid("12abc");
+        assertInvalid("0x1g");
+        assertInvalid("1e999");
+        assertInvalid("0x1p99999");
+    }
+
+    @Test
+    public void testAgreesWithJava() {
+        Random random = new Random(20250101);
+        for (int n = 0; n < 20000; n++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            assertNumber(d, Double.toString(d));
+            assertNumber(d, Double.toHexString(d).replace("0x0.", "0x.")
+                    .replace("0x1.0p", "0x1p"));
+        }
+        for (int n = 0; n < 20000; n++) {
+            String text = random.nextInt(1000000) + "." + random.nextInt(1000)
+                    + "e" + (random.nextInt(60) - 30);
+            assertNumber(Double.parseDouble(text), text);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import com.frank_mitchell.eltnpp.EltnError;
+import com.frank_mitchell.eltnpp.EltnEvent;
+import com.frank_mitchell.eltnpp.EltnPullParser;
+import com.frank_mitchell.eltnpp.EltnPullParserFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link EltnStructuralIndex} and {@link IndexedEltnLexer}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class EltnStructuralIndexTest {
+
+    private static final String DOCUMENT
+            = "-- settings\n"
+            + "name = \"server\" --[[ block\n comment ]] port = 8080;\n"
+            + "ratio = -2.5; hex = 0x10 neg=-7\n"
+            + "flags = { true, false, nil, -7, .5, 1e3 }\n"
+            + "nested = { a = { b = { \"x\\ty\", 'it\\'s' } }, [\"two words\"] = 2,"
+            + " [10] = [==[long ]] ]=] string]==], [2.5] = [[]], z = {} }\n"
+            + "gr\u00F6\u00DFe = 'Stra\u00DFe \\'\u00A7\uD801\uDC7F\\''\n"
+            + "last = --[=[ not ]] closed ]=] \"end\" -- trailing";
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String describe(EltnToken token) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(token.type).append(' ').append(token.start).append('-')
+                .append(token.end).append(' ').append(token.getText());
+        switch (token.type) {
+            case TOKEN_QUOTED_STRING:
+                buf.append(token.escaped ? " escaped" : "");
+                break;
+            case TOKEN_INTEGER:
+                buf.append(' ').append(token.longValue);
+                break;
+            case TOKEN_NUMBER:
+                buf.append(' ').append(token.doubleValue);
+                break;
+            case TOKEN_IDENTIFIER:
+                assertEquals(token.getText().hashCode(), token.hash());
+                break;
+            default:
+                break;
+        }
+        return buf.toString();
+    }
+
+    private static List<String> tokens(EltnLexer lexer) throws IOException {
+        List<String> result = new ArrayList<>();
+        EltnToken token;
+        do {
+            token = lexer.nextToken();
+            result.add(describe(token));
+        } while (token.type != EltnTokenType.TOKEN_END_OF_STREAM
+                && token.type != EltnTokenType.TOKEN_INVALID);
+        return result;
+    }
+
+    /**
+     * Describes each event a parser reports with its text and offset.
+     */
+    private static List<String> events(EltnPullParser parser)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        while (parser.hasNext()) {
+            parser.next();
+            EltnEvent event = parser.getEvent();
+            StringBuilder buf = new StringBuilder();
+            buf.append(event).append(' ').append(parser.getDepth())
+                    .append(' ').append(parser.getTextOffset())
+                    .append(' ').append(parser.getText());
+            switch (event) {
+                case DEF_NAME:
+                case TABLE_KEY_STRING:
+                case VALUE_STRING:
+                    buf.append(' ').append(parser.getString());
+                    break;
+                case ERROR:
+                    buf.append(' ').append(parser.getError());
+                    break;
+                default:
+                    break;
+            }
+            buf.append(' ').append(parser.getCurrentPath());
+            result.add(buf.toString());
+        }
+        return result;
+    }
+
+    private static EltnPullParser parser(String text) throws IOException {
+        return new DefaultEltnPullParserFactory().createParser(utf8(text),
+                StandardCharsets.UTF_8);
+    }
+
+    private static EltnPullParser indexedParser(String text)
+            throws IOException {
+        return new DefaultEltnPullParserFactory().withStructuralIndex()
+                .createParser(utf8(text), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEntries() {
+        String text = "a = { [\"k\"] = 'v', --x\n b = {} }";
+        EltnStructuralIndex index = EltnStructuralIndex.build(utf8(text));
+        assertEquals(text.length(), index.length());
+        StringBuilder kinds = new StringBuilder();
+        for (int i = 0; i < index.size(); i++) {
+            kinds.append(index.kind(i));
+        }
+        assertEquals("={[\"]=',-={}}", kinds.toString());
+
+        assertEquals(text.indexOf('{'), index.offset(1));
+        assertEquals(index.size() - 1, index.match(1));
+        assertEquals(11, index.match(10));
+        assertEquals(-1, index.match(0));
+
+        assertTrue(index.isSpan(3));
+        assertEquals(text.indexOf("\"k\""), index.offset(3));
+        assertEquals(text.indexOf("\"k\"") + 3, index.end(3));
+        assertTrue(index.isSpan(8));
+        assertEquals(text.indexOf('\n'), index.end(8));
+        assertFalse(index.isSpan(2));
+        assertEquals(index.offset(2) + 1, index.end(2));
+    }
+
+    @Test
+    public void testSameTokens() throws IOException {
+        List<String> expected = tokens(new Utf8EltnLexer(utf8(DOCUMENT), false));
+        List<String> actual = tokens(new IndexedEltnLexer(
+                EltnStructuralIndex.build(utf8(DOCUMENT))));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSameEvents() throws IOException {
+        List<String> expected = events(parser(DOCUMENT));
+        assertTrue(expected.get(expected.size() - 1).startsWith("STREAM_END"));
+        assertEquals(expected, events(indexedParser(DOCUMENT)));
+    }
+
+    @Test
+    public void testSingleTable() throws IOException {
+        String text = "{ 1, 2, { x = 'y' } }";
+        assertEquals(events(parser(text)), events(indexedParser(text)));
+    }
+
+    @Test
+    public void testCommentAfterNumber() throws IOException {
+        String text = "x = 1--comment\ny = { 1e-2--[[ c ]], 0x1p+4-- }\n}";
+        assertEquals(events(parser(text)), events(indexedParser(text)));
+    }
+
+    @Test
+    public void testSkipTable() throws IOException {
+        EltnPullParser expected = parser(DOCUMENT);
+        EltnPullParser actual = indexedParser(DOCUMENT);
+        List<String> expectedEvents = new ArrayList<>();
+        List<String> actualEvents = new ArrayList<>();
+        for (EltnPullParser p : new EltnPullParser[]{expected, actual}) {
+            List<String> events = (p == expected) ? expectedEvents : actualEvents;
+            while (p.hasNext()) {
+                p.next();
+                events.add(p.getEvent() + " " + p.getTextOffset()
+                        + " " + p.getCurrentPath());
+                if (p.getEvent() == EltnEvent.TABLE_KEY_STRING
+                        && p.getString().equals("a")) {
+                    /* from the middle of a nested table */
+                    p.next();
+                    p.next();
+                    p.skipTable();
+                    events.add(p.getEvent() + " " + p.getTextOffset());
+                } else if (p.getEvent() == EltnEvent.DEF_NAME
+                        && p.getString().equals("flags")) {
+                    p.skipValue();
+                    events.add(p.getEvent() + " " + p.getTextOffset());
+                }
+            }
+        }
+        assertEquals(expectedEvents, actualEvents);
+        assertTrue(actualEvents.contains("TABLE_END " + (DOCUMENT.indexOf("} }") + 2)));
+    }
+
+    @Test
+    public void testOffsetsFromBufferPosition() throws IOException {
+        String text = "x = { 'y' }";
+        byte[] padded = ("junk" + text).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.wrap(padded);
+        heap.position(4);
+        ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+        direct.put(padded).flip().position(4);
+
+        List<String> expected = events(parser(text));
+        EltnPullParserFactory factory
+                = new DefaultEltnPullParserFactory().withStructuralIndex();
+        assertEquals(expected, events(factory.createParser(heap,
+                StandardCharsets.UTF_8)));
+        assertEquals(expected, events(factory.createParser(direct,
+                StandardCharsets.UTF_8)));
+        assertEquals(4, heap.position());
+        assertEquals(4, direct.position());
+    }
+
+    @Test
+    public void testRewalk() throws IOException {
+        EltnStructuralIndex index = EltnStructuralIndex.build(utf8(DOCUMENT));
+        EltnPullParser first = index.createParser();
+        EltnPullParser second = index.createParser();
+        List<String> expected = events(parser(DOCUMENT));
+        /* interleave two walks of the same index */
+        first.next();
+        first.next();
+        assertEquals(expected, events(second));
+        List<String> rest = events(first);
+        assertEquals(expected.subList(2, expected.size()), rest);
+        assertEquals(expected, events(index.createParser()));
+    }
+
+    @Test
+    public void testNoLines() throws IOException {
+        EltnPullParser p = indexedParser("a = 1\nb = 2");
+        while (p.hasNext()) {
+            p.next();
+            assertEquals(-1, p.getTextLineNumber());
+            assertEquals(-1, p.getTextColumnNumber());
+        }
+    }
+
+    @Test
+    public void testUnterminated() throws IOException {
+        for (String text : new String[]{
+            "a = 'open", "a = 'two\nlines'", "a = 'open\\", "a = [[open", "a = [=x", "a = 1 --[[ open",
+            "a = { b = 1", "a = { 1 } }"}) {
+            EltnPullParser p = indexedParser(text);
+            while (p.hasNext()) {
+                p.next();
+            }
+            assertEquals(text, EltnEvent.ERROR, p.getEvent());
+            assertNotEquals(text, EltnError.OK, p.getError());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testOtherCharset() {
+        EltnStructuralIndex.build(utf8("a = 1"), StandardCharsets.UTF_16);
+    }
+}
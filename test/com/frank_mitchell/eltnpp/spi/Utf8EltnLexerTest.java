@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 Frank Mitchell <me@frank-mitchell.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.frank_mitchell.eltnpp.spi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Utf8EltnLexer}.
+ *
+ * @author Frank Mitchell <me@frank-mitchell.com>
+ */
+public class Utf8EltnLexerTest {
+
+    private static final String TEXT
+            = "gr\u00F6\u00DFe = 'Stra\u00DFe \\'\u00A7\u1E9E\uD801\uDC7F\\''\n  name = true";
+
+    /**
+     * Hands out one byte per read, so every token crosses a refill.
+     */
+    private static final class TrickleStream extends InputStream {
+        private final byte[] _bytes;
+        private int _index = 0;
+
+        TrickleStream(byte[] bytes) {
+            _bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return _index < _bytes.length ? (_bytes[_index++] & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (_index >= _bytes.length) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            b[off] = _bytes[_index++];
+            return 1;
+        }
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertTokens(EltnLexer lexer) throws IOException {
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, token.type);
+        assertEquals("gr\u00F6\u00DFe", token.getText());
+        assertEquals(0, token.start);
+        assertEquals(7, token.end);
+        assertEquals(1, token.line);
+        assertEquals(1, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_EQUALS, token.type);
+        assertEquals(8, token.start);
+        assertEquals(7, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_QUOTED_STRING, token.type);
+        assertEquals("'Stra\u00DFe \\'\u00A7\u1E9E\uD801\uDC7F\\''",
+                token.getText());
+        assertEquals('\uD801', token.getChars().charAt(12));
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, token.type);
+        assertEquals("name", token.getText());
+        assertEquals(2, token.line);
+        assertEquals(3, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_EQUALS, token.type);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_TRUE, token.type);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM, token.type);
+        assertEquals(utf8(TEXT).length, token.start);
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        InputStream stream = new ByteArrayInputStream(utf8(TEXT));
+        assertTokens(new Utf8EltnLexer(stream, false));
+    }
+
+    @Test
+    public void testStreamRefill() throws IOException {
+        InputStream stream = new TrickleStream(utf8(TEXT));
+        assertTokens(new Utf8EltnLexer(stream, false));
+    }
+
+    @Test
+    public void testHeapBuffer() throws IOException {
+        byte[] bytes = utf8("xx" + TEXT + "yy");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 4);
+        assertTokens(new Utf8EltnLexer(buffer.slice(), false));
+        assertEquals(0, buffer.slice().position());
+    }
+
+    @Test
+    public void testDirectBuffer() throws IOException {
+        byte[] bytes = utf8(TEXT);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        assertTokens(new Utf8EltnLexer(buffer, false));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testSkipTableRefill() throws IOException {
+        String text = "{ 'x\u00E9}' [==[ }\n ]] ]==] --[[ } ]]\n  \u00E9 } next";
+        InputStream stream = new TrickleStream(utf8(text));
+        EltnLexer lexer = new Utf8EltnLexer(stream, false);
+
+        assertEquals(EltnTokenType.TOKEN_CURLY_OPEN, lexer.nextToken().type);
+
+        EltnToken token = lexer.skipTable();
+        assertEquals(EltnTokenType.TOKEN_CURLY_CLOSE, token.type);
+        assertEquals("}", token.getText());
+        assertEquals(utf8(text).length - 6, token.start);
+        assertEquals(3, token.line);
+        assertEquals(5, token.column);
+
+        token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_IDENTIFIER, token.type);
+        assertEquals("next", token.getText());
+
+        token = lexer.skipTable();
+        assertEquals(EltnTokenType.TOKEN_END_OF_STREAM, token.type);
+        assertEquals(utf8(text).length, token.start);
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        byte[] bytes = {'\'', 'a', (byte) 0xC3, 'b', (byte) 0xFF, '\''};
+        EltnLexer lexer = new Utf8EltnLexer(ByteBuffer.wrap(bytes), false);
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_QUOTED_STRING, token.type);
+        assertEquals("'a\uFFFDb\uFFFD'", token.getText());
+    }
+
+    @Test
+    public void testAsciiOnly() throws IOException {
+        byte[] bytes = utf8("'\u00E9'");
+        EltnLexer lexer = new Utf8EltnLexer(ByteBuffer.wrap(bytes), true);
+
+        EltnToken token = lexer.nextToken();
+        assertEquals(EltnTokenType.TOKEN_QUOTED_STRING, token.type);
+        assertEquals("'\uFFFD\uFFFD'", token.getText());
+    }
+}